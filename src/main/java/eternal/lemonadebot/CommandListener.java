@@ -31,6 +31,7 @@ import eternal.lemonadebot.config.ConfigManager;
 import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import eternal.lemonadebot.messageparsing.MessageMatcher;
+import eternal.lemonadebot.outbox.MessagePriority;
 import eternal.lemonadebot.translation.TranslationCache;
 import java.util.List;
 import java.util.Optional;
@@ -114,7 +115,7 @@ public class CommandListener extends ListenerAdapter {
                 responseBuilder.appendFormat(resources.getString("BOT_VERSION"), LemonadeBot.BOT_VERSION);
                 responseBuilder.append('\n');
                 responseBuilder.appendFormat(resources.getString("PREFIX_CURRENT_VALUE"), configManager.getCommandPrefix());
-                textChannel.sendMessage(responseBuilder.build()).queue();
+                this.storage.getOutbox().send(textChannel, responseBuilder.build(), MessagePriority.INTERACTIVE);
                 return;
             }
         }
@@ -26,6 +26,8 @@ package eternal.lemonadebot;
 import eternal.lemonadebot.config.ConfigCache;
 import eternal.lemonadebot.config.ConfigManager;
 import eternal.lemonadebot.database.StorageManager;
+import eternal.lemonadebot.outbox.MessagePriority;
+import eternal.lemonadebot.outbox.Outbox;
 import java.util.Optional;
 import net.dv8tion.jda.api.MessageBuilder;
 import net.dv8tion.jda.api.entities.Guild;
@@ -46,6 +48,7 @@ public class JoinListener extends ListenerAdapter {
     private static final Logger LOGGER = LogManager.getLogger();
 
     private final ConfigCache configs;
+    private final Outbox outbox;
 
     /**
      * Constructor
@@ -54,6 +57,7 @@ public class JoinListener extends ListenerAdapter {
      */
     public JoinListener(final StorageManager storage) {
         this.configs = storage.getConfigCache();
+        this.outbox = storage.getOutbox();
     }
 
     /**
@@ -92,7 +96,7 @@ public class JoinListener extends ListenerAdapter {
         final MessageBuilder mb = new MessageBuilder(greetTemplate);
         mb.replace("{name}", member.getEffectiveName());
         mb.replace("{mention}", member.getAsMention());
-        textChannel.sendMessage(mb.build()).queue();
+        this.outbox.send(textChannel, mb.build(), MessagePriority.SCHEDULED);
     }
 
     /**
@@ -112,7 +116,7 @@ public class JoinListener extends ListenerAdapter {
             return;
         }
         if (channel.canTalk()) {
-            channel.sendMessage("Hello everyone I'm a new bot here, nice to meet you all").queue();
+            this.outbox.send(channel, "Hello everyone I'm a new bot here, nice to meet you all", MessagePriority.SCHEDULED);
         }
     }
 
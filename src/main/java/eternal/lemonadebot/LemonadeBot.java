@@ -23,6 +23,9 @@
  */
 package eternal.lemonadebot;
 
+import eternal.lemonadebot.cache.ActiveMemberCachePolicy;
+import eternal.lemonadebot.cache.MemberCacheMonitor;
+import eternal.lemonadebot.database.StorageConfig;
 import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.keywords.KeywordListener;
 import eternal.lemonadebot.messagelogs.LoggerListener;
@@ -34,6 +37,7 @@ import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.Executors;
@@ -41,6 +45,7 @@ import javax.security.auth.login.LoginException;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
 import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import net.dv8tion.jda.api.utils.cache.CacheFlag;
 import org.apache.logging.log4j.LogManager;
@@ -58,6 +63,7 @@ public class LemonadeBot {
      */
     public static final String BOT_VERSION = LemonadeBot.class.getPackage().getImplementationVersion();
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final Duration MEMBER_CACHE_LOG_INTERVAL = Duration.ofMinutes(10);
 
     /**
      * Main function
@@ -112,25 +118,43 @@ public class LemonadeBot {
                 CacheFlag.ONLINE_STATUS
         );
         jdabuilder.disableCache(cacheFlagsToDisable);
-        jdabuilder.setMemberCachePolicy(MemberCachePolicy.ALL);
         jdabuilder.setEventPool(Executors.newCachedThreadPool(), true);
         try {
-            //Start loading JDA
-            final JDA jda = jdabuilder.build();
-
             //Connect to the database
             final StorageManager storageManager = new StorageManager(properties);
             LOGGER.debug("Connected to database successfully");
 
+            //Cache either all members or only the active ones
+            final StorageConfig storageConfig = storageManager.getConfig();
+            final ActiveMemberCachePolicy activeMembers;
+            if (storageConfig.lowMemoryMemberCacheEnabled()) {
+                activeMembers = new ActiveMemberCachePolicy(storageConfig.getMemberActiveTime());
+                jdabuilder.setMemberCachePolicy(activeMembers);
+                jdabuilder.setChunkingFilter(ChunkingFilter.NONE);
+            } else {
+                activeMembers = null;
+                jdabuilder.setMemberCachePolicy(MemberCachePolicy.ALL);
+            }
+
+            //Start loading JDA
+            final JDA jda = jdabuilder.build();
+            if (activeMembers != null) {
+                activeMembers.start(jda, storageManager.getTimerService());
+            }
+            final MemberCacheMonitor cacheMonitor = new MemberCacheMonitor(MEMBER_CACHE_LOG_INTERVAL, activeMembers != null);
+            cacheMonitor.start(jda, storageManager.getTimerService());
+
             //Start listening for messages
             jda.addEventListener(new JoinListener(storageManager));
             jda.addEventListener(new CommandListener(storageManager));
             jda.addEventListener(new LoggerListener(storageManager));
             jda.addEventListener(new KeywordListener(storageManager));
             jda.addEventListener(new ShutdownListener(storageManager));
+            jda.addEventListener(storageManager.getReadinessGate());
 
             //Initialize connected guilds
             jda.awaitReady();
+            storageManager.getReadinessGate().updateStatus(jda.getStatus());
             storageManager.initialize(jda.getGuilds());
 
             LOGGER.debug("Startup successful");
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.cache;
+
+import eternal.lemonadebot.scheduling.TimerService;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Member cache policy that only keeps recently active members, members in
+ * voice channels and guild owners in cache. Members are considered active
+ * when JDA loads them, for example when they send a message. Inactive members
+ * are unloaded periodically.
+ *
+ * @author Neutroni
+ */
+public class ActiveMemberCachePolicy implements MemberCachePolicy {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final long activeMillis;
+    //Guild id -> member id -> last time member was seen active
+    private final Map<Long, Map<Long, Long>> lastActive = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param activeTime Time members are kept in cache after last activity
+     */
+    public ActiveMemberCachePolicy(final Duration activeTime) {
+        this.activeMillis = Math.max(activeTime.toMillis(), 1000);
+    }
+
+    @Override
+    public boolean cacheMember(@Nonnull final Member member) {
+        final Map<Long, Long> guildMembers = this.lastActive.computeIfAbsent(member.getGuild().getIdLong(), (Long t) -> {
+            return new ConcurrentHashMap<>();
+        });
+        guildMembers.put(member.getIdLong(), System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Start unloading inactive members periodically
+     *
+     * @param jda JDA to unload members from
+     * @param timer TimerService to schedule the unloading with
+     */
+    public void start(final JDA jda, final TimerService timer) {
+        timer.schedule(() -> {
+            try {
+                unloadInactive(jda);
+            } finally {
+                start(jda, timer);
+            }
+        }, this.activeMillis / 2, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Unload members that have not been active recently
+     *
+     * @param jda JDA to unload members from
+     */
+    void unloadInactive(final JDA jda) {
+        final long cutoff = System.currentTimeMillis() - this.activeMillis;
+        int unloaded = 0;
+        for (final Map.Entry<Long, Map<Long, Long>> guildEntry : this.lastActive.entrySet()) {
+            final Guild guild = jda.getGuildById(guildEntry.getKey());
+            if (guild == null) {
+                this.lastActive.remove(guildEntry.getKey());
+                continue;
+            }
+            final Iterator<Map.Entry<Long, Long>> iterator = guildEntry.getValue().entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Long, Long> entry = iterator.next();
+                if (entry.getValue() > cutoff) {
+                    continue;
+                }
+                final Member member = guild.getMemberById(entry.getKey());
+                if (member == null) {
+                    iterator.remove();
+                    continue;
+                }
+                //Keep members in voice, owners and the bot itself
+                if (MemberCachePolicy.VOICE.cacheMember(member) || MemberCachePolicy.OWNER.cacheMember(member)
+                        || member.equals(guild.getSelfMember())) {
+                    entry.setValue(System.currentTimeMillis());
+                    continue;
+                }
+                iterator.remove();
+                if (guild.unloadMember(member.getIdLong())) {
+                    unloaded++;
+                }
+            }
+        }
+        LOGGER.debug("Unloaded {} inactive members", unloaded);
+    }
+}
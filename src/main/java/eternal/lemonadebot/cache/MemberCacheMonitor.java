@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.cache;
+
+import eternal.lemonadebot.scheduling.TimerService;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Logs the number of cached members and the heap in use so the full and the
+ * low-memory member cache modes can be compared on a live bot. Only runs when
+ * debug logging is enabled.
+ *
+ * @author Neutroni
+ */
+public class MemberCacheMonitor {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final long intervalMillis;
+    private final String mode;
+
+    /**
+     * Constructor
+     *
+     * @param interval Time between measurements
+     * @param lowMemory Whether the low-memory member cache is in use
+     */
+    public MemberCacheMonitor(final Duration interval, final boolean lowMemory) {
+        this.intervalMillis = Math.max(interval.toMillis(), 1000);
+        this.mode = lowMemory ? "low-memory" : "full";
+    }
+
+    /**
+     * Start logging measurements periodically
+     *
+     * @param jda JDA to count the cached members of
+     * @param timer TimerService to schedule the measurements with
+     */
+    public void start(final JDA jda, final TimerService timer) {
+        if (!LOGGER.isDebugEnabled()) {
+            return;
+        }
+        timer.schedule(() -> {
+            try {
+                logFootprint(jda);
+            } finally {
+                start(jda, timer);
+            }
+        }, this.intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Log the cached member count and heap use
+     *
+     * @param jda JDA to count the cached members of
+     */
+    void logFootprint(final JDA jda) {
+        long cached = 0;
+        for (final Guild guild : jda.getGuilds()) {
+            cached += guild.getMemberCache().size();
+        }
+        //Heap left after the last collection is less noisy than current use
+        long retained = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            final MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                retained += usage.getUsed();
+            }
+        }
+        final Runtime runtime = Runtime.getRuntime();
+        final long used = runtime.totalMemory() - runtime.freeMemory();
+        LOGGER.debug("Member cache ({}): {} members cached in {} guilds, heap used {} KB, retained after GC {} KB",
+                this.mode, cached, jda.getGuilds().size(), used / 1024, retained / 1024);
+    }
+}
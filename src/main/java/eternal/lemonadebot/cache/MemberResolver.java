@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.cache;
+
+import eternal.lemonadebot.scheduling.TimerService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Resolves guild members for rendering lists. Members are looked up from the
+ * JDA cache first, then from members resolved recently and the rest are
+ * retrieved from discord in batches.
+ *
+ * @author Neutroni
+ */
+public class MemberResolver {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    //Maximum number of members that can be requested at once
+    private static final int BATCH_SIZE = 100;
+    //Interval for removing expired members
+    private static final long SWEEP_INTERVAL_MINUTES = 5;
+
+    private final long ttlMillis;
+    //Guild id -> member id -> resolved member
+    private final Map<Long, Map<Long, ResolvedMember>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param ttl Time resolved members are remembered
+     */
+    public MemberResolver(final Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Start removing expired members periodically, members are also checked
+     * for expiry on lookup so sweeping only frees memory
+     *
+     * @param timer TimerService to schedule the removal with
+     */
+    public void start(final TimerService timer) {
+        timer.schedule(() -> {
+            try {
+                sweep();
+            } finally {
+                start(timer);
+            }
+        }, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Remove expired members, including those of guilds bot is no longer in
+     */
+    private void sweep() {
+        final long now = System.currentTimeMillis();
+        for (final Long guildID : this.resolved.keySet()) {
+            //Atomic with computeIfAbsent for the same guild
+            this.resolved.computeIfPresent(guildID, (Long t, Map<Long, ResolvedMember> guildMembers) -> {
+                guildMembers.values().removeIf((ResolvedMember member) -> {
+                    return member.expires < now;
+                });
+                return guildMembers.isEmpty() ? null : guildMembers;
+            });
+        }
+    }
+
+    /**
+     * Resolve single member
+     *
+     * @param guild Guild to get the member from
+     * @param memberID ID of the member
+     * @return Future containing the member or null if member is not in the
+     * guild, completes exceptionally if retrieving the member fails
+     */
+    public CompletableFuture<Member> resolveMember(final Guild guild, final long memberID) {
+        return resolveMembers(guild, List.of(memberID)).thenApply((Map<Long, Member> members) -> {
+            return members.get(memberID);
+        });
+    }
+
+    /**
+     * Resolve members of a guild
+     *
+     * @param guild Guild to get the members from
+     * @param memberIDs IDs of the members, duplicates are allowed
+     * @return Future containing map of member id to member for members found,
+     * completes exceptionally if retrieving the members fails
+     */
+    public CompletableFuture<Map<Long, Member>> resolveMembers(final Guild guild, final Collection<Long> memberIDs) {
+        final long now = System.currentTimeMillis();
+        final Map<Long, ResolvedMember> guildResolved = this.resolved.computeIfAbsent(guild.getIdLong(), (Long t) -> {
+            return new ConcurrentHashMap<>();
+        });
+
+        final Map<Long, Member> found = new ConcurrentHashMap<>();
+
+        //Check caches
+        final Set<Long> missing = new LinkedHashSet<>();
+        for (final Long memberID : memberIDs) {
+            if (found.containsKey(memberID) || missing.contains(memberID)) {
+                continue;
+            }
+            final Member cached = guild.getMemberById(memberID);
+            if (cached != null) {
+                found.put(memberID, cached);
+                continue;
+            }
+            final ResolvedMember recent = guildResolved.get(memberID);
+            if (recent == null || recent.expires < now) {
+                missing.add(memberID);
+            } else if (recent.member != null) {
+                found.put(memberID, recent.member);
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(found);
+        }
+
+        //Retrieve the rest in batches
+        final List<Long> missingList = new ArrayList<>(missing);
+        final List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int i = 0; i < missingList.size(); i += BATCH_SIZE) {
+            final List<Long> batch = missingList.subList(i, Math.min(i + BATCH_SIZE, missingList.size()));
+            final CompletableFuture<Void> batchDone = new CompletableFuture<>();
+            guild.retrieveMembersByIds(false, batch).onSuccess((List<Member> members) -> {
+                final long expires = System.currentTimeMillis() + this.ttlMillis;
+                for (final Member member : members) {
+                    found.put(member.getIdLong(), member);
+                    guildResolved.put(member.getIdLong(), new ResolvedMember(member, expires));
+                }
+                //Remember members that are no longer in the guild
+                for (final Long memberID : batch) {
+                    if (!found.containsKey(memberID)) {
+                        guildResolved.put(memberID, new ResolvedMember(null, expires));
+                    }
+                }
+                batchDone.complete(null);
+            }).onError((Throwable t) -> {
+                LOGGER.warn("Failed to retrieve members for guild {}: {}", guild.getIdLong(), t.getMessage());
+                LOGGER.trace("Stack trace: ", t);
+                batchDone.completeExceptionally(t);
+            });
+            batches.add(batchDone);
+        }
+        LOGGER.debug("Resolving {} members, {} retrieved in {} batches", memberIDs.size(), missingList.size(), batches.size());
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply((Void t) -> {
+            return found;
+        });
+    }
+
+    /**
+     * Member resolved from discord, member is null if not found
+     */
+    private static class ResolvedMember {
+
+        private final Member member;
+        private final long expires;
+
+        ResolvedMember(final Member member, final long expires) {
+            this.member = member;
+            this.expires = expires;
+        }
+    }
+}
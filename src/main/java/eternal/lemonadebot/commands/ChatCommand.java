@@ -30,11 +30,9 @@ import eternal.lemonadebot.permissions.CommandPermission;
 import eternal.lemonadebot.permissions.PermissionManager;
 import java.time.Duration;
 import java.util.Collection;
-import java.util.List;
 import java.util.ResourceBundle;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
-import net.dv8tion.jda.api.entities.TextChannel;
 
 /**
  * Interface all commands must implement
@@ -87,7 +85,6 @@ public abstract class ChatCommand {
         final CommandMatcher cmdMatch = context.getMatcher();
         final Member member = cmdMatch.getMember();
         final String inputString = cmdMatch.getAction();
-        final TextChannel textChannel = cmdMatch.getTextChannel();
         final ResourceBundle resources = context.getResource();
         final StorageManager storage = context.getStorageManager();
 
@@ -99,7 +96,7 @@ public abstract class ChatCommand {
                 return;
             }
             final String response = resources.getString("ERROR_INSUFFICIENT_PERMISSION");
-            textChannel.sendMessage(response).queue();
+            context.replyError(response);
             return;
         }
 
@@ -113,8 +110,10 @@ public abstract class ChatCommand {
             //Command on cooldown
             final String template = resources.getString("ERROR_COMMAND_COOLDOWN_TIME");
             final String currentCooldown = CooldownManager.formatDuration(t, resources);
-            textChannel.sendMessage(template + currentCooldown).queue();
+            context.replyError(template + currentCooldown);
         }, () -> {
+            //Make sure the guild is initialized before first command
+            storage.getCommandProvider().initializeGuild(context.getGuild(), storage);
             //Run the command
             respond(context);
         });
@@ -137,12 +136,22 @@ public abstract class ChatCommand {
     protected abstract void respond(final CommandContext context);
 
     /**
-     * Initialize data that the command needs
+     * Initialize data that the command needs, called once at startup
      *
-     * @param guilds List of guilds that need to be initialized
      * @param storage StorageManager to use for intialization
      */
-    public void initialize(final List<Guild> guilds, final StorageManager storage) {
+    public void initialize(final StorageManager storage) {
+        //No-op
+    }
+
+    /**
+     * Initialize data the command needs for a guild, called once for each
+     * guild, possibly from multiple threads at the same time
+     *
+     * @param guild Guild to initialize
+     * @param storage StorageManager to use for intialization
+     */
+    public void initializeGuild(final Guild guild, final StorageManager storage) {
         //No-op
     }
 
@@ -23,14 +23,20 @@
  */
 package eternal.lemonadebot.commands;
 
+import eternal.lemonadebot.cache.MemberResolver;
 import eternal.lemonadebot.config.ConfigManager;
 import eternal.lemonadebot.cooldowns.CooldownManager;
 import eternal.lemonadebot.database.StorageManager;
+import eternal.lemonadebot.messagelogs.MessageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
+import eternal.lemonadebot.outbox.MessagePriority;
 import eternal.lemonadebot.permissions.PermissionManager;
 import eternal.lemonadebot.translation.TranslationCache;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicLong;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.TextChannel;
 
 /**
@@ -40,8 +46,13 @@ import net.dv8tion.jda.api.entities.TextChannel;
  */
 public class CommandContext {
 
+    //Identifies the replies of a single command so only they are merged
+    private static final AtomicLong REPLY_SOURCES = new AtomicLong();
+
     private final CommandMatcher message;
     private final StorageManager storage;
+    private final MessagePriority priority;
+    private final long replySource = REPLY_SOURCES.incrementAndGet();
 
     /**
      * Constructor
@@ -51,8 +62,20 @@ public class CommandContext {
      *
      */
     public CommandContext(final CommandMatcher matcher, final StorageManager storage) {
+        this(matcher, storage, MessagePriority.INTERACTIVE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param matcher Message that initiated the command
+     * @param storage StorageManager to pass to commands
+     * @param priority Priority for the responses of the command
+     */
+    public CommandContext(final CommandMatcher matcher, final StorageManager storage, final MessagePriority priority) {
         this.message = matcher;
         this.storage = storage;
+        this.priority = priority;
     }
 
     /**
@@ -146,4 +169,69 @@ public class CommandContext {
         return this.storage.getCooldownManager();
     }
 
+    /**
+     * Shortcut to get messageManager from storage
+     *
+     * @return MessageManager
+     */
+    public MessageManager getMessageManager() {
+        return this.storage.getMessageManager();
+    }
+
+    /**
+     * Shortcut to get memberResolver from storage
+     *
+     * @return MemberResolver
+     */
+    public MemberResolver getMemberResolver() {
+        return this.storage.getMemberResolver();
+    }
+
+    /**
+     * Get the priority responses for this command are sent with
+     *
+     * @return MessagePriority
+     */
+    public MessagePriority getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Send text response to the channel command was initiated in
+     *
+     * @param content Content of the response
+     */
+    public void reply(final CharSequence content) {
+        this.storage.getOutbox().send(getChannel(), content, this.priority, this.replySource);
+    }
+
+    /**
+     * Send prebuilt response to the channel command was initiated in
+     *
+     * @param response Message to send
+     */
+    public void reply(final Message response) {
+        this.storage.getOutbox().send(getChannel(), response, this.priority);
+    }
+
+    /**
+     * Send embed to the channel command was initiated in
+     *
+     * @param embed Embed to send
+     */
+    public void reply(final MessageEmbed embed) {
+        this.storage.getOutbox().sendEmbed(getChannel(), embed, this.priority);
+    }
+
+    /**
+     * Send error response to the channel command was initiated in, errors for
+     * commands run by users are sent with error priority
+     *
+     * @param content Content of the response
+     */
+    public void replyError(final CharSequence content) {
+        final MessagePriority errorPriority = (this.priority == MessagePriority.INTERACTIVE) ? MessagePriority.ERROR : this.priority;
+        this.storage.getOutbox().send(getChannel(), content, errorPriority, this.replySource);
+    }
+
 }
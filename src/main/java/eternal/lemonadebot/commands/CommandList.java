@@ -30,6 +30,7 @@ import eternal.lemonadebot.database.DatabaseManager;
 import eternal.lemonadebot.events.EventCommand;
 import eternal.lemonadebot.inventory.InventoryCommand;
 import eternal.lemonadebot.keywords.KeywordCommand;
+import eternal.lemonadebot.messagelogs.LogCommand;
 import eternal.lemonadebot.music.MusicCommand;
 import eternal.lemonadebot.notifications.NotificationCommand;
 import eternal.lemonadebot.permissions.PermissionCommand;
@@ -65,8 +66,8 @@ public class CommandList implements Iterable<ChatCommand>, Closeable {
     public CommandList(final DatabaseManager db) {
         this.commands = List.of(
                 new HelpCommand(),
-                new MusicCommand(),
-                new EventCommand(db),
+                new MusicCommand(db),
+                new EventCommand(),
                 new TemplateCommand(db),
                 new RoleCommand(db),
                 new InventoryCommand(db),
@@ -76,7 +77,8 @@ public class CommandList implements Iterable<ChatCommand>, Closeable {
                 new ReminderCommand(db),
                 new NotificationCommand(db),
                 new PermissionCommand(),
-                new KeywordCommand(db)
+                new KeywordCommand(db),
+                new LogCommand()
         );
     }
 
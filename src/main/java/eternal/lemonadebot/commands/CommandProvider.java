@@ -29,9 +29,19 @@ import eternal.lemonadebot.database.DatabaseManager;
 import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 import net.dv8tion.jda.api.entities.Guild;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -47,6 +57,8 @@ public class CommandProvider {
 
     private final CommandList commands;
     private final TemplateManager templates;
+    private final int initThreads;
+    private final Map<Long, FutureTask<Void>> guildInits = new ConcurrentHashMap<>();
 
     /**
      * Constructor
@@ -56,6 +68,7 @@ public class CommandProvider {
     public CommandProvider(final DatabaseManager db) {
         this.commands = new CommandList(db);
         this.templates = new TemplateManager(db);
+        this.initThreads = db.getConfig().getInitThreadCount();
     }
 
     /**
@@ -116,15 +129,77 @@ public class CommandProvider {
     }
 
     /**
-     * Initialize storage for each command
+     * Initialize storage for each command. Guilds are initialized in the
+     * background largest first, guilds not yet initialized are initialized
+     * on demand when they run their first command.
      *
      * @param guilds Guilds to initialize commands for
      * @param storage SotrageManager to use for initialization
      */
     public void initialize(final List<Guild> guilds, final StorageManager storage) {
+        final long commandStart = System.nanoTime();
         this.commands.forEach((ChatCommand t) -> {
-            t.initialize(guilds, storage);
+            t.initialize(storage);
         });
+        LOGGER.info("Startup phase commands took {} ms", (System.nanoTime() - commandStart) / 1_000_000);
+
+        //Member count as a proxy for activity, busiest guilds first
+        final List<Guild> ordered = new ArrayList<>(guilds);
+        ordered.sort(Comparator.comparingInt(Guild::getMemberCount).reversed());
+
+        final long guildStart = System.nanoTime();
+        final AtomicLong slowest = new AtomicLong();
+        final ExecutorService executor = Executors.newFixedThreadPool(this.initThreads);
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[ordered.size()];
+        for (int i = 0; i < futures.length; i++) {
+            final Guild guild = ordered.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                final long start = System.nanoTime();
+                initializeGuild(guild, storage);
+                slowest.accumulateAndGet(System.nanoTime() - start, Math::max);
+            }, executor);
+        }
+        executor.shutdown();
+        CompletableFuture.allOf(futures).whenComplete((Void t, Throwable u) -> {
+            LOGGER.info("Startup phase guilds took {} ms for {} guilds, slowest guild {} ms",
+                    (System.nanoTime() - guildStart) / 1_000_000, futures.length, slowest.get() / 1_000_000);
+        });
+    }
+
+    /**
+     * Initialize commands for guild if not yet initialized, waits for
+     * initialization to finish if it is already running
+     *
+     * @param guild Guild to initialize
+     * @param storage StorageManager to use for initialization
+     */
+    public void initializeGuild(final Guild guild, final StorageManager storage) {
+        final long guildID = guild.getIdLong();
+        FutureTask<Void> task = this.guildInits.get(guildID);
+        if (task == null) {
+            final FutureTask<Void> newTask = new FutureTask<>(() -> {
+                this.commands.forEach((ChatCommand t) -> {
+                    t.initializeGuild(guild, storage);
+                });
+            }, null);
+            task = this.guildInits.putIfAbsent(guildID, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            task.get();
+        } catch (ExecutionException ex) {
+            //Allow retrying on next command
+            this.guildInits.remove(guildID, task);
+            LOGGER.error("Failed to initialize guild: {} error: {}", guildID, ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        } catch (InterruptedException ex) {
+            LOGGER.error("Interrupted while waiting for guild initialization: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+            Thread.currentThread().interrupt();
+        }
     }
 
 }
@@ -36,7 +36,6 @@ import java.util.Optional;
 import java.util.ResourceBundle;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Member;
-import net.dv8tion.jda.api.entities.TextChannel;
 
 /**
  * Command used to show help for commands and list available commands
@@ -69,7 +68,6 @@ class HelpCommand extends ChatCommand {
     protected void respond(CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
         final TranslationCache translation = context.getTranslation();
-        final TextChannel textChannel = matcher.getTextChannel();
         final ResourceBundle locale = translation.getResourceBundle();
 
         final String[] options = matcher.getArguments(1);
@@ -86,7 +84,7 @@ class HelpCommand extends ChatCommand {
             final String template = locale.getString("BOT_VERSION");
             final String footer = String.format(template, LemonadeBot.BOT_VERSION);
             eb.setFooter(footer);
-            textChannel.sendMessageEmbeds(eb.build()).queue();
+            context.reply(eb.build());
             return;
         }
         final String name = options[0];
@@ -112,7 +110,6 @@ class HelpCommand extends ChatCommand {
         final CommandMatcher matcher = context.getMatcher();
         final ConfigManager config = context.getConfigManager();
         final TranslationCache translation = context.getTranslation();
-        final TextChannel textChannel = matcher.getTextChannel();
         final ResourceBundle locale = translation.getResourceBundle();
         final PermissionManager permissions = context.getPermissionManager();
         final CommandProvider commands = context.getCommandProvider();
@@ -130,15 +127,15 @@ class HelpCommand extends ChatCommand {
                 eb.setTitle(String.format(template, name, description));
                 final String helpText = com.getHelpText(locale);
                 eb.setDescription(helpText);
-                textChannel.sendMessageEmbeds(eb.build()).queue();
+                context.reply(eb.build());
             } else {
-                textChannel.sendMessage(locale.getString("ERROR_PERMISSION_DENIED")).queue();
+                context.replyError(locale.getString("ERROR_PERMISSION_DENIED"));
             }
             return;
         }
         //Did not find a command
         final String response = String.format(locale.getString("ERROR_NO_SUCH_COMMAND"), name);
-        textChannel.sendMessage(response).queue();
+        context.replyError(response);
     }
 
     /**
@@ -169,7 +166,7 @@ class HelpCommand extends ChatCommand {
         eb.setTitle(locale.getString("HEADER_COMMANDS"));
         eb.setDescription(sb.toString());
 
-        matcher.getTextChannel().sendMessageEmbeds(eb.build()).queue();
+        context.reply(eb.build());
     }
 
 }
@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.commands;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Shows lists of named items one page at a time. Pages are fetched by the
+ * name of the last item shown so only one page is loaded and rendered at a
+ * time, the name to continue from is given as argument after the list action.
+ *
+ * @author Neutroni
+ * @param <T> Type of the items listed
+ */
+public class ListPaginator<T> {
+
+    /**
+     * Fetches items following the cursor
+     *
+     * @param <T> Type of the items
+     */
+    @FunctionalInterface
+    public interface PageQuery<T> {
+
+        /**
+         * Get items ordered by name
+         *
+         * @param after Name to get the items after, empty for first page
+         * @param limit Maximum number of items to get
+         * @return List of items
+         * @throws SQLException if database connection failed
+         */
+        List<T> fetch(String after, int limit) throws SQLException;
+    }
+
+    /**
+     * Renders item as a line in the list
+     *
+     * @param <T> Type of the items
+     */
+    @FunctionalInterface
+    public interface ElementRenderer<T> {
+
+        /**
+         * Render item
+         *
+         * @param item Item to render
+         * @param owner Owner of the item, null if not found
+         * @return String to show in the list
+         */
+        String render(T item, Member owner);
+    }
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Function<T, String> nameFunction;
+    private final ToLongFunction<T> ownerFunction;
+    private final ElementRenderer<T> renderer;
+
+    /**
+     * Constructor
+     *
+     * @param nameFunction Function to get the name items are ordered by
+     * @param ownerFunction Function to get the owner id of item
+     * @param renderer Renderer for the list elements
+     */
+    public ListPaginator(final Function<T, String> nameFunction, final ToLongFunction<T> ownerFunction, final ElementRenderer<T> renderer) {
+        this.nameFunction = nameFunction;
+        this.ownerFunction = ownerFunction;
+        this.renderer = renderer;
+    }
+
+    /**
+     * Send page of the list, page starts after the name given as second
+     * argument to the command
+     *
+     * @param context Context of the list command
+     * @param query Query to fetch the page with
+     * @param header Title for the list
+     * @param emptyKey Translation key for message shown if list is empty
+     * @param errorKey Translation key for message shown if loading fails
+     */
+    public void sendPage(final CommandContext context, final PageQuery<T> query, final String header, final String emptyKey, final String errorKey) {
+        final ResourceBundle locale = context.getResource();
+        final String[] arguments = context.getMatcher().getArguments(2);
+        final String cursor = (arguments.length > 1) ? arguments[1] : "";
+        final int pageSize = context.getStorageManager().getConfig().getListPageSize();
+
+        //Fetch one extra to know if there is a next page
+        final List<T> items;
+        try {
+            items = query.fetch(cursor, pageSize + 1);
+        } catch (SQLException e) {
+            context.replyError(locale.getString(errorKey));
+            LOGGER.error("Failure to load list page: {}", e.getMessage());
+            LOGGER.trace("Stack trace", e);
+            return;
+        }
+        final boolean hasMore = items.size() > pageSize;
+        final List<T> page = hasMore ? items.subList(0, pageSize) : items;
+        final List<Long> ownerIDs = new ArrayList<>(page.size());
+        page.forEach((T item) -> {
+            ownerIDs.add(this.ownerFunction.applyAsLong(item));
+        });
+
+        //Find the owners of this page before building the list
+        context.getMemberResolver().resolveMembers(context.getGuild(), ownerIDs).whenComplete((Map<Long, Member> owners, Throwable error) -> {
+            if (error != null) {
+                context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+                return;
+            }
+            final EmbedBuilder eb = new EmbedBuilder();
+            eb.setTitle(header);
+            final StringBuilder contentBuilder = new StringBuilder();
+            String lastName = null;
+            boolean truncated = hasMore;
+            for (final T item : page) {
+                final String element = this.renderer.render(item, owners.get(this.ownerFunction.applyAsLong(item)));
+                if (contentBuilder.length() + element.length() > MessageEmbed.DESCRIPTION_MAX_LENGTH) {
+                    //Rest of the page is shown on the next page
+                    truncated = true;
+                    if (lastName == null) {
+                        contentBuilder.append(element, 0, MessageEmbed.DESCRIPTION_MAX_LENGTH);
+                        lastName = this.nameFunction.apply(item);
+                    }
+                    break;
+                }
+                contentBuilder.append(element);
+                lastName = this.nameFunction.apply(item);
+            }
+            if (page.isEmpty()) {
+                contentBuilder.append(locale.getString(emptyKey));
+            }
+            eb.setDescription(contentBuilder);
+            if (truncated && lastName != null) {
+                final String command = context.getConfigManager().getCommandPrefix()
+                        + context.getMatcher().getCommand().orElse("") + ' ' + arguments[0] + ' ' + lastName;
+                eb.setFooter(String.format(locale.getString("LIST_NEXT_PAGE"), command));
+            }
+            context.reply(eb.build());
+        });
+    }
+}
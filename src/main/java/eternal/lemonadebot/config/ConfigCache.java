@@ -25,10 +25,22 @@ package eternal.lemonadebot.config;
 
 import eternal.lemonadebot.cache.ItemCache;
 import eternal.lemonadebot.database.DatabaseManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 import javax.sql.DataSource;
 import net.dv8tion.jda.api.entities.Guild;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  *
@@ -36,8 +48,12 @@ import net.dv8tion.jda.api.entities.Guild;
  */
 public class ConfigCache {
 
+    private static final Logger LOGGER = LogManager.getLogger();
+
     private final DataSource ds;
+    private final int cacheLimit;
     private final Map<Long, ConfigManager> configs;
+    private final List<BiConsumer<Long, ZoneId>> timeZoneListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructor
@@ -45,9 +61,60 @@ public class ConfigCache {
      * @param database Database to store configurations in
      */
     public ConfigCache(final DatabaseManager database) {
-        final int cacheLimit = database.getConfig().configCacheEnabled();
+        this.cacheLimit = database.getConfig().configCacheEnabled();
         this.ds = database.getDataSource();
-        this.configs = Collections.synchronizedMap(new ItemCache<>(cacheLimit));
+        this.configs = Collections.synchronizedMap(new ItemCache<>(this.cacheLimit));
+    }
+
+    /**
+     * Load configs for guilds in one pass and add missing guilds to database.
+     * Cache is filled in the order guilds are given up to the cache limit.
+     *
+     * @param guildIDs IDs of the guilds to load configs for
+     * @throws SQLException if database connection failed
+     */
+    public void warmUp(final List<Long> guildIDs) throws SQLException {
+        final Map<Long, Integer> order = new HashMap<>(guildIDs.size());
+        for (final Long guildID : guildIDs) {
+            order.putIfAbsent(guildID, order.size());
+        }
+        final ConfigManager[] loaded = new ConfigManager[order.size()];
+
+        //Stream all guild rows, keep the ones for connected guilds
+        final String query = "SELECT id,commandPrefix,greetingTemplate,logChannel,locale,timeZone FROM Guilds;";
+        try (final Connection connection = this.ds.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setFetchSize(1000);
+            try (final ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    final long guildID = rs.getLong("id");
+                    final Integer index = order.get(guildID);
+                    if (index != null) {
+                        loaded[index] = new ConfigManager(this.ds, guildID, this, rs);
+                    }
+                }
+            }
+        }
+
+        //Add guilds that are not yet in database
+        final List<ConfigManager> missing = new ArrayList<>();
+        for (final Map.Entry<Long, Integer> entry : order.entrySet()) {
+            final int index = entry.getValue();
+            if (loaded[index] == null) {
+                loaded[index] = new ConfigManager(this.ds, entry.getKey(), this, null);
+                missing.add(loaded[index]);
+            }
+        }
+        if (!missing.isEmpty()) {
+            ConfigManager.addGuilds(this.ds, missing);
+        }
+
+        //Fill cache without replacing configs created meanwhile
+        final int cached = Math.min(loaded.length, this.cacheLimit);
+        for (int i = cached - 1; i >= 0; i--) {
+            this.configs.putIfAbsent(loaded[i].getGuildID(), loaded[i]);
+        }
+        LOGGER.info("Loaded configs for {} guilds, added {} new guilds, cached {}", loaded.length, missing.size(), cached);
     }
 
     /**
@@ -58,7 +125,7 @@ public class ConfigCache {
      */
     public ConfigManager getConfigManager(final long guildID) {
         return this.configs.computeIfAbsent(guildID, (t) -> {
-            return new ConfigManager(ds, t);
+            return new ConfigManager(ds, t, this);
         });
     }
 
@@ -70,8 +137,29 @@ public class ConfigCache {
      */
     public ConfigManager getConfigManager(final Guild guild) {
         return this.configs.computeIfAbsent(guild.getIdLong(), (Long guildID) -> {
-            return new ConfigManager(ds, guildID);
+            return new ConfigManager(ds, guildID, this);
         });
     }
 
+    /**
+     * Add listener to be called when the time zone of a guild changes
+     *
+     * @param listener Listener that receives the guild id and new time zone
+     */
+    public void addTimeZoneListener(final BiConsumer<Long, ZoneId> listener) {
+        this.timeZoneListeners.add(listener);
+    }
+
+    /**
+     * Notify listeners that the time zone of a guild changed
+     *
+     * @param guildID ID of the guild
+     * @param zoneId New time zone of the guild
+     */
+    void timeZoneChanged(final long guildID, final ZoneId zoneId) {
+        for (final BiConsumer<Long, ZoneId> listener : this.timeZoneListeners) {
+            listener.accept(guildID, zoneId);
+        }
+    }
+
 }
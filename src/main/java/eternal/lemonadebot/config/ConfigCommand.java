@@ -69,11 +69,10 @@ public class ConfigCommand extends AdminCommand {
     public void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
         final TranslationCache translation = context.getTranslation();
-        final TextChannel channel = matcher.getTextChannel();
         final ResourceBundle locale = translation.getResourceBundle();
         final String[] options = matcher.getArguments(2);
         if (options.length == 0) {
-            channel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -82,18 +81,18 @@ public class ConfigCommand extends AdminCommand {
         switch (key) {
             case SET: {
                 if (options.length < 2) {
-                    channel.sendMessage(locale.getString("CONFIG_SET_MISSING_OPTION")).queue();
+                    context.replyError(locale.getString("CONFIG_SET_MISSING_OPTION"));
                     return;
                 }
                 if (options.length < 3) {
-                    channel.sendMessage(locale.getString("CONFIG_MISSING_VALUE")).queue();
+                    context.replyError(locale.getString("CONFIG_MISSING_VALUE"));
                 }
                 setValue(options[1], options[2], context);
                 break;
             }
             case GET: {
                 if (options.length < 2) {
-                    channel.sendMessage(locale.getString("CONFIG_GET_MISSING_OPTION")).queue();
+                    context.replyError(locale.getString("CONFIG_GET_MISSING_OPTION"));
                     return;
                 }
                 getValue(options[1], context);
@@ -101,14 +100,14 @@ public class ConfigCommand extends AdminCommand {
             }
             case DISABLE: {
                 if (options.length < 2) {
-                    channel.sendMessage(locale.getString("CONFIG_DISABLE_MISSING_OPTION")).queue();
+                    context.replyError(locale.getString("CONFIG_DISABLE_MISSING_OPTION"));
                     return;
                 }
                 disableValue(options[1], context);
                 break;
             }
             default: {
-                channel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + action).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + action);
                 break;
             }
         }
@@ -133,9 +132,9 @@ public class ConfigCommand extends AdminCommand {
             case PREFIX: {
                 try {
                     guildConf.setCommandPrefix(value);
-                    channel.sendMessage(locale.getString("CONFIG_PREFIX_UPDATE_SUCCESS") + value).queue();
+                    context.reply(locale.getString("CONFIG_PREFIX_UPDATE_SUCCESS") + value);
                 } catch (SQLException ex) {
-                    channel.sendMessage(locale.getString("CONFIG_PREFIX_SQL_ERROR")).queue();
+                    context.replyError(locale.getString("CONFIG_PREFIX_SQL_ERROR"));
                     LOGGER.error("Failure to update command prefix in database: {}", ex.getMessage());
                     LOGGER.trace("Stack Trace", ex);
                 }
@@ -144,9 +143,9 @@ public class ConfigCommand extends AdminCommand {
             case GREETING: {
                 try {
                     guildConf.setGreetingTemplate(value);
-                    channel.sendMessage(locale.getString("CONFIG_GREETING_UPDATE_SUCCESS") + value).queue();
+                    context.reply(locale.getString("CONFIG_GREETING_UPDATE_SUCCESS") + value);
                 } catch (SQLException ex) {
-                    channel.sendMessage(locale.getString("CONFIG_GREETING_SQL_ERROR")).queue();
+                    context.replyError(locale.getString("CONFIG_GREETING_SQL_ERROR"));
                     LOGGER.error("Failure to update greeting template in database: {}", ex.getMessage());
                     LOGGER.trace("Stack trace", ex);
                 }
@@ -155,15 +154,15 @@ public class ConfigCommand extends AdminCommand {
             case LOG_CHANNEL: {
                 final List<TextChannel> channels = matcher.getMentionedChannels();
                 if (channels.isEmpty()) {
-                    channel.sendMessage(locale.getString("CONFIG_LOG_CHANNEL_MISSING")).queue();
+                    context.replyError(locale.getString("CONFIG_LOG_CHANNEL_MISSING"));
                     return;
                 }
                 final TextChannel logChannel = channels.get(0);
                 try {
                     guildConf.setLogChannel(logChannel);
-                    channel.sendMessage(locale.getString("CONFIG_LOG_CHANNEL_UPDATE_SUCCESS") + logChannel.getName()).queue();
+                    context.reply(locale.getString("CONFIG_LOG_CHANNEL_UPDATE_SUCCESS") + logChannel.getName());
                 } catch (SQLException ex) {
-                    channel.sendMessage(locale.getString("CONFIG_LOG_CHANNEL_SQL_ERROR")).queue();
+                    context.replyError(locale.getString("CONFIG_LOG_CHANNEL_SQL_ERROR"));
                     LOGGER.error("Failure to update log channel in database: {}", ex.getMessage());
                     LOGGER.trace("Stack trace", ex);
                 }
@@ -174,16 +173,16 @@ public class ConfigCommand extends AdminCommand {
                     final Locale newLocale = new Locale(value);
                     if (guildConf.setLocale(newLocale)) {
                         final ResourceBundle newRB = translation.getResourceBundle();
-                        channel.sendMessage(newRB.getString("CONFIG_LANGUAGE_UPDATE_SUCCESS") + newLocale.getDisplayLanguage(newLocale)).queue();
+                        context.reply(newRB.getString("CONFIG_LANGUAGE_UPDATE_SUCCESS") + newLocale.getDisplayLanguage(newLocale));
                     } else {
                         final String supportedLanguages = ConfigManager.SUPPORTED_LOCALES.stream().map((t) -> {
                             return t.getLanguage() + " - " + t.getDisplayLanguage(locale.getLocale());
                         }).collect(Collectors.joining(","));
                         final String template = locale.getString("CONFIG_UNSUPPORTED_LOCALE");
-                        channel.sendMessageFormat(template, supportedLanguages).queue();
+                        context.replyError(String.format(template, supportedLanguages));
                     }
                 } catch (SQLException ex) {
-                    channel.sendMessage(locale.getString("CONFIG_LANGUAGE_SQL_ERROR")).queue();
+                    context.replyError(locale.getString("CONFIG_LANGUAGE_SQL_ERROR"));
                     LOGGER.error("Failure to update language in database: {}", ex.getMessage());
                     LOGGER.trace("Stack trace", ex);
                 }
@@ -193,22 +192,22 @@ public class ConfigCommand extends AdminCommand {
                 try {
                     final ZoneId zone = ZoneId.of(value);
                     guildConf.setZoneId(zone);
-                    channel.sendMessage(locale.getString("CONFIG_TIMEZONE_UPDATE_SUCCESS") + value).queue();
+                    context.reply(locale.getString("CONFIG_TIMEZONE_UPDATE_SUCCESS") + value);
                 } catch (ZoneRulesException ex) {
                     //Zone could not be found
-                    channel.sendMessage(locale.getString("CONFIG_TIMEZONE_ZONE_NOT_FOUND")).queue();
+                    context.replyError(locale.getString("CONFIG_TIMEZONE_ZONE_NOT_FOUND"));
                 } catch (DateTimeException ex) {
                     //Invalid format for timezone
-                    channel.sendMessage(locale.getString("CONFIG_TIMEZONE_ZONE_MALFORMED")).queue();
+                    context.replyError(locale.getString("CONFIG_TIMEZONE_ZONE_MALFORMED"));
                 } catch (SQLException ex) {
-                    channel.sendMessage(locale.getString("CONFIG_TIMEZONE_SQL_ERROR")).queue();
+                    context.replyError(locale.getString("CONFIG_TIMEZONE_SQL_ERROR"));
                     LOGGER.error("Failure to update command timezone in database: {}", ex.getMessage());
                     LOGGER.trace("Stack Trace", ex);
                 }
                 break;
             }
             default: {
-                channel.sendMessageFormat(locale.getString("CONFIG_ERROR_UNKNOWN_SETTING"), config).queue();
+                context.replyError(String.format(locale.getString("CONFIG_ERROR_UNKNOWN_SETTING"), config));
                 break;
             }
         }
@@ -230,14 +229,14 @@ public class ConfigCommand extends AdminCommand {
         final ActionKey key = translationCache.getActionKey(option);
         switch (key) {
             case PREFIX: {
-                channel.sendMessageFormat(locale.getString("CONFIG_CURRENT_PREFIX"), guildConf.getCommandPrefix()).queue();
+                context.reply(String.format(locale.getString("CONFIG_CURRENT_PREFIX"), guildConf.getCommandPrefix()));
                 break;
             }
             case GREETING: {
                 guildConf.getGreetingTemplate().ifPresentOrElse((String greeting) -> {
-                    channel.sendMessageFormat(locale.getString("CONFIG_CURRENT_GREETING"), greeting).queue();
+                    context.reply(String.format(locale.getString("CONFIG_CURRENT_GREETING"), greeting));
                 }, () -> {
-                    channel.sendMessage(locale.getString("CONFIG_GREETING_DISABLED_CURRENTLY")).queue();
+                    context.reply(locale.getString("CONFIG_GREETING_DISABLED_CURRENTLY"));
                 });
                 break;
             }
@@ -245,28 +244,28 @@ public class ConfigCommand extends AdminCommand {
                 guildConf.getLogChannelID().ifPresentOrElse((Long channelID) -> {
                     final TextChannel logChannel = channel.getGuild().getTextChannelById(channelID);
                     if (logChannel == null) {
-                        channel.sendMessage(locale.getString("CONFIG_LOG_CHANNEL_UNKNOWN")).queue();
+                        context.replyError(locale.getString("CONFIG_LOG_CHANNEL_UNKNOWN"));
                     } else {
-                        channel.sendMessageFormat(locale.getString("CONFIG_CURRENT_LOG_CHANNEL"), logChannel.getAsMention()).queue();
+                        context.reply(String.format(locale.getString("CONFIG_CURRENT_LOG_CHANNEL"), logChannel.getAsMention()));
                     }
                 }, () -> {
-                    channel.sendMessage(locale.getString("CONFIG_LOG_CHANNEL_DISABLED_CURRENTLY")).queue();
+                    context.reply(locale.getString("CONFIG_LOG_CHANNEL_DISABLED_CURRENTLY"));
                 });
                 break;
             }
             case LANGUAGE: {
                 final String template = locale.getString("CONFIG_CURRENT_LANGUAGE");
                 final Locale currentLocale = locale.getLocale();
-                channel.sendMessageFormat(template, currentLocale.getDisplayLanguage(currentLocale)).queue();
+                context.reply(String.format(template, currentLocale.getDisplayLanguage(currentLocale)));
                 break;
             }
             case TIMEZONE: {
                 final String template = locale.getString("CONFIG_CURRENT_TIMEZONE");
-                channel.sendMessageFormat(template, guildConf.getZoneId().getDisplayName(TextStyle.FULL, locale.getLocale())).queue();
+                context.reply(String.format(template, guildConf.getZoneId().getDisplayName(TextStyle.FULL, locale.getLocale())));
                 break;
             }
             default: {
-                channel.sendMessageFormat(locale.getString("CONFIG_ERROR_UNKNOWN_SETTING"), option).queue();
+                context.replyError(String.format(locale.getString("CONFIG_ERROR_UNKNOWN_SETTING"), option));
                 break;
             }
         }
@@ -287,15 +286,15 @@ public class ConfigCommand extends AdminCommand {
         final ActionKey key = translationCache.getActionKey(option);
         switch (key) {
             case PREFIX: {
-                channel.sendMessage(locale.getString("CONFIG_DISABLE_PREFIX")).queue();
+                context.reply(locale.getString("CONFIG_DISABLE_PREFIX"));
                 break;
             }
             case GREETING: {
                 try {
                     guildConf.setGreetingTemplate(null);
-                    channel.sendMessage(locale.getString("CONFIG_GREETING_DISABLED")).queue();
+                    context.reply(locale.getString("CONFIG_GREETING_DISABLED"));
                 } catch (SQLException ex) {
-                    channel.sendMessage(locale.getString("CONFIG_SQL_ERROR_ON_GREETING_DISABLE")).queue();
+                    context.replyError(locale.getString("CONFIG_SQL_ERROR_ON_GREETING_DISABLE"));
                     LOGGER.error("Failure to update greeting template in database: {}", ex.getMessage());
                     LOGGER.trace("Stack trace", ex);
                 }
@@ -304,24 +303,24 @@ public class ConfigCommand extends AdminCommand {
             case LOG_CHANNEL: {
                 try {
                     guildConf.setLogChannel(null);
-                    channel.sendMessage(locale.getString("CONFIG_LOG_CHANNEL_DISABLED")).queue();
+                    context.reply(locale.getString("CONFIG_LOG_CHANNEL_DISABLED"));
                 } catch (SQLException ex) {
-                    channel.sendMessage(locale.getString("CONFIG_SQL_ERROR_ON_LOG_CHANNEL_DISABLE")).queue();
+                    context.replyError(locale.getString("CONFIG_SQL_ERROR_ON_LOG_CHANNEL_DISABLE"));
                     LOGGER.error("Failure to update log channel in database: {}", ex.getMessage());
                     LOGGER.trace("Stack trace", ex);
                 }
                 break;
             }
             case LANGUAGE: {
-                channel.sendMessage(locale.getString("CONFIG_LANGUAGE_DISABLE")).queue();
+                context.reply(locale.getString("CONFIG_LANGUAGE_DISABLE"));
                 break;
             }
             case TIMEZONE: {
-                channel.sendMessage(locale.getString("CONFIG_TIMEZONE_DISABLE")).queue();
+                context.reply(locale.getString("CONFIG_TIMEZONE_DISABLE"));
                 break;
             }
             default: {
-                channel.sendMessage(locale.getString("CONFIG_ERROR_UNKNOWN_SETTING") + option).queue();
+                context.replyError(locale.getString("CONFIG_ERROR_UNKNOWN_SETTING") + option);
                 break;
             }
         }
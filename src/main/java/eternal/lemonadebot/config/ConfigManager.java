@@ -31,6 +31,7 @@ import java.sql.SQLException;
 import java.time.DateTimeException;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
@@ -48,9 +49,13 @@ import org.apache.logging.log4j.Logger;
 public class ConfigManager {
 
     private static final Logger LOGGER = LogManager.getLogger();
-    private static final Locale DEFAULT_LOCALE = Locale.ENGLISH;
     private static final Map<Locale, TranslationCache> translationCaches = new ConcurrentHashMap<>();
 
+    /**
+     * Locale used for new guilds and for text not tied to a guild
+     */
+    public static final Locale DEFAULT_LOCALE = Locale.ENGLISH;
+
     /**
      * List of locales the bot supports
      */
@@ -58,6 +63,7 @@ public class ConfigManager {
 
     //Database connection
     private final DataSource dataSource;
+    private final ConfigCache configCache;
 
     //Stored values
     private final long guildID;
@@ -72,13 +78,32 @@ public class ConfigManager {
      *
      * @param ds database connection to use
      * @param guild Guild this config is for
+     * @param cache ConfigCache to notify of time zone changes
      */
-    public ConfigManager(final DataSource ds, final long guild) {
+    public ConfigManager(final DataSource ds, final long guild, final ConfigCache cache) {
         this.dataSource = ds;
+        this.configCache = cache;
         this.guildID = guild;
         loadValues();
     }
 
+    /**
+     * Constructor for configs loaded in bulk
+     *
+     * @param ds database connection to use
+     * @param guild Guild this config is for
+     * @param cache ConfigCache to notify of time zone changes
+     * @param values Row from Guilds table for this guild, null to use defaults
+     */
+    ConfigManager(final DataSource ds, final long guild, final ConfigCache cache, final ResultSet values) {
+        this.dataSource = ds;
+        this.configCache = cache;
+        this.guildID = guild;
+        if (values != null) {
+            readValues(values);
+        }
+    }
+
     /**
      * Prefix used by commands
      *
@@ -239,13 +264,19 @@ public class ConfigManager {
         this.timeZone = zoneId;
 
         final String query = "UPDATE Guilds SET timeZone = ? WHERE id = ?;";
+        final boolean updated;
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             final String zone = zoneId.getId();
             ps.setString(1, zone);
             ps.setLong(2, this.guildID);
-            return ps.executeUpdate() > 0;
+            updated = ps.executeUpdate() > 0;
+        }
+        //Notify listeners only after the connection has been released
+        if (updated) {
+            this.configCache.timeZoneChanged(this.guildID, zoneId);
         }
+        return updated;
     }
 
     /**
@@ -259,53 +290,7 @@ public class ConfigManager {
             try (final ResultSet rs = ps.executeQuery()) {
                 //Check that database contains this guild
                 if (rs.next()) {
-                    //Load command prefix
-                    try {
-                        this.commandPrefix = rs.getString("commandPrefix");
-                    } catch (SQLException ex) {
-                        LOGGER.error("SQL error on fetching the command prefix: {}", ex.getMessage());
-                        LOGGER.warn("Stack trace:", ex);
-                    }
-                    //Load greeting template
-                    try {
-                        this.greetingTemplate = Optional.ofNullable(rs.getString("greetingTemplate"));
-                    } catch (SQLException ex) {
-                        LOGGER.error("SQL error on fetching greeting template: {}", ex.getMessage());
-                        LOGGER.warn("Stack trace:", ex);
-                    }
-                    //Load logChannel
-                    try {
-                        final long channelID = rs.getLong("logChannel");
-                        if (channelID == 0) {
-                            this.logChannelID = Optional.empty();
-                        } else {
-                            this.logChannelID = Optional.of(channelID);
-                        }
-                    } catch (SQLException ex) {
-                        LOGGER.error("SQL error on fetching log channel: {}", ex.getMessage());
-                        LOGGER.warn("Stack trace:", ex);
-                    }
-                    //Load language
-                    try {
-                        final Locale loadedLocale = Locale.forLanguageTag(rs.getString("locale"));
-                        if (SUPPORTED_LOCALES.contains(loadedLocale)) {
-                            this.locale = loadedLocale;
-                        } else {
-                            LOGGER.warn("Loaded unsupported locale: {} from database for guild: {}", loadedLocale.toString(), this.guildID);
-                        }
-                    } catch (SQLException ex) {
-                        LOGGER.error("SQL error on fetching locale: {}", ex.getMessage());
-                        LOGGER.warn("Stack trace:", ex);
-                    }
-                    //Load guild time zone
-                    try {
-                        this.timeZone = ZoneId.of(rs.getString("timeZone"));
-                    } catch (DateTimeException ex) {
-                        LOGGER.warn("Loaded malformed ZoneId for guild: {} error: {}", this.guildID, ex.getMessage());
-                    } catch (SQLException ex) {
-                        LOGGER.error("SQL error on fetching the time zone: {}", ex.getMessage());
-                        LOGGER.warn("Stack trace:", ex);
-                    }
+                    readValues(rs);
                     return;
                 }
                 LOGGER.info("Tried to load guild that does not exist in database, adding to database");
@@ -319,6 +304,61 @@ public class ConfigManager {
         }
     }
 
+    /**
+     * Read the values this guildConfig stores
+     *
+     * @param rs ResultSet positioned on the row for this guild
+     */
+    private void readValues(final ResultSet rs) {
+        //Load command prefix
+        try {
+            this.commandPrefix = rs.getString("commandPrefix");
+        } catch (SQLException ex) {
+            LOGGER.error("SQL error on fetching the command prefix: {}", ex.getMessage());
+            LOGGER.warn("Stack trace:", ex);
+        }
+        //Load greeting template
+        try {
+            this.greetingTemplate = Optional.ofNullable(rs.getString("greetingTemplate"));
+        } catch (SQLException ex) {
+            LOGGER.error("SQL error on fetching greeting template: {}", ex.getMessage());
+            LOGGER.warn("Stack trace:", ex);
+        }
+        //Load logChannel
+        try {
+            final long channelID = rs.getLong("logChannel");
+            if (channelID == 0) {
+                this.logChannelID = Optional.empty();
+            } else {
+                this.logChannelID = Optional.of(channelID);
+            }
+        } catch (SQLException ex) {
+            LOGGER.error("SQL error on fetching log channel: {}", ex.getMessage());
+            LOGGER.warn("Stack trace:", ex);
+        }
+        //Load language
+        try {
+            final Locale loadedLocale = Locale.forLanguageTag(rs.getString("locale"));
+            if (SUPPORTED_LOCALES.contains(loadedLocale)) {
+                this.locale = loadedLocale;
+            } else {
+                LOGGER.warn("Loaded unsupported locale: {} from database for guild: {}", loadedLocale.toString(), this.guildID);
+            }
+        } catch (SQLException ex) {
+            LOGGER.error("SQL error on fetching locale: {}", ex.getMessage());
+            LOGGER.warn("Stack trace:", ex);
+        }
+        //Load guild time zone
+        try {
+            this.timeZone = ZoneId.of(rs.getString("timeZone"));
+        } catch (DateTimeException ex) {
+            LOGGER.warn("Loaded malformed ZoneId for guild: {} error: {}", this.guildID, ex.getMessage());
+        } catch (SQLException ex) {
+            LOGGER.error("SQL error on fetching the time zone: {}", ex.getMessage());
+            LOGGER.warn("Stack trace:", ex);
+        }
+    }
+
     /**
      * Add this guild to database
      *
@@ -341,4 +381,37 @@ public class ConfigManager {
         }
     }
 
+    /**
+     * Add guilds to database in a single batch
+     *
+     * @param ds DataSource to get connection from
+     * @param configs Configs with default values for the guilds to add
+     * @throws SQLException if database connection failed
+     */
+    static void addGuilds(final DataSource ds, final Collection<ConfigManager> configs) throws SQLException {
+        final String query = "INSERT OR IGNORE INTO Guilds("
+                + "id,commandPrefix,greetingTemplate,locale,logChannel,timeZone) VALUES (?,?,?,?,?,?);";
+        try (final Connection connection = ds.getConnection()) {
+            connection.setAutoCommit(false);
+            try (final PreparedStatement ps = connection.prepareStatement(query)) {
+                for (final ConfigManager config : configs) {
+                    ps.setLong(1, config.guildID);
+                    ps.setString(2, config.commandPrefix);
+                    ps.setString(3, config.greetingTemplate.orElse(null));
+                    ps.setString(4, config.locale.toLanguageTag());
+                    ps.setLong(5, config.logChannelID.orElse(0L));
+                    ps.setString(6, config.timeZone.getId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
 }
@@ -68,15 +68,14 @@ public class CooldownCommand extends AdminCommand {
     public void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
         final String[] arguments = matcher.getArguments(1);
-        final TextChannel channel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
         if (arguments.length == 0) {
-            channel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
         if (arguments.length == 1) {
-            channel.sendMessage(locale.getString("COOLDOWN_MISSING_ACTION")).queue();
+            context.replyError(locale.getString("COOLDOWN_MISSING_ACTION"));
             return;
         }
 
@@ -101,7 +100,7 @@ public class CooldownCommand extends AdminCommand {
                 break;
             }
             default: {
-                channel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + option).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + option);
             }
         }
     }
@@ -123,7 +122,7 @@ public class CooldownCommand extends AdminCommand {
         try {
             cd = cooldownManager.getActionCooldown(requestedAction, guildID);
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("COOLDOWN_SQL_ERROR_ON_RETRIEVE")).queue();
+            context.replyError(locale.getString("COOLDOWN_SQL_ERROR_ON_RETRIEVE"));
             LOGGER.error("Failure to get cooldown for action from database: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
             return;
@@ -133,10 +132,10 @@ public class CooldownCommand extends AdminCommand {
             final Duration cooldownDuration = cooldown.getDuration();
             final String setCooldown = CooldownManager.formatDuration(cooldownDuration, locale);
             final String template = locale.getString("COOLDOWN_CURRENT_COOLDOWN");
-            channel.sendMessageFormat(template, setCooldown, cooldownAction).queue();
+            context.reply(String.format(template, setCooldown, cooldownAction));
         }, () -> {
             //No cooldown set for action
-            channel.sendMessage(locale.getString("COOLDOWN_NO_COOLDOWN_SET") + requestedAction).queue();
+            context.reply(locale.getString("COOLDOWN_NO_COOLDOWN_SET") + requestedAction);
         });
     }
 
@@ -155,7 +154,7 @@ public class CooldownCommand extends AdminCommand {
 
         //No time amount
         if (arguments.length < 2) {
-            channel.sendMessage(locale.getString("COOLDOWN_MISSING_TIME")).queue();
+            context.replyError(locale.getString("COOLDOWN_MISSING_TIME"));
             return;
         }
 
@@ -164,13 +163,13 @@ public class CooldownCommand extends AdminCommand {
         try {
             timeAmount = Integer.parseInt(timeAmountString);
         } catch (NumberFormatException e) {
-            channel.sendMessage(locale.getString("COOLDOWN_UNKNOWN_TIME") + timeAmountString).queue();
+            context.replyError(locale.getString("COOLDOWN_UNKNOWN_TIME") + timeAmountString);
             return;
         }
 
         //No time unit
         if (arguments.length < 3) {
-            channel.sendMessage(locale.getString("COOLDOWN_MISSIGN_UNIT")).queue();
+            context.replyError(locale.getString("COOLDOWN_MISSIGN_UNIT"));
             return;
         }
 
@@ -180,13 +179,13 @@ public class CooldownCommand extends AdminCommand {
         if (optUnit.isPresent()) {
             unit = optUnit.get();
         } else {
-            channel.sendMessage(locale.getString("COOLDOWN_UNKNOWN_UNIT") + arguments[2]).queue();
+            context.replyError(locale.getString("COOLDOWN_UNKNOWN_UNIT") + arguments[2]);
             return;
         }
 
         final Duration cooldownDuration = Duration.of(timeAmount, unit);
         if (arguments.length < 4) {
-            channel.sendMessage(locale.getString("COOLDOWN_NO_ACTION")).queue();
+            context.replyError(locale.getString("COOLDOWN_NO_ACTION"));
             return;
         }
         final String actionString = arguments[3];
@@ -195,9 +194,9 @@ public class CooldownCommand extends AdminCommand {
             final Guild guild = channel.getGuild();
             final long guildID = guild.getIdLong();
             cooldownManager.setCooldown(actionString, cooldownDuration, guildID);
-            channel.sendMessage(locale.getString("COOLDOWN_UPDATED_SUCCESFULLY")).queue();
+            context.reply(locale.getString("COOLDOWN_UPDATED_SUCCESFULLY"));
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("COOLDOWN_SQL_ERROR_ON_UPDATE")).queue();
+            context.replyError(locale.getString("COOLDOWN_SQL_ERROR_ON_UPDATE"));
             LOGGER.error("Failure to set cooldown in database: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -213,19 +212,18 @@ public class CooldownCommand extends AdminCommand {
     private static void disableCooldown(final CommandContext context, final String requestedAction) {
         final CooldownManager cooldownManager = context.getCooldownManager();
         final ResourceBundle locale = context.getResource();
-        final TextChannel channel = context.getChannel();
         try {
             final Guild guild = context.getGuild();
             final long guildID = guild.getIdLong();
             if (cooldownManager.removeCooldown(requestedAction, guildID)) {
                 //Found cooldown for action
-                channel.sendMessage(locale.getString("COOLDOWN_DISABLE_SUCCESS")).queue();
+                context.reply(locale.getString("COOLDOWN_DISABLE_SUCCESS"));
             } else {
                 //No cooldown for action
-                channel.sendMessage(locale.getString("COOLDOWN_NO_COOLDOWN_SET") + requestedAction).queue();
+                context.reply(locale.getString("COOLDOWN_NO_COOLDOWN_SET") + requestedAction);
             }
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("COOLDOWN_SQL_ERROR_ON_DISABLE")).queue();
+            context.replyError(locale.getString("COOLDOWN_SQL_ERROR_ON_DISABLE"));
             LOGGER.error("Failure to remove cooldown from database: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -233,7 +231,6 @@ public class CooldownCommand extends AdminCommand {
 
     private static void listCooldowns(final CommandContext context) {
         final CooldownManager cooldownManager = context.getCooldownManager();
-        final TextChannel channel = context.getChannel();
         final ResourceBundle locale = context.getResource();
 
         //Fetch the list of set cooldowns from database
@@ -242,7 +239,7 @@ public class CooldownCommand extends AdminCommand {
             final long guildID = context.getGuild().getIdLong();
             cooldowns = cooldownManager.getCooldowns(guildID);
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("COOLDOWN_SQL_ERROR_ON_LOADING")).queue();
+            context.replyError(locale.getString("COOLDOWN_SQL_ERROR_ON_LOADING"));
             LOGGER.error("Failure to load cooldown from database: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
             return;
@@ -259,6 +256,6 @@ public class CooldownCommand extends AdminCommand {
             description.append(locale.getString("COOLDOWN_NO_COOLDOWNS"));
         }
         eb.setDescription(description);
-        channel.sendMessageEmbeds(eb.build()).queue();
+        context.reply(eb.build());
     }
 }
@@ -35,9 +35,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
-import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.User;
 
 /**
@@ -135,20 +133,19 @@ public class CustomCommand extends ChatCommand {
 
     @Override
     protected void respond(final CommandContext context) {
-        final TextChannel channel = context.getChannel();
         final CharSequence response = TemplateProvider.parseAction(context, this.actionTemplate);
         final ResourceBundle locale = context.getResource();
 
         //Check if message is empty
         final String commandString = response.toString();
         if (commandString.isBlank()) {
-            channel.sendMessage(locale.getString("ERROR_TEMPLATE_EMPTY")).queue();
+            context.replyError(locale.getString("ERROR_TEMPLATE_EMPTY"));
             return;
         }
 
         //Send response assuming it is not a command
         if (response.charAt(0) != '!') {
-            channel.sendMessage(response).queue();
+            context.reply(response);
             return;
         }
 
@@ -161,14 +158,14 @@ public class CustomCommand extends ChatCommand {
         optCommand.ifPresentOrElse((ChatCommand command) -> {
             //Check if command is custom command, do not allow recursion
             if (command instanceof CustomCommand) {
-                channel.sendMessage(locale.getString("ERROR_RECURSION_NOT_PERMITTED")).queue();
+                context.replyError(locale.getString("ERROR_RECURSION_NOT_PERMITTED"));
                 return;
             }
             //Run the command
             command.run(context);
         }, () -> {
             //Did not find a command
-            channel.sendMessage(locale.getString("ERROR_COMMAND_NOT_FOUND") + commandString).queue();
+            context.replyError(locale.getString("ERROR_COMMAND_NOT_FOUND") + commandString);
         });
     }
 
@@ -199,22 +196,18 @@ public class CustomCommand extends ChatCommand {
      * Get string representing the commands for listing commands
      *
      * @param locale Locale to return the list element in
-     * @param jda JDA to use to get command owner
+     * @param commandOwner Owner of the command, null if not found
      * @return String
      */
-    public CompletableFuture<String> toListElement(final ResourceBundle locale, final JDA jda) {
-        final CompletableFuture<String> result = new CompletableFuture<>();
+    public String toListElement(final ResourceBundle locale, final Member commandOwner) {
         final String template = locale.getString("TEMPLATE_COMMAND_LIST_ELEMENT");
-        jda.retrieveUserById(this.author).queue((User commandOwner) -> {
-            //Found user
-            final String creatorName = commandOwner.getAsMention();
-            result.complete(String.format(template, this.commandName, creatorName));
-        }, (Throwable t) -> {
-            //User missing
-            final String creatorName = locale.getString("UNKNOWN_USER");
-            result.complete(String.format(template, this.commandName, creatorName));
-        });
-        return result;
+        final String creatorName;
+        if (commandOwner == null) {
+            creatorName = locale.getString("UNKNOWN_USER");
+        } else {
+            creatorName = commandOwner.getAsMention();
+        }
+        return String.format(template, this.commandName, creatorName);
     }
 
 }
@@ -27,6 +27,7 @@ import eternal.lemonadebot.commands.ChatCommand;
 import eternal.lemonadebot.commands.CommandContext;
 import eternal.lemonadebot.commands.CommandList;
 import eternal.lemonadebot.commands.CommandProvider;
+import eternal.lemonadebot.commands.ListPaginator;
 import eternal.lemonadebot.database.DatabaseManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import eternal.lemonadebot.permissions.CommandPermission;
@@ -36,13 +37,10 @@ import eternal.lemonadebot.permissions.PermissionUtilities;
 import eternal.lemonadebot.translation.ActionKey;
 import eternal.lemonadebot.translation.TranslationCache;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
-import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.TextChannel;
@@ -93,12 +91,11 @@ public class TemplateCommand extends ChatCommand {
     @Override
     protected void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
         final String[] arguments = matcher.getArguments(2);
         if (arguments.length == 0) {
-            textChannel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -118,7 +115,7 @@ public class TemplateCommand extends ChatCommand {
                 break;
             }
             default:
-                textChannel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + actionName).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + actionName);
                 break;
         }
     }
@@ -129,11 +126,11 @@ public class TemplateCommand extends ChatCommand {
         final ResourceBundle locale = context.getResource();
 
         if (arguments.length < 2) {
-            textChannel.sendMessage(locale.getString("TEMPLATE_CREATE_MISSING_NAME")).queue();
+            context.replyError(locale.getString("TEMPLATE_CREATE_MISSING_NAME"));
             return;
         }
         if (arguments.length < 3) {
-            textChannel.sendMessage(locale.getString("TEMPLATE_CREATE_MISSING_TEMPLATE")).queue();
+            context.replyError(locale.getString("TEMPLATE_CREATE_MISSING_TEMPLATE"));
             return;
         }
 
@@ -144,7 +141,7 @@ public class TemplateCommand extends ChatCommand {
         final CommandList builtInCommands = commandProvider.getBuiltInCommands();
         final Optional<ChatCommand> optCommand = builtInCommands.getBuiltInCommand(commandName, locale.getLocale());
         if (optCommand.isPresent()) {
-            textChannel.sendMessage(locale.getString("TEMPLATE_NAME_RESERVED")).queue();
+            context.replyError(locale.getString("TEMPLATE_NAME_RESERVED"));
             return;
         }
 
@@ -154,16 +151,16 @@ public class TemplateCommand extends ChatCommand {
         final CustomCommand newAction = new CustomCommand(commandName, commandTemplate, sender.getIdLong(), guild.getIdLong());
         try {
             if(commands.guildTemplateLimitReached(guild.getIdLong())){
-                textChannel.sendMessage(locale.getString("TEMPLATE_GUILD_LIMIT_REACHED")).queue();
+                context.replyError(locale.getString("TEMPLATE_GUILD_LIMIT_REACHED"));
                 return;
             }
             if (commands.addCommand(newAction)) {
-                textChannel.sendMessage(locale.getString("TEMPLATE_CREATE_SUCCESS")).queue();
+                context.reply(locale.getString("TEMPLATE_CREATE_SUCCESS"));
                 return;
             }
-            textChannel.sendMessage(locale.getString("TEMPLATE_ALREADY_EXISTS")).queue();
+            context.replyError(locale.getString("TEMPLATE_ALREADY_EXISTS"));
         } catch (SQLException ex) {
-            textChannel.sendMessage(locale.getString("TEMPLATE_SQL_ERROR_ON_CREATE")).queue();
+            context.replyError(locale.getString("TEMPLATE_SQL_ERROR_ON_CREATE"));
             LOGGER.error("Failure to add custom command: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -176,7 +173,7 @@ public class TemplateCommand extends ChatCommand {
         final ResourceBundle locale = context.getResource();
 
         if (arguments.length < 2) {
-            textChannel.sendMessage(locale.getString("TEMPLATE_DELETE_MISSING_NAME")).queue();
+            context.replyError(locale.getString("TEMPLATE_DELETE_MISSING_NAME"));
             return;
         }
         final String commandName = arguments[1];
@@ -185,31 +182,35 @@ public class TemplateCommand extends ChatCommand {
         try {
             optCommand = this.templateManager.getCommand(commandName, guild.getIdLong());
         } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("TEMPLATE_SQL_ERROR_ON_FINDING_COMMAND")).queue();
+            context.replyError(locale.getString("TEMPLATE_SQL_ERROR_ON_FINDING_COMMAND"));
             return;
         }
         if (optCommand.isEmpty()) {
             final String template = locale.getString("TEMPLATE_DELETE_NOT_FOUND");
-            textChannel.sendMessageFormat(template, commandName).queue();
+            context.replyError(String.format(template, commandName));
             return;
         }
         final CustomCommand command = optCommand.get();
 
         //Check if user has permission to remove the command
         final Member sender = matcher.getMember();
-        textChannel.getGuild().retrieveMemberById(command.getAuthor()).submit().whenComplete((Member commandOwner, Throwable u) -> {
+        context.getMemberResolver().resolveMember(textChannel.getGuild(), command.getAuthor()).whenComplete((Member commandOwner, Throwable u) -> {
+            if (u != null) {
+                context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+                return;
+            }
             final boolean hasPermission = PermissionUtilities.hasPermission(sender, commandOwner);
             if (!hasPermission) {
-                textChannel.sendMessage(locale.getString("TEMPLATE_DELETE_PERMISSION_DENIED")).queue();
+                context.replyError(locale.getString("TEMPLATE_DELETE_PERMISSION_DENIED"));
                 return;
             }
 
             //Delete the command
             try {
                 this.templateManager.removeCommand(command);
-                textChannel.sendMessage(locale.getString("TEMPLATE_DELETE_SUCCESS")).queue();
+                context.reply(locale.getString("TEMPLATE_DELETE_SUCCESS"));
             } catch (SQLException ex) {
-                textChannel.sendMessage(locale.getString("TEMPLATE_SQL_ERROR_ON_DELETE")).queue();
+                context.replyError(locale.getString("TEMPLATE_SQL_ERROR_ON_DELETE"));
                 LOGGER.error("Failure to delete custom command: {}", ex.getMessage());
                 LOGGER.trace("Stack trace", ex);
             }
@@ -218,35 +219,13 @@ public class TemplateCommand extends ChatCommand {
 
     private void listCustomCommands(final CommandContext context) {
         final ResourceBundle locale = context.getResource();
-        final TextChannel textChannel = context.getChannel();
-        final Guild guild = textChannel.getGuild();
-
-        //Construct embed
-        final String header = locale.getString("HEADER_COMMANDS");
-        final EmbedBuilder eb = new EmbedBuilder();
-        eb.setTitle(header);
-
-        //Get the list of templates
-        final Collection<CustomCommand> templates;
-        try {
-            templates = this.templateManager.getCommands(guild.getIdLong());
-        } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("TEMPLATE_SQL_ERROR_ON_LOADING_COMMANDS")).queue();
-            return;
-        }
-        final ArrayList<CompletableFuture<String>> futures = new ArrayList<>(templates.size());
-        templates.forEach((CustomCommand command) -> {
-            futures.add(command.toListElement(locale, textChannel.getJDA()));
-        });
-        //After all the futures all initialized start waiting for results
-        final StringBuilder contentBuilder = new StringBuilder();
-        futures.forEach((CompletableFuture<String> desc) -> {
-            contentBuilder.append(desc.join());
-        });
-        if (templates.isEmpty()) {
-            contentBuilder.append(locale.getString("TEMPLATE_NO_COMMANDS"));
-        }
-        eb.setDescription(contentBuilder);
-        textChannel.sendMessageEmbeds(eb.build()).queue();
+        final long guildID = context.getGuild().getIdLong();
+        final ListPaginator<CustomCommand> paginator = new ListPaginator<>(CustomCommand::getName, CustomCommand::getAuthor,
+                (CustomCommand command, Member owner) -> {
+                    return command.toListElement(locale, owner);
+                });
+        paginator.sendPage(context, (String after, int limit) -> {
+            return this.templateManager.getCommands(guildID, after, limit);
+        }, locale.getString("HEADER_COMMANDS"), "TEMPLATE_NO_COMMANDS", "TEMPLATE_SQL_ERROR_ON_LOADING_COMMANDS");
     }
 }
@@ -32,7 +32,6 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -167,17 +166,22 @@ public class TemplateManager {
     }
 
     /**
-     * Get list of commands
+     * Get page of commands ordered by name
      *
+     * @param guildID guild to get commands for
+     * @param after name to get the commands after, empty for first page
+     * @param limit maximum number of commands to get
      * @return custom commands
      * @throws SQLException of database connection failed
      */
-    Collection<CustomCommand> getCommands(final long guildID) throws SQLException {
-        final List<CustomCommand> commands = new ArrayList<>();
-        final String query = "SELECT name,template,owner FROM Commands WHERE guild = ?;";
+    List<CustomCommand> getCommands(final long guildID, final String after, final int limit) throws SQLException {
+        final List<CustomCommand> commands = new ArrayList<>(limit);
+        final String query = "SELECT name,template,owner FROM Commands WHERE guild = ? AND name > ? ORDER BY name LIMIT ?;";
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, guildID);
+            ps.setString(2, after);
+            ps.setInt(3, limit);
             try (final ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     final String commandName = rs.getString("name");
@@ -188,7 +192,7 @@ public class TemplateManager {
                 }
             }
         }
-        return Collections.unmodifiableCollection(commands);
+        return Collections.unmodifiableList(commands);
     }
 
 }
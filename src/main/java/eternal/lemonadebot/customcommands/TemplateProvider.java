@@ -38,10 +38,10 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Random;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import javax.sql.DataSource;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Message;
@@ -123,12 +123,13 @@ public class TemplateProvider {
                     (CommandContext context, Matcher input) -> {
                         final String eventName = input.group(1);
                         final CommandMatcher matcher = context.getMatcher();
-                        final DataSource ds = context.getStorageManager().getDataSource();
+                        final EventManager events = context.getStorageManager().getEventManager();
                         final Guild guild = matcher.getGuild();
                         final ResourceBundle locale = context.getTranslation().getResourceBundle();
 
                         try {
-                            final Optional<Member> optMember = EventManager.getRandomMember(ds, eventName, guild);
+                            //Templates are rendered synchronously, wait for the members to be resolved
+                            final Optional<Member> optMember = events.getRandomMember(eventName, guild, context.getMemberResolver()).join();
                             if (optMember.isEmpty()) {
                                 return locale.getString("EVENT_NO_MEMBERS");
                             }
@@ -140,6 +141,8 @@ public class TemplateProvider {
                         } catch (SQLException e) {
                             //Database failed to retrieve event or members for event
                             return locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT");
+                        } catch (CompletionException e) {
+                            return locale.getString("ERROR_MEMBER_RETRIEVAL");
                         }
                     }),
             new ActionTemplate("daysSince (\\d+-\\d+\\d+)", "HELP_TEMPLATE_DAYS_SINCE",
@@ -27,6 +27,8 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import java.io.Closeable;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Properties;
@@ -42,6 +44,12 @@ public class DatabaseManager implements Closeable {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    /**
+     * Metadata entry holding the id of the last message added to the search
+     * index, exists until all messages logged before the index are indexed
+     */
+    public static final String MESSAGE_INDEX_BACKFILL = "MessageIndexBackfill";
+
     private final HikariDataSource dataSource;
     private final StorageConfig storageConfig;
 
@@ -115,12 +123,26 @@ public class DatabaseManager implements Closeable {
                 + "author INTEGER NOT NULL,"
                 + "content TEXT NOT NULL,"
                 + "FOREIGN KEY (guild) REFERENCES Guilds(id) ON DELETE CASCADE);";
+        final String MESSAGE_REVISIONS = "CREATE TABLE IF NOT EXISTS MessageRevisions("
+                + "message INTEGER NOT NULL,"
+                + "revision INTEGER NOT NULL,"
+                + "prefix INTEGER NOT NULL,"
+                + "suffix INTEGER NOT NULL,"
+                + "content TEXT NOT NULL,"
+                + "FOREIGN KEY (message) REFERENCES Messages(id) ON DELETE CASCADE,"
+                + "PRIMARY KEY (message,revision));";
+        //Full text index of message content, content is read from Messages so it is not stored twice.
+        //Index only holds decoded text so MessageManager keeps it in sync and removes old messages
+        final String MESSAGE_INDEX = "CREATE VIRTUAL TABLE IF NOT EXISTS MessageIndex "
+                + "USING fts5(guild, author, content, content='Messages', content_rowid='id');";
+        //Old messages are removed by MessageManager so they can be removed from index
         final String DROP_TRIGGER_CLEANUP = "DROP TRIGGER IF EXISTS MessageCleanup;";
-        //Trigger called to remove old messages, yes there is string concatenation but messageLogLimit is numeric
-        final String MESSAGE_CLEANUP = "CREATE TRIGGER MessageCleanup AFTER INSERT ON Messages BEGIN "
-                + "DELETE FROM Messages WHERE id IN "
-                + "(SELECT id FROM Messages WHERE guild = NEW.guild ORDER BY id DESC LIMIT -1 OFFSET "
-                + this.storageConfig.getMessageLogLimit() + "); END;";
+        //Index for removing the oldest messages of a guild
+        final String MESSAGES_INDEX = "CREATE INDEX IF NOT EXISTS MessagesByGuild "
+                + "ON Messages(guild,id);";
+        final String METADATA = "CREATE TABLE IF NOT EXISTS Metadata("
+                + "name TEXT PRIMARY KEY NOT NULL,"
+                + "value INTEGER NOT NULL);";
         final String COMMANDS = "CREATE TABLE IF NOT EXISTS Commands("
                 + "guild INTEGER NOT NULL,"
                 + "name TEXT NOT NULL,"
@@ -165,6 +187,7 @@ public class DatabaseManager implements Closeable {
                 + "dayOfWeek INTEGER NOT NULL,"
                 + "dayOfMonth INTEGER NOT NULL,"
                 + "monthOfYear INTEGER NOT NULL,"
+                + "nextActivation INTEGER NOT NULL DEFAULT 0,"
                 + "FOREIGN KEY (guild) REFERENCES Guilds(id) ON DELETE CASCADE,"
                 + "PRIMARY KEY (guild,name));";
         final String NOTIFCATIONS = "CREATE TABLE IF NOT EXISTS Notifications("
@@ -176,6 +199,16 @@ public class DatabaseManager implements Closeable {
                 + "time INTEGER NOT NULL,"
                 + "FOREIGN KEY (guild) REFERENCES Guilds(id) ON DELETE CASCADE,"
                 + "PRIMARY KEY (guild,name));";
+        //Indexes for loading reminders and notifications that are due soon
+        final String REMINDERS_INDEX = "CREATE INDEX IF NOT EXISTS RemindersByActivation "
+                + "ON Reminders(guild,nextActivation);";
+        final String NOTIFICATIONS_INDEX = "CREATE INDEX IF NOT EXISTS NotificationsByTime "
+                + "ON Notifications(guild,time);";
+        //Indexes for loading the window of all guilds at once
+        final String REMINDERS_DUE_INDEX = "CREATE INDEX IF NOT EXISTS RemindersDue "
+                + "ON Reminders(nextActivation);";
+        final String NOTIFICATIONS_DUE_INDEX = "CREATE INDEX IF NOT EXISTS NotificationsDue "
+                + "ON Notifications(time);";
         final String KEYWORDS = "Create TABLE IF NOT EXISTS Keywords("
                 + "guild INTEGER NOT NULL,"
                 + "name TEXT NOT NULL,"
@@ -204,13 +237,31 @@ public class DatabaseManager implements Closeable {
                 + "commandRemove TEXT NOT NULL,"
                 + "FOREIGN KEY (guild) REFERENCES Guilds(id) ON DELETE CASCADE,"
                 + "PRIMARY KEY (guild,messageId,reaction));";
+        final String MUSIC_QUEUE = "CREATE TABLE IF NOT EXISTS MusicQueue("
+                + "guild INTEGER NOT NULL,"
+                + "position INTEGER NOT NULL,"
+                + "track BLOB NOT NULL,"
+                + "progress INTEGER NOT NULL DEFAULT 0,"
+                + "FOREIGN KEY (guild) REFERENCES Guilds(id) ON DELETE CASCADE,"
+                + "PRIMARY KEY (guild,position));";
+        final String TRACK_CACHE = "CREATE TABLE IF NOT EXISTS TrackCache("
+                + "identifier TEXT PRIMARY KEY NOT NULL,"
+                + "name TEXT,"
+                + "selected INTEGER NOT NULL,"
+                + "search INTEGER NOT NULL,"
+                + "tracks BLOB NOT NULL,"
+                + "expires INTEGER NOT NULL);";
+        final String TRACK_CACHE_INDEX = "CREATE INDEX IF NOT EXISTS TrackCacheByExpiry "
+                + "ON TrackCache(expires);";
         try (final Connection connection = this.dataSource.getConnection();
                 final Statement st = connection.createStatement()) {
             st.addBatch(GUILDCONF);
             st.addBatch(PERMISSIONS);
             st.addBatch(MESSAGES);
+            st.addBatch(MESSAGES_INDEX);
+            st.addBatch(MESSAGE_REVISIONS);
             st.addBatch(DROP_TRIGGER_CLEANUP);
-            st.addBatch(MESSAGE_CLEANUP);
+            st.addBatch(METADATA);
             st.addBatch(COMMANDS);
             st.addBatch(COOLDOWNS);
             st.addBatch(EVENTS);
@@ -222,8 +273,77 @@ public class DatabaseManager implements Closeable {
             st.addBatch(INVENTORY);
             st.addBatch(INVENTORY_CLEANUP);
             st.addBatch(REACTIONS);
+            st.addBatch(MUSIC_QUEUE);
+            st.addBatch(TRACK_CACHE);
+            st.addBatch(TRACK_CACHE_INDEX);
             st.executeBatch();
+
+            //Databases created before the column existed need it added before indexing
+            addColumnIfMissing(connection, "Reminders", "nextActivation", "INTEGER NOT NULL DEFAULT 0");
+            st.addBatch(REMINDERS_INDEX);
+            st.addBatch(NOTIFICATIONS_INDEX);
+            st.addBatch(REMINDERS_DUE_INDEX);
+            st.addBatch(NOTIFICATIONS_DUE_INDEX);
+            st.executeBatch();
+
+            //Index and the record of messages left to index are created together
+            if (!tableExists(connection, "MessageIndex")) {
+                LOGGER.info("Creating message search index");
+                connection.setAutoCommit(false);
+                try {
+                    st.executeUpdate(MESSAGE_INDEX);
+                    st.executeUpdate("INSERT INTO Metadata(name,value) VALUES('" + MESSAGE_INDEX_BACKFILL + "',0);");
+                    connection.commit();
+                } catch (SQLException ex) {
+                    connection.rollback();
+                    throw ex;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
         }
         LOGGER.debug("Database initialized");
     }
+
+    /**
+     * Check if table exists in database
+     *
+     * @param connection Connection to use
+     * @param table Name of the table
+     * @return true if table exists
+     * @throws SQLException if database connection fails
+     */
+    private static boolean tableExists(final Connection connection, final String table) throws SQLException {
+        final String query = "SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?;";
+        try (final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setString(1, table);
+            try (final ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Add column to a table if the table does not have it yet
+     *
+     * @param connection Connection to use
+     * @param table Name of the table
+     * @param column Name of the column
+     * @param definition Type and constraints of the column
+     * @throws SQLException if database connection fails
+     */
+    private static void addColumnIfMissing(final Connection connection, final String table,
+            final String column, final String definition) throws SQLException {
+        try (final Statement st = connection.createStatement()) {
+            try (final ResultSet rs = st.executeQuery("PRAGMA table_info(" + table + ");")) {
+                while (rs.next()) {
+                    if (column.equals(rs.getString("name"))) {
+                        return;
+                    }
+                }
+            }
+            LOGGER.info("Adding column: {} to table: {}", column, table);
+            st.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition + ";");
+        }
+    }
 }
@@ -23,6 +23,7 @@
  */
 package eternal.lemonadebot.database;
 
+import java.time.Duration;
 import java.util.Properties;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,6 +45,57 @@ public class StorageConfig {
     //Message storage limit
     private final int messageLogLimit;
 
+    //Threads used to run scheduled tasks
+    private final int timerThreads;
+
+    //Threads used to initialize guilds at startup
+    private final int initThreads;
+
+    //Minutes ahead of time reminders and notifications are loaded to memory
+    private final int scheduleWindow;
+
+    //Replaying reminders and notifications missed while offline
+    private final int catchUpCutoff;
+    private final int catchUpInterval;
+
+    //Messages sent to discord at the same time
+    private final int outboxInFlight;
+
+    //Batching of log channel entries
+    private final int logBatchWindow;
+    private final int logBatchSummaryThreshold;
+    private final int messageCacheSize;
+    private final int messageCacheBudget;
+    private final boolean messageCompression;
+
+    //Member cache
+    private final boolean lowMemoryMemberCache;
+    private final int memberActiveTime;
+    private final int memberResolveTime;
+
+    //Music players without voice connection are released after
+    private final int musicIdleTime;
+
+    //Audio frame pipeline
+    private final boolean nonAllocatingAudio;
+    private final int audioFrameBufferDuration;
+
+    //Items shown per page in lists
+    private final int listPageSize;
+
+    //Bot presence is updated at most once per
+    private final int presenceUpdateTime;
+
+    //Cache of loaded tracks
+    private final int trackCacheSize;
+    private final int trackCacheTime;
+    private final int trackCacheDiskLimit;
+
+    //Local copies of frequently played audio
+    private final String audioCacheDirectory;
+    private final int audioCacheSize;
+    private final int audioCacheMinPlays;
+
     //Limits
     private final int perGuildEventLimit;
     private final int perGuildTemplateLimit;
@@ -64,6 +116,34 @@ public class StorageConfig {
         //Amount of messages to keep in database
         this.messageLogLimit = parseConfig(config, "max-messages", 4096);
 
+        //Threads for running reminders and notifications
+        this.timerThreads = parseConfig(config, "timer-threads", 2);
+        this.initThreads = parseConfig(config, "init-threads", 4);
+        this.scheduleWindow = parseConfig(config, "schedule-window-minutes", 60);
+        this.catchUpCutoff = parseConfig(config, "catchup-cutoff-minutes", 60);
+        this.catchUpInterval = parseConfig(config, "catchup-interval-ms", 1000);
+        this.outboxInFlight = parseConfig(config, "outbox-max-in-flight", 8);
+        this.logBatchWindow = parseConfig(config, "log-batch-window-ms", 2000);
+        this.logBatchSummaryThreshold = parseConfig(config, "log-batch-summary-threshold", 50);
+        this.messageCacheSize = parseConfig(config, "message-cache-kb", 256);
+        this.messageCacheBudget = parseConfig(config, "message-cache-total-mb", 64);
+        this.messageCompression = Boolean.parseBoolean(config.getProperty("message-compression"));
+        this.lowMemoryMemberCache = Boolean.parseBoolean(config.getProperty("low-memory-member-cache"));
+        this.memberActiveTime = parseConfig(config, "member-active-minutes", 30);
+        this.memberResolveTime = parseConfig(config, "member-resolve-ttl-seconds", 300);
+        this.musicIdleTime = parseConfig(config, "music-idle-minutes", 10);
+        this.nonAllocatingAudio = Boolean.parseBoolean(config.getProperty("non-allocating-audio"));
+        //Preallocated buffers take memory for the whole duration, keep them shorter
+        this.audioFrameBufferDuration = parseConfig(config, "audio-frame-buffer-ms", this.nonAllocatingAudio ? 2000 : 5000);
+        this.listPageSize = parseConfig(config, "list-page-size", 20);
+        this.presenceUpdateTime = parseConfig(config, "presence-update-seconds", 20);
+        this.trackCacheSize = parseConfig(config, "track-cache-size", 256);
+        this.trackCacheTime = parseConfig(config, "track-cache-hours", 24);
+        this.trackCacheDiskLimit = parseConfig(config, "track-cache-disk-limit", 4096);
+        this.audioCacheDirectory = config.getProperty("audio-cache-directory", "audio-cache");
+        this.audioCacheSize = parseConfig(config, "audio-cache-mb", 512);
+        this.audioCacheMinPlays = parseConfig(config, "audio-cache-min-plays", 2);
+
         //Per guild Limits
         this.perGuildEventLimit = parseConfig(config, "event-limit", 16386);
         this.perGuildTemplateLimit = parseConfig(config, "template-limit", 16386);
@@ -120,6 +200,237 @@ public class StorageConfig {
         return this.messageLogLimit;
     }
 
+    /**
+     * Get the number of threads used to run reminders and notifications
+     *
+     * @return number of timer threads
+     */
+    public int getTimerThreadCount() {
+        return this.timerThreads;
+    }
+
+    /**
+     * Get number of threads used to initialize guilds at startup
+     *
+     * @return number of threads
+     */
+    public int getInitThreadCount() {
+        return Math.max(this.initThreads, 1);
+    }
+
+    /**
+     * Get how far ahead reminders and notifications are loaded to memory
+     *
+     * @return Duration of the loading window
+     */
+    public Duration getScheduleWindow() {
+        return Duration.ofMinutes(Math.max(this.scheduleWindow, 1));
+    }
+
+    /**
+     * Get how long ago a missed reminder or notification can be due and still
+     * be replayed at startup
+     *
+     * @return Duration, zero if catch-up is disabled
+     */
+    public Duration getCatchUpCutoff() {
+        return Duration.ofMinutes(Math.max(this.catchUpCutoff, 0));
+    }
+
+    /**
+     * Get the time to wait between replaying missed reminders and
+     * notifications
+     *
+     * @return Duration
+     */
+    public Duration getCatchUpInterval() {
+        return Duration.ofMillis(Math.max(this.catchUpInterval, 1));
+    }
+
+    /**
+     * Get the number of messages the outbox sends at the same time
+     *
+     * @return number of messages in flight
+     */
+    public int getOutboxMaxInFlight() {
+        return this.outboxInFlight;
+    }
+
+    /**
+     * Get the time log channel entries are collected before sending
+     *
+     * @return Duration
+     */
+    public Duration getLogBatchWindow() {
+        return Duration.ofMillis(Math.max(this.logBatchWindow, 0));
+    }
+
+    /**
+     * Get the number of log entries in a window after which only a summary is
+     * sent
+     *
+     * @return number of entries
+     */
+    public int getLogBatchSummaryThreshold() {
+        return this.logBatchSummaryThreshold;
+    }
+
+    /**
+     * Get the size of the recent message cache for each guild
+     *
+     * @return size in bytes, 0 if cache is disabled
+     */
+    public int getMessageCacheSize() {
+        return Math.max(this.messageCacheSize, 0) * 1024;
+    }
+
+    /**
+     * Get the combined size of the recent message caches of all guilds
+     *
+     * @return size in bytes
+     */
+    public long getMessageCacheBudget() {
+        return Math.max(this.messageCacheBudget, 0) * 1024L * 1024L;
+    }
+
+    /**
+     * Check if logged message content should be compressed
+     *
+     * @return true if compression is enabled
+     */
+    public boolean messageCompressionEnabled() {
+        return this.messageCompression;
+    }
+
+    /**
+     * Check if only active members should be cached instead of all members
+     *
+     * @return true if low memory member cache is enabled
+     */
+    public boolean lowMemoryMemberCacheEnabled() {
+        return this.lowMemoryMemberCache;
+    }
+
+    /**
+     * Get the time members stay cached after their last activity in low
+     * memory mode
+     *
+     * @return Duration
+     */
+    public Duration getMemberActiveTime() {
+        return Duration.ofMinutes(Math.max(this.memberActiveTime, 1));
+    }
+
+    /**
+     * Get the time members retrieved for rendering lists are remembered
+     *
+     * @return Duration
+     */
+    public Duration getMemberResolveTime() {
+        return Duration.ofSeconds(Math.max(this.memberResolveTime, 0));
+    }
+
+    /**
+     * Get the time music player is kept after disconnecting from voice
+     *
+     * @return Duration
+     */
+    public Duration getMusicIdleTime() {
+        return Duration.ofMinutes(Math.max(this.musicIdleTime, 1));
+    }
+
+    /**
+     * Check if audio frames should be stored in preallocated buffers instead
+     * of allocating each frame
+     *
+     * @return true if non-allocating audio pipeline is enabled
+     */
+    public boolean nonAllocatingAudioEnabled() {
+        return this.nonAllocatingAudio;
+    }
+
+    /**
+     * Get the duration of audio buffered ahead for each player
+     *
+     * @return Duration
+     */
+    public Duration getAudioFrameBufferDuration() {
+        return Duration.ofMillis(Math.max(this.audioFrameBufferDuration, 200));
+    }
+
+    /**
+     * Get the number of items shown on each page of a list
+     *
+     * @return page size
+     */
+    public int getListPageSize() {
+        return Math.min(Math.max(this.listPageSize, 1), 100);
+    }
+
+    /**
+     * Get the minimum time between bot presence updates
+     *
+     * @return Duration
+     */
+    public Duration getPresenceUpdateInterval() {
+        return Duration.ofSeconds(Math.max(this.presenceUpdateTime, 1));
+    }
+
+    /**
+     * Get the number of loaded tracks and search results kept in memory
+     *
+     * @return number of items
+     */
+    public int getTrackCacheSize() {
+        return Math.max(this.trackCacheSize, 0);
+    }
+
+    /**
+     * Get the time loaded tracks and search results are cached
+     *
+     * @return Duration
+     */
+    public Duration getTrackCacheTime() {
+        return Duration.ofHours(Math.max(this.trackCacheTime, 0));
+    }
+
+    /**
+     * Get the number of loaded tracks and search results kept in database
+     *
+     * @return number of items
+     */
+    public int getTrackCacheDiskLimit() {
+        return Math.max(this.trackCacheDiskLimit, 0);
+    }
+
+    /**
+     * Get the directory to store local copies of audio in
+     *
+     * @return directory path
+     */
+    public String getAudioCacheDirectory() {
+        return this.audioCacheDirectory;
+    }
+
+    /**
+     * Get the disk space local copies of audio can use
+     *
+     * @return size in bytes, 0 if caching audio is disabled
+     */
+    public long getAudioCacheSize() {
+        return Math.max(this.audioCacheSize, 0) * 1024L * 1024L;
+    }
+
+    /**
+     * Get the number of times track has to be played before it is stored
+     * locally
+     *
+     * @return number of plays
+     */
+    public int getAudioCacheMinPlays() {
+        return Math.max(this.audioCacheMinPlays, 1);
+    }
+
     /**
      * Get number of events each guild is allowed to have
      *
@@ -23,15 +23,23 @@
  */
 package eternal.lemonadebot.database;
 
+import eternal.lemonadebot.cache.MemberResolver;
 import eternal.lemonadebot.commands.CommandList;
 import eternal.lemonadebot.commands.CommandProvider;
 import eternal.lemonadebot.config.ConfigCache;
-import eternal.lemonadebot.cooldowns.CooldownManagerCache;
 import eternal.lemonadebot.cooldowns.CooldownManager;
+import eternal.lemonadebot.cooldowns.CooldownManagerCache;
+import eternal.lemonadebot.events.EventManager;
+import eternal.lemonadebot.messagelogs.MessageManager;
+import eternal.lemonadebot.outbox.Outbox;
 import eternal.lemonadebot.permissions.PermissionManager;
 import eternal.lemonadebot.permissions.PermissionManagerCache;
+import eternal.lemonadebot.scheduling.CatchUpQueue;
+import eternal.lemonadebot.scheduling.ReadinessGate;
+import eternal.lemonadebot.scheduling.TimerService;
 import java.io.Closeable;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import javax.sql.DataSource;
@@ -52,6 +60,13 @@ public class StorageManager implements Closeable {
     private final ConfigCache configCache;
     private final PermissionManager permissionManager;
     private final CooldownManager cooldownManager;
+    private final TimerService timerService;
+    private final CatchUpQueue catchUpQueue;
+    private final ReadinessGate readinessGate;
+    private final Outbox outbox;
+    private final MessageManager messageManager;
+    private final MemberResolver memberResolver;
+    private final EventManager eventManager;
 
     /**
      * Constructor
@@ -61,6 +76,11 @@ public class StorageManager implements Closeable {
      */
     public StorageManager(final Properties properties) throws SQLException {
         this.database = new DatabaseManager(properties);
+        this.timerService = new TimerService(this.database.getConfig().getTimerThreadCount());
+        this.readinessGate = new ReadinessGate(this.timerService);
+        this.outbox = new Outbox(this.database.getConfig().getOutboxMaxInFlight());
+        this.catchUpQueue = new CatchUpQueue(this.timerService, this.database.getConfig().getCatchUpInterval(),
+                this.database.getConfig().getCatchUpCutoff());
         this.commandProvider = new CommandProvider(this.database);
         this.configCache = new ConfigCache(this.database);
         final CommandList commandList = this.commandProvider.getBuiltInCommands();
@@ -75,6 +95,15 @@ public class StorageManager implements Closeable {
         } else {
             this.cooldownManager = new CooldownManager(this.database);
         }
+        this.messageManager = new MessageManager(this.database.getDataSource(), storageConfig.getMessageLogLimit(),
+                storageConfig.getMessageCacheSize(),
+                storageConfig.getMessageCacheBudget(), storageConfig.messageCompressionEnabled());
+        //Resume indexing messages logged before the search index existed
+        this.messageManager.buildSearchIndex();
+        this.messageManager.start(this.timerService);
+        this.memberResolver = new MemberResolver(storageConfig.getMemberResolveTime());
+        this.memberResolver.start(this.timerService);
+        this.eventManager = new EventManager(this.database);
     }
 
     /**
@@ -104,6 +133,43 @@ public class StorageManager implements Closeable {
         return this.permissionManager;
     }
 
+    /**
+     * Get messageManager
+     *
+     * @return MessageManager
+     */
+    public MessageManager getMessageManager() {
+        return this.messageManager;
+    }
+
+    /**
+     * Get the resolver used to find members for listings
+     *
+     * @return MemberResolver
+     */
+    public MemberResolver getMemberResolver() {
+        return this.memberResolver;
+    }
+
+    /**
+     * Get the manager for events, shared so that all users see the same
+     * event members
+     *
+     * @return EventManager
+     */
+    public EventManager getEventManager() {
+        return this.eventManager;
+    }
+
+    /**
+     * Shortcut to get configuration from database
+     *
+     * @return StorageConfig
+     */
+    public StorageConfig getConfig() {
+        return this.database.getConfig();
+    }
+
     /**
      * Shortcut to get datasource from database
      *
@@ -122,6 +188,43 @@ public class StorageManager implements Closeable {
         return this.cooldownManager;
     }
 
+    /**
+     * Get the timer shared by reminders and notifications
+     *
+     * @return TimerService
+     */
+    public TimerService getTimerService() {
+        return this.timerService;
+    }
+
+    /**
+     * Get the queue used to replay reminders and notifications missed while
+     * offline
+     *
+     * @return CatchUpQueue
+     */
+    public CatchUpQueue getCatchUpQueue() {
+        return this.catchUpQueue;
+    }
+
+    /**
+     * Get the gate that holds jobs while JDA is not connected
+     *
+     * @return ReadinessGate
+     */
+    public ReadinessGate getReadinessGate() {
+        return this.readinessGate;
+    }
+
+    /**
+     * Get the queue for outgoing messages
+     *
+     * @return Outbox
+     */
+    public Outbox getOutbox() {
+        return this.outbox;
+    }
+
     /**
      * Initialize data and commands
      *
@@ -129,12 +232,26 @@ public class StorageManager implements Closeable {
      */
     public void initialize(final List<Guild> guilds) {
         LOGGER.debug("Initializing RuntimeStorage");
+        final List<Long> guildIDs = new ArrayList<>(guilds.size());
+        for (final Guild guild : guilds) {
+            guildIDs.add(guild.getIdLong());
+        }
+        final long configStart = System.nanoTime();
+        try {
+            this.configCache.warmUp(guildIDs);
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to load guild configs, loading on demand instead: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+        LOGGER.info("Startup phase configs took {} ms", (System.nanoTime() - configStart) / 1_000_000);
         commandProvider.initialize(guilds, this);
         LOGGER.debug("RuntimeStorage intialized succesfully");
     }
 
     @Override
     public void close() {
+        this.commandProvider.getBuiltInCommands().close();
+        this.timerService.close();
         this.database.close();
     }
 
@@ -24,10 +24,7 @@
 package eternal.lemonadebot.events;
 
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
-import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Member;
-import net.dv8tion.jda.api.entities.User;
 
 /**
  *
@@ -149,34 +146,24 @@ public class Event {
      * Get string representation of the event for listing events
      *
      * @param locale Locale to return the list element in
-     * @param jda JDA to use to get the event owner
+     * @param eventCreator Owner of the event, null if not found
      * @return String
      */
-    CompletableFuture<String> toListElement(final ResourceBundle locale, final JDA jda) {
-        final CompletableFuture<String> result = new CompletableFuture<>();
+    String toListElement(final ResourceBundle locale, final Member eventCreator) {
         final String template = locale.getString("EVENT_COMMAND_LIST_ELEMENT");
-        jda.retrieveUserById(this.ownerID).queue((User eventCreator) -> {
-            //Found user
-            final String creatorName = eventCreator.getAsMention();
-            final String eventDescription;
-            if (this.description == null) {
-                eventDescription = locale.getString("EVENT_NO_DESCRIPTION");
-            } else {
-                eventDescription = this.description;
-            }
-            result.complete(String.format(template, this.name, eventDescription, creatorName));
-        }, (Throwable t) -> {
-            //User missing
-            final String creatorName = locale.getString("UNKNOWN_USER");
-            final String eventDescription;
-            if (this.description == null) {
-                eventDescription = locale.getString("EVENT_NO_DESCRIPTION");
-            } else {
-                eventDescription = this.description;
-            }
-            result.complete(String.format(template, this.name, eventDescription, creatorName));
-        });
-        return result;
+        final String creatorName;
+        if (eventCreator == null) {
+            creatorName = locale.getString("UNKNOWN_USER");
+        } else {
+            creatorName = eventCreator.getAsMention();
+        }
+        final String eventDescription;
+        if (this.description == null) {
+            eventDescription = locale.getString("EVENT_NO_DESCRIPTION");
+        } else {
+            eventDescription = this.description;
+        }
+        return String.format(template, this.name, eventDescription, creatorName);
     }
 
 }
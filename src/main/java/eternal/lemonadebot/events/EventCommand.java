@@ -25,7 +25,8 @@ package eternal.lemonadebot.events;
 
 import eternal.lemonadebot.commands.ChatCommand;
 import eternal.lemonadebot.commands.CommandContext;
-import eternal.lemonadebot.database.DatabaseManager;
+import eternal.lemonadebot.commands.ListPaginator;
+import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import eternal.lemonadebot.permissions.CommandPermission;
 import eternal.lemonadebot.permissions.MemberRank;
@@ -40,10 +41,8 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.IMentionable;
@@ -60,15 +59,13 @@ import org.apache.logging.log4j.Logger;
 public class EventCommand extends ChatCommand {
 
     private static final Logger LOGGER = LogManager.getLogger();
-    private final EventManager events;
+    //Number of members that can be retrieved at once
+    private static final int MEMBER_PAGE_SIZE = 100;
+    private EventManager events;
 
-    /**
-     * Constructor
-     *
-     * @param database Database to store events in
-     */
-    public EventCommand(final DatabaseManager database) {
-        this.events = new EventManager(database);
+    @Override
+    public void initialize(final StorageManager storage) {
+        this.events = storage.getEventManager();
     }
 
     @Override
@@ -94,13 +91,12 @@ public class EventCommand extends ChatCommand {
     @Override
     protected void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
 
         final String[] opts = matcher.getArguments(2);
         if (opts.length == 0) {
-            textChannel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -149,7 +145,7 @@ public class EventCommand extends ChatCommand {
                 return;
             }
             default: {
-                textChannel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + action).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + action);
             }
         }
     }
@@ -157,10 +153,9 @@ public class EventCommand extends ChatCommand {
     private void createEvent(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
         final Member sender = matcher.getMember();
-        final TextChannel textChannel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         if (opts.length < 2) {
-            textChannel.sendMessage(locale.getString("EVENT_CREATE_MISSING_NAME")).queue();
+            context.replyError(locale.getString("EVENT_CREATE_MISSING_NAME"));
             return;
         }
         final String eventName = opts[1];
@@ -174,16 +169,16 @@ public class EventCommand extends ChatCommand {
 
         try {
             if (!events.addEvent(newEvent)) {
-                textChannel.sendMessage(locale.getString("EVENT_ALREADY_EXISTS")).queue();
+                context.replyError(locale.getString("EVENT_ALREADY_EXISTS"));
                 return;
             }
             if (!events.joinEvent(newEvent, sender)) {
-                textChannel.sendMessage(locale.getString("EVENT_CREATE_JOIN_FAILED")).queue();
+                context.replyError(locale.getString("EVENT_CREATE_JOIN_FAILED"));
                 return;
             }
-            textChannel.sendMessage(locale.getString("EVENT_CREATE_SUCCESS")).queue();
+            context.reply(locale.getString("EVENT_CREATE_SUCCESS"));
         } catch (SQLException ex) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_CREATE")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_CREATE"));
             LOGGER.error("Failure to create event: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -195,7 +190,7 @@ public class EventCommand extends ChatCommand {
         final TextChannel textChannel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         if (opts.length < 2) {
-            textChannel.sendMessage(locale.getString("EVENT_DELETE_MISSING_NAME")).queue();
+            context.replyError(locale.getString("EVENT_DELETE_MISSING_NAME"));
             return;
         }
         final String eventName = opts[1];
@@ -205,26 +200,30 @@ public class EventCommand extends ChatCommand {
         try {
             oldEvent = events.getEvent(eventName, context.getGuild());
         } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT"));
             return;
         }
         if (oldEvent.isEmpty()) {
-            textChannel.sendMessageFormat(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName).queue();
+            context.replyError(String.format(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName));
             return;
         }
         final Event event = oldEvent.get();
-        textChannel.getGuild().retrieveMemberById(event.getOwner()).submit().whenComplete((Member eventOwner, Throwable error) -> {
+        context.getMemberResolver().resolveMember(textChannel.getGuild(), event.getOwner()).whenComplete((Member eventOwner, Throwable error) -> {
+            if (error != null) {
+                context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+                return;
+            }
             //Check if user has permission to remove the event
             final boolean hasPermission = PermissionUtilities.hasPermission(sender, eventOwner);
             if (!hasPermission) {
-                textChannel.sendMessage(locale.getString("EVENT_REMOVE_PERMISSION_DENIED")).queue();
+                context.replyError(locale.getString("EVENT_REMOVE_PERMISSION_DENIED"));
                 return;
             }
             try {
                 events.removeEvent(event);
-                textChannel.sendMessage(locale.getString("EVENT_REMOVED_SUCCESFULLY")).queue();
+                context.reply(locale.getString("EVENT_REMOVED_SUCCESFULLY"));
             } catch (SQLException ex) {
-                textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_REMOVE")).queue();
+                context.replyError(locale.getString("EVENT_SQL_ERROR_ON_REMOVE"));
                 LOGGER.error("Failure to remove event: {}", ex.getMessage());
                 LOGGER.trace("Stack trace", ex);
             }
@@ -234,12 +233,11 @@ public class EventCommand extends ChatCommand {
 
     private void joinEvent(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         final Member sender = matcher.getMember();
 
         if (opts.length < 2) {
-            textChannel.sendMessage(locale.getString("EVENT_JOIN_MISSING_NAME")).queue();
+            context.replyError(locale.getString("EVENT_JOIN_MISSING_NAME"));
             return;
         }
         final String eventName = opts[1];
@@ -249,29 +247,29 @@ public class EventCommand extends ChatCommand {
         try {
             oldEvent = this.events.getEvent(eventName, context.getGuild());
         } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT"));
             return;
         }
         if (oldEvent.isEmpty()) {
-            textChannel.sendMessageFormat(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName).queue();
+            context.replyError(String.format(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName));
             return;
         }
 
         //Check if event is locked
         final Event event = oldEvent.get();
         if (event.isLocked()) {
-            textChannel.sendMessage(locale.getString("EVENT_JOIN_LOCKED")).queue();
+            context.replyError(locale.getString("EVENT_JOIN_LOCKED"));
             return;
         }
 
         try {
             if (events.joinEvent(event, sender)) {
-                textChannel.sendMessage(locale.getString("EVENT_JOIN_SUCCESS")).queue();
+                context.reply(locale.getString("EVENT_JOIN_SUCCESS"));
                 return;
             }
-            textChannel.sendMessage(locale.getString("EVENT_JOIN_ALREADY_JOINED")).queue();
+            context.replyError(locale.getString("EVENT_JOIN_ALREADY_JOINED"));
         } catch (SQLException ex) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_JOIN")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_JOIN"));
             LOGGER.error("Failure to join event: {}\n{}", eventName, ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -279,12 +277,11 @@ public class EventCommand extends ChatCommand {
 
     private void leaveEvent(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         final Member sender = matcher.getMember();
 
         if (opts.length < 2) {
-            textChannel.sendMessage(locale.getString("EVENT_LEAVE_MISSING_NAME")).queue();
+            context.replyError(locale.getString("EVENT_LEAVE_MISSING_NAME"));
             return;
         }
         final String eventName = opts[1];
@@ -294,30 +291,30 @@ public class EventCommand extends ChatCommand {
         try {
             oldEvent = events.getEvent(eventName, context.getGuild());
         } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT"));
             return;
         }
         if (oldEvent.isEmpty()) {
-            textChannel.sendMessageFormat(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName).queue();
+            context.replyError(String.format(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName));
             return;
         }
 
         //Check if event is locked
         final Event event = oldEvent.get();
         if (event.isLocked()) {
-            textChannel.sendMessage(locale.getString("EVENT_LEAVE_LOCKED")).queue();
+            context.replyError(locale.getString("EVENT_LEAVE_LOCKED"));
             return;
         }
 
         //Leave the event
         try {
             if (events.leaveEvent(event, sender.getIdLong())) {
-                textChannel.sendMessage(locale.getString("EVENT_LEAVE_SUCCESS")).queue();
+                context.reply(locale.getString("EVENT_LEAVE_SUCCESS"));
                 return;
             }
-            textChannel.sendMessage(locale.getString("EVENT_LEAVE_ALREADY_LEFT")).queue();
+            context.replyError(locale.getString("EVENT_LEAVE_ALREADY_LEFT"));
         } catch (SQLException ex) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_LEAVE")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_LEAVE"));
             LOGGER.error("Failure to leave event: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -328,7 +325,7 @@ public class EventCommand extends ChatCommand {
         final ResourceBundle locale = context.getResource();
 
         if (opts.length < 2) {
-            textChannel.sendMessage(locale.getString("EVENT_SHOW_MEMBERS_MISSING_NAME")).queue();
+            context.replyError(locale.getString("EVENT_SHOW_MEMBERS_MISSING_NAME"));
             return;
         }
         final String eventName = opts[1];
@@ -338,24 +335,27 @@ public class EventCommand extends ChatCommand {
         try {
             opt = events.getEvent(eventName, context.getGuild());
         } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT"));
             return;
         }
         if (opt.isEmpty()) {
-            textChannel.sendMessageFormat(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName).queue();
+            context.replyError(String.format(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName));
             return;
         }
         final Event event = opt.get();
-        final List<Long> eventMemberIDs;
+        final List<List<Long>> pages = new ArrayList<>();
         try {
-            eventMemberIDs = events.getMembers(event);
+            final int memberCount = events.getMemberCount(event);
+            for (int offset = 0; offset < memberCount; offset += MEMBER_PAGE_SIZE) {
+                pages.add(events.getMembers(event, offset, MEMBER_PAGE_SIZE));
+            }
         } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_LOADING_MEMBERS")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_LOADING_MEMBERS"));
             return;
         }
 
         final String header = String.format(locale.getString("HEADER_EVENT_MEMBERS"), eventName);
-        batchMemberList(eventMemberIDs).forEach((List<Long> idBatch) -> {
+        pages.forEach((List<Long> idBatch) -> {
             textChannel.getGuild().retrieveMembersByIds(false, idBatch).onSuccess((List<Member> foundMembersList) -> {
                 final EmbedBuilder eb = new EmbedBuilder();
                 eb.setTitle(header);
@@ -372,7 +372,7 @@ public class EventCommand extends ChatCommand {
                 }
 
                 //Send the message
-                textChannel.sendMessageEmbeds(eb.build()).queue();
+                context.reply(eb.build());
 
                 //Remove missing members from event
                 cleanEvent(event, idBatch, foundMembersList, events);
@@ -383,12 +383,11 @@ public class EventCommand extends ChatCommand {
 
     private void clearEventMembers(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         final Member sender = matcher.getMember();
 
         if (opts.length < 2) {
-            textChannel.sendMessage(locale.getString("EVENT_CLEAR_MISSING_NAME")).queue();
+            context.replyError(locale.getString("EVENT_CLEAR_MISSING_NAME"));
             return;
         }
         final String eventName = opts[1];
@@ -398,86 +397,71 @@ public class EventCommand extends ChatCommand {
         try {
             opt = events.getEvent(eventName, context.getGuild());
         } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT"));
             return;
         }
         if (opt.isEmpty()) {
-            textChannel.sendMessageFormat(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName).queue();
+            context.replyError(String.format(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName));
             return;
         }
         final Event event = opt.get();
         if (event.getOwner() != sender.getIdLong()) {
-            textChannel.sendMessage(locale.getString("EVENT_CLEAR_PERMISSION_DENIED")).queue();
+            context.replyError(locale.getString("EVENT_CLEAR_PERMISSION_DENIED"));
             return;
         }
         try {
             events.clearEvent(event);
-            textChannel.sendMessage(locale.getString("EVENT_CLEAR_SUCCESS")).queue();
+            context.reply(locale.getString("EVENT_CLEAR_SUCCESS"));
         } catch (SQLException ex) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_CLEAR")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_CLEAR"));
             LOGGER.error("Failure to clear event: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
     }
 
     private void listEvents(final CommandContext context) {
-        final TextChannel textChannel = context.getChannel();
         final ResourceBundle locale = context.getResource();
-
-        final EmbedBuilder eb = new EmbedBuilder();
-        eb.setTitle(locale.getString("HEADER_EVENTS"));
-
-        //Get the list of events
-        final Collection<Event> ev;
-        try {
-            ev = this.events.getEvents(context.getGuild());
-        } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_LOADING_EVENTS")).queue();
-            return;
-        }
-        final List<CompletableFuture<String>> futures = new ArrayList<>(ev.size());
-        ev.forEach((Event event) -> {
-            futures.add(event.toListElement(locale, textChannel.getJDA()));
-        });
-        //After all the futures all initialized start waiting for results
-        final StringBuilder contentBuilder = new StringBuilder();
-        futures.forEach((CompletableFuture<String> desc) -> {
-            contentBuilder.append(desc.join());
-        });
-        if (ev.isEmpty()) {
-            contentBuilder.append(locale.getString("EVENT_NO_EVENTS"));
-        }
-        eb.setDescription(contentBuilder);
-        textChannel.sendMessageEmbeds(eb.build()).queue();
+        final Guild guild = context.getGuild();
+        final ListPaginator<Event> paginator = new ListPaginator<>(Event::getName, Event::getOwner,
+                (Event event, Member owner) -> {
+                    return event.toListElement(locale, owner);
+                });
+        paginator.sendPage(context, (String after, int limit) -> {
+            return this.events.getEvents(guild, after, limit);
+        }, locale.getString("HEADER_EVENTS"), "EVENT_NO_EVENTS", "EVENT_SQL_ERROR_LOADING_EVENTS");
     }
 
     private void pickRandomEventMember(final String[] opts, final CommandContext context) {
         final ResourceBundle locale = context.getResource();
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
 
         if (opts.length < 2) {
-            channel.sendMessage(locale.getString("EVENT_PICK_RANDOM_MISSING_NAME")).queue();
+            context.replyError(locale.getString("EVENT_PICK_RANDOM_MISSING_NAME"));
             return;
         }
         final String eventName = opts[1];
         final Guild guild = matcher.getGuild();
 
         try {
-            final Optional<Member> optMember = events.getRandomMember(eventName, guild);
-            optMember.ifPresentOrElse((Member member) -> {
-                final String template = locale.getString("EVENT_SELECTED_MEMBER");
-                channel.sendMessageFormat(template, member.getEffectiveName()).queue();
-            }, () -> {
-                channel.sendMessage(locale.getString("EVENT_NO_MEMBERS")).queue();
+            events.getRandomMember(eventName, guild, context.getMemberResolver()).whenComplete((Optional<Member> optMember, Throwable error) -> {
+                if (error != null) {
+                    context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+                    return;
+                }
+                optMember.ifPresentOrElse((Member member) -> {
+                    final String template = locale.getString("EVENT_SELECTED_MEMBER");
+                    context.reply(String.format(template, member.getEffectiveName()));
+                }, () -> {
+                    context.reply(locale.getString("EVENT_NO_MEMBERS"));
+                });
             });
         } catch (NoSuchElementException e) {
             //Could not find event with provided name
             final String template = locale.getString("EVENT_NOT_FOUND_WITH_NAME");
-            channel.sendMessageFormat(template, eventName).queue();
+            context.replyError(String.format(template, eventName));
         } catch (SQLException e) {
             //Database failed to retrieve event or members for event
-            channel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT"));
         }
     }
 
@@ -493,7 +477,7 @@ public class EventCommand extends ChatCommand {
         final TextChannel channel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         if (opts.length < 2) {
-            channel.sendMessage(locale.getString("EVENT_LOCK_MISSING_NAME")).queue();
+            context.replyError(locale.getString("EVENT_LOCK_MISSING_NAME"));
             return;
         }
         final String eventName = opts[1];
@@ -503,31 +487,35 @@ public class EventCommand extends ChatCommand {
         try {
             oldEvent = events.getEvent(eventName, context.getGuild());
         } catch (SQLException e) {
-            channel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT"));
             return;
         }
         if (oldEvent.isEmpty()) {
-            channel.sendMessageFormat(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName).queue();
+            context.replyError(String.format(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName));
             return;
         }
         final Event event = oldEvent.get();
         if (event.isLocked()) {
-            channel.sendMessage(locale.getString("EVENT_ALREADY_LOCKED")).queue();
+            context.replyError(locale.getString("EVENT_ALREADY_LOCKED"));
             return;
         }
-        channel.getGuild().retrieveMemberById(event.getOwner()).submit().whenComplete((Member eventOwner, Throwable error) -> {
+        context.getMemberResolver().resolveMember(channel.getGuild(), event.getOwner()).whenComplete((Member eventOwner, Throwable error) -> {
+            if (error != null) {
+                context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+                return;
+            }
             //Check if user has permission to remove the event
             final Member sender = matcher.getMember();
             final boolean hasPermission = PermissionUtilities.hasPermission(sender, eventOwner);
             if (!hasPermission) {
-                channel.sendMessage(locale.getString("EVENT_LOCK_PERMISSION_DENIED")).queue();
+                context.replyError(locale.getString("EVENT_LOCK_PERMISSION_DENIED"));
                 return;
             }
             try {
                 events.lockEvent(event);
-                channel.sendMessage(locale.getString("EVENT_LOCKED_SUCCESFULLY")).queue();
+                context.reply(locale.getString("EVENT_LOCKED_SUCCESFULLY"));
             } catch (SQLException ex) {
-                channel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_LOCK")).queue();
+                context.replyError(locale.getString("EVENT_SQL_ERROR_ON_LOCK"));
                 LOGGER.error("Failure to lock event: {}", ex.getMessage());
                 LOGGER.trace("Stack trace", ex);
             }
@@ -547,7 +535,7 @@ public class EventCommand extends ChatCommand {
         final TextChannel textChannel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         if (opts.length < 2) {
-            textChannel.sendMessage(locale.getString("EVENT_UNLOCK_MISSING_NAME")).queue();
+            context.replyError(locale.getString("EVENT_UNLOCK_MISSING_NAME"));
             return;
         }
         final String eventName = opts[1];
@@ -557,58 +545,44 @@ public class EventCommand extends ChatCommand {
         try {
             oldEvent = events.getEvent(eventName, context.getGuild());
         } catch (SQLException e) {
-            textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT")).queue();
+            context.replyError(locale.getString("EVENT_SQL_ERROR_ON_FINDING_EVENT"));
             return;
         }
         if (oldEvent.isEmpty()) {
-            textChannel.sendMessageFormat(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName).queue();
+            context.replyError(String.format(locale.getString("EVENT_NOT_FOUND_WITH_NAME"), eventName));
             return;
         }
 
         //Check if event is locked
         final Event event = oldEvent.get();
         if (!event.isLocked()) {
-            textChannel.sendMessage(locale.getString("EVENT_ALREADY_UNLOCKED")).queue();
+            context.replyError(locale.getString("EVENT_ALREADY_UNLOCKED"));
             return;
         }
 
         //Find the member of the event for permission check
-        textChannel.getGuild().retrieveMemberById(event.getOwner()).submit().whenComplete((Member eventOwner, Throwable error) -> {
+        context.getMemberResolver().resolveMember(textChannel.getGuild(), event.getOwner()).whenComplete((Member eventOwner, Throwable error) -> {
+            if (error != null) {
+                context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+                return;
+            }
             //Check if user has permission to remove the event
             final boolean hasPermission = PermissionUtilities.hasPermission(sender, eventOwner);
             if (!hasPermission) {
-                textChannel.sendMessage(locale.getString("EVENT_UNLOCK_PERMISSION_DENIED")).queue();
+                context.replyError(locale.getString("EVENT_UNLOCK_PERMISSION_DENIED"));
                 return;
             }
             try {
                 events.unlockEvent(event);
-                textChannel.sendMessage(locale.getString("EVENT_UNLOCKED_SUCCESFULLY")).queue();
+                context.reply(locale.getString("EVENT_UNLOCKED_SUCCESFULLY"));
             } catch (SQLException ex) {
-                textChannel.sendMessage(locale.getString("EVENT_SQL_ERROR_ON_UNLOCK")).queue();
+                context.replyError(locale.getString("EVENT_SQL_ERROR_ON_UNLOCK"));
                 LOGGER.error("Failure to unlock event: {}", ex.getMessage());
                 LOGGER.trace("Stack trace", ex);
             }
         });
     }
 
-    /**
-     * Used to split event members to groups of 100 to limit amount of members
-     * retrieved per call
-     *
-     * @param source All the event member ids
-     * @return stream of lists where each list has 100 or less ids
-     */
-    private static Stream<List<Long>> batchMemberList(final List<Long> source) {
-        final int maxCount = 100;
-        if (source.isEmpty()) {
-            return Stream.empty();
-        }
-        final int size = source.size();
-        final int fullChunks = (size - 1) / maxCount;
-        return IntStream.range(0, fullChunks + 1).mapToObj(
-                n -> source.subList(n * maxCount, n == fullChunks ? size : (n + 1) * maxCount));
-    }
-
     /**
      * Used to remove members from event who are no longer in guild
      *
@@ -619,21 +593,21 @@ public class EventCommand extends ChatCommand {
      */
     private static void cleanEvent(final Event event, final List<Long> memberIDList, final List<Member> foundMembersList, final EventManager eventManager) {
         //Clear all the members from the event who could not be found
-        memberIDList.stream().filter((Long eventMemberID) -> {
-            //Get the IDs of event members who do not appear in the found members list
-            return foundMembersList.stream().noneMatch((Member foundMember) -> {
-                return foundMember.getIdLong() == eventMemberID;
-            });
-        }).forEach((Long missingMemberID) -> {
-            LOGGER.info("Found user: {} in event: {} members who could not be found, removing from event", missingMemberID, event.getName());
-            try {
-                eventManager.leaveEvent(event, missingMemberID);
-                LOGGER.info("Successfully removed missing member from event\n");
-            } catch (SQLException ex) {
-                LOGGER.error("Failure to remove member: {} from event: {}, Error: {}", missingMemberID, event.getName(), ex.getMessage());
-                LOGGER.trace("Stack trace", ex);
-            }
-        });
+        final Set<Long> foundIDs = foundMembersList.stream().map(Member::getIdLong).collect(Collectors.toSet());
+        final List<Long> missing = memberIDList.stream().filter((Long eventMemberID) -> {
+            return !foundIDs.contains(eventMemberID);
+        }).collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return;
+        }
+        LOGGER.info("Found {} users in event: {} members who could not be found, removing from event", missing.size(), event.getName());
+        try {
+            eventManager.leaveEvent(event, missing);
+            LOGGER.info("Successfully removed missing members from event");
+        } catch (SQLException ex) {
+            LOGGER.error("Failure to remove members from event: {}, Error: {}", event.getName(), ex.getMessage());
+            LOGGER.trace("Stack trace", ex);
+        }
     }
 
 }
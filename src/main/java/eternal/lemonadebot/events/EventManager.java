@@ -23,6 +23,7 @@
  */
 package eternal.lemonadebot.events;
 
+import eternal.lemonadebot.cache.MemberResolver;
 import eternal.lemonadebot.database.DatabaseManager;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -32,12 +33,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import javax.sql.DataSource;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
-import net.dv8tion.jda.api.exceptions.ErrorResponseException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -48,8 +51,14 @@ import org.apache.logging.log4j.Logger;
 public class EventManager {
 
     private static final Logger LOGGER = LogManager.getLogger();
+    //Number of members sampled at once
+    private static final int RANDOM_SAMPLE_SIZE = 100;
+    //Number of sampled members not in cache retrieved at once
+    private static final int RESOLVE_BATCH_SIZE = 5;
 
     private final DataSource dataSource;
+    private final EventMemberIndex memberIndex;
+    private final Random rng = new Random();
 
     /**
      * Constructor
@@ -58,52 +67,102 @@ public class EventManager {
      */
     public EventManager(final DatabaseManager db) {
         this.dataSource = db.getDataSource();
+        this.memberIndex = new EventMemberIndex(this::loadMembers);
     }
 
     /**
-     * Get random event member from event
+     * Get random event member from event. Candidates are sampled from the
+     * event members and resolved in a single batch, members no longer in the
+     * guild are removed from the event.
      *
      * @param eventName Name of event to get member for
      * @param guild guild to retrieve member from
-     * @return Optional containing event if any event member can be found
+     * @param resolver MemberResolver to find the members with
+     * @return Future containing member if any event member can be found,
+     * completes exceptionally if retrieving members fails
      * @throws SQLException If database connection failed
      * @throws NoSuchElementException If there is no event with provided name
      */
-    public Optional<Member> getRandomMember(final String eventName, final Guild guild) throws SQLException, NoSuchElementException {
-        return getRandomMember(this.dataSource, eventName, guild);
+    public CompletableFuture<Optional<Member>> getRandomMember(final String eventName, final Guild guild, final MemberResolver resolver) throws SQLException, NoSuchElementException {
+        final Event ev = getEvent(eventName, guild).orElseThrow();
+        return pickRandomMember(ev, guild, resolver);
     }
 
     /**
-     * Get random event memeber from event
+     * Pick member from a random sample of event members, samples again if
+     * none of the sampled members could be found
      *
-     * @param ds Datasource to use to connect to database
-     * @param eventName Name of the event to get a memmber from
+     * @param event Event to pick member from
      * @param guild Guild the event is from
-     * @return Optional containing a member if found
+     * @param resolver MemberResolver to find the members with
+     * @return Future containing a member if found
      * @throws SQLException If database connection failed
-     * @throws NoSuchElementException If event does not exist
      */
-    public static Optional<Member> getRandomMember(final DataSource ds, final String eventName, final Guild guild) throws SQLException, NoSuchElementException {
-        final Event ev = getEvent(ds, eventName, guild).orElseThrow();
-        final List<Long> eventMemberIDs = getMembersMutable(ds, ev);
-        Collections.shuffle(eventMemberIDs);
-        for (final Long l : eventMemberIDs) {
+    private CompletableFuture<Optional<Member>> pickRandomMember(final Event event, final Guild guild, final MemberResolver resolver) throws SQLException {
+        final List<Long> candidates = this.memberIndex.getRandomMembers(event, RANDOM_SAMPLE_SIZE, this.rng);
+        return pickCandidate(event, guild, resolver, candidates, 0);
+    }
+
+    /**
+     * Pick the first candidate that is still in the guild, candidates not in
+     * cache are retrieved a few at a time until one is found
+     *
+     * @param event Event the candidates are members of
+     * @param guild Guild the event is from
+     * @param resolver MemberResolver to find the members with
+     * @param candidates Sampled members in random order
+     * @param start Index of the first candidate not checked yet
+     * @return Future containing a member if found
+     */
+    private CompletableFuture<Optional<Member>> pickCandidate(final Event event, final Guild guild, final MemberResolver resolver,
+            final List<Long> candidates, final int start) {
+        if (start == candidates.size()) {
+            if (candidates.size() < RANDOM_SAMPLE_SIZE) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            //Whole sample was missing, there may be more members to try
             try {
-                final Member m = guild.retrieveMemberById(l).complete();
-                return Optional.of(m);
-            } catch (ErrorResponseException ex) {
-                LOGGER.info("Found user {} in event {} members who could not be found, removing from event", l, eventName);
-                LOGGER.debug("Error: {}", ex.getMessage());
+                return pickRandomMember(event, guild, resolver);
+            } catch (SQLException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        //Candidates are in random order so first one found is as good as any
+        final Member cached = guild.getMemberById(candidates.get(start));
+        if (cached != null) {
+            return CompletableFuture.completedFuture(Optional.of(cached));
+        }
+        final List<Long> batch = candidates.subList(start, Math.min(start + RESOLVE_BATCH_SIZE, candidates.size()));
+        final int next = start + batch.size();
+        return resolver.resolveMembers(guild, batch).thenCompose((Map<Long, Member> found) -> {
+            final List<Long> missing = new ArrayList<>();
+            Member picked = null;
+            for (final Long memberID : batch) {
+                final Member member = found.get(memberID);
+                if (member == null) {
+                    missing.add(memberID);
+                } else if (picked == null) {
+                    picked = member;
+                }
+            }
+            if (!missing.isEmpty()) {
+                LOGGER.info("Found {} users in event {} members who could not be found, removing from event", missing.size(), event.getName());
                 try {
-                    leaveEvent(ds, ev, l);
-                    LOGGER.info("Successfully removed missing member from event");
+                    leaveEvent(event, missing);
+                    LOGGER.info("Successfully removed missing members from event");
                 } catch (SQLException e) {
-                    LOGGER.error("Failure to remove member from event: {}", e.getMessage());
+                    LOGGER.error("Failure to remove members from event: {}", e.getMessage());
                     LOGGER.trace("Stack trace", e);
+                    //Would sample the same members again
+                    return CompletableFuture.completedFuture(Optional.ofNullable(picked));
                 }
             }
-        }
-        return Optional.empty();
+            if (picked != null) {
+                return CompletableFuture.completedFuture(Optional.of(picked));
+            }
+            return pickCandidate(event, guild, resolver, candidates, next);
+        });
     }
 
     /**
@@ -115,27 +174,50 @@ public class EventManager {
      * @throws SQLException if database connection failed
      */
     boolean leaveEvent(final Event event, final long memberID) throws SQLException {
-        return leaveEvent(this.dataSource, event, memberID);
+        if (!this.memberIndex.contains(event, memberID)) {
+            return false;
+        }
+        final String query = "DELETE FROM EventMembers WHERE guild = ? AND name = ? AND member = ?;";
+        final boolean removed;
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, event.getGuild());
+            ps.setString(2, event.getName());
+            ps.setLong(3, memberID);
+            removed = ps.executeUpdate() > 0;
+        }
+        this.memberIndex.remove(event, List.of(memberID));
+        return removed;
     }
 
     /**
-     * Remove user from event
+     * Remove multiple users from event
      *
-     * @param ds DataSource to use to connect to database
      * @param event Event to leave
-     * @param memberID Member to remove from the event
-     * @return True if succesfully removed
+     * @param memberIDs Members to remove from the event
      * @throws SQLException If database connection failed
      */
-    static boolean leaveEvent(final DataSource ds, final Event event, final long memberID) throws SQLException {
+    void leaveEvent(final Event event, final Collection<Long> memberIDs) throws SQLException {
         final String query = "DELETE FROM EventMembers WHERE guild = ? AND name = ? AND member = ?;";
-        try (final Connection connection = ds.getConnection();
-                final PreparedStatement ps = connection.prepareStatement(query)) {
-            ps.setLong(1, event.getGuild());
-            ps.setString(2, event.getName());
-            ps.setLong(3, memberID);
-            return ps.executeUpdate() > 0;
+        try (final Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (final PreparedStatement ps = connection.prepareStatement(query)) {
+                for (final Long memberID : memberIDs) {
+                    ps.setLong(1, event.getGuild());
+                    ps.setString(2, event.getName());
+                    ps.setLong(3, memberID);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         }
+        this.memberIndex.remove(event, memberIDs);
     }
 
     /**
@@ -146,21 +228,8 @@ public class EventManager {
      * @throws SQLException if database connection failed
      */
     Optional<Event> getEvent(final String name, final Guild guild) throws SQLException {
-        return getEvent(this.dataSource, name, guild);
-    }
-
-    /**
-     * Get event by name
-     *
-     * @param ds DataSource to use to connect to database
-     * @param name Name of the event to get
-     * @param guild Guild the event belongs to
-     * @return Optional containing the event if found
-     * @throws SQLException If database connection failed
-     */
-    static Optional<Event> getEvent(final DataSource ds, final String name, final Guild guild) throws SQLException {
-        final String query = "SELECT description,owner,locked FROM Events WHERE guild = ? AND name = ?;";
-        try (final Connection connection = ds.getConnection();
+        final String query = "SELECT name,description,owner,locked FROM Events WHERE guild = ? AND name = ?;";
+        try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             final long guildID = guild.getIdLong();
             ps.setLong(1, guildID);
@@ -188,7 +257,31 @@ public class EventManager {
      * @throws SQLException if database connection failed
      */
     List<Long> getMembers(final Event event) throws SQLException {
-        return Collections.unmodifiableList(getMembersMutable(event));
+        return Collections.unmodifiableList(this.memberIndex.getMembers(event, 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Get page of members for event
+     *
+     * @param event event to get members for
+     * @param offset number of members to skip
+     * @param limit maximum number of members to get
+     * @return List of member ids ordered by id
+     * @throws SQLException if database connection failed
+     */
+    List<Long> getMembers(final Event event, final int offset, final int limit) throws SQLException {
+        return Collections.unmodifiableList(this.memberIndex.getMembers(event, offset, limit));
+    }
+
+    /**
+     * Get number of members in event
+     *
+     * @param event event to get count for
+     * @return number of members
+     * @throws SQLException if database connection failed
+     */
+    int getMemberCount(final Event event) throws SQLException {
+        return this.memberIndex.size(event);
     }
 
     /**
@@ -207,7 +300,12 @@ public class EventManager {
             ps.setString(3, event.getDescription());
             ps.setLong(4, event.getOwner());
             ps.setBoolean(5, event.isLocked());
-            return ps.executeUpdate() > 0;
+            if (ps.executeUpdate() > 0) {
+                //New event has no members
+                this.memberIndex.clear(event);
+                return true;
+            }
+            return false;
         }
     }
 
@@ -224,7 +322,9 @@ public class EventManager {
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, event.getGuild());
             ps.setString(2, event.getName());
-            return ps.executeUpdate() > 0;
+            final boolean removed = ps.executeUpdate() > 0;
+            this.memberIndex.invalidate(event);
+            return removed;
         }
     }
 
@@ -238,14 +338,20 @@ public class EventManager {
      * that doesn't exist
      */
     boolean joinEvent(final Event event, final Member member) throws SQLException {
+        if (this.memberIndex.contains(event, member.getIdLong())) {
+            return false;
+        }
         final String query = "INSERT OR IGNORE INTO EventMembers(guild,name,member) VALUES(?,?,?);";
+        final boolean joined;
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, event.getGuild());
             ps.setString(2, event.getName());
             ps.setString(3, member.getId());
-            return ps.executeUpdate() > 0;
+            joined = ps.executeUpdate() > 0;
         }
+        this.memberIndex.add(event, member.getIdLong());
+        return joined;
     }
 
     /**
@@ -261,7 +367,9 @@ public class EventManager {
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, event.getGuild());
             ps.setString(2, event.getName());
-            return ps.executeUpdate() > 0;
+            final boolean cleared = ps.executeUpdate() > 0;
+            this.memberIndex.clear(event);
+            return cleared;
         }
     }
 
@@ -300,18 +408,23 @@ public class EventManager {
     }
 
     /**
-     * Get list of events
+     * Get page of events ordered by name
      *
+     * @param guild guild to get events for
+     * @param after name to get the events after, empty for first page
+     * @param limit maximum number of events to get
      * @return list of events
      * @throws SQLException if database connection failed
      */
-    Collection<Event> getEvents(final Guild guild) throws SQLException {
+    List<Event> getEvents(final Guild guild, final String after, final int limit) throws SQLException {
         final long guildID = guild.getIdLong();
-        final List<Event> events = new ArrayList<>();
-        final String query = "SELECT name,description,owner,locked FROM Events WHERE guild = ?;";
+        final List<Event> events = new ArrayList<>(limit);
+        final String query = "SELECT name,description,owner,locked FROM Events WHERE guild = ? AND name > ? ORDER BY name LIMIT ?;";
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, guildID);
+            ps.setString(2, after);
+            ps.setInt(3, limit);
             try (final ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     final String eventName = rs.getString("name");
@@ -322,32 +435,20 @@ public class EventManager {
                 }
             }
         }
-        return Collections.unmodifiableCollection(events);
+        return Collections.unmodifiableList(events);
     }
 
     /**
-     * Get a mutable list of the member ids for the event
+     * Load the member ids of the event from database
      *
-     * @param event event to get members for
-     * @return list of members
-     * @throws SQLException if database connection failed
-     */
-    protected List<Long> getMembersMutable(final Event event) throws SQLException {
-        return getMembersMutable(this.dataSource, event);
-    }
-
-    /**
-     * Get a mutable list of the member ids for the event
-     *
-     * @param ds DataSource to use to connect to database
      * @param event Event ot get members for
      * @return List of members
      * @throws SQLException if database connection failed
      */
-    protected static List<Long> getMembersMutable(final DataSource ds, final Event event) throws SQLException {
+    private List<Long> loadMembers(final Event event) throws SQLException {
         final List<Long> members = new ArrayList<>();
         final String query = "SELECT member FROM EventMembers WHERE guild = ? AND name = ?;";
-        try (final Connection connection = ds.getConnection();
+        try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, event.getGuild());
             ps.setString(2, event.getName());
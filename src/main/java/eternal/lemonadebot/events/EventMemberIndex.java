@@ -0,0 +1,316 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.events;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Members of events kept in memory, each event is stored as a sorted array of
+ * member ids. Events are loaded on first use and changes are written to the
+ * index after they have been written to the database.
+ *
+ * @author Neutroni
+ */
+class EventMemberIndex {
+
+    /**
+     * Loads members of an event from database
+     */
+    @FunctionalInterface
+    interface MemberLoader {
+
+        /**
+         * Load members of the event
+         *
+         * @param event Event to load members for
+         * @return Member ids of the event
+         * @throws SQLException if database connection failed
+         */
+        List<Long> load(Event event) throws SQLException;
+    }
+
+    //Guild id -> event name -> members, guild map is also the lock for its events
+    private final Map<Long, Map<String, MemberSet>> guilds = new ConcurrentHashMap<>();
+    private final MemberLoader loader;
+
+    /**
+     * Constructor
+     *
+     * @param loader Loader to load events with
+     */
+    EventMemberIndex(final MemberLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Check if member is in event
+     *
+     * @param event Event to check
+     * @param memberID ID of the member
+     * @return true if member has joined the event
+     * @throws SQLException if loading the event failed
+     */
+    boolean contains(final Event event, final long memberID) throws SQLException {
+        final Map<String, MemberSet> events = getGuild(event);
+        synchronized (events) {
+            return load(events, event).contains(memberID);
+        }
+    }
+
+    /**
+     * Get number of members in event
+     *
+     * @param event Event to get count for
+     * @return number of members
+     * @throws SQLException if loading the event failed
+     */
+    int size(final Event event) throws SQLException {
+        final Map<String, MemberSet> events = getGuild(event);
+        synchronized (events) {
+            return load(events, event).size();
+        }
+    }
+
+    /**
+     * Get members of event in order of their ids
+     *
+     * @param event Event to get members for
+     * @param offset Number of members to skip
+     * @param limit Maximum number of members to get
+     * @return List of member ids
+     * @throws SQLException if loading the event failed
+     */
+    List<Long> getMembers(final Event event, final int offset, final int limit) throws SQLException {
+        final Map<String, MemberSet> events = getGuild(event);
+        synchronized (events) {
+            return load(events, event).range(offset, limit);
+        }
+    }
+
+    /**
+     * Get random members of event
+     *
+     * @param event Event to get members from
+     * @param count Maximum number of members to get
+     * @param rng Random to use
+     * @return List of distinct member ids in random order
+     * @throws SQLException if loading the event failed
+     */
+    List<Long> getRandomMembers(final Event event, final int count, final Random rng) throws SQLException {
+        final Map<String, MemberSet> events = getGuild(event);
+        synchronized (events) {
+            return load(events, event).sample(count, rng);
+        }
+    }
+
+    /**
+     * Add member to event if the event is loaded
+     *
+     * @param event Event the member joined
+     * @param memberID ID of the member
+     */
+    void add(final Event event, final long memberID) {
+        final Map<String, MemberSet> events = getGuild(event);
+        synchronized (events) {
+            final MemberSet members = events.get(event.getName());
+            if (members != null) {
+                members.add(memberID);
+            }
+        }
+    }
+
+    /**
+     * Remove members from event if the event is loaded
+     *
+     * @param event Event the members left
+     * @param memberIDs IDs of the members
+     */
+    void remove(final Event event, final Collection<Long> memberIDs) {
+        final Map<String, MemberSet> events = getGuild(event);
+        synchronized (events) {
+            final MemberSet members = events.get(event.getName());
+            if (members != null) {
+                memberIDs.forEach(members::remove);
+            }
+        }
+    }
+
+    /**
+     * Remove all members from event
+     *
+     * @param event Event that was cleared
+     */
+    void clear(final Event event) {
+        final Map<String, MemberSet> events = getGuild(event);
+        synchronized (events) {
+            events.put(event.getName(), new MemberSet(new long[0]));
+        }
+    }
+
+    /**
+     * Forget event, it is loaded again if used
+     *
+     * @param event Event that was removed
+     */
+    void invalidate(final Event event) {
+        final Map<String, MemberSet> events = getGuild(event);
+        synchronized (events) {
+            events.remove(event.getName());
+        }
+    }
+
+    private Map<String, MemberSet> getGuild(final Event event) {
+        return this.guilds.computeIfAbsent(event.getGuild(), (Long t) -> {
+            return new HashMap<>();
+        });
+    }
+
+    /**
+     * Get members of event, loading them if needed. Must be called while
+     * holding the lock of the guild map so that writes made during loading are
+     * not lost.
+     *
+     * @param events Events of the guild
+     * @param event Event to get
+     * @return MemberSet
+     * @throws SQLException if loading the event failed
+     */
+    private MemberSet load(final Map<String, MemberSet> events, final Event event) throws SQLException {
+        final MemberSet cached = events.get(event.getName());
+        if (cached != null) {
+            return cached;
+        }
+        final List<Long> loaded = this.loader.load(event);
+        final long[] members = new long[loaded.size()];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = loaded.get(i);
+        }
+        Arrays.sort(members);
+        final MemberSet memberSet = new MemberSet(members);
+        events.put(event.getName(), memberSet);
+        return memberSet;
+    }
+
+    /**
+     * Sorted set of member ids backed by a primitive array
+     */
+    private static class MemberSet {
+
+        private long[] members;
+        private int size;
+
+        /**
+         * Constructor
+         *
+         * @param sorted Sorted array of distinct member ids
+         */
+        MemberSet(final long[] sorted) {
+            this.members = sorted;
+            this.size = sorted.length;
+        }
+
+        boolean contains(final long memberID) {
+            return Arrays.binarySearch(this.members, 0, this.size, memberID) >= 0;
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        void add(final long memberID) {
+            final int index = Arrays.binarySearch(this.members, 0, this.size, memberID);
+            if (index >= 0) {
+                return;
+            }
+            final int insertAt = -index - 1;
+            if (this.size == this.members.length) {
+                this.members = Arrays.copyOf(this.members, Math.max(this.size * 3 / 2, this.size + 4));
+            }
+            System.arraycopy(this.members, insertAt, this.members, insertAt + 1, this.size - insertAt);
+            this.members[insertAt] = memberID;
+            this.size++;
+        }
+
+        void remove(final long memberID) {
+            final int index = Arrays.binarySearch(this.members, 0, this.size, memberID);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(this.members, index + 1, this.members, index, this.size - index - 1);
+            this.size--;
+        }
+
+        List<Long> range(final int offset, final int limit) {
+            final int start = Math.max(offset, 0);
+            final int end = (int) Math.min((long) start + limit, this.size);
+            if (start >= end) {
+                return List.of();
+            }
+            final List<Long> result = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                result.add(this.members[i]);
+            }
+            return result;
+        }
+
+        /**
+         * Pick distinct random members without shuffling all of them
+         *
+         * @param count Number of members to pick
+         * @param rng Random to use
+         * @return List of members in random order
+         */
+        List<Long> sample(final int count, final Random rng) {
+            if (count >= this.size) {
+                final List<Long> all = range(0, this.size);
+                Collections.shuffle(all, rng);
+                return all;
+            }
+            //Floyd's algorithm, picks count distinct indexes
+            final Set<Integer> picked = new HashSet<>(count * 2);
+            final List<Long> result = new ArrayList<>(count);
+            for (int i = this.size - count; i < this.size; i++) {
+                final int index = rng.nextInt(i + 1);
+                final int chosen = picked.add(index) ? index : i;
+                if (chosen == i) {
+                    picked.add(i);
+                }
+                result.add(this.members[chosen]);
+            }
+            Collections.shuffle(result, rng);
+            return result;
+        }
+    }
+}
@@ -42,7 +42,6 @@ import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
-import net.dv8tion.jda.api.entities.TextChannel;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -90,13 +89,12 @@ public class InventoryCommand extends ChatCommand {
     @Override
     protected void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
 
         final String[] opts = matcher.getArguments(1);
         if (opts.length == 0) {
-            channel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -116,20 +114,19 @@ public class InventoryCommand extends ChatCommand {
                 break;
             }
             default: {
-                channel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + action).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + action);
             }
         }
     }
 
     private void showInventory(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final Guild guild = matcher.getGuild();
         final ResourceBundle locale = context.getResource();
         final Member requester = matcher.getMember();
         if (opts.length < 2) {
             //No user specified, show inventory of requester
-            showInventoryForUser(requester, locale, channel);
+            showInventoryForUser(requester, locale, context);
             return;
         }
 
@@ -138,18 +135,18 @@ public class InventoryCommand extends ChatCommand {
         guild.retrieveMembersByPrefix(targetName, 2).onSuccess((List<Member> members) -> {
             if (members.isEmpty()) {
                 final String template = locale.getString("INVENTORY_NO_USER_WITH_NAME");
-                channel.sendMessageFormat(template, targetName).queue();
+                context.replyError(String.format(template, targetName));
                 return;
             }
             if (members.size() > 1) {
                 final String template = locale.getString("INVENTORY_MULTIPLE_USERS_WITH_NAME");
-                channel.sendMessageFormat(template, targetName).queue();
+                context.replyError(String.format(template, targetName));
                 return;
             }
             final Member target = members.get(0);
-            showInventoryForUser(target, locale, channel);
+            showInventoryForUser(target, locale, context);
         }).onError((Throwable t) -> {
-            channel.sendMessage(locale.getString("INVENTORY_BOT_NO_PERMISSION")).queue();
+            context.replyError(locale.getString("INVENTORY_BOT_NO_PERMISSION"));
         });
     }
 
@@ -159,9 +156,9 @@ public class InventoryCommand extends ChatCommand {
      * @param member Member to get inventory for
      * @param inventoryManager InventoryManager to get users inventory from
      * @param locale Locale to send the message in.
-     * @param channel Channel to send the message on.
+     * @param context Context to send the message to.
      */
-    private void showInventoryForUser(final Member member, final ResourceBundle locale, final TextChannel channel) {
+    private void showInventoryForUser(final Member member, final ResourceBundle locale, final CommandContext context) {
         final EmbedBuilder eb = new EmbedBuilder();
         final String titleTemplate = locale.getString("INVENTORY_FOR_USER");
         final String userName = member.getEffectiveName();
@@ -172,7 +169,7 @@ public class InventoryCommand extends ChatCommand {
         try {
             inv = this.inventoryManager.getUserInventory(member);
         } catch (SQLException e) {
-            channel.sendMessage(locale.getString("INVENTORY_SQL_ERROR_ON_FETCHING_INVENTORY")).queue();
+            context.replyError(locale.getString("INVENTORY_SQL_ERROR_ON_FETCHING_INVENTORY"));
             return;
         }
         final String listElementTemplate = locale.getString("INVENTORY_ITEM_ELEMENT");
@@ -184,24 +181,23 @@ public class InventoryCommand extends ChatCommand {
             sb.append(locale.getString("INVENTORY_NO_ITEMS_IN_INVENTORY"));
         }
         eb.setDescription(sb);
-        channel.sendMessageEmbeds(eb.build()).queue();
+        context.reply(eb.build());
     }
 
     private void addItemToInventory(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final Guild guild = matcher.getGuild();
         final ResourceBundle locale = context.getResource();
         final Member requester = matcher.getMember();
         //add item count user
         final List<String> args = matcher.parseArguments(5);
         if (args.size() < 2) {
-            channel.sendMessage(locale.getString("INVENTORY_ADD_MISSING_ITEM_NAME")).queue();
+            context.replyError(locale.getString("INVENTORY_ADD_MISSING_ITEM_NAME"));
             return;
         }
         final String itemName = args.get(1);
         if (args.size() < 3) {
-            channel.sendMessage(locale.getString("INVENTORY_ADD_MISSING_ITEM_COUNT")).queue();
+            context.replyError(locale.getString("INVENTORY_ADD_MISSING_ITEM_COUNT"));
             return;
         }
         final String countString = args.get(2);
@@ -209,11 +205,11 @@ public class InventoryCommand extends ChatCommand {
         try {
             itemCount = Long.parseLong(countString);
         } catch (NumberFormatException e) {
-            channel.sendMessage(locale.getString("INVENTORY_COUNT_NOT_NUMBER")).queue();
+            context.replyError(locale.getString("INVENTORY_COUNT_NOT_NUMBER"));
             return;
         }
         if (itemCount == 0) {
-            channel.sendMessage(locale.getString("INVENTORY_COUNT_ZERO")).queue();
+            context.replyError(locale.getString("INVENTORY_COUNT_ZERO"));
             return;
         }
 
@@ -229,12 +225,12 @@ public class InventoryCommand extends ChatCommand {
                         template = locale.getString("INVENTORY_USER_ITEM_REMOVED_SUCCESS");
                     }
 
-                    channel.sendMessageFormat(template, Math.abs(itemCount), itemName).queue();
+                    context.reply(String.format(template, Math.abs(itemCount), itemName));
                     return;
                 }
-                channel.sendMessage(locale.getString("INVENTORY_USER_NOT_ENOUGH_ITEMS")).queue();
+                context.replyError(locale.getString("INVENTORY_USER_NOT_ENOUGH_ITEMS"));
             } catch (SQLException e) {
-                channel.sendMessage(locale.getString("INVENTORY_SQL_ERROR_ON_ADD")).queue();
+                context.replyError(locale.getString("INVENTORY_SQL_ERROR_ON_ADD"));
             }
             return;
         }
@@ -254,12 +250,12 @@ public class InventoryCommand extends ChatCommand {
             guild.retrieveMembersByPrefix(targetName, 2).onSuccess((List<Member> members) -> {
                 if (members.isEmpty()) {
                     final String template = locale.getString("INVENTORY_NO_USER_WITH_NAME");
-                    channel.sendMessageFormat(template, targetName).queue();
+                    context.replyError(String.format(template, targetName));
                     return;
                 }
                 if (members.size() > 1) {
                     final String template = locale.getString("INVENTORY_MULTIPLE_USERS_WITH_NAME");
-                    channel.sendMessage(template).queue();
+                    context.replyError(template);
                     return;
                 }
 
@@ -269,20 +265,20 @@ public class InventoryCommand extends ChatCommand {
                     if (inventoryManager.updateCount(target, itemName, itemCount)) {
                         if (itemCount > 0) {
                             final String template = locale.getString("INVENTORY_ITEM_ADDED_SUCCESS");
-                            channel.sendMessageFormat(template, itemCount, itemName, target.getEffectiveName()).queue();
+                            context.reply(String.format(template, itemCount, itemName, target.getEffectiveName()));
                             return;
                         }
                         final String template = locale.getString("INVENTORY_ITEM_REMOVED_SUCCESS");
-                        channel.sendMessageFormat(template, itemCount, itemName, target.getEffectiveName()).queue();
+                        context.reply(String.format(template, itemCount, itemName, target.getEffectiveName()));
                         return;
                     }
-                    channel.sendMessage(locale.getString("INVENTORY_NOT_ENOUGH_ITEMS")).queue();
+                    context.replyError(locale.getString("INVENTORY_NOT_ENOUGH_ITEMS"));
                 } catch (SQLException e) {
-                    channel.sendMessage(locale.getString("INVENTORY_SQL_ERROR_ON_ADD")).queue();
+                    context.replyError(locale.getString("INVENTORY_SQL_ERROR_ON_ADD"));
                 }
 
             }).onError((t) -> {
-                channel.sendMessage(locale.getString("INVENTORY_BOT_NO_PERMISSION")).queue();
+                context.replyError(locale.getString("INVENTORY_BOT_NO_PERMISSION"));
             });
             return;
         }
@@ -290,12 +286,12 @@ public class InventoryCommand extends ChatCommand {
             final List<Role> roles = guild.getRolesByName(targetName, false);
             if (roles.isEmpty()) {
                 final String template = locale.getString("ROLE_NO_ROLE_WITH_NAME");
-                channel.sendMessageFormat(template, targetName).queue();
+                context.replyError(String.format(template, targetName));
                 return;
             }
             if (roles.size() > 1) {
                 final String template = locale.getString("ROLE_MULTIPLE_ROLES_WITH_NAME");
-                channel.sendMessage(template).queue();
+                context.replyError(template);
                 return;
             }
             final Role role = roles.get(0);
@@ -316,40 +312,39 @@ public class InventoryCommand extends ChatCommand {
                     }
                 }
                 if (anyFailed) {
-                    channel.sendMessage(locale.getString("INVENTORY_SQL_ERROR_ON_ADD")).queue();
+                    context.replyError(locale.getString("INVENTORY_SQL_ERROR_ON_ADD"));
                 } else {
                     if (anyPrevented) {
-                        channel.sendMessage(locale.getString("INVENTORY_REMOVE_ROLE_SUCCESS_SOME_NOT_MODIFIED")).queue();
+                        context.reply(locale.getString("INVENTORY_REMOVE_ROLE_SUCCESS_SOME_NOT_MODIFIED"));
                     } else {
                         final String template = locale.getString("INVENTORY_ADD_ROLE_SUCCESS");
-                        channel.sendMessageFormat(template, itemCount, itemName, members.size()).queue();
+                        context.reply(String.format(template, itemCount, itemName, members.size()));
                     }
                 }
             }).onError((Throwable t) -> {
-                channel.sendMessage(locale.getString("INVENTORY_BOT_NO_PERMISSION")).queue();
+                context.replyError(locale.getString("INVENTORY_BOT_NO_PERMISSION"));
             });
             return;
         }
         //Unknown mode
         final String template = locale.getString("INVENTORY_UNKNOWN_MODE");
-        channel.sendMessageFormat(template, modeName).queue();
+        context.replyError(String.format(template, modeName));
     }
 
     private void payItemToUser(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final Guild guild = matcher.getGuild();
         final ResourceBundle locale = context.getResource();
         final Member requester = matcher.getMember();
         //pay item count user
         final List<String> args = matcher.parseArguments(5);
         if (args.size() < 2) {
-            channel.sendMessage(locale.getString("INVENTORY_PAY_MISSING_ITEM_NAME")).queue();
+            context.replyError(locale.getString("INVENTORY_PAY_MISSING_ITEM_NAME"));
             return;
         }
         final String itemName = args.get(1);
         if (args.size() < 3) {
-            channel.sendMessage(locale.getString("INVENTORY_PAY_MISSING_ITEM_COUNT")).queue();
+            context.replyError(locale.getString("INVENTORY_PAY_MISSING_ITEM_COUNT"));
             return;
         }
         final String countString = args.get(2);
@@ -357,21 +352,21 @@ public class InventoryCommand extends ChatCommand {
         try {
             itemCount = Long.parseLong(countString);
         } catch (NumberFormatException e) {
-            channel.sendMessage(locale.getString("INVENTORY_COUNT_NOT_NUMBER")).queue();
+            context.replyError(locale.getString("INVENTORY_COUNT_NOT_NUMBER"));
             return;
         }
         if (itemCount == 0) {
-            channel.sendMessage(locale.getString("INVENTORY_COUNT_ZERO")).queue();
+            context.replyError(locale.getString("INVENTORY_COUNT_ZERO"));
             return;
         }
         if (itemCount < 0) {
-            channel.sendMessage(locale.getString("INVENTORY_COUNT_NEGATIVE")).queue();
+            context.replyError(locale.getString("INVENTORY_COUNT_NEGATIVE"));
             return;
         }
 
         final String targetName;
         if (args.size() < 4) {
-            channel.sendMessage(locale.getString("INVENTORY_PAY_USER_MISSING")).queue();
+            context.replyError(locale.getString("INVENTORY_PAY_USER_MISSING"));
             return;
         }
         targetName = args.get(3);
@@ -390,35 +385,35 @@ public class InventoryCommand extends ChatCommand {
             guild.retrieveMembersByPrefix(targetName, 2).onSuccess((List<Member> members) -> {
                 if (members.isEmpty()) {
                     final String template = locale.getString("INVENTORY_NO_USER_WITH_NAME");
-                    channel.sendMessageFormat(template, targetName).queue();
+                    context.replyError(String.format(template, targetName));
                     return;
                 }
                 if (members.size() > 1) {
                     final String template = locale.getString("INVENTORY_MULTIPLE_USERS_WITH_NAME");
-                    channel.sendMessage(template).queue();
+                    context.replyError(template);
                     return;
                 }
 
                 //Check to make sure target is different from requester
                 final Member target = members.get(0);
                 if (requester.equals(target)) {
-                    channel.sendMessage(locale.getString("INVENTORY_PAY_TARGET_SELF")).queue();
+                    context.replyError(locale.getString("INVENTORY_PAY_TARGET_SELF"));
                     return;
                 }
 
                 //Add items to targets inventory
                 try {
                     if (!this.inventoryManager.payItem(requester, target, itemName, itemCount)) {
-                        channel.sendMessage(locale.getString("INVENTORY_USER_NOT_ENOUGH_ITEMS")).queue();
+                        context.replyError(locale.getString("INVENTORY_USER_NOT_ENOUGH_ITEMS"));
                         return;
                     }
                     final String template = locale.getString("INVENTORY_ITEM_PAID_SUCCESS");
-                    channel.sendMessageFormat(template, itemCount, itemName, target.getEffectiveName()).queue();
+                    context.reply(String.format(template, itemCount, itemName, target.getEffectiveName()));
                 } catch (SQLException e) {
-                    channel.sendMessage(locale.getString("INVENTORY_SQL_ERROR_ON_PAY")).queue();
+                    context.replyError(locale.getString("INVENTORY_SQL_ERROR_ON_PAY"));
                 }
             }).onError((Throwable t) -> {
-                channel.sendMessage(locale.getString("INVENTORY_BOT_NO_PERMISSION")).queue();
+                context.replyError(locale.getString("INVENTORY_BOT_NO_PERMISSION"));
             });
             return;
         }
@@ -426,12 +421,12 @@ public class InventoryCommand extends ChatCommand {
             final List<Role> roles = guild.getRolesByName(targetName, false);
             if (roles.isEmpty()) {
                 final String template = locale.getString("ROLE_NO_ROLE_WITH_NAME");
-                channel.sendMessageFormat(template, targetName).queue();
+                context.replyError(String.format(template, targetName));
                 return;
             }
             if (roles.size() > 1) {
                 final String template = locale.getString("ROLE_MULTIPLE_ROLES_WITH_NAME");
-                channel.sendMessage(template).queue();
+                context.replyError(template);
                 return;
             }
             final Role role = roles.get(0);
@@ -444,7 +439,7 @@ public class InventoryCommand extends ChatCommand {
                 try {
                     final Map<String, Long> userInv = inventoryManager.getUserInventory(requester);
                     if (userInv.getOrDefault(itemName, 0L) < requiredCount) {
-                        channel.sendMessage(locale.getString("INVENTORY_PAY_USER_NOT_ENOUGH_ITEMS_FOR_EVERYONE")).queue();
+                        context.replyError(locale.getString("INVENTORY_PAY_USER_NOT_ENOUGH_ITEMS_FOR_EVERYONE"));
                         return;
                     }
                     for (int i = 0; i < members.size(); i++) {
@@ -459,27 +454,27 @@ public class InventoryCommand extends ChatCommand {
                         final String template = locale.getString("INVENTORY_PAY_INTERRUPTED_NOT_ENOUGH_FOR_EVERYONE");
                         final List<Member> unpaid = members.subList(paidPeople, members.size());
                         final String names = unpaid.stream().map(Member::getEffectiveName).collect(Collectors.joining(","));
-                        channel.sendMessageFormat(template, names).queue();
+                        context.replyError(String.format(template, names));
                         return;
                     }
                     final String template = locale.getString("INVENTORY_PAY_ROLE_SUCCESS");
-                    channel.sendMessageFormat(template, itemCount, itemName, members.size()).queue();
+                    context.reply(String.format(template, itemCount, itemName, members.size()));
                 } catch (SQLException ex) {
                     final List<Member> unpaid = members.subList(paidPeople, members.size());
                     final String names = unpaid.stream().map(Member::getEffectiveName).collect(Collectors.joining(","));
                     final String template = locale.getString("INVENTORY_ROLE_SQL_ERROR_ON_PAY");
-                    channel.sendMessageFormat(template, names).queue();
+                    context.replyError(String.format(template, names));
                     LOGGER.error("Failure for user to pay items to another: {}", ex.getMessage());
                     LOGGER.trace("Stack trace", ex);
                 }
             }).onError((Throwable t) -> {
-                channel.sendMessage(locale.getString("INVENTORY_BOT_NO_PERMISSION")).queue();
+                context.replyError(locale.getString("INVENTORY_BOT_NO_PERMISSION"));
             });
             return;
         }
         //Unknown mode
         final String template = locale.getString("INVENTORY_UNKNOWN_MODE");
-        channel.sendMessageFormat(template, modeName).queue();
+        context.replyError(String.format(template, modeName));
     }
 
 }
@@ -28,12 +28,9 @@ import eternal.lemonadebot.customcommands.CustomCommand;
 import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
-import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Member;
-import net.dv8tion.jda.api.entities.User;
 
 /**
  *
@@ -113,19 +110,15 @@ public class KeywordAction extends CustomCommand {
     }
 
     @Override
-    public CompletableFuture<String> toListElement(final ResourceBundle locale, final JDA jda) {
-        final CompletableFuture<String> result = new CompletableFuture<>();
+    public String toListElement(final ResourceBundle locale, final Member commandOwner) {
         final String template = locale.getString("KEYWORD_COMMAND_LIST_ELEMENT");
-        jda.retrieveUserById(getAuthor()).queue((User commandOwner) -> {
-            //Found user
-            final String creatorName = commandOwner.getAsMention();
-            result.complete(String.format(template, getName(), getPatternString(), creatorName));
-        }, (Throwable t) -> {
-            //User missing
-            final String creatorName = locale.getString("UNKNOWN_USER");
-            result.complete(String.format(template, getName(), getPatternString(), creatorName));
-        });
-        return result;
+        final String creatorName;
+        if (commandOwner == null) {
+            creatorName = locale.getString("UNKNOWN_USER");
+        } else {
+            creatorName = commandOwner.getAsMention();
+        }
+        return String.format(template, getName(), getPatternString(), creatorName);
     }
 
     boolean shouldRunAsOwner() {
@@ -25,6 +25,7 @@ package eternal.lemonadebot.keywords;
 
 import eternal.lemonadebot.commands.AdminCommand;
 import eternal.lemonadebot.commands.CommandContext;
+import eternal.lemonadebot.commands.ListPaginator;
 import eternal.lemonadebot.customcommands.TemplateProvider;
 import eternal.lemonadebot.database.DatabaseManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
@@ -32,14 +33,10 @@ import eternal.lemonadebot.permissions.PermissionUtilities;
 import eternal.lemonadebot.translation.ActionKey;
 import eternal.lemonadebot.translation.TranslationCache;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
 import java.util.regex.PatternSyntaxException;
-import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.TextChannel;
@@ -85,12 +82,11 @@ public class KeywordCommand extends AdminCommand {
     @Override
     public void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
         final String[] arguments = matcher.getArguments(1);
         if (arguments.length == 0) {
-            textChannel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -110,32 +106,31 @@ public class KeywordCommand extends AdminCommand {
                 break;
             }
             default:
-                textChannel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + actionName).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + actionName);
                 break;
         }
     }
 
     private void createKeyword(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
 
         //create name runas pattern action
         final List<String> arguments = matcher.parseArguments(5);
         if (arguments.size() < 2) {
-            textChannel.sendMessage(locale.getString("KEYWORD_CREATE_MISSING_NAME")).queue();
+            context.replyError(locale.getString("KEYWORD_CREATE_MISSING_NAME"));
             return;
         }
         if (arguments.size() < 3) {
-            textChannel.sendMessage(locale.getString("KEYWORD_CREATE_MISSING_USER")).queue();
+            context.replyError(locale.getString("KEYWORD_CREATE_MISSING_USER"));
             return;
         }
         if (arguments.size() < 4) {
-            textChannel.sendMessage(locale.getString("KEYWORD_CREATE_MISSING_KEYWORD")).queue();
+            context.replyError(locale.getString("KEYWORD_CREATE_MISSING_KEYWORD"));
             return;
         }
         if (arguments.size() < 5) {
-            textChannel.sendMessage(locale.getString("KEYWORD_CREATE_MISSING_TEMPLATE")).queue();
+            context.replyError(locale.getString("KEYWORD_CREATE_MISSING_TEMPLATE"));
             return;
         }
 
@@ -147,7 +142,7 @@ public class KeywordCommand extends AdminCommand {
         } else if (runAs.equals(locale.getString("KEYWORD_RUN_AS_CREATOR"))) {
             runAsCreator = true;
         } else {
-            textChannel.sendMessage(locale.getString("KEYWORD_RUN_AS_UNKNOWN")).queue();
+            context.replyError(locale.getString("KEYWORD_RUN_AS_UNKNOWN"));
             return;
         }
         final String commandPattern = arguments.get(3);
@@ -156,14 +151,14 @@ public class KeywordCommand extends AdminCommand {
         try {
             final KeywordAction newAction = new KeywordAction(commandName, commandPattern, commandTemplate, sender, runAsCreator);
             if (this.keywordManager.addKeyword(newAction)) {
-                textChannel.sendMessage(locale.getString("KEYWORD_CREATE_SUCCESS")).queue();
+                context.reply(locale.getString("KEYWORD_CREATE_SUCCESS"));
                 return;
             }
-            textChannel.sendMessage(locale.getString("KEYWORD_ALREADY_EXISTS")).queue();
+            context.replyError(locale.getString("KEYWORD_ALREADY_EXISTS"));
         } catch (PatternSyntaxException e) {
-            textChannel.sendMessage(locale.getString("KEYWORD_PATTERN_SYNTAX_ERROR")).queue();
+            context.replyError(locale.getString("KEYWORD_PATTERN_SYNTAX_ERROR"));
         } catch (SQLException ex) {
-            textChannel.sendMessage(locale.getString("KEYWORD_SQL_ERROR_ON_CREATE")).queue();
+            context.replyError(locale.getString("KEYWORD_SQL_ERROR_ON_CREATE"));
             LOGGER.error("Failure to add keyword command: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -177,7 +172,7 @@ public class KeywordCommand extends AdminCommand {
         final ResourceBundle locale = context.getResource();
 
         if (arguments.length < 2) {
-            textChannel.sendMessage(locale.getString("KEYWORD_DELETE_MISSING_NAME")).queue();
+            context.replyError(locale.getString("KEYWORD_DELETE_MISSING_NAME"));
             return;
         }
         final String commandName = arguments[1];
@@ -185,32 +180,36 @@ public class KeywordCommand extends AdminCommand {
             final Optional<KeywordAction> optCommand = this.keywordManager.getCommand(commandName, guild);
             if (optCommand.isEmpty()) {
                 final String template = locale.getString("KEYWORD_DELETE_NOT_FOUND");
-                textChannel.sendMessageFormat(template, commandName).queue();
+                context.replyError(String.format(template, commandName));
                 return;
             }
             final KeywordAction command = optCommand.get();
 
             //Check if user has permission to remove the keyword
             final Member sender = matcher.getMember();
-            textChannel.getGuild().retrieveMemberById(command.getAuthor()).submit().whenComplete((Member commandOwner, Throwable u) -> {
+            context.getMemberResolver().resolveMember(textChannel.getGuild(), command.getAuthor()).whenComplete((Member commandOwner, Throwable u) -> {
+                if (u != null) {
+                    context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+                    return;
+                }
                 final boolean hasPermission = PermissionUtilities.hasPermission(sender, commandOwner);
                 if (!hasPermission) {
-                    textChannel.sendMessage(locale.getString("KEYWORD_DELETE_PERMISSION_DENIED")).queue();
+                    context.replyError(locale.getString("KEYWORD_DELETE_PERMISSION_DENIED"));
                     return;
                 }
 
                 //Delete the command
                 try {
                     this.keywordManager.removeKeyword(command);
-                    textChannel.sendMessage(locale.getString("KEYWORD_DELETE_SUCCESS")).queue();
+                    context.reply(locale.getString("KEYWORD_DELETE_SUCCESS"));
                 } catch (SQLException ex) {
-                    textChannel.sendMessage(locale.getString("KEYWORD_SQL_ERROR_ON_DELETE")).queue();
+                    context.replyError(locale.getString("KEYWORD_SQL_ERROR_ON_DELETE"));
                     LOGGER.error("Failure to delete keyword command: {}", ex.getMessage());
                     LOGGER.trace("Stack trace", ex);
                 }
             });
         } catch (SQLException ex) {
-            textChannel.sendMessage(locale.getString("KEYWORD_SQL_ERROR_ON_DELETE")).queue();
+            context.replyError(locale.getString("KEYWORD_SQL_ERROR_ON_DELETE"));
             LOGGER.error("Failure to locate keyword command for deletion: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -218,34 +217,13 @@ public class KeywordCommand extends AdminCommand {
 
     private void listKeywords(final CommandContext context) {
         final ResourceBundle locale = context.getResource();
-        final TextChannel textChannel = context.getChannel();
-
-        //Construct embed
-        final String header = locale.getString("HEADER_KEYWORDS");
-        final EmbedBuilder eb = new EmbedBuilder();
-        eb.setTitle(header);
-
-        //Get the list of templates
-        try {
-            final Collection<KeywordAction> templates = this.keywordManager.getCommands(context.getGuild());
-            final ArrayList<CompletableFuture<String>> futures = new ArrayList<>(templates.size());
-            templates.forEach((KeywordAction command) -> {
-                futures.add(command.toListElement(locale, textChannel.getJDA()));
-            });
-            //After all the futures all initialized start waiting for results
-            final StringBuilder contentBuilder = new StringBuilder();
-            futures.forEach((CompletableFuture<String> desc) -> {
-                contentBuilder.append(desc.join());
-            });
-            if (templates.isEmpty()) {
-                contentBuilder.append(locale.getString("KEYWORD_NO_KEYWORDS"));
-            }
-            eb.setDescription(contentBuilder);
-            textChannel.sendMessageEmbeds(eb.build()).queue();
-        } catch (SQLException ex) {
-            textChannel.sendMessage(locale.getString("KEYWORD_SQL_ERROR_ON_LIST")).queue();
-            LOGGER.error("Failure to fetch keywords from database: {}", ex.getMessage());
-            LOGGER.trace("Stack trace", ex);
-        }
+        final Guild guild = context.getGuild();
+        final ListPaginator<KeywordAction> paginator = new ListPaginator<>(KeywordAction::getName, KeywordAction::getAuthor,
+                (KeywordAction command, Member owner) -> {
+                    return command.toListElement(locale, owner);
+                });
+        paginator.sendPage(context, (String after, int limit) -> {
+            return this.keywordManager.getCommands(guild, after, limit);
+        }, locale.getString("HEADER_KEYWORDS"), "KEYWORD_NO_KEYWORDS", "KEYWORD_SQL_ERROR_ON_LIST");
     }
 }
@@ -29,7 +29,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import javax.sql.DataSource;
 import net.dv8tion.jda.api.entities.Guild;
@@ -116,18 +116,24 @@ public class KeywordManager {
     }
 
     /**
-     * Get list of commands
+     * Get page of commands ordered by name
      *
+     * @param guild guild to get commands for
+     * @param after name to get the commands after, empty for first page
+     * @param limit maximum number of commands to get
      * @return custom commands
+     * @throws SQLException if database connection failed
      */
-    Collection<KeywordAction> getCommands(final Guild guild) throws SQLException{
-        final String query = "SELECT name,pattern,template,owner,runasowner FROM Keywords WHERE guild = ?;";
+    List<KeywordAction> getCommands(final Guild guild, final String after, final int limit) throws SQLException {
+        final String query = "SELECT name,pattern,template,owner,runasowner FROM Keywords WHERE guild = ? AND name > ? ORDER BY name LIMIT ?;";
         final long guildID = guild.getIdLong();
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, guildID);
+            ps.setString(2, after);
+            ps.setInt(3, limit);
             try (final ResultSet rs = ps.executeQuery()) {
-                final ArrayList<KeywordAction> commands = new ArrayList<>();
+                final List<KeywordAction> commands = new ArrayList<>(limit);
                 while (rs.next()) {
                     final String commandName = rs.getString("name");
                     final String commandPattern = rs.getString("pattern");
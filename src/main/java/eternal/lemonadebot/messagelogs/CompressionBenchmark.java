@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.messagelogs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+/**
+ * Measures size and CPU cost of message compression. Reads messages one per
+ * line from the file given as argument, or generates sample chat messages if
+ * no file is given. Sizes are measured on the last fifth of the messages,
+ * which is held out from training the comparison dictionary.
+ *
+ * Generated messages use the same vocabulary as the bundled dictionary, so
+ * results on them are not representative of real chat.
+ *
+ * Usage: java -cp LemonadeBot.jar
+ * eternal.lemonadebot.messagelogs.CompressionBenchmark [messages.txt]
+ *
+ * @author Neutroni
+ */
+final class CompressionBenchmark {
+
+    private static final int SAMPLE_MESSAGES = 20000;
+    private static final int ROUNDS = 5;
+    //Messages from this fraction on are held out from dictionary training
+    private static final double TRAINING_FRACTION = 0.8;
+    private static final String[] WORDS = {
+        "the", "and", "you", "that", "this", "have", "with", "for", "not", "but", "just", "like", "what", "is", "it",
+        "was", "are", "lol", "ok", "yeah", "yes", "no", "haha", "xd", ":D", "I", "think", "know", "going", "to",
+        "play", "game", "tonight", "tomorrow", "anyone", "want", "join", "voice", "server", "bot", "music", "song",
+        "thanks", "gg", "wp", "idk", "tbh", "btw", "really", "pretty", "sure", "maybe", "probably", "moi", "joo",
+        "kiitos", "mutta", "koska", "huomenna", "pelataanko", "kuka", "lähtee", "tänään", "aika", "tosi"
+    };
+    private static final String[] EXTRAS = {
+        "<@!%d>", "<:pepega:%d>", "https://tenor.com/view/funny-cat-gif-%d",
+        "https://cdn.discordapp.com/attachments/%d/image.png", "https://www.youtube.com/watch?v=dQw4w9WgXc%d"
+    };
+
+    private CompressionBenchmark() {
+    }
+
+    /**
+     * Run the benchmark
+     *
+     * @param args optional path to file with one message per line, oldest
+     * first
+     * @throws IOException if reading the sample file fails
+     * @throws DataFormatException if decompression fails
+     */
+    public static void main(final String[] args) throws IOException, DataFormatException {
+        final List<String> messages;
+        if (args.length > 0) {
+            messages = Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8);
+        } else {
+            System.out.println("No message file given, using generated messages. They share vocabulary with the "
+                    + "bundled dictionary so the results are not representative of real chat.");
+            messages = generateMessages(new Random(42), SAMPLE_MESSAGES);
+        }
+        //Train on older messages and measure on newer ones
+        final int split = (int) (messages.size() * TRAINING_FRACTION);
+        final List<String> training = messages.subList(0, split);
+        final List<String> heldOut = messages.subList(split, messages.size());
+        if (training.isEmpty() || heldOut.isEmpty()) {
+            System.out.println("Not enough messages to hold out a test set");
+            return;
+        }
+        final List<byte[]> raw = new ArrayList<>(heldOut.size());
+        long rawBytes = 0;
+        for (final String message : heldOut) {
+            final byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            raw.add(bytes);
+            rawBytes += bytes.length;
+        }
+        System.out.printf("Training messages: %d, held out messages: %d, raw size: %d bytes, average %.1f bytes%n",
+                training.size(), raw.size(), rawBytes, (double) rawBytes / raw.size());
+
+        //Size with plain deflate for comparison
+        long plainBytes = 0;
+        for (final byte[] bytes : raw) {
+            plainBytes += plainDeflateSize(bytes);
+        }
+        System.out.printf("Deflate without dictionary: %d bytes (%.1f%%)%n", plainBytes, 100.0 * plainBytes / rawBytes);
+
+        //Size as stored, short or incompressible messages are kept as text
+        final MessageCompression compression = new MessageCompression(true);
+        printStoredSize("Stored with bundled dictionary", compression, heldOut, rawBytes);
+        final byte[] trained = DictionaryBuilder.build(training, DictionaryBuilder.DEFAULT_SIZE);
+        printStoredSize(String.format("Stored with %d byte dictionary trained on the rest", trained.length),
+                new MessageCompression(true, trained), heldOut, rawBytes);
+
+        //CPU cost, first rounds warm up the JIT
+        final List<byte[]> compressed = new ArrayList<>(raw.size());
+        for (int round = 0; round < ROUNDS; round++) {
+            compressed.clear();
+            final long compressStart = System.nanoTime();
+            for (final byte[] bytes : raw) {
+                compressed.add(compression.compress(bytes));
+            }
+            final long compressTime = System.nanoTime() - compressStart;
+            final long decompressStart = System.nanoTime();
+            for (final byte[] bytes : compressed) {
+                compression.decompress(bytes);
+            }
+            final long decompressTime = System.nanoTime() - decompressStart;
+            System.out.printf("Round %d: compress %.2f us/message, decompress %.2f us/message%n", round + 1,
+                    compressTime / 1000.0 / raw.size(), decompressTime / 1000.0 / raw.size());
+        }
+    }
+
+    /**
+     * Print size of messages as they would be stored
+     *
+     * @param label description of the compression
+     * @param compression compression to use
+     * @param messages messages to measure
+     * @param rawBytes uncompressed size of the messages
+     */
+    private static void printStoredSize(final String label, final MessageCompression compression,
+            final List<String> messages, final long rawBytes) {
+        long storedBytes = 0;
+        int compressedCount = 0;
+        for (final String message : messages) {
+            final Object encoded = compression.encode(message);
+            if (encoded instanceof byte[]) {
+                storedBytes += ((byte[]) encoded).length;
+                compressedCount++;
+            } else {
+                storedBytes += message.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        System.out.printf("%s: %d bytes (%.1f%%), %d messages compressed%n",
+                label, storedBytes, 100.0 * storedBytes / rawBytes, compressedCount);
+    }
+
+    /**
+     * Size of data compressed with deflate without dictionary
+     *
+     * @param bytes data to compress
+     * @return compressed size in bytes
+     */
+    private static int plainDeflateSize(final byte[] bytes) {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            final byte[] output = new byte[bytes.length + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Math.min(length, bytes.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Generate chat like sample messages
+     *
+     * @param rng Random to use
+     * @param count number of messages
+     * @return List of messages
+     */
+    private static List<String> generateMessages(final Random rng, final int count) {
+        final List<String> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            //Most messages are short, some are long
+            final int words = (rng.nextInt(10) == 0) ? 20 + rng.nextInt(60) : 1 + rng.nextInt(12);
+            final StringBuilder sb = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    sb.append(' ');
+                }
+                if (rng.nextInt(25) == 0) {
+                    final String extra = EXTRAS[rng.nextInt(EXTRAS.length)];
+                    sb.append(String.format(extra, Math.abs(rng.nextLong()) % 1_000_000_000_000_000_000L));
+                } else {
+                    sb.append(WORDS[rng.nextInt(WORDS.length)]);
+                }
+            }
+            messages.add(sb.toString());
+        }
+        return messages;
+    }
+}
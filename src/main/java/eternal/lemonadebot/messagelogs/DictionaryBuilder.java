@@ -0,0 +1,224 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.messagelogs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a preset compression dictionary from sample messages. Picks the
+ * segments whose substrings appear in the most messages, one segment per
+ * epoch of the sample so the dictionary covers the whole sample.
+ *
+ * Usage: java -cp LemonadeBot.jar
+ * eternal.lemonadebot.messagelogs.DictionaryBuilder messages.txt
+ * message-dictionary.txt [size]
+ *
+ * @author Neutroni
+ */
+final class DictionaryBuilder {
+
+    //Deflate can only refer 32KiB back
+    static final int MAX_SIZE = 32 * 1024;
+    static final int DEFAULT_SIZE = 4096;
+    //Length of substrings counted and of segments added to dictionary
+    private static final int KMER_LENGTH = 6;
+    private static final int SEGMENT_LENGTH = 32;
+
+    private DictionaryBuilder() {
+    }
+
+    /**
+     * Build dictionary from a file with one message per line
+     *
+     * @param args sample file, output file and optional dictionary size
+     * @throws IOException if reading or writing fails
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: DictionaryBuilder <messages.txt> <dictionary.txt> [size]");
+            return;
+        }
+        final List<String> messages = Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8);
+        final int size = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_SIZE;
+        final byte[] dictionary = build(messages, size);
+        Files.write(Path.of(args[1]), dictionary);
+        System.out.printf("Built %d byte dictionary from %d messages%n", dictionary.length, messages.size());
+    }
+
+    /**
+     * Build dictionary from sample messages
+     *
+     * @param messages sample messages
+     * @param size maximum size of the dictionary in bytes
+     * @return dictionary, most common content at the end
+     */
+    static byte[] build(final List<String> messages, final int size) {
+        final int dictionarySize = Math.min(Math.max(size, SEGMENT_LENGTH), MAX_SIZE);
+        final ByteArrayOutputStream corpusBuffer = new ByteArrayOutputStream();
+        for (final String message : messages) {
+            corpusBuffer.writeBytes(message.getBytes(StandardCharsets.UTF_8));
+            corpusBuffer.write('\n');
+        }
+        final byte[] corpus = corpusBuffer.toByteArray();
+        if (corpus.length < SEGMENT_LENGTH) {
+            return corpus;
+        }
+        final Map<Long, Integer> frequencies = countMessageFrequencies(corpus);
+
+        //Best segment of each epoch
+        final int epochs = Math.max(dictionarySize / SEGMENT_LENGTH, 1);
+        final int epochLength = Math.max(corpus.length / epochs, SEGMENT_LENGTH);
+        final List<Segment> segments = new ArrayList<>(epochs);
+        for (int start = 0; start + SEGMENT_LENGTH <= corpus.length; start += epochLength) {
+            final int end = Math.min(start + epochLength, corpus.length);
+            final Segment best = bestSegment(corpus, start, end, frequencies);
+            if (best == null) {
+                continue;
+            }
+            segments.add(best);
+            //Content already in dictionary is not worth adding again
+            for (int i = best.start; i + KMER_LENGTH <= best.start + SEGMENT_LENGTH; i++) {
+                frequencies.remove(kmer(corpus, i));
+            }
+        }
+
+        //Deflate codes near distances shorter, keep the best segments last
+        segments.sort(Comparator.comparingLong((Segment segment) -> segment.score).reversed());
+        final int count = Math.min(segments.size(), dictionarySize / SEGMENT_LENGTH);
+        final ByteArrayOutputStream dictionary = new ByteArrayOutputStream(count * SEGMENT_LENGTH);
+        for (int i = count - 1; i >= 0; i--) {
+            dictionary.write(corpus, segments.get(i).start, SEGMENT_LENGTH);
+        }
+        return dictionary.toByteArray();
+    }
+
+    /**
+     * Count in how many messages each substring appears
+     *
+     * @param corpus messages separated by newlines
+     * @return map from substring to number of messages
+     */
+    private static Map<Long, Integer> countMessageFrequencies(final byte[] corpus) {
+        final Map<Long, Integer> frequencies = new HashMap<>();
+        final Map<Long, Boolean> seen = new HashMap<>();
+        int messageStart = 0;
+        for (int i = 0; i < corpus.length; i++) {
+            if (corpus[i] != '\n') {
+                continue;
+            }
+            //Substrings repeated within a message are counted once
+            seen.clear();
+            for (int k = messageStart; k + KMER_LENGTH <= i; k++) {
+                final long kmer = kmer(corpus, k);
+                if (seen.put(kmer, Boolean.TRUE) == null) {
+                    frequencies.merge(kmer, 1, Integer::sum);
+                }
+            }
+            messageStart = i + 1;
+        }
+        //Substrings found in a single message do not help other messages
+        frequencies.values().removeIf(count -> count < 2);
+        return frequencies;
+    }
+
+    /**
+     * Find the segment in range covering the most frequent substrings, each
+     * distinct substring is scored once
+     *
+     * @param corpus sample data
+     * @param start start of the range
+     * @param end end of the range
+     * @param frequencies substring frequencies
+     * @return best segment or null if nothing in range is worth keeping
+     */
+    private static Segment bestSegment(final byte[] corpus, final int start, final int end,
+            final Map<Long, Integer> frequencies) {
+        final Map<Long, Integer> active = new HashMap<>();
+        final int kmersPerSegment = SEGMENT_LENGTH - KMER_LENGTH + 1;
+        final int last = Math.min(end, corpus.length - KMER_LENGTH + 1);
+        long score = 0;
+        long bestScore = 0;
+        int bestStart = -1;
+        for (int i = start; i < last; i++) {
+            final long added = kmer(corpus, i);
+            if (active.merge(added, 1, Integer::sum) == 1) {
+                score += frequencies.getOrDefault(added, 0);
+            }
+            final int windowStart = i - kmersPerSegment + 1;
+            if (windowStart > start) {
+                final long removed = kmer(corpus, windowStart - 1);
+                if (active.merge(removed, -1, Integer::sum) == 0) {
+                    active.remove(removed);
+                    score -= frequencies.getOrDefault(removed, 0);
+                }
+            }
+            if (windowStart >= start && score > bestScore && windowStart + SEGMENT_LENGTH <= corpus.length) {
+                bestScore = score;
+                bestStart = windowStart;
+            }
+        }
+        if (bestStart < 0) {
+            return null;
+        }
+        return new Segment(bestStart, bestScore);
+    }
+
+    /**
+     * Pack substring into a long
+     *
+     * @param corpus sample data
+     * @param start start of the substring
+     * @return substring as long
+     */
+    private static long kmer(final byte[] corpus, final int start) {
+        long value = 0;
+        for (int i = 0; i < KMER_LENGTH; i++) {
+            value = (value << 8) | (corpus[start + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Segment of the sample chosen for the dictionary
+     */
+    private static final class Segment {
+
+        private final int start;
+        private final long score;
+
+        Segment(final int start, final long score) {
+            this.start = start;
+            this.score = score;
+        }
+    }
+}
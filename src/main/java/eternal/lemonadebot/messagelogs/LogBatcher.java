@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.messagelogs;
+
+import eternal.lemonadebot.outbox.MessagePriority;
+import eternal.lemonadebot.outbox.Outbox;
+import eternal.lemonadebot.scheduling.TimerService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.TextChannel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Collects log embeds for each log channel over a short window and sends them
+ * together, up to Message.MAX_EMBED_COUNT embeds per message. If a window
+ * collects more entries than the summary threshold only a summary is sent.
+ *
+ * @author Neutroni
+ */
+class LogBatcher {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final TimerService timerService;
+    private final Outbox outbox;
+    private final Duration window;
+    private final int summaryThreshold;
+
+    //Guarded by this
+    private final Map<Long, ChannelBatch> batches = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param timer TimerService to schedule sending of batches with
+     * @param outbox Outbox to send the batches with
+     * @param window Time to collect entries before sending
+     * @param summaryThreshold Number of entries after which a summary is sent
+     */
+    LogBatcher(final TimerService timer, final Outbox outbox, final Duration window, final int summaryThreshold) {
+        this.timerService = timer;
+        this.outbox = outbox;
+        this.window = window;
+        this.summaryThreshold = summaryThreshold;
+    }
+
+    /**
+     * Add log entry for an edited message
+     *
+     * @param logChannel Channel to send the entry to
+     * @param embed Log entry
+     * @param locale Locale for the summary
+     */
+    void addEdit(final TextChannel logChannel, final MessageEmbed embed, final ResourceBundle locale) {
+        add(logChannel, embed, locale, false);
+    }
+
+    /**
+     * Add log entry for a deleted message
+     *
+     * @param logChannel Channel to send the entry to
+     * @param embed Log entry
+     * @param locale Locale for the summary
+     */
+    void addDelete(final TextChannel logChannel, final MessageEmbed embed, final ResourceBundle locale) {
+        add(logChannel, embed, locale, true);
+    }
+
+    private void add(final TextChannel logChannel, final MessageEmbed embed, final ResourceBundle locale, final boolean deleted) {
+        final long channelID = logChannel.getIdLong();
+        synchronized (this) {
+            ChannelBatch batch = this.batches.get(channelID);
+            if (batch == null) {
+                batch = new ChannelBatch(logChannel);
+                this.batches.put(channelID, batch);
+                this.timerService.schedule(() -> {
+                    flush(channelID);
+                }, this.window.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            batch.locale = locale;
+            if (deleted) {
+                batch.deletes++;
+            } else {
+                batch.edits++;
+            }
+            //Entries past the threshold are only counted
+            if (batch.embeds.size() <= this.summaryThreshold) {
+                batch.embeds.add(embed);
+            }
+        }
+    }
+
+    /**
+     * Send the entries collected for a channel
+     *
+     * @param channelID ID of the log channel
+     */
+    private void flush(final long channelID) {
+        final ChannelBatch batch;
+        synchronized (this) {
+            batch = this.batches.remove(channelID);
+        }
+        if (batch == null) {
+            return;
+        }
+
+        //Too many entries, send summary instead
+        if (batch.embeds.size() > this.summaryThreshold) {
+            final ResourceBundle locale = batch.locale;
+            final EmbedBuilder eb = new EmbedBuilder();
+            eb.setAuthor(locale.getString("MESSAGE_LOG_SUMMARY_HEADER"));
+            final String template = locale.getString("MESSAGE_LOG_SUMMARY");
+            eb.setDescription(String.format(template, batch.edits, batch.deletes, this.window.toSeconds()));
+            this.outbox.sendEmbed(batch.channel, eb.build(), MessagePriority.LOGS);
+            LOGGER.debug("Sent log summary to channel: {}, edits: {} deletes: {}", channelID, batch.edits, batch.deletes);
+            return;
+        }
+
+        //Pack embeds into messages respecting both embed count and total length limits
+        List<MessageEmbed> message = new ArrayList<>(Message.MAX_EMBED_COUNT);
+        int messageLength = 0;
+        for (final MessageEmbed embed : batch.embeds) {
+            final int length = embed.getLength();
+            if (message.size() == Message.MAX_EMBED_COUNT
+                    || (!message.isEmpty() && messageLength + length > MessageEmbed.EMBED_MAX_LENGTH_BOT)) {
+                this.outbox.sendEmbeds(batch.channel, message, MessagePriority.LOGS);
+                message = new ArrayList<>(Message.MAX_EMBED_COUNT);
+                messageLength = 0;
+            }
+            message.add(embed);
+            messageLength += length;
+        }
+        if (!message.isEmpty()) {
+            this.outbox.sendEmbeds(batch.channel, message, MessagePriority.LOGS);
+        }
+    }
+
+    /**
+     * Entries collected for a single log channel
+     */
+    private static class ChannelBatch {
+
+        private final TextChannel channel;
+        private final List<MessageEmbed> embeds = new ArrayList<>();
+        private ResourceBundle locale;
+        private int edits;
+        private int deletes;
+
+        ChannelBatch(final TextChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.messagelogs;
+
+import eternal.lemonadebot.commands.AdminCommand;
+import eternal.lemonadebot.commands.CommandContext;
+import eternal.lemonadebot.messageparsing.CommandMatcher;
+import eternal.lemonadebot.translation.ActionKey;
+import eternal.lemonadebot.translation.TranslationCache;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ResourceBundle;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.TimeUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Command used to search logged messages
+ *
+ * @author Neutroni
+ */
+public class LogCommand extends AdminCommand {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    //Results shown per page
+    private static final int PAGE_SIZE = 10;
+    //Maximum number of keywords to search for
+    private static final int MAX_KEYWORDS = 16;
+    //Maximum length of message content shown in results
+    private static final int MAX_CONTENT_LENGTH = 150;
+
+    @Override
+    public String getCommand(final ResourceBundle locale) {
+        return locale.getString("COMMAND_LOG");
+    }
+
+    @Override
+    public String getDescription(final ResourceBundle locale) {
+        return locale.getString("DESCRIPTION_LOG");
+    }
+
+    @Override
+    public String getHelpText(final ResourceBundle locale) {
+        return locale.getString("SYNTAX_LOG");
+    }
+
+    @Override
+    public void respond(final CommandContext context) {
+        final CommandMatcher matcher = context.getMatcher();
+        final String[] arguments = matcher.getArguments(MAX_KEYWORDS + 1);
+        final TranslationCache translationCache = context.getTranslation();
+        final ResourceBundle locale = translationCache.getResourceBundle();
+        if (arguments.length == 0) {
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
+            return;
+        }
+
+        final String option = arguments[0];
+        final ActionKey key = translationCache.getActionKey(option);
+        switch (key) {
+            case SEARCH: {
+                searchContent(context, option, Arrays.copyOfRange(arguments, 1, arguments.length));
+                break;
+            }
+            case AUTHOR: {
+                searchAuthor(context, option, Arrays.copyOfRange(arguments, 1, arguments.length));
+                break;
+            }
+            default: {
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + option);
+            }
+        }
+    }
+
+    /**
+     * Search messages by keywords
+     *
+     * @param context CommandContext
+     * @param option option used to select search
+     * @param arguments keywords optionally followed by message id to continue
+     * from
+     */
+    private static void searchContent(final CommandContext context, final String option, final String[] arguments) {
+        final ResourceBundle locale = context.getResource();
+        final List<String> keywords = new ArrayList<>(Arrays.asList(arguments));
+        final long before = takeCursor(keywords, locale);
+        if (keywords.isEmpty()) {
+            context.replyError(locale.getString("LOG_SEARCH_MISSING_KEYWORDS"));
+            return;
+        }
+        final MessageManager messageManager = context.getMessageManager();
+        final long guildID = context.getGuild().getIdLong();
+        final List<LoggedMessage> results;
+        try {
+            results = messageManager.searchContent(guildID, keywords, before, PAGE_SIZE + 1);
+        } catch (SQLException ex) {
+            context.replyError(locale.getString("LOG_SQL_ERROR_ON_SEARCH"));
+            LOGGER.error("Failure to search logged messages: {}", ex.getMessage());
+            LOGGER.trace("Stack trace", ex);
+            return;
+        }
+        showResults(context, option + ' ' + String.join(" ", keywords), results);
+    }
+
+    /**
+     * Search messages by author
+     *
+     * @param context CommandContext
+     * @param option option used to select search
+     * @param arguments author optionally followed by message id to continue
+     * from
+     */
+    private static void searchAuthor(final CommandContext context, final String option, final String[] arguments) {
+        final ResourceBundle locale = context.getResource();
+        final List<String> remaining = new ArrayList<>(Arrays.asList(arguments));
+        final long before = takeCursor(remaining, locale);
+        if (remaining.isEmpty()) {
+            context.replyError(locale.getString("LOG_SEARCH_MISSING_AUTHOR"));
+            return;
+        }
+
+        //Author either as mention or as user id
+        final long authorID;
+        final List<Member> mentioned = context.getMatcher().getMentionedMembers();
+        if (mentioned.isEmpty()) {
+            try {
+                authorID = Long.parseLong(remaining.get(0));
+            } catch (NumberFormatException ex) {
+                context.replyError(locale.getString("LOG_SEARCH_UNKNOWN_AUTHOR") + remaining.get(0));
+                return;
+            }
+        } else {
+            authorID = mentioned.get(0).getIdLong();
+        }
+
+        final MessageManager messageManager = context.getMessageManager();
+        final long guildID = context.getGuild().getIdLong();
+        final List<LoggedMessage> results;
+        try {
+            results = messageManager.searchAuthor(guildID, authorID, before, PAGE_SIZE + 1);
+        } catch (SQLException ex) {
+            context.replyError(locale.getString("LOG_SQL_ERROR_ON_SEARCH"));
+            LOGGER.error("Failure to search logged messages: {}", ex.getMessage());
+            LOGGER.trace("Stack trace", ex);
+            return;
+        }
+        showResults(context, option + ' ' + authorID, results);
+    }
+
+    /**
+     * Remove message id to continue search from the end of arguments if there
+     * is one, id is given with a prefix so numbers can be searched for
+     *
+     * @param arguments arguments, message id is removed if found
+     * @param locale Locale to get the prefix in
+     * @return id of the message to show results older than, Long.MAX_VALUE if
+     * not found
+     */
+    private static long takeCursor(final List<String> arguments, final ResourceBundle locale) {
+        if (arguments.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        final String prefix = locale.getString("LOG_SEARCH_BEFORE");
+        final String last = arguments.get(arguments.size() - 1);
+        if (!last.startsWith(prefix)) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            final long before = Long.parseLong(last.substring(prefix.length()));
+            if (before < 1) {
+                return Long.MAX_VALUE;
+            }
+            arguments.remove(arguments.size() - 1);
+            return before;
+        } catch (NumberFormatException ex) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Send page of search results
+     *
+     * @param context CommandContext
+     * @param search option and search terms, used to show how to get next page
+     * @param results results, one more than page size if there are more pages
+     */
+    private static void showResults(final CommandContext context, final String search, final List<LoggedMessage> results) {
+        final ResourceBundle locale = context.getResource();
+        final EmbedBuilder eb = new EmbedBuilder();
+        eb.setTitle(locale.getString("HEADER_LOG_SEARCH"));
+        if (results.isEmpty()) {
+            eb.setDescription(locale.getString("LOG_SEARCH_NO_RESULTS"));
+            context.reply(eb.build());
+            return;
+        }
+        final StringBuilder description = new StringBuilder();
+        final int shown = Math.min(results.size(), PAGE_SIZE);
+        for (int i = 0; i < shown; i++) {
+            final LoggedMessage message = results.get(i);
+            final long created = TimeUtil.getTimeCreated(message.getId()).toEpochSecond();
+            String content = message.getContent();
+            if (content.length() > MAX_CONTENT_LENGTH) {
+                content = content.substring(0, MAX_CONTENT_LENGTH - 1) + '\u2026';
+            }
+            description.append("<t:").append(created).append(":f> <@").append(message.getAuthor()).append(">: ");
+            description.append(content.replace('\n', ' ')).append('\n');
+        }
+        eb.setDescription(description);
+        if (results.size() > PAGE_SIZE) {
+            final String command = context.getConfigManager().getCommandPrefix()
+                    + context.getMatcher().getCommand().orElse("") + ' ' + search + ' '
+                    + locale.getString("LOG_SEARCH_BEFORE") + results.get(shown - 1).getId();
+            eb.setFooter(String.format(locale.getString("LIST_NEXT_PAGE"), command));
+        }
+        context.reply(eb.build());
+    }
+}
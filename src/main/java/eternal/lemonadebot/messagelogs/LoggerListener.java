@@ -25,16 +25,19 @@ package eternal.lemonadebot.messagelogs;
 
 import eternal.lemonadebot.config.ConfigCache;
 import eternal.lemonadebot.config.ConfigManager;
+import eternal.lemonadebot.database.StorageConfig;
 import eternal.lemonadebot.database.StorageManager;
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
-import javax.sql.DataSource;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
 import net.dv8tion.jda.api.events.message.guild.GuildMessageDeleteEvent;
 import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
 import net.dv8tion.jda.api.events.message.guild.GuildMessageUpdateEvent;
@@ -47,8 +50,12 @@ import net.dv8tion.jda.api.utils.TimeUtil;
  */
 public class LoggerListener extends ListenerAdapter {
 
+    //Maximum number of earlier revisions shown in edit log
+    private static final int MAX_REVISION_FIELDS = 3;
+
     private final ConfigCache configs;
     private final MessageManager messageManager;
+    private final LogBatcher logBatcher;
 
     /**
      * Constructor
@@ -57,8 +64,20 @@ public class LoggerListener extends ListenerAdapter {
      */
     public LoggerListener(final StorageManager storage) {
         this.configs = storage.getConfigCache();
-        final DataSource ds = storage.getDataSource();
-        this.messageManager = new MessageManager(ds);
+        this.messageManager = storage.getMessageManager();
+        final StorageConfig config = storage.getConfig();
+        this.logBatcher = new LogBatcher(storage.getTimerService(), storage.getOutbox(),
+                config.getLogBatchWindow(), config.getLogBatchSummaryThreshold());
+    }
+
+    /**
+     * Received when bot leaves a guild, drops the cached messages
+     *
+     * @param event GuildLeaveEvent
+     */
+    @Override
+    public void onGuildLeave(final GuildLeaveEvent event) {
+        this.messageManager.clearCache(event.getGuild().getIdLong());
     }
 
     /**
@@ -104,21 +123,64 @@ public class LoggerListener extends ListenerAdapter {
         //Get the old content if stored
         final Message message = event.getMessage();
         final ResourceBundle locale = guildConf.getTranslationCache().getResourceBundle();
-        final Optional<StoredMessage> oldContent = this.messageManager.getMessageContent(message.getIdLong());
-        oldContent.ifPresent((StoredMessage t) -> {
-            final User author = event.getAuthor();
-            final EmbedBuilder eb = new EmbedBuilder();
-            eb.setAuthor(locale.getString("MESSAGE_UPDATE_HEADER"));
-            eb.setTitle(locale.getString("MESSAGE_LOG_USER") + author.getAsMention());
-            eb.addField(locale.getString("MESSAGE_CONTENT_BEFORE"), t.getContent(), false);
-            eb.addField(locale.getString("MESSAGE_CONTENT_AFTER"), message.getContentRaw(), false);
-            final OffsetDateTime dt = message.getTimeCreated();
-            eb.setFooter(locale.getString("MESSAGE_CREATION_TIME") + dt.toString());
-            logChannel.sendMessageEmbeds(eb.build()).queue();
-        });
+        final Optional<StoredMessage> oldContent = this.messageManager.getMessageContent(guild.getIdLong(), message.getIdLong());
+        if (oldContent.isEmpty()) {
+            //Not seen before, store as new message
+            this.messageManager.logMessage(message);
+            return;
+        }
+        final StoredMessage t = oldContent.get();
+        //Embed and flag updates do not change the content
+        if (t.getContent().equals(message.getContentRaw())) {
+            return;
+        }
+        final List<String> history = this.messageManager.getRevisions(message.getIdLong(), t.getContent());
+
+        final User author = event.getAuthor();
+        final EmbedBuilder eb = new EmbedBuilder();
+        eb.setAuthor(locale.getString("MESSAGE_UPDATE_HEADER"));
+        eb.setTitle(locale.getString("MESSAGE_LOG_USER") + author.getAsMention());
+        final OffsetDateTime dt = message.getTimeCreated();
+        eb.setFooter(locale.getString("MESSAGE_CREATION_TIME") + dt.toString());
+        final String before = truncate(t.getContent());
+        final String after = truncate(message.getContentRaw());
+
+        //Show as many of the latest earlier revisions as fit in the embed
+        final String revisionTemplate = locale.getString("MESSAGE_CONTENT_REVISION");
+        int remaining = MessageEmbed.EMBED_MAX_LENGTH_BOT - eb.length() - before.length() - after.length()
+                - locale.getString("MESSAGE_CONTENT_BEFORE").length() - locale.getString("MESSAGE_CONTENT_AFTER").length();
+        int first = history.size();
+        while (first > 0 && history.size() - first < MAX_REVISION_FIELDS) {
+            final String revision = truncate(history.get(first - 1));
+            final int length = revision.length() + String.format(revisionTemplate, first).length();
+            if (length > remaining) {
+                break;
+            }
+            remaining -= length;
+            first--;
+        }
+        for (int i = first; i < history.size(); i++) {
+            eb.addField(String.format(revisionTemplate, i + 1), truncate(history.get(i)), false);
+        }
+        eb.addField(locale.getString("MESSAGE_CONTENT_BEFORE"), before, false);
+        eb.addField(locale.getString("MESSAGE_CONTENT_AFTER"), after, false);
+        this.logBatcher.addEdit(logChannel, eb.build(), locale);
 
-        //Log the message
-        messageManager.logMessage(message);
+        //Log the edit
+        this.messageManager.logEdit(message, t);
+    }
+
+    /**
+     * Shorten message content to fit in embed field
+     *
+     * @param content message content
+     * @return content shortened if needed
+     */
+    private static String truncate(final String content) {
+        if (content.length() <= MessageEmbed.VALUE_MAX_LENGTH) {
+            return content;
+        }
+        return content.substring(0, MessageEmbed.VALUE_MAX_LENGTH - 1) + "\u2026";
     }
 
     /**
@@ -144,7 +206,7 @@ public class LoggerListener extends ListenerAdapter {
         //Get the old content if stored
         final long messageID = event.getMessageIdLong();
         final ResourceBundle locale = guildConf.getTranslationCache().getResourceBundle();
-        final Optional<StoredMessage> oldContent = this.messageManager.getMessageContent(messageID);
+        final Optional<StoredMessage> oldContent = this.messageManager.getMessageContent(guild.getIdLong(), messageID);
         oldContent.ifPresent((StoredMessage t) -> {
             final EmbedBuilder eb = new EmbedBuilder();
             eb.setAuthor(locale.getString("MESSAGE_DELETE_HEADER"));
@@ -157,7 +219,7 @@ public class LoggerListener extends ListenerAdapter {
                 eb.addField(locale.getString("MESSAGE_CONTENT"), t.getContent(), false);
                 final OffsetDateTime dt = TimeUtil.getTimeCreated(messageID);
                 eb.setFooter(locale.getString("MESSAGE_CREATION_TIME") + dt.toString());
-                logChannel.sendMessageEmbeds(eb.build()).queue();
+                this.logBatcher.addDelete(logChannel, eb.build(), locale);
             });
         });
     }
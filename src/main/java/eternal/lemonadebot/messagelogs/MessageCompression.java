@@ -0,0 +1,245 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.messagelogs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compresses stored message content with deflate using a preset dictionary of
+ * common chat text. Compressed content is stored as a BLOB starting with a
+ * format byte and the checksum of the dictionary used, uncompressed content is
+ * stored as TEXT so both can be read back regardless of the current setting.
+ *
+ * @author Neutroni
+ */
+class MessageCompression {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    //First version, no dictionary id, always the legacy dictionary
+    private static final byte FORMAT_LEGACY_DICTIONARY = 1;
+    //Followed by CRC32 of the dictionary so any bundled dictionary can be used to read
+    private static final byte FORMAT_DICTIONARY_ID = 2;
+    private static final int HEADER_LENGTH = 1 + Integer.BYTES;
+    //Shorter messages do not compress enough to be worth it
+    private static final int MIN_COMPRESS_LENGTH = 24;
+    //Built with DictionaryBuilder, keep replaced dictionaries so old rows can be read
+    private static final String DICTIONARY_RESOURCE = "/message-dictionary.txt";
+    private static final String LEGACY_DICTIONARY_RESOURCE = "/message-dictionary-v1.txt";
+
+    private final boolean enabled;
+    private final byte[] dictionary;
+    private final int dictionaryID;
+    private final byte[] legacyDictionary;
+    private final Map<Integer, byte[]> dictionaries = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param enabled true to compress new content
+     */
+    MessageCompression(final boolean enabled) {
+        this(enabled, loadDictionary(DICTIONARY_RESOURCE));
+    }
+
+    /**
+     * Constructor for comparing dictionaries, content compressed with other
+     * than a bundled dictionary can not be read back by the bot
+     *
+     * @param enabled true to compress new content
+     * @param dictionary preset dictionary to use
+     */
+    MessageCompression(final boolean enabled, final byte[] dictionary) {
+        this.enabled = enabled;
+        this.dictionary = dictionary;
+        this.dictionaryID = checksum(dictionary);
+        this.legacyDictionary = loadDictionary(LEGACY_DICTIONARY_RESOURCE);
+        this.dictionaries.put(checksum(this.legacyDictionary), this.legacyDictionary);
+        this.dictionaries.put(this.dictionaryID, this.dictionary);
+    }
+
+    /**
+     * Encode message content for storage
+     *
+     * @param content message content
+     * @return byte[] if content was compressed, otherwise the content
+     */
+    Object encode(final String content) {
+        if (!this.enabled || content.length() < MIN_COMPRESS_LENGTH) {
+            return content;
+        }
+        final byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        final byte[] compressed = compress(raw);
+        if (compressed.length >= raw.length) {
+            return content;
+        }
+        return compressed;
+    }
+
+    /**
+     * Decode stored message content
+     *
+     * @param stored value read from the content column
+     * @return message content
+     * @throws SQLException if the stored content could not be decoded
+     */
+    String decode(final Object stored) throws SQLException {
+        if (stored instanceof String) {
+            return (String) stored;
+        }
+        if (!(stored instanceof byte[])) {
+            throw new SQLException("Unknown message content type");
+        }
+        try {
+            return new String(decompress((byte[]) stored), StandardCharsets.UTF_8);
+        } catch (DataFormatException ex) {
+            throw new SQLException("Corrupted message content", ex);
+        }
+    }
+
+    /**
+     * Compress data
+     *
+     * @param raw data to compress
+     * @return header followed by compressed data
+     */
+    byte[] compress(final byte[] raw) {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(this.dictionary);
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] output = new byte[raw.length + 16];
+            output[0] = FORMAT_DICTIONARY_ID;
+            ByteBuffer.wrap(output, 1, Integer.BYTES).putInt(this.dictionaryID);
+            int length = HEADER_LENGTH;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompress data
+     *
+     * @param data header followed by compressed data
+     * @return decompressed data
+     * @throws DataFormatException if data is not valid or was compressed with
+     * unknown dictionary
+     */
+    byte[] decompress(final byte[] data) throws DataFormatException {
+        if (data.length == 0) {
+            throw new DataFormatException("Empty message content");
+        }
+        final byte[] usedDictionary;
+        final int start;
+        if (data[0] == FORMAT_LEGACY_DICTIONARY) {
+            usedDictionary = this.legacyDictionary;
+            start = 1;
+        } else if (data[0] == FORMAT_DICTIONARY_ID && data.length >= HEADER_LENGTH) {
+            final int id = ByteBuffer.wrap(data, 1, Integer.BYTES).getInt();
+            usedDictionary = this.dictionaries.get(id);
+            if (usedDictionary == null) {
+                throw new DataFormatException("Unknown compression dictionary: " + Integer.toHexString(id));
+            }
+            start = HEADER_LENGTH;
+        } else {
+            throw new DataFormatException("Unknown message content format");
+        }
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(usedDictionary);
+            inflater.setInput(data, start, data.length - start);
+            byte[] output = new byte[data.length * 4];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                final int read = inflater.inflate(output, length, output.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated message content");
+                }
+                length += read;
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Compute the id of a dictionary
+     *
+     * @param dictionary dictionary
+     * @return CRC32 of the dictionary
+     */
+    private static int checksum(final byte[] dictionary) {
+        final CRC32 crc = new CRC32();
+        crc.update(dictionary);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Load a preset dictionary from resources
+     *
+     * @param resource name of the resource
+     * @return dictionary, empty if not available
+     */
+    private static byte[] loadDictionary(final String resource) {
+        try (final InputStream stream = MessageCompression.class.getResourceAsStream(resource)) {
+            if (stream == null) {
+                LOGGER.warn("Message compression dictionary: {} missing, compressing without dictionary", resource);
+                return new byte[0];
+            }
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            stream.transferTo(buffer);
+            return buffer.toByteArray();
+        } catch (IOException ex) {
+            LOGGER.error("Failed to load message compression dictionary: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+            return new byte[0];
+        }
+    }
+}
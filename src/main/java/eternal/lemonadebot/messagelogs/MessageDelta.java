@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.messagelogs;
+
+/**
+ * Delta that restores the previous version of a message from the next one.
+ * Stores the length of the shared prefix and suffix and the text of the older
+ * version between them.
+ *
+ * @author Neutroni
+ */
+class MessageDelta {
+
+    private final int prefix;
+    private final int suffix;
+    private final String content;
+
+    /**
+     * Constructor
+     *
+     * @param prefix length of the shared prefix
+     * @param suffix length of the shared suffix
+     * @param content text of the older version between prefix and suffix
+     */
+    MessageDelta(final int prefix, final int suffix, final String content) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.content = content;
+    }
+
+    /**
+     * Compute delta that turns newer version of message to the older one
+     *
+     * @param newer newer version of the message
+     * @param older older version of the message
+     * @return MessageDelta
+     */
+    static MessageDelta between(final String newer, final String older) {
+        final int maxShared = Math.min(newer.length(), older.length());
+        int prefix = 0;
+        while (prefix < maxShared && newer.charAt(prefix) == older.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxShared - prefix
+                && newer.charAt(newer.length() - suffix - 1) == older.charAt(older.length() - suffix - 1)) {
+            suffix++;
+        }
+        //Do not split surrogate pairs, half of a pair can not be stored as text
+        if (prefix > 0 && Character.isHighSurrogate(newer.charAt(prefix - 1))) {
+            prefix--;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(newer.charAt(newer.length() - suffix))) {
+            suffix--;
+        }
+        final String middle = older.substring(prefix, older.length() - suffix);
+        return new MessageDelta(prefix, suffix, middle);
+    }
+
+    /**
+     * Restore the older version of the message
+     *
+     * @param newer newer version of the message
+     * @return older version of the message
+     */
+    String apply(final String newer) {
+        final int suffixStart = newer.length() - this.suffix;
+        if (this.prefix > suffixStart) {
+            throw new IllegalArgumentException("Delta does not match the message");
+        }
+        return newer.substring(0, this.prefix) + this.content + newer.substring(suffixStart);
+    }
+
+    /**
+     * Get the length of the shared prefix
+     *
+     * @return number of characters
+     */
+    int getPrefix() {
+        return this.prefix;
+    }
+
+    /**
+     * Get the length of the shared suffix
+     *
+     * @return number of characters
+     */
+    int getSuffix() {
+        return this.suffix;
+    }
+
+    /**
+     * Get the text of the older version between prefix and suffix
+     *
+     * @return text
+     */
+    String getContent() {
+        return this.content;
+    }
+}
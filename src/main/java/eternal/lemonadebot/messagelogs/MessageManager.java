@@ -23,11 +23,17 @@
  */
 package eternal.lemonadebot.messagelogs;
 
+import eternal.lemonadebot.database.DatabaseManager;
+import eternal.lemonadebot.scheduling.TimerService;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 import net.dv8tion.jda.api.entities.Message;
 import org.apache.logging.log4j.LogManager;
@@ -42,47 +48,452 @@ import org.apache.logging.log4j.Logger;
 public class MessageManager {
 
     private static final Logger LOGGER = LogManager.getLogger();
+    //Messages indexed per transaction when building the search index
+    private static final int INDEX_BATCH_SIZE = 1000;
+    //Messages over the log limit are removed periodically in batches
+    private static final long PRUNE_INTERVAL_MINUTES = 10;
+    private static final int PRUNE_BATCH_SIZE = 500;
+    private static final String INDEX_INSERT = "INSERT INTO MessageIndex(rowid,guild,author,content) VALUES(?,?,?,?);";
+    //Index does not store content so removing a message needs the indexed content
+    private static final String INDEX_DELETE = "INSERT INTO MessageIndex(MessageIndex,rowid,guild,author,content) "
+            + "VALUES('delete',?,?,?,?);";
 
     private final DataSource dataSource;
+    private final int logLimit;
+    private final RecentMessageCache recentMessages;
+    private final MessageCompression compression;
 
     /**
      * Constructor
      *
      * @param ds DataSource to get connection from
+     * @param logLimit number of messages to keep for each guild
+     * @param cacheSize size of the recent message cache per guild in bytes
+     * @param cacheBudget size of the recent message cache for all guilds in
+     * bytes
+     * @param compress true to compress stored message content
      */
-    public MessageManager(final DataSource ds) {
+    public MessageManager(final DataSource ds, final int logLimit, final int cacheSize, final long cacheBudget,
+            final boolean compress) {
         this.dataSource = ds;
+        this.logLimit = logLimit;
+        this.recentMessages = new RecentMessageCache(cacheSize, cacheBudget);
+        this.compression = new MessageCompression(compress);
     }
 
     /**
-     * Logs a message in database and removes records when more than maxMessages
-     * stored
+     * Logs a message in database, messages over the log limit are removed
+     * periodically
      *
      * @param message Message to log
      */
     void logMessage(final Message message) {
         final long currentGuildID = message.getGuild().getIdLong();
-        final String query = "INSERT INTO Messages(id,guild,author,content) VALUES(?,?,?)";
+        this.recentMessages.put(currentGuildID, message.getIdLong(), message.getAuthor().getIdLong(), message.getContentRaw());
+        final String query = "INSERT INTO Messages(id,guild,author,content) VALUES(?,?,?,?) "
+                + "ON CONFLICT(id) DO UPDATE SET content = excluded.content;";
+        try (final Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (final PreparedStatement ps = connection.prepareStatement(query);
+                    final PreparedStatement index = connection.prepareStatement(INDEX_INSERT);
+                    final PreparedStatement unindex = connection.prepareStatement(INDEX_DELETE)) {
+                //Message logged again, remove the earlier version from index
+                unindexStored(connection, unindex, message.getIdLong());
+                ps.setLong(1, message.getIdLong());
+                ps.setLong(2, currentGuildID);
+                ps.setLong(3, message.getAuthor().getIdLong());
+                setContent(ps, 4, message.getContentRaw());
+                ps.executeUpdate();
+                setIndexed(index, message.getIdLong(), currentGuildID, message.getAuthor().getIdLong(), message.getContentRaw());
+                index.executeUpdate();
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to log message in database: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+    }
+
+    /**
+     * Logs edited message, stores the previous content as a delta against the
+     * new content
+     *
+     * @param message Edited message
+     * @param previous Previously stored version of the message
+     */
+    void logEdit(final Message message, final StoredMessage previous) {
+        final long messageID = message.getIdLong();
+        final String content = message.getContentRaw();
+        if (content.equals(previous.getContent())) {
+            return;
+        }
+        this.recentMessages.put(message.getGuild().getIdLong(), messageID, message.getAuthor().getIdLong(), content);
+
+        final MessageDelta delta = MessageDelta.between(content, previous.getContent());
+        final String revisionQuery = "INSERT INTO MessageRevisions(message,revision,prefix,suffix,content) "
+                + "SELECT ?,COALESCE(MAX(revision),0)+1,?,?,? FROM MessageRevisions WHERE message = ?;";
+        final String updateQuery = "UPDATE Messages SET content = ? WHERE id = ?;";
+        try (final Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (final PreparedStatement revision = connection.prepareStatement(revisionQuery);
+                    final PreparedStatement update = connection.prepareStatement(updateQuery);
+                    final PreparedStatement index = connection.prepareStatement(INDEX_INSERT);
+                    final PreparedStatement unindex = connection.prepareStatement(INDEX_DELETE)) {
+                if (!unindexStored(connection, unindex, messageID)) {
+                    //Message was removed from log, nothing to update
+                    connection.rollback();
+                    return;
+                }
+                revision.setLong(1, messageID);
+                revision.setInt(2, delta.getPrefix());
+                revision.setInt(3, delta.getSuffix());
+                revision.setString(4, delta.getContent());
+                revision.setLong(5, messageID);
+                revision.executeUpdate();
+                setContent(update, 1, content);
+                update.setLong(2, messageID);
+                update.executeUpdate();
+                setIndexed(index, messageID, message.getGuild().getIdLong(), message.getAuthor().getIdLong(), content);
+                index.executeUpdate();
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to log message edit in database: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+    }
+
+    /**
+     * Get the earlier versions of a message
+     *
+     * @param messageID ID of the message
+     * @param current Currently stored content of the message
+     * @return List of earlier versions, oldest first
+     */
+    List<String> getRevisions(final long messageID, final String current) {
+        final String query = "SELECT prefix,suffix,content FROM MessageRevisions WHERE message = ? ORDER BY revision DESC;";
+        final LinkedList<String> revisions = new LinkedList<>();
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
-            ps.setLong(1, message.getIdLong());
-            ps.setLong(2, currentGuildID);
-            ps.setLong(3, message.getAuthor().getIdLong());
-            ps.setString(4, message.getContentRaw());
-            ps.executeUpdate();
+            ps.setLong(1, messageID);
+            try (final ResultSet rs = ps.executeQuery()) {
+                String newer = current;
+                while (rs.next()) {
+                    final MessageDelta delta = new MessageDelta(rs.getInt("prefix"), rs.getInt("suffix"), rs.getString("content"));
+                    newer = delta.apply(newer);
+                    revisions.addFirst(newer);
+                }
+            }
         } catch (SQLException ex) {
-            LOGGER.error("Failed to log message in database: {}", ex.getMessage());
+            LOGGER.error("Failed to get message revisions from database: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        } catch (IllegalArgumentException ex) {
+            LOGGER.error("Stored message revisions do not match message: {}", messageID);
             LOGGER.trace("Stack trace: ", ex);
         }
+        return revisions;
     }
 
     /**
-     * Get stored message from database if available
+     * Search logged messages by content
      *
+     * @param guildID ID of the guild to search messages from
+     * @param keywords Keywords the message must contain, trailing * matches
+     * prefix
+     * @param before ID of the message to get results older than
+     * @param limit Maximum number of results
+     * @return List of messages, newest first
+     * @throws SQLException if database connection fails
+     */
+    List<LoggedMessage> searchContent(final long guildID, final List<String> keywords, final long before,
+            final int limit) throws SQLException {
+        final StringBuilder match = new StringBuilder();
+        match.append("guild:").append(quote(Long.toString(guildID))).append(" AND content:(");
+        for (int i = 0; i < keywords.size(); i++) {
+            final String keyword = keywords.get(i);
+            if (i > 0) {
+                match.append(' ');
+            }
+            if (keyword.length() > 1 && keyword.endsWith("*")) {
+                match.append(quote(keyword.substring(0, keyword.length() - 1))).append('*');
+            } else {
+                match.append(quote(keyword));
+            }
+        }
+        match.append(')');
+        return search(match.toString(), before, limit);
+    }
+
+    /**
+     * Search logged messages by author
+     *
+     * @param guildID ID of the guild to search messages from
+     * @param authorID ID of the message author
+     * @param before ID of the message to get results older than
+     * @param limit Maximum number of results
+     * @return List of messages, newest first
+     * @throws SQLException if database connection fails
+     */
+    List<LoggedMessage> searchAuthor(final long guildID, final long authorID, final long before,
+            final int limit) throws SQLException {
+        final String match = "guild:" + quote(Long.toString(guildID)) + " AND author:" + quote(Long.toString(authorID));
+        return search(match, before, limit);
+    }
+
+    /**
+     * Run full text search query, content is read from the message log
+     *
+     * @param match FTS5 query
+     * @param before ID of the message to get results older than
+     * @param limit Maximum number of results
+     * @return List of messages, newest first
+     * @throws SQLException if database connection fails
+     */
+    private List<LoggedMessage> search(final String match, final long before, final int limit) throws SQLException {
+        final String query = "SELECT Messages.id,Messages.author,Messages.content FROM MessageIndex "
+                + "JOIN Messages ON Messages.id = MessageIndex.rowid "
+                + "WHERE MessageIndex MATCH ? AND MessageIndex.rowid < ? ORDER BY MessageIndex.rowid DESC LIMIT ?;";
+        final List<LoggedMessage> messages = new ArrayList<>(limit);
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setString(1, match);
+            ps.setLong(2, before);
+            ps.setInt(3, limit);
+            try (final ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    final String content = this.compression.decode(rs.getObject("content"));
+                    messages.add(new LoggedMessage(rs.getLong("id"), rs.getLong("author"), content));
+                }
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Start removing messages over the log limit periodically
+     *
+     * @param timer TimerService to schedule the removal with
+     */
+    public void start(final TimerService timer) {
+        timer.schedule(() -> {
+            try {
+                pruneMessages();
+            } finally {
+                start(timer);
+            }
+        }, PRUNE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Remove the oldest messages of guilds that have more messages than the
+     * log limit, content is decoded to remove the messages from search index
+     */
+    private void pruneMessages() {
+        final String guildQuery = "SELECT guild FROM Messages GROUP BY guild HAVING COUNT(*) > ?;";
+        final String expiredQuery = "SELECT id,guild,author,content FROM Messages WHERE guild = ? "
+                + "ORDER BY id DESC LIMIT ? OFFSET ?;";
+        final String deleteQuery = "DELETE FROM Messages WHERE id = ?;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement guilds = connection.prepareStatement(guildQuery);
+                final PreparedStatement expired = connection.prepareStatement(expiredQuery);
+                final PreparedStatement unindex = connection.prepareStatement(INDEX_DELETE);
+                final PreparedStatement delete = connection.prepareStatement(deleteQuery)) {
+            final List<Long> guildIDs = new ArrayList<>();
+            guilds.setInt(1, this.logLimit);
+            try (final ResultSet rs = guilds.executeQuery()) {
+                while (rs.next()) {
+                    guildIDs.add(rs.getLong("guild"));
+                }
+            }
+            long removed = 0;
+            for (final Long guildID : guildIDs) {
+                int batched;
+                do {
+                    batched = 0;
+                    connection.setAutoCommit(false);
+                    try {
+                        expired.setLong(1, guildID);
+                        expired.setInt(2, PRUNE_BATCH_SIZE);
+                        expired.setInt(3, this.logLimit);
+                        try (final ResultSet rs = expired.executeQuery()) {
+                            while (rs.next()) {
+                                final long id = rs.getLong("id");
+                                setIndexed(unindex, id, rs.getLong("guild"), rs.getLong("author"), this.compression.decode(rs.getObject("content")));
+                                unindex.addBatch();
+                                delete.setLong(1, id);
+                                delete.addBatch();
+                                batched++;
+                            }
+                        }
+                        unindex.executeBatch();
+                        delete.executeBatch();
+                        connection.commit();
+                    } catch (SQLException ex) {
+                        connection.rollback();
+                        throw ex;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                    removed += batched;
+                } while (batched == PRUNE_BATCH_SIZE);
+            }
+            LOGGER.debug("Removed {} messages over the log limit", removed);
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to remove old messages from log: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+    }
+
+    /**
+     * Add the messages logged before the search index existed to the index,
+     * continues from the last indexed message if interrupted earlier. Must be
+     * run before messages are logged.
+     *
+     * @throws SQLException if database connection fails
+     */
+    public void buildSearchIndex() throws SQLException {
+        final String progressQuery = "SELECT value FROM Metadata WHERE name = ?;";
+        final String query = "SELECT id,guild,author,content FROM Messages WHERE id > ? ORDER BY id LIMIT ?;";
+        final String updateQuery = "UPDATE Metadata SET value = ? WHERE name = ?;";
+        final String doneQuery = "DELETE FROM Metadata WHERE name = ?;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement progress = connection.prepareStatement(progressQuery);
+                final PreparedStatement ps = connection.prepareStatement(query);
+                final PreparedStatement index = connection.prepareStatement(INDEX_INSERT);
+                final PreparedStatement update = connection.prepareStatement(updateQuery);
+                final PreparedStatement done = connection.prepareStatement(doneQuery)) {
+            long lastID;
+            progress.setString(1, DatabaseManager.MESSAGE_INDEX_BACKFILL);
+            try (final ResultSet rs = progress.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+                lastID = rs.getLong("value");
+            }
+            LOGGER.info("Building message search index, continuing after message: {}", lastID);
+            long indexed = 0;
+            int batched;
+            do {
+                batched = 0;
+                ps.setLong(1, lastID);
+                ps.setInt(2, INDEX_BATCH_SIZE);
+                try (final ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        lastID = rs.getLong("id");
+                        setIndexed(index, lastID, rs.getLong("guild"), rs.getLong("author"), this.compression.decode(rs.getObject("content")));
+                        index.addBatch();
+                        batched++;
+                    }
+                }
+                //Progress is stored with the batch so an interrupted build is resumed without indexing twice
+                connection.setAutoCommit(false);
+                try {
+                    index.executeBatch();
+                    if (batched == 0) {
+                        done.setString(1, DatabaseManager.MESSAGE_INDEX_BACKFILL);
+                        done.executeUpdate();
+                    } else {
+                        update.setLong(1, lastID);
+                        update.setString(2, DatabaseManager.MESSAGE_INDEX_BACKFILL);
+                        update.executeUpdate();
+                    }
+                    connection.commit();
+                } catch (SQLException ex) {
+                    connection.rollback();
+                    throw ex;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                indexed += batched;
+            } while (batched > 0);
+            LOGGER.info("Message search index built, {} messages indexed", indexed);
+        }
+    }
+
+    /**
+     * Remove the stored version of a message from the search index
+     *
+     * @param connection Connection to use
+     * @param unindex Statement to remove from index with
+     * @param messageID ID of the message
+     * @return true if message was stored
+     * @throws SQLException if database connection fails
+     */
+    private boolean unindexStored(final Connection connection, final PreparedStatement unindex, final long messageID) throws SQLException {
+        final String query = "SELECT guild,author,content FROM Messages WHERE id = ?;";
+        try (final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, messageID);
+            try (final ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                setIndexed(unindex, messageID, rs.getLong("guild"), rs.getLong("author"), this.compression.decode(rs.getObject("content")));
+                unindex.executeUpdate();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Bind message to search index statement, the same values must be used
+     * to remove the message as were used to add it
+     *
+     * @param ps PreparedStatement
+     * @param messageID ID of the message
+     * @param guildID ID of the guild
+     * @param authorID ID of the author
+     * @param content Message content
+     * @throws SQLException if binding fails
+     */
+    private static void setIndexed(final PreparedStatement ps, final long messageID, final long guildID,
+            final long authorID, final String content) throws SQLException {
+        ps.setLong(1, messageID);
+        ps.setString(2, Long.toString(guildID));
+        ps.setString(3, Long.toString(authorID));
+        ps.setString(4, content);
+    }
+
+    /**
+     * Quote text as FTS5 string
+     *
+     * @param text text to quote
+     * @return quoted text
+     */
+    private static String quote(final String text) {
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Drop cached messages for a guild
+     *
+     * @param guildID ID of the guild
+     */
+    void clearCache(final long guildID) {
+        this.recentMessages.clearGuild(guildID);
+    }
+
+    /**
+     * Get stored message from recent message cache or database if available
+     *
+     * @param guildID ID of the guild the message was sent in
      * @param messageID ID of the message which to retrieve
      * @return Optional containing the message content if stored
      */
-    Optional<StoredMessage> getMessageContent(final long messageID) {
+    Optional<StoredMessage> getMessageContent(final long guildID, final long messageID) {
+        final Optional<StoredMessage> cached = this.recentMessages.get(guildID, messageID);
+        if (cached.isPresent()) {
+            return cached;
+        }
         final String query = "SELECT author,content from Messages WHERE id = ?";
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
@@ -90,7 +501,7 @@ public class MessageManager {
             try (final ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     final long authorID = rs.getLong("author");
-                    final String content = rs.getString("content");
+                    final String content = this.compression.decode(rs.getObject("content"));
                     final StoredMessage message = new StoredMessage(authorID, content);
                     return Optional.of(message);
                 }
@@ -102,4 +513,20 @@ public class MessageManager {
         return Optional.empty();
     }
 
+    /**
+     * Bind message content to statement, compressed if enabled
+     *
+     * @param ps PreparedStatement
+     * @param index Index of the parameter
+     * @param content Message content
+     * @throws SQLException if binding fails
+     */
+    private void setContent(final PreparedStatement ps, final int index, final String content) throws SQLException {
+        final Object encoded = this.compression.encode(content);
+        if (encoded instanceof byte[]) {
+            ps.setBytes(index, (byte[]) encoded);
+        } else {
+            ps.setString(index, content);
+        }
+    }
 }
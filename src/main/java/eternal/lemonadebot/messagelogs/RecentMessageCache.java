@@ -0,0 +1,391 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.messagelogs;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Cache of recently logged messages so that edits and deletes shortly after
+ * posting do not need a database lookup. Each guild has a fixed size off-heap
+ * ring buffer storing message content as UTF-8, oldest messages are evicted
+ * as the buffer wraps around. Buffers are allocated on the first message
+ * logged in a guild, once the total budget is used the buffer of the guild
+ * that logged least recently is handed over to the new guild.
+ *
+ * @author Neutroni
+ */
+class RecentMessageCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    //Record layout: author(long) + content length(int) + content bytes
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+    //How often to log the hit rate
+    private static final long REPORT_INTERVAL = 1000;
+
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final Map<Long, GuildBuffer> buffers = new ConcurrentHashMap<>();
+
+    //Metrics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param bufferSize size of the buffer for each guild in bytes, 0 to
+     * disable caching
+     * @param budget maximum size of all buffers combined in bytes
+     */
+    RecentMessageCache(final int bufferSize, final long budget) {
+        final int size = Math.max(bufferSize, 0);
+        this.maxBuffers = (size == 0) ? 0 : (int) Math.min(Math.max(budget, 0) / size, Integer.MAX_VALUE);
+        this.bufferSize = (this.maxBuffers == 0) ? 0 : size;
+    }
+
+    /**
+     * Store message in cache
+     *
+     * @param guildID ID of the guild message was sent in
+     * @param messageID ID of the message
+     * @param authorID ID of the message author
+     * @param content message content
+     */
+    void put(final long guildID, final long messageID, final long authorID, final String content) {
+        if (this.bufferSize == 0) {
+            return;
+        }
+        GuildBuffer buffer = this.buffers.get(guildID);
+        if (buffer == null) {
+            buffer = allocate(guildID);
+        }
+        buffer.put(messageID, authorID, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get message from cache, records a miss if the message was not found
+     *
+     * @param guildID ID of the guild message was sent in
+     * @param messageID ID of the message
+     * @return Optional containing the message if found
+     */
+    Optional<StoredMessage> get(final long guildID, final long messageID) {
+        final GuildBuffer buffer = this.buffers.get(guildID);
+        final StoredMessage message = (buffer == null) ? null : buffer.get(messageID);
+        final long lookups;
+        if (message == null) {
+            lookups = this.misses.incrementAndGet() + this.hits.get();
+        } else {
+            lookups = this.hits.incrementAndGet() + this.misses.get();
+        }
+        if (lookups % REPORT_INTERVAL == 0) {
+            LOGGER.info("Message cache hit rate: {}%, {} hits, {} misses, {} guilds cached",
+                    Math.round(getHitRate() * 100), this.hits.get(), this.misses.get(), this.buffers.size());
+        }
+        return Optional.ofNullable(message);
+    }
+
+    /**
+     * Remove the cached buffer for guild
+     *
+     * @param guildID ID of the guild
+     */
+    synchronized void clearGuild(final long guildID) {
+        final GuildBuffer removed = this.buffers.remove(guildID);
+        if (removed != null) {
+            removed.retire();
+        }
+    }
+
+    /**
+     * Get number of lookups served from cache
+     *
+     * @return number of hits
+     */
+    long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Get number of lookups that had to go to the database
+     *
+     * @return number of misses
+     */
+    long getMissCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * Get the fraction of lookups served from cache
+     *
+     * @return hit rate between 0 and 1
+     */
+    double getHitRate() {
+        final long hitCount = this.hits.get();
+        final long total = hitCount + this.misses.get();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) hitCount / total;
+    }
+
+    /**
+     * Get buffer for guild logging its first message, takes over the buffer
+     * of the least recently used guild if the budget is used
+     *
+     * @param guildID ID of the guild
+     * @return GuildBuffer
+     */
+    private synchronized GuildBuffer allocate(final long guildID) {
+        final GuildBuffer existing = this.buffers.get(guildID);
+        if (existing != null) {
+            return existing;
+        }
+        final ByteBuffer data;
+        if (this.buffers.size() < this.maxBuffers) {
+            data = ByteBuffer.allocateDirect(this.bufferSize);
+        } else {
+            Map.Entry<Long, GuildBuffer> oldest = null;
+            for (final Map.Entry<Long, GuildBuffer> entry : this.buffers.entrySet()) {
+                if (oldest == null || entry.getValue().lastUsed < oldest.getValue().lastUsed) {
+                    oldest = entry;
+                }
+            }
+            this.buffers.remove(oldest.getKey());
+            data = oldest.getValue().retire();
+            LOGGER.debug("Message cache budget used, guild: {} buffer given to guild: {}", oldest.getKey(), guildID);
+        }
+        final GuildBuffer buffer = new GuildBuffer(data);
+        this.buffers.put(guildID, buffer);
+        return buffer;
+    }
+
+    /**
+     * Ring buffer of messages for a single guild. Records are indexed with
+     * primitive arrays, a queue of records in the order they were written and
+     * an open addressing table from message id to record offset.
+     */
+    private static class GuildBuffer {
+
+        private static final int INITIAL_CAPACITY = 64;
+        //Message ids are snowflakes and never zero
+        private static final long EMPTY = 0;
+
+        private final ByteBuffer data;
+        private int position = 0;
+        private boolean retired;
+        private volatile long lastUsed = System.nanoTime();
+
+        //Records in the order they were written, oldest at head
+        private long[] queueIDs = new long[INITIAL_CAPACITY];
+        private int[] queueOffsets = new int[INITIAL_CAPACITY];
+        private int queueHead = 0;
+        private int queueSize = 0;
+
+        //Message id -> offset of the latest record of the message
+        private long[] keys = new long[INITIAL_CAPACITY * 2];
+        private int[] offsets = new int[INITIAL_CAPACITY * 2];
+        private int indexSize = 0;
+
+        GuildBuffer(final ByteBuffer data) {
+            this.data = data;
+        }
+
+        synchronized void put(final long messageID, final long authorID, final byte[] content) {
+            if (this.retired) {
+                return;
+            }
+            this.lastUsed = System.nanoTime();
+            final int recordSize = HEADER_SIZE + content.length;
+            final int capacity = this.data.capacity();
+            if (recordSize > capacity) {
+                //Would not fit even in empty buffer, drop previous version
+                indexRemove(messageID);
+                return;
+            }
+            //Record does not fit before end of buffer, wrap to the start
+            if (this.position + recordSize > capacity) {
+                while (this.queueSize > 0 && this.queueOffsets[this.queueHead] >= this.position) {
+                    evictOldest();
+                }
+                this.position = 0;
+            }
+            //Evict records that would be overwritten
+            final int end = this.position + recordSize;
+            while (this.queueSize > 0) {
+                final int oldest = this.queueOffsets[this.queueHead];
+                if (oldest < this.position || oldest >= end) {
+                    break;
+                }
+                evictOldest();
+            }
+            this.data.putLong(this.position, authorID);
+            this.data.putInt(this.position + Long.BYTES, content.length);
+            final ByteBuffer view = this.data.duplicate();
+            view.position(this.position + HEADER_SIZE);
+            view.put(content);
+
+            enqueue(messageID, this.position);
+            indexPut(messageID, this.position);
+            this.position = end;
+        }
+
+        synchronized StoredMessage get(final long messageID) {
+            if (this.retired) {
+                return null;
+            }
+            final int slot = indexFind(messageID);
+            if (slot < 0) {
+                return null;
+            }
+            final int offset = this.offsets[slot];
+            final long authorID = this.data.getLong(offset);
+            final int length = this.data.getInt(offset + Long.BYTES);
+            final byte[] content = new byte[length];
+            final ByteBuffer view = this.data.duplicate();
+            view.position(offset + HEADER_SIZE);
+            view.get(content);
+            return new StoredMessage(authorID, new String(content, StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Stop using the buffer so it can be given to another guild
+         *
+         * @return the underlying buffer
+         */
+        synchronized ByteBuffer retire() {
+            this.retired = true;
+            return this.data;
+        }
+
+        private void evictOldest() {
+            final long messageID = this.queueIDs[this.queueHead];
+            final int offset = this.queueOffsets[this.queueHead];
+            this.queueHead = (this.queueHead + 1) % this.queueIDs.length;
+            this.queueSize--;
+            //Index points elsewhere if a newer version of the message was written
+            final int slot = indexFind(messageID);
+            if (slot >= 0 && this.offsets[slot] == offset) {
+                indexRemove(messageID);
+            }
+        }
+
+        private void enqueue(final long messageID, final int offset) {
+            if (this.queueSize == this.queueIDs.length) {
+                final long[] ids = new long[this.queueIDs.length * 2];
+                final int[] recordOffsets = new int[ids.length];
+                for (int i = 0; i < this.queueSize; i++) {
+                    final int from = (this.queueHead + i) % this.queueIDs.length;
+                    ids[i] = this.queueIDs[from];
+                    recordOffsets[i] = this.queueOffsets[from];
+                }
+                this.queueIDs = ids;
+                this.queueOffsets = recordOffsets;
+                this.queueHead = 0;
+            }
+            final int tail = (this.queueHead + this.queueSize) % this.queueIDs.length;
+            this.queueIDs[tail] = messageID;
+            this.queueOffsets[tail] = offset;
+            this.queueSize++;
+        }
+
+        private int slotFor(final long messageID) {
+            //Low bits of snowflakes are sequence numbers, mix so they spread over the table
+            final long mixed = messageID * 0x9E3779B97F4A7C15L;
+            return (int) (mixed >>> 32) & (this.keys.length - 1);
+        }
+
+        private int indexFind(final long messageID) {
+            int slot = slotFor(messageID);
+            while (this.keys[slot] != EMPTY) {
+                if (this.keys[slot] == messageID) {
+                    return slot;
+                }
+                slot = (slot + 1) & (this.keys.length - 1);
+            }
+            return -1;
+        }
+
+        private void indexPut(final long messageID, final int offset) {
+            int slot = slotFor(messageID);
+            while (this.keys[slot] != EMPTY) {
+                if (this.keys[slot] == messageID) {
+                    this.offsets[slot] = offset;
+                    return;
+                }
+                slot = (slot + 1) & (this.keys.length - 1);
+            }
+            this.keys[slot] = messageID;
+            this.offsets[slot] = offset;
+            this.indexSize++;
+            //Keep the table at most half full so probes stay short
+            if (this.indexSize * 2 > this.keys.length) {
+                resizeIndex(this.keys.length * 2);
+            }
+        }
+
+        private void indexRemove(final long messageID) {
+            int slot = indexFind(messageID);
+            if (slot < 0) {
+                return;
+            }
+            this.indexSize--;
+            //Shift following entries back so lookups do not stop at the gap
+            final int mask = this.keys.length - 1;
+            int next = (slot + 1) & mask;
+            while (this.keys[next] != EMPTY) {
+                final int home = slotFor(this.keys[next]);
+                //Move entry if its home slot is not between the gap and its position
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    this.keys[slot] = this.keys[next];
+                    this.offsets[slot] = this.offsets[next];
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+            this.keys[slot] = EMPTY;
+        }
+
+        private void resizeIndex(final int size) {
+            final long[] oldKeys = this.keys;
+            final int[] oldOffsets = this.offsets;
+            this.keys = new long[size];
+            this.offsets = new int[size];
+            this.indexSize = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    indexPut(oldKeys[i], oldOffsets[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import eternal.lemonadebot.cache.ItemCache;
+import eternal.lemonadebot.database.StorageConfig;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Local copies of frequently played tracks. Opus frames of tracks played
+ * often enough are recorded to files while they play and later plays read the
+ * frames from the file instead of streaming the track again. Files are
+ * evicted in least recently used order to keep the cache within its size
+ * budget, files being played are not evicted. File operations are done
+ * outside the lock so they do not delay track changes.
+ *
+ * @author Neutroni
+ */
+class AudioDiskCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String EXTENSION = ".opus";
+    private static final String TEMP_EXTENSION = ".tmp";
+    //Number of tracks to count plays for
+    private static final int PLAY_COUNT_LIMIT = 4096;
+
+    private final Path directory;
+    private final long budget;
+    private final int minPlays;
+    private final CachedAudioSourceManager sourceManager;
+    //File name -> file size, in least recently used order
+    private final Map<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> playCounts = new ItemCache<>(PLAY_COUNT_LIMIT);
+    //File name -> number of tracks playing the file
+    private final Map<String, Integer> openFiles = new HashMap<>();
+    //Recordings are written to disk here instead of the audio send threads
+    private final ExecutorService writer = Executors.newSingleThreadExecutor((Runnable r) -> {
+        final Thread thread = new Thread(r, "AudioDiskCache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long totalSize;
+
+    /**
+     * Constructor
+     *
+     * @param config Configuration to get cache location and size from
+     */
+    AudioDiskCache(final StorageConfig config) {
+        this.directory = Paths.get(config.getAudioCacheDirectory());
+        this.minPlays = config.getAudioCacheMinPlays();
+        this.sourceManager = new CachedAudioSourceManager(this);
+        long cacheBudget = config.getAudioCacheSize();
+        if (cacheBudget > 0) {
+            try {
+                Files.createDirectories(this.directory);
+                loadExisting();
+                deleteFiles(selectEvicted(cacheBudget));
+            } catch (IOException ex) {
+                LOGGER.error("Failed to open audio cache, caching audio disabled: {}", ex.getMessage());
+                LOGGER.trace("Stack trace: ", ex);
+                cacheBudget = 0;
+            }
+        }
+        this.budget = cacheBudget;
+    }
+
+    /**
+     * Get the source manager for tracks played from the cache
+     *
+     * @return CachedAudioSourceManager
+     */
+    CachedAudioSourceManager getSourceManager() {
+        return this.sourceManager;
+    }
+
+    /**
+     * Count a play of the track and get a track that plays from the local
+     * copy if one exists
+     *
+     * @param track Track to play
+     * @return Cached track or the given track if it is not cached
+     */
+    AudioTrack wrap(final AudioTrack track) {
+        if (this.budget == 0 || track.getInfo().isStream) {
+            return track;
+        }
+        final String fileName = fileName(track.getIdentifier());
+        synchronized (this) {
+            this.playCounts.merge(fileName, 1, Integer::sum);
+            if (this.files.get(fileName) == null) {
+                return track;
+            }
+        }
+        final Path file = this.directory.resolve(fileName);
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ex) {
+            //File was removed outside of the bot or evicted meanwhile
+            LOGGER.warn("Cached audio file missing: {}", ex.getMessage());
+            synchronized (this) {
+                remove(fileName);
+            }
+            return track;
+        }
+        final CachedAudioTrack cached = new CachedAudioTrack(track.getInfo(), file, this.sourceManager);
+        cached.setPosition(track.getPosition());
+        return cached;
+    }
+
+    /**
+     * Check if track should be recorded to the cache
+     *
+     * @param track Track starting to play
+     * @return true if track should be recorded
+     */
+    synchronized boolean shouldRecord(final AudioTrack track) {
+        if (this.budget == 0 || track instanceof CachedAudioTrack || track.getInfo().isStream) {
+            return false;
+        }
+        //Only complete tracks can be recorded
+        if (track.getPosition() > 0) {
+            return false;
+        }
+        final String fileName = fileName(track.getIdentifier());
+        if (this.files.containsKey(fileName)) {
+            return false;
+        }
+        return this.playCounts.getOrDefault(fileName, 0) >= this.minPlays;
+    }
+
+    /**
+     * Run file operation of a recording on the writer thread, operations are
+     * run in the order they are submitted
+     *
+     * @param task Task to run
+     */
+    void execute(final Runnable task) {
+        try {
+            this.writer.execute(task);
+        } catch (RejectedExecutionException ex) {
+            LOGGER.warn("Audio cache closed, dropped recording task");
+        }
+    }
+
+    /**
+     * Stop accepting recordings, already submitted writes are completed
+     */
+    void close() {
+        this.writer.shutdown();
+    }
+
+    /**
+     * Create file to record track to
+     *
+     * @return Path to temporary file
+     * @throws IOException if file could not be created
+     */
+    Path createRecording() throws IOException {
+        return Files.createTempFile(this.directory, "recording", TEMP_EXTENSION);
+    }
+
+    /**
+     * Add completed recording to cache, only called from the writer thread
+     *
+     * @param identifier Identifier of the recorded track
+     * @param recording File the track was recorded to
+     * @throws IOException if file could not be moved to the cache
+     */
+    void commit(final String identifier, final Path recording) throws IOException {
+        final String fileName = fileName(identifier);
+        final long size = Files.size(recording);
+        final boolean cached;
+        synchronized (this) {
+            cached = this.files.containsKey(fileName);
+        }
+        //Cached file might be playing, keep it instead of replacing it
+        if (size > this.budget || cached) {
+            Files.deleteIfExists(recording);
+            return;
+        }
+        Files.move(recording, this.directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+        final List<String> evicted;
+        final long cacheSize;
+        synchronized (this) {
+            this.files.put(fileName, size);
+            this.totalSize += size;
+            evicted = selectEvicted(this.budget);
+            cacheSize = this.totalSize;
+        }
+        deleteFiles(evicted);
+        LOGGER.debug("Cached audio for track: {}, cache size: {} bytes", identifier, cacheSize);
+    }
+
+    /**
+     * Mark file as being played so it is not evicted
+     *
+     * @param file File of the cached track
+     */
+    synchronized void opened(final Path file) {
+        this.openFiles.merge(file.getFileName().toString(), 1, Integer::sum);
+    }
+
+    /**
+     * Mark file as no longer being played
+     *
+     * @param file File of the cached track
+     */
+    synchronized void closed(final Path file) {
+        this.openFiles.computeIfPresent(file.getFileName().toString(), (String name, Integer count) -> {
+            return (count > 1) ? count - 1 : null;
+        });
+    }
+
+    /**
+     * Get the local copy of track
+     *
+     * @param identifier Identifier of the track
+     * @return Path to the file or null if track is not cached
+     */
+    synchronized Path getFile(final String identifier) {
+        final String fileName = fileName(identifier);
+        if (this.files.get(fileName) == null) {
+            return null;
+        }
+        return this.directory.resolve(fileName);
+    }
+
+    /**
+     * Remove least recently used files from the cache until it is within
+     * budget, files being played are skipped. Must hold lock on this when
+     * cache is in use
+     *
+     * @param limit Size limit in bytes
+     * @return Names of the removed files to delete
+     */
+    private List<String> selectEvicted(final long limit) {
+        final List<String> evicted = new ArrayList<>();
+        final Iterator<Map.Entry<String, Long>> iterator = this.files.entrySet().iterator();
+        while (this.totalSize > limit && iterator.hasNext()) {
+            final Map.Entry<String, Long> entry = iterator.next();
+            if (this.openFiles.containsKey(entry.getKey())) {
+                continue;
+            }
+            evicted.add(entry.getKey());
+            this.totalSize -= entry.getValue();
+            iterator.remove();
+        }
+        return evicted;
+    }
+
+    /**
+     * Delete files removed from the cache
+     *
+     * @param fileNames Names of the files to delete
+     */
+    private void deleteFiles(final List<String> fileNames) {
+        for (final String fileName : fileNames) {
+            try {
+                Files.deleteIfExists(this.directory.resolve(fileName));
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to delete cached audio file: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private void remove(final String fileName) {
+        final Long size = this.files.remove(fileName);
+        if (size != null) {
+            this.totalSize -= size;
+        }
+    }
+
+    /**
+     * Load files cached before restart, oldest first so that least recently
+     * used order is preserved
+     *
+     * @throws IOException if directory could not be read
+     */
+    private void loadExisting() throws IOException {
+        final List<Path> existing = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+            for (final Path file : stream) {
+                final String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_EXTENSION)) {
+                    //Recording interrupted by shutdown
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(EXTENSION)) {
+                    existing.add(file);
+                }
+            }
+        }
+        final Map<Path, Long> modified = new LinkedHashMap<>();
+        for (final Path file : existing) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        existing.sort(Comparator.comparing(modified::get));
+        for (final Path file : existing) {
+            final long size = Files.size(file);
+            this.files.put(file.getFileName().toString(), size);
+            this.totalSize += size;
+        }
+        LOGGER.debug("Loaded {} cached audio files, total size: {} bytes", this.files.size(), this.totalSize);
+    }
+
+    private static String fileName(final String identifier) {
+        return UUID.nameUUIDFromBytes(identifier.getBytes(StandardCharsets.UTF_8)) + EXTENSION;
+    }
+}
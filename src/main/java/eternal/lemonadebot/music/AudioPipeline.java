@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.track.playback.NonAllocatingAudioFrameBuffer;
+import java.time.Duration;
+
+/**
+ * Settings of the audio frame pipeline shared by the bot and the playback
+ * benchmark
+ *
+ * @author Neutroni
+ */
+final class AudioPipeline {
+
+    private final boolean nonAllocating;
+    private final Duration frameBufferDuration;
+
+    /**
+     * Constructor
+     *
+     * @param nonAllocating true to use preallocated frame buffers and direct
+     * send buffers
+     * @param frameBufferDuration Duration of audio buffered ahead for each
+     * player
+     */
+    AudioPipeline(final boolean nonAllocating, final Duration frameBufferDuration) {
+        this.nonAllocating = nonAllocating;
+        this.frameBufferDuration = frameBufferDuration;
+    }
+
+    /**
+     * Create player manager using the pipeline settings, sources are not
+     * registered
+     *
+     * @return AudioPlayerManager
+     */
+    AudioPlayerManager createPlayerManager() {
+        final AudioPlayerManager manager = new DefaultAudioPlayerManager();
+        manager.setFrameBufferDuration((int) this.frameBufferDuration.toMillis());
+        if (this.nonAllocating) {
+            manager.getConfiguration().setFrameBufferFactory(NonAllocatingAudioFrameBuffer::new);
+        }
+        return manager;
+    }
+
+    /**
+     * Check if send handlers should use direct buffers
+     *
+     * @return true if direct buffers should be used
+     */
+    boolean useDirectBuffers() {
+        return this.nonAllocating;
+    }
+
+    @Override
+    public String toString() {
+        return (this.nonAllocating ? "non-allocating" : "default") + ", " + this.frameBufferDuration.toMillis() + "ms buffer";
+    }
+}
@@ -17,17 +17,24 @@ class AudioPlayerSendHandler implements AudioSendHandler {
     private final AudioPlayer audioPlayer;
     private final ByteBuffer buffer;
     private final MutableAudioFrame frame;
+    private final TrackRecorder recorder;
+    //View of the buffer for the recorder, reused so frames can be read without allocating
+    private final ByteBuffer recordView;
 
     /**
      * Constructor
      *
      * @param audioPlayer Audio player to wrap.
+     * @param recorder Recorder to pass the sent frames to, null to not record
+     * @param directBuffer true to store frames in a direct buffer
      */
-    AudioPlayerSendHandler(final AudioPlayer audioPlayer) {
+    AudioPlayerSendHandler(final AudioPlayer audioPlayer, final TrackRecorder recorder, final boolean directBuffer) {
         this.audioPlayer = audioPlayer;
-        this.buffer = ByteBuffer.allocate(1024);
+        this.recorder = recorder;
+        this.buffer = directBuffer ? ByteBuffer.allocateDirect(1024) : ByteBuffer.allocate(1024);
         this.frame = new MutableAudioFrame();
         this.frame.setBuffer(this.buffer);
+        this.recordView = this.buffer.duplicate();
     }
 
     /**
@@ -37,7 +44,13 @@ class AudioPlayerSendHandler implements AudioSendHandler {
      */
     @Override
     public boolean canProvide() {
-        return this.audioPlayer.provide(this.frame);
+        if (!this.audioPlayer.provide(this.frame)) {
+            return false;
+        }
+        if (this.recorder != null) {
+            this.recorder.record(this.recordView, this.frame.getDataLength(), this.frame.getTimecode());
+        }
+        return true;
     }
 
     /**
@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.nio.file.Path;
+
+/**
+ * Source manager for tracks played from the local audio cache, tracks can not
+ * be loaded by identifier, they are only created by the cache
+ *
+ * @author Neutroni
+ */
+class CachedAudioSourceManager implements AudioSourceManager {
+
+    private final AudioDiskCache cache;
+
+    /**
+     * Constructor
+     *
+     * @param cache Cache to get the files from
+     */
+    CachedAudioSourceManager(final AudioDiskCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Get the cache tracks are played from
+     *
+     * @return AudioDiskCache
+     */
+    AudioDiskCache getCache() {
+        return this.cache;
+    }
+
+    @Override
+    public String getSourceName() {
+        return "disk-cache";
+    }
+
+    @Override
+    public AudioItem loadItem(final AudioPlayerManager manager, final AudioReference reference) {
+        return null;
+    }
+
+    @Override
+    public boolean isTrackEncodable(final AudioTrack track) {
+        return true;
+    }
+
+    @Override
+    public void encodeTrack(final AudioTrack track, final DataOutput output) {
+        //File is found by the track identifier, nothing else to store
+    }
+
+    @Override
+    public AudioTrack decodeTrack(final AudioTrackInfo trackInfo, final DataInput input) {
+        final Path file = this.cache.getFile(trackInfo.identifier);
+        if (file == null) {
+            return null;
+        }
+        return new CachedAudioTrack(trackInfo, file, this);
+    }
+
+    @Override
+    public void shutdown() {
+        //Nothing to release, cached files are kept over restarts
+    }
+}
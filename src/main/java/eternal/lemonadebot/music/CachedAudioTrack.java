@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.container.common.OpusPacketRouter;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.DelegatedAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Track played from a file in the local audio cache. The file is memory mapped
+ * and the stored opus frames are passed to the player without decoding them.
+ *
+ * File contains 20ms opus frames each prefixed by its length as unsigned
+ * short.
+ *
+ * @author Neutroni
+ */
+class CachedAudioTrack extends DelegatedAudioTrack {
+
+    private static final int SAMPLE_RATE = 48000;
+    private static final int CHANNELS = 2;
+    private static final int FRAME_DURATION = 20;
+
+    private final Path file;
+    private final CachedAudioSourceManager sourceManager;
+
+    /**
+     * Constructor
+     *
+     * @param trackInfo Info of the original track
+     * @param file File to play from
+     * @param sourceManager Source manager of the cache
+     */
+    CachedAudioTrack(final AudioTrackInfo trackInfo, final Path file, final CachedAudioSourceManager sourceManager) {
+        super(trackInfo);
+        this.file = file;
+        this.sourceManager = sourceManager;
+    }
+
+    @Override
+    public void process(final LocalAudioTrackExecutor executor) throws Exception {
+        final AudioDiskCache cache = this.sourceManager.getCache();
+        cache.opened(this.file);
+        try (final FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            final MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final OpusPacketRouter router = new OpusPacketRouter(executor.getProcessingContext(), SAMPLE_RATE, CHANNELS);
+            try {
+                executor.executeProcessingLoop(() -> {
+                    readFrames(data, router);
+                }, (long position) -> {
+                    seek(data, router, position);
+                });
+            } finally {
+                router.close();
+            }
+        } finally {
+            cache.closed(this.file);
+        }
+    }
+
+    /**
+     * Pass frames to the player until end of file
+     *
+     * @param data File contents
+     * @param router Router to pass the frames to
+     * @throws InterruptedException if playback was stopped
+     */
+    private static void readFrames(final ByteBuffer data, final OpusPacketRouter router) throws InterruptedException {
+        while (data.remaining() > Short.BYTES) {
+            final int length = Short.toUnsignedInt(data.getShort());
+            if (length > data.remaining()) {
+                //Truncated file, play what there is
+                break;
+            }
+            final ByteBuffer packet = data.slice();
+            packet.limit(length);
+            data.position(data.position() + length);
+            router.process(packet);
+        }
+        router.flush();
+    }
+
+    /**
+     * Move to the frame containing position
+     *
+     * @param data File contents
+     * @param router Router to notify of the seek
+     * @param position Position to seek to in milliseconds
+     */
+    private static void seek(final ByteBuffer data, final OpusPacketRouter router, final long position) {
+        data.rewind();
+        final long target = position / FRAME_DURATION;
+        long frame = 0;
+        while (frame < target && data.remaining() > Short.BYTES) {
+            final int length = Short.toUnsignedInt(data.getShort());
+            if (length > data.remaining()) {
+                break;
+            }
+            data.position(data.position() + length);
+            frame++;
+        }
+        router.seekPerformed(position, frame * FRAME_DURATION);
+    }
+
+    @Override
+    protected AudioTrack makeShallowClone() {
+        return new CachedAudioTrack(this.trackInfo, this.file, this.sourceManager);
+    }
+
+    @Override
+    public AudioSourceManager getSourceManager() {
+        return this.sourceManager;
+    }
+}
@@ -5,6 +5,7 @@ package eternal.lemonadebot.music;
 
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import java.util.concurrent.Executor;
 import net.dv8tion.jda.api.managers.AudioManager;
 
 /**
@@ -22,22 +23,83 @@ class GuildMusicManager {
      */
     public final TrackScheduler scheduler;
 
+    private final AudioManager audioManager;
+    private final AudioPlayerSendHandler sendHandler;
+    private final PresenceManager presence;
+    private volatile long lastActive;
+
     /**
      * Creates a player and a track scheduler.
      *
      * @param manager Audio player manager to use for creating the player.
      * @param audioManager AudioManager to close at the end of play
+     * @param playlists PlaylistManager to store the queue with
+     * @param audioCache Cache to play and record tracks with
+     * @param presence PresenceManager to report playback to
+     * @param pipeline Settings of the audio pipeline
+     * @param playlistWriter Executor to store queue changes with
      */
-    GuildMusicManager(final AudioPlayerManager manager, final AudioManager audioManager) {
+    GuildMusicManager(final AudioPlayerManager manager, final AudioManager audioManager, final PlaylistManager playlists, final AudioDiskCache audioCache, final PresenceManager presence, final AudioPipeline pipeline, final Executor playlistWriter) {
         this.player = manager.createPlayer();
-        this.scheduler = new TrackScheduler(this.player, audioManager);
+        this.presence = presence;
+        this.scheduler = new TrackScheduler(this.player, audioManager, playlists, audioCache, presence, playlistWriter);
+        //Recorder must see the end of a track before scheduler starts the next one
+        final TrackRecorder recorder = new TrackRecorder(audioCache);
+        this.player.addListener(recorder);
         this.player.addListener(this.scheduler);
+        this.audioManager = audioManager;
+        this.sendHandler = new AudioPlayerSendHandler(this.player, recorder, pipeline.useDirectBuffers());
+        this.lastActive = System.currentTimeMillis();
+    }
+
+    /**
+     * Restore the stored queue and start sending audio for the guild, called
+     * once the manager has been registered for the guild
+     */
+    void start() {
+        this.scheduler.restore();
+        this.audioManager.setSendingHandler(this.sendHandler);
     }
 
     /**
      * @return Wrapper around AudioPlayer to use it as an AudioSendHandler.
      */
     public AudioPlayerSendHandler getSendHandler() {
-        return new AudioPlayerSendHandler(this.player);
+        return this.sendHandler;
+    }
+
+    /**
+     * Mark the player as used
+     */
+    void touch() {
+        this.lastActive = System.currentTimeMillis();
+    }
+
+    /**
+     * Check if the player has been idle, player connected to voice is never
+     * idle
+     *
+     * @param cutoff Time in milliseconds the player must have been last used
+     * before to be idle
+     * @return true if idle
+     */
+    boolean isIdle(final long cutoff) {
+        if (this.audioManager.isConnected()) {
+            touch();
+            return false;
+        }
+        return this.lastActive < cutoff;
+    }
+
+    /**
+     * Release the player, the manager can not be used after this
+     */
+    void destroy() {
+        this.scheduler.saveProgress();
+        this.player.destroy();
+        this.presence.playbackStopped(this.audioManager.getJDA(), this.audioManager.getGuild().getIdLong());
+        if (this.audioManager.getSendingHandler() == this.sendHandler) {
+            this.audioManager.setSendingHandler(null);
+        }
     }
 }
@@ -25,31 +25,39 @@ package eternal.lemonadebot.music;
 
 import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
-import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManagers;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import eternal.lemonadebot.commands.ChatCommand;
 import eternal.lemonadebot.commands.CommandContext;
+import eternal.lemonadebot.database.DatabaseManager;
+import eternal.lemonadebot.database.StorageConfig;
+import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import eternal.lemonadebot.permissions.CommandPermission;
 import eternal.lemonadebot.permissions.MemberRank;
 import eternal.lemonadebot.permissions.PermissionManager;
+import eternal.lemonadebot.scheduling.TimerService;
 import eternal.lemonadebot.translation.ActionKey;
 import eternal.lemonadebot.translation.TranslationCache;
+import java.sql.SQLException;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.MessageEmbed;
-import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.entities.VoiceChannel;
 import net.dv8tion.jda.api.managers.AudioManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * Command for playing music
@@ -58,16 +66,67 @@ import net.dv8tion.jda.api.managers.AudioManager;
  */
 public class MusicCommand extends ChatCommand {
 
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long PLAYLIST_WRITE_TIMEOUT_SECONDS = 10;
+
+    private final AudioPipeline pipeline;
     private final AudioPlayerManager playerManager;
     private final Map<Long, GuildMusicManager> musicManagers;
+    private final PlaylistManager playlists;
+    private final TrackCache trackCache;
+    private final AudioDiskCache audioCache;
+    //Queue changes are stored here instead of the threads changing the queue
+    private final ExecutorService playlistWriter = Executors.newSingleThreadExecutor((Runnable r) -> {
+        final Thread thread = new Thread(r, "PlaylistManager-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long idleMillis;
+    private PresenceManager presence;
 
     /**
      * Constructor
+     *
+     * @param db Database to store music queues in
      */
-    public MusicCommand() {
-        this.playerManager = new DefaultAudioPlayerManager();
+    public MusicCommand(final DatabaseManager db) {
+        final StorageConfig config = db.getConfig();
+        this.pipeline = new AudioPipeline(config.nonAllocatingAudioEnabled(), config.getAudioFrameBufferDuration());
+        this.playerManager = this.pipeline.createPlayerManager();
         AudioSourceManagers.registerRemoteSources(this.playerManager);
+        this.audioCache = new AudioDiskCache(config);
+        this.playerManager.registerSourceManager(this.audioCache.getSourceManager());
         this.musicManagers = new ConcurrentHashMap<>();
+        this.playlists = new PlaylistManager(db, this.playerManager);
+        this.trackCache = new TrackCache(db, this.playerManager);
+    }
+
+    @Override
+    public void initialize(final StorageManager storage) {
+        this.idleMillis = storage.getConfig().getMusicIdleTime().toMillis();
+        this.presence = new PresenceManager(storage.getTimerService(), storage.getConfig().getPresenceUpdateInterval());
+        scheduleEviction(storage.getTimerService());
+        this.trackCache.start(storage.getTimerService());
+    }
+
+    @Override
+    public void close() {
+        //Store pending queue changes before progress of playing tracks
+        this.playlistWriter.shutdown();
+        try {
+            if (!this.playlistWriter.awaitTermination(PLAYLIST_WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Storing music queues did not finish before shutdown");
+            }
+        } catch (InterruptedException ex) {
+            LOGGER.warn("Interrupted while storing music queues");
+            Thread.currentThread().interrupt();
+        }
+        //Remember where playback was so it can continue after restart
+        this.musicManagers.values().forEach((GuildMusicManager t) -> {
+            t.scheduler.saveProgress();
+        });
+        this.audioCache.close();
+        this.trackCache.close();
     }
 
     @Override
@@ -96,14 +155,13 @@ public class MusicCommand extends ChatCommand {
     @Override
     protected void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
 
         //Get arguments and parse accordingly
         final String[] arguments = matcher.getArguments(1);
         if (arguments.length == 0) {
-            textChannel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -112,69 +170,67 @@ public class MusicCommand extends ChatCommand {
         switch (key) {
             case PLAY: {
                 if (arguments.length < 2) {
-                    resumeTrack(textChannel, locale);
+                    resumeTrack(context, locale);
                     return;
                 }
                 final String url = arguments[1];
-                loadAndPlay(textChannel, url, locale);
+                loadAndPlay(context, url, locale);
                 break;
             }
             case SEARCH: {
                 if (arguments.length < 2) {
-                    textChannel.sendMessage(locale.getString("MUSIC_SEARCH_QUERY_MISSING")).queue();
+                    context.replyError(locale.getString("MUSIC_SEARCH_QUERY_MISSING"));
                     return;
                 }
                 final String query = arguments[1];
-                searchAndPlay(textChannel, query, locale);
+                searchAndPlay(context, query, locale);
                 break;
             }
             case SKIP: {
                 if (arguments.length < 2) {
-                    skipTrack(textChannel, null, locale);
+                    skipTrack(context, null, locale);
                     return;
                 }
                 final String url = arguments[1];
-                skipTrack(textChannel, url, locale);
+                skipTrack(context, url, locale);
                 break;
             }
             case PAUSE: {
-                pauseTrack(textChannel, locale);
+                pauseTrack(context, locale);
                 break;
             }
             case STOP: {
-                stopTrack(textChannel, locale);
+                stopTrack(context, locale);
                 break;
             }
             case LIST: {
-                showPlaylist(textChannel, locale);
+                showPlaylist(context, locale);
                 break;
             }
             default: {
-                textChannel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + arguments[0]).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + arguments[0]);
             }
         }
     }
 
-    private void loadAndPlay(final TextChannel channel, final String trackUrl, final ResourceBundle locale) {
-        final GuildMusicManager musicManager = getGuildAudioPlayer(channel.getGuild());
+    private void loadAndPlay(final CommandContext context, final String trackUrl, final ResourceBundle locale) {
+        final GuildMusicManager musicManager = getGuildAudioPlayer(context.getGuild());
 
-        this.playerManager.loadItemOrdered(musicManager, trackUrl, new AudioLoadResultHandler() {
+        this.trackCache.loadItemOrdered(musicManager, trackUrl, new AudioLoadResultHandler() {
             @Override
             public void trackLoaded(final AudioTrack track) {
-                play(channel.getGuild(), musicManager, track);
+                play(context.getGuild(), musicManager, track);
                 final String template = locale.getString("MUSIC_ADDED_SONG");
-                channel.sendMessageFormat(template, track.getInfo().title).queue();
+                context.reply(String.format(template, track.getInfo().title));
             }
 
             @Override
             public void playlistLoaded(final AudioPlaylist playlist) {
                 //Playlist without track selected
                 if (playlist.getSelectedTrack() == null) {
-                    for (final AudioTrack tr : playlist.getTracks()) {
-                        play(channel.getGuild(), musicManager, tr);
-                    }
+                    playAll(context.getGuild(), musicManager, playlist.getTracks());
                     final String template = locale.getString("MUSIC_ADDED_PLAYLIST");
-                    channel.sendMessageFormat(template, playlist.getName()).queue();
+                    context.reply(String.format(template, playlist.getName()));
                     return;
                 }
                 //Single track from playlist
@@ -184,27 +240,27 @@ public class MusicCommand extends ChatCommand {
             @Override
             public void noMatches() {
                 final String template = locale.getString("MUSIC_NOT_FOUND");
-                channel.sendMessageFormat(template, trackUrl).queue();
+                context.replyError(String.format(template, trackUrl));
             }
 
             @Override
             public void loadFailed(final FriendlyException exception) {
                 final String template = locale.getString("MUSIC_LOAD_FAILED");
-                channel.sendMessageFormat(template, exception.getMessage()).queue();
+                context.replyError(String.format(template, exception.getMessage()));
             }
         });
     }
 
-    private void searchAndPlay(final TextChannel channel, final String queryString, final ResourceBundle locale) {
-        final GuildMusicManager musicManager = getGuildAudioPlayer(channel.getGuild());
+    private void searchAndPlay(final CommandContext context, final String queryString, final ResourceBundle locale) {
+        final GuildMusicManager musicManager = getGuildAudioPlayer(context.getGuild());
         final String search = "ytsearch:" + queryString;
 
-        this.playerManager.loadItemOrdered(musicManager, search, new AudioLoadResultHandler() {
+        this.trackCache.loadItemOrdered(musicManager, search, new AudioLoadResultHandler() {
             @Override
             public void trackLoaded(final AudioTrack track) {
-                play(channel.getGuild(), musicManager, track);
+                play(context.getGuild(), musicManager, track);
                 final String template = locale.getString("MUSIC_ADDED_SONG");
-                channel.sendMessageFormat(template, track.getInfo().title).queue();
+                context.reply(String.format(template, track.getInfo().title));
             }
 
             @Override
@@ -221,65 +277,145 @@ public class MusicCommand extends ChatCommand {
             @Override
             public void noMatches() {
                 final String template = locale.getString("MUSIC_NOT_FOUND");
-                channel.sendMessageFormat(template, queryString).queue();
+                context.replyError(String.format(template, queryString));
             }
 
             @Override
             public void loadFailed(final FriendlyException exception) {
                 final String template = locale.getString("MUSIC_LOAD_FAILED");
-                channel.sendMessageFormat(template, exception.getMessage()).queue();
+                context.replyError(String.format(template, exception.getMessage()));
             }
         });
     }
 
-    private synchronized GuildMusicManager getGuildAudioPlayer(final Guild guild) {
-        final long guildId = guild.getIdLong();
+    /**
+     * Get the music player for guild, creates the player if guild does not
+     * have one
+     *
+     * @param guild Guild to get the player for
+     * @return GuildMusicManager
+     */
+    private GuildMusicManager getGuildAudioPlayer(final Guild guild) {
+        final long guildID = guild.getIdLong();
+        final GuildMusicManager existing = this.musicManagers.computeIfPresent(guildID, (Long id, GuildMusicManager manager) -> {
+            manager.touch();
+            return manager;
+        });
+        if (existing != null) {
+            return existing;
+        }
 
-        final GuildMusicManager musicManager = this.musicManagers.computeIfAbsent(guildId, (Long id) -> {
-            return new GuildMusicManager(this.playerManager, guild.getAudioManager());
+        //Create the player outside the map lock, loser of a race is released
+        final GuildMusicManager created = new GuildMusicManager(this.playerManager, guild.getAudioManager(), this.playlists, this.audioCache, this.presence, this.pipeline, this.playlistWriter);
+        final GuildMusicManager raced = this.musicManagers.putIfAbsent(guildID, created);
+        if (raced != null) {
+            created.destroy();
+            raced.touch();
+            return raced;
+        }
+        created.start();
+        return created;
+    }
+
+    /**
+     * Get the music player for guild if guild has one or has a stored queue
+     *
+     * @param guild Guild to get the player for
+     * @return GuildMusicManager or null if guild has no player
+     */
+    private GuildMusicManager findGuildAudioPlayer(final Guild guild) {
+        final GuildMusicManager musicManager = this.musicManagers.computeIfPresent(guild.getIdLong(), (Long id, GuildMusicManager existing) -> {
+            existing.touch();
+            return existing;
         });
+        if (musicManager != null) {
+            return musicManager;
+        }
 
-        guild.getAudioManager().setSendingHandler(musicManager.getSendHandler());
+        //Restore queue stored before restart
+        try {
+            if (this.playlists.hasTracks(guild.getIdLong())) {
+                return getGuildAudioPlayer(guild);
+            }
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to check for stored music queue: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+        return null;
+    }
 
-        return musicManager;
+    /**
+     * Release players that have been idle, reschedules itself
+     *
+     * @param timer TimerService to schedule the next check with
+     */
+    private void scheduleEviction(final TimerService timer) {
+        timer.schedule(() -> {
+            try {
+                evictIdlePlayers();
+            } finally {
+                scheduleEviction(timer);
+            }
+        }, Math.max(this.idleMillis / 2, 1000), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Release players that have not been connected to voice recently
+     */
+    private void evictIdlePlayers() {
+        final long cutoff = System.currentTimeMillis() - this.idleMillis;
+        for (final Long guildID : this.musicManagers.keySet()) {
+            final GuildMusicManager[] evicted = new GuildMusicManager[1];
+            this.musicManagers.computeIfPresent(guildID, (Long id, GuildMusicManager existing) -> {
+                if (existing.isIdle(cutoff)) {
+                    evicted[0] = existing;
+                    return null;
+                }
+                return existing;
+            });
+            if (evicted[0] != null) {
+                evicted[0].destroy();
+                LOGGER.debug("Released idle music player for guild: {}", guildID);
+            }
+        }
     }
 
     /**
      * Skip tracks in playlist
      *
-     * @param channel Channel to send messages on
+     * @param context context for request
      * @param trackUrl URL of the track or playlist to skip, null to skip
      * current track
      * @param locale Locale to send replies in
      */
-    private void skipTrack(final TextChannel channel, final String trackUrl, final ResourceBundle locale) {
-        final GuildMusicManager musicManager = getGuildAudioPlayer(channel.getGuild());
+    private void skipTrack(final CommandContext context, final String trackUrl, final ResourceBundle locale) {
+        final GuildMusicManager musicManager = findGuildAudioPlayer(context.getGuild());
 
         //Check if the player is playing
-        if (musicManager.player.getPlayingTrack() == null) {
-            channel.sendMessage(locale.getString("MUSIC_SKIP_NO_TRACK_TO_SKIP")).queue();
+        if (musicManager == null || musicManager.player.getPlayingTrack() == null) {
+            context.replyError(locale.getString("MUSIC_SKIP_NO_TRACK_TO_SKIP"));
             return;
         }
 
         //No url, skip current track
         if (trackUrl == null) {
             if (musicManager.scheduler.nextTrack()) {
-                channel.sendMessage(locale.getString("MUSIC_TRACK_SKIPPED")).queue();
+                context.reply(locale.getString("MUSIC_TRACK_SKIPPED"));
             } else {
-                channel.sendMessage(locale.getString("MUSIC_SKIP_PLAYLIST_END")).queue();
+                context.replyError(locale.getString("MUSIC_SKIP_PLAYLIST_END"));
             }
             return;
         }
 
         //Skip tracks from url
-        this.playerManager.loadItemOrdered(musicManager, trackUrl, new AudioLoadResultHandler() {
+        this.trackCache.loadItemOrdered(musicManager, trackUrl, new AudioLoadResultHandler() {
             @Override
             public void trackLoaded(final AudioTrack track) {
                 if (musicManager.scheduler.skipTrack(track)) {
                     final String template = locale.getString("MUSIC_TRACK_IN_QUEUE_SKIPPED");
-                    channel.sendMessageFormat(template, track.getInfo().title).queue();
+                    context.reply(String.format(template, track.getInfo().title));
                 } else {
-                    channel.sendMessage(locale.getString("MUSIC_SKIP_TRACK_NOT_IN_PLAYLIST")).queue();
+                    context.replyError(locale.getString("MUSIC_SKIP_TRACK_NOT_IN_PLAYLIST"));
                 }
             }
 
@@ -287,17 +423,12 @@ public class MusicCommand extends ChatCommand {
             public void playlistLoaded(final AudioPlaylist playlist) {
                 //Playlist without track selected
                 if (playlist.getSelectedTrack() == null) {
-                    boolean skipped = false;
-                    for (final AudioTrack tr : playlist.getTracks()) {
-                        if (musicManager.scheduler.skipTrack(tr)) {
-                            skipped = true;
-                        }
-                    }
-                    if (skipped) {
+                    final int skipped = musicManager.scheduler.skipTracks(playlist.getTracks());
+                    if (skipped > 0) {
                         final String template = locale.getString("MUSIC_SKIPPED_PLAYLIST");
-                        channel.sendMessageFormat(template, playlist.getName()).queue();
+                        context.reply(String.format(template, playlist.getName()));
                     } else {
-                        channel.sendMessage(locale.getString("MUSIC_SKIP_SONGS_NOT_FOUND")).queue();
+                        context.replyError(locale.getString("MUSIC_SKIP_SONGS_NOT_FOUND"));
                     }
                     return;
                 }
@@ -307,22 +438,22 @@ public class MusicCommand extends ChatCommand {
                 final boolean skipped = musicManager.scheduler.skipTrack(selectedTrack);
                 if (skipped) {
                     final String template = locale.getString("MUSIC_SKIP_SONG");
-                    channel.sendMessageFormat(template, playlist.getName()).queue();
+                    context.reply(String.format(template, playlist.getName()));
                 } else {
-                    channel.sendMessage(locale.getString("MUSIC_SKIP_TRACK_NOT_IN_PLAYLIST")).queue();
+                    context.replyError(locale.getString("MUSIC_SKIP_TRACK_NOT_IN_PLAYLIST"));
                 }
             }
 
             @Override
             public void noMatches() {
                 final String template = locale.getString("MUSIC_NOT_FOUND");
-                channel.sendMessageFormat(template, trackUrl).queue();
+                context.replyError(String.format(template, trackUrl));
             }
 
             @Override
             public void loadFailed(final FriendlyException exception) {
                 final String template = locale.getString("MUSIC_SKIP_FAILED");
-                channel.sendMessageFormat(template, exception.getMessage()).queue();
+                context.replyError(String.format(template, exception.getMessage()));
             }
         });
     }
@@ -330,72 +461,103 @@ public class MusicCommand extends ChatCommand {
     /**
      * Pause music playback
      *
-     * @param textChannel textChannel for request
+     * @param context context for request
      * @param locale Locale to respond in
      */
-    private void pauseTrack(final TextChannel textChannel, final ResourceBundle locale) {
-        final GuildMusicManager musicManager = getGuildAudioPlayer(textChannel.getGuild());
+    private void pauseTrack(final CommandContext context, final ResourceBundle locale) {
+        final GuildMusicManager musicManager = findGuildAudioPlayer(context.getGuild());
+        if (musicManager == null) {
+            context.replyError(locale.getString("MUSIC_NOTHING_PLAYING"));
+            return;
+        }
         musicManager.player.setPaused(true);
-        textChannel.sendMessage(locale.getString("MUSIC_PLAYBACK_PAUSED")).queue();
+        musicManager.scheduler.saveProgress();
+        context.reply(locale.getString("MUSIC_PLAYBACK_PAUSED"));
     }
 
     /**
      * Resume audio playback
      *
-     * @param textChannel channel for the request
+     * @param context context for the request
      * @param locale Locale to respond in
      */
-    private void resumeTrack(final TextChannel textChannel, final ResourceBundle locale) {
-        final GuildMusicManager musicManager = getGuildAudioPlayer(textChannel.getGuild());
+    private void resumeTrack(final CommandContext context, final ResourceBundle locale) {
+        final GuildMusicManager musicManager = findGuildAudioPlayer(context.getGuild());
+        if (musicManager == null) {
+            context.replyError(locale.getString("MUSIC_NOTHING_PLAYING"));
+            return;
+        }
         musicManager.player.setPaused(false);
-        textChannel.sendMessage(locale.getString("MUSIC_PLAYBACK_RESUMED")).queue();
+
+        //Continue queue restored after restart
+        if (musicManager.player.getPlayingTrack() == null) {
+            if (!musicManager.scheduler.hasQueuedTracks()) {
+                context.replyError(locale.getString("MUSIC_NOTHING_PLAYING"));
+                return;
+            }
+            connect(context.getGuild());
+            musicManager.scheduler.nextTrack();
+        }
+        context.reply(locale.getString("MUSIC_PLAYBACK_RESUMED"));
     }
 
     /**
      * Stop audio playback and clear queue
      *
-     * @param textChannel channel for request
+     * @param context context for request
      * @param locale Locale to respond in
      */
-    private void stopTrack(final TextChannel textChannel, final ResourceBundle locale) {
-        final GuildMusicManager musicManager = getGuildAudioPlayer(textChannel.getGuild());
+    private void stopTrack(final CommandContext context, final ResourceBundle locale) {
+        final GuildMusicManager musicManager = findGuildAudioPlayer(context.getGuild());
+        if (musicManager == null) {
+            context.replyError(locale.getString("MUSIC_NOTHING_PLAYING"));
+            return;
+        }
         musicManager.player.stopTrack();
         musicManager.scheduler.clearPlaylist();
-        textChannel.sendMessage(locale.getString("MUSIC_PLAYBACK_STOPPED")).queue();
+        context.reply(locale.getString("MUSIC_PLAYBACK_STOPPED"));
     }
 
     /**
      * Print the upcoming songs
      *
-     * @param textChannel channel to respond on
+     * @param context context to respond to
      * @param locale Locale to print playlist in
      */
-    private void showPlaylist(final TextChannel textChannel, final ResourceBundle locale) {
-        final GuildMusicManager musicManager = getGuildAudioPlayer(textChannel.getGuild());
-        final List<AudioTrack> playlist = musicManager.scheduler.getPlaylist();
+    private void showPlaylist(final CommandContext context, final ResourceBundle locale) {
+        final GuildMusicManager musicManager = findGuildAudioPlayer(context.getGuild());
         final EmbedBuilder eb = new EmbedBuilder();
-
-        final AudioTrack currentTrack = musicManager.player.getPlayingTrack();
-        if (currentTrack == null) {
+        final AudioTrack currentTrack;
+        if (musicManager == null) {
+            currentTrack = null;
+        } else {
+            currentTrack = musicManager.player.getPlayingTrack();
+        }
+        if (currentTrack == null && (musicManager == null || !musicManager.scheduler.hasQueuedTracks())) {
             eb.setTitle(locale.getString("MUSIC_PLAYLIST_EMPTY"));
             eb.setDescription(locale.getString("MUSIC_HELP_ADD_MUSIC"));
-            textChannel.sendMessageEmbeds(eb.build()).queue();
+            context.reply(eb.build());
             return;
         }
 
-        eb.setTitle(locale.getString("MUSIC_CURRENTLY_PLAYING"));
-        eb.setDescription(" " + currentTrack.getInfo().title);
+        final List<AudioTrack> upcoming = musicManager.scheduler.getUpcoming(10);
+        if (currentTrack == null) {
+            //Queue restored after restart, not yet resumed
+            eb.setTitle(locale.getString("MUSIC_PLAYLIST_RESTORED"));
+        } else {
+            eb.setTitle(locale.getString("MUSIC_CURRENTLY_PLAYING"));
+            eb.setDescription(" " + currentTrack.getInfo().title);
+        }
 
         //Get upcoming songs
         final StringBuilder sb = new StringBuilder();
-        final int songsToPrint = (Math.min(playlist.size(), 10));
-        for (int i = 0; i < songsToPrint; i++) {
-            sb.append(playlist.get(i).getInfo().title);
+        for (final AudioTrack track : upcoming) {
+            sb.append(track.getInfo().title);
             sb.append('\n');
         }
 
         //Check if there is any songs in playlist
-        if (playlist.isEmpty()) {
+        if (upcoming.isEmpty()) {
             sb.append(locale.getString("MUSIC_END_OF_PLAYLIST"));
         }
 
@@ -403,11 +565,7 @@ public class MusicCommand extends ChatCommand {
         final MessageEmbed.Field upcomingSongsField = new MessageEmbed.Field(fieldName, sb.toString(), false);
         eb.addField(upcomingSongsField);
 
-        long playlistLengthMS = 0;
-        for (final AudioTrack t : playlist) {
-            playlistLengthMS += t.getDuration();
-        }
-        final Duration playlistDuration = Duration.ofMillis(playlistLengthMS);
+        final Duration playlistDuration = Duration.ofMillis(musicManager.scheduler.getPlaylistDuration());
         final long hoursRemaining = playlistDuration.toHours();
         final int minutesPart = playlistDuration.toMinutesPart();
         final int secondsPart = playlistDuration.toSecondsPart();
@@ -418,7 +576,7 @@ public class MusicCommand extends ChatCommand {
         eb.addField(playlistLengthField);
 
         //Send the message
-        textChannel.sendMessageEmbeds(eb.build()).queue();
+        context.reply(eb.build());
     }
 
     /**
@@ -428,8 +586,33 @@ public class MusicCommand extends ChatCommand {
      * @param musicManager musicManager to use
      * @param track AudioTrack to play
      */
-    private static boolean play(final Guild guild, final GuildMusicManager musicManager, final AudioTrack track) {
-        //Make sure we are connected
+    private static void play(final Guild guild, final GuildMusicManager musicManager, final AudioTrack track) {
+        connect(guild);
+
+        //Queue the track, starts playback if queue is empty
+        musicManager.scheduler.queue(track);
+    }
+
+    /**
+     * Play all the tracks of a playlist
+     *
+     * @param guild guild to play on
+     * @param musicManager musicManager to use
+     * @param tracks AudioTracks to play
+     */
+    private static void playAll(final Guild guild, final GuildMusicManager musicManager, final List<AudioTrack> tracks) {
+        connect(guild);
+
+        //Queue all tracks at once, starts playback if queue is empty
+        musicManager.scheduler.queueAll(tracks);
+    }
+
+    /**
+     * Make sure we are connected to voice
+     *
+     * @param guild guild to connect on
+     */
+    private static void connect(final Guild guild) {
         final AudioManager audioManager = guild.getAudioManager();
         if (!audioManager.isConnected()) {
             for (final VoiceChannel voiceChannel : audioManager.getGuild().getVoiceChannels()) {
@@ -437,9 +620,6 @@ public class MusicCommand extends ChatCommand {
                 break;
             }
         }
-
-        //Queue the track, starts playback if queue is empty
-        return musicManager.scheduler.queue(track);
     }
 
 }
@@ -0,0 +1,417 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManagers;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures GC pressure, frame jitter, time spent providing frames and underrun
+ * streaks of the audio pipeline. Simulates
+ * guilds playing local audio files concurrently, each polled for a frame every
+ * 20ms like the JDA audio send system does.
+ *
+ * Usage: java -cp LemonadeBot.jar eternal.lemonadebot.music.PlaybackBenchmark
+ * &lt;file or directory&gt; [players] [seconds] [non-allocating] [buffer-ms]
+ *
+ * @author Neutroni
+ */
+final class PlaybackBenchmark {
+
+    private static final int DEFAULT_PLAYERS = 50;
+    private static final int DEFAULT_SECONDS = 60;
+    private static final int WARMUP_SECONDS = 10;
+    private static final int SEND_THREADS = 2;
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    //Frames are only counted after warmup
+    private static volatile boolean measuring;
+
+    private PlaybackBenchmark() {
+    }
+
+    /**
+     * Run the benchmark
+     *
+     * @param args audio file or directory and optional settings
+     * @throws IOException if listing the audio files fails
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if loading a track fails
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length == 0) {
+            System.out.println("Usage: PlaybackBenchmark <file or directory> [players] [seconds] [non-allocating] [buffer-ms]");
+            return;
+        }
+        final List<Path> files = listFiles(Path.of(args[0]));
+        final int playerCount = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_PLAYERS;
+        final int seconds = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_SECONDS;
+        final boolean nonAllocating = (args.length > 3) && Boolean.parseBoolean(args[3]);
+        final int bufferMillis = (args.length > 4) ? Integer.parseInt(args[4]) : (nonAllocating ? 2000 : 5000);
+
+        final AudioPipeline pipeline = new AudioPipeline(nonAllocating, Duration.ofMillis(bufferMillis));
+        final AudioPlayerManager manager = pipeline.createPlayerManager();
+        AudioSourceManagers.registerLocalSource(manager);
+        final List<AudioTrack> tracks = loadTracks(manager, files);
+        if (tracks.isEmpty()) {
+            System.out.println("No playable tracks found");
+            manager.shutdown();
+            return;
+        }
+        System.out.printf("Pipeline: %s, players: %d, tracks: %d, duration: %ds%n", pipeline, playerCount, tracks.size(), seconds);
+
+        final List<SimulatedGuild> guilds = new ArrayList<>(playerCount);
+        final ScheduledExecutorService sender = Executors.newScheduledThreadPool(SEND_THREADS);
+        for (int i = 0; i < playerCount; i++) {
+            final SimulatedGuild guild = new SimulatedGuild(manager.createPlayer(), tracks, i, pipeline, seconds);
+            guilds.add(guild);
+            //Spread the guilds over the frame interval like separate voice connections
+            sender.scheduleAtFixedRate(guild::sendFrame, i * FRAME_NANOS / playerCount, FRAME_NANOS, TimeUnit.NANOSECONDS);
+        }
+
+        System.out.printf("Warming up for %ds%n", WARMUP_SECONDS);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(WARMUP_SECONDS));
+        final Map<Long, Long> allocatedBefore = allocatedBytes();
+        final long collectionsBefore = collectionCount();
+        final long collectionTimeBefore = collectionTime();
+        measuring = true;
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        measuring = false;
+        final long collections = collectionCount() - collectionsBefore;
+        final long collectionTime = collectionTime() - collectionTimeBefore;
+        final long allocated = allocatedSince(allocatedBefore);
+
+        sender.shutdown();
+        sender.awaitTermination(1, TimeUnit.SECONDS);
+        guilds.forEach(SimulatedGuild::destroy);
+        manager.shutdown();
+
+        long frames = 0;
+        long underruns = 0;
+        long streaks = 0;
+        long longestStreak = 0;
+        final long[] deviations = new long[guilds.stream().mapToInt(SimulatedGuild::getDeviationCount).sum()];
+        final long[] provideTimes = new long[guilds.stream().mapToInt(SimulatedGuild::getProvideCount).sum()];
+        int offset = 0;
+        int provideOffset = 0;
+        for (final SimulatedGuild guild : guilds) {
+            frames += guild.getFrames();
+            underruns += guild.getUnderruns();
+            streaks += guild.getUnderrunStreaks();
+            longestStreak = Math.max(longestStreak, guild.getLongestUnderrunStreak());
+            System.arraycopy(guild.getDeviations(), 0, deviations, offset, guild.getDeviationCount());
+            offset += guild.getDeviationCount();
+            System.arraycopy(guild.getProvideTimes(), 0, provideTimes, provideOffset, guild.getProvideCount());
+            provideOffset += guild.getProvideCount();
+        }
+        Arrays.sort(deviations);
+        Arrays.sort(provideTimes);
+
+        System.out.printf("GC: %d collections, %d ms (%.2f ms/s)%n", collections, collectionTime, (double) collectionTime / seconds);
+        System.out.printf("Allocated: %.1f MB (%.2f MB/s, %.0f bytes/frame)%n", allocated / 1048576.0,
+                allocated / 1048576.0 / seconds, (frames > 0) ? (double) allocated / frames : 0.0);
+        System.out.printf("Frames: %d, underruns: %d (%.3f%%)%n", frames, underruns,
+                (frames + underruns > 0) ? 100.0 * underruns / (frames + underruns) : 0.0);
+        System.out.printf("Underrun streaks: %d, average %.1f frames, longest %d frames (%d ms)%n", streaks,
+                (streaks > 0) ? (double) underruns / streaks : 0.0, longestStreak, longestStreak * FRAME_NANOS / 1000000);
+        if (provideTimes.length > 0) {
+            System.out.printf("canProvide time: median %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                    percentile(provideTimes, 0.5), percentile(provideTimes, 0.99), percentile(provideTimes, 0.999),
+                    provideTimes[provideTimes.length - 1] / 1e6);
+        }
+        if (deviations.length > 0) {
+            System.out.printf("Frame jitter: median %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                    percentile(deviations, 0.5), percentile(deviations, 0.99), percentile(deviations, 0.999),
+                    deviations[deviations.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * List audio files to play
+     *
+     * @param path File or directory
+     * @return List of files
+     * @throws IOException if listing directory fails
+     */
+    private static List<Path> listFiles(final Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (final Stream<Path> stream = Files.list(path)) {
+            return stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Load the files as tracks
+     *
+     * @param manager Manager to load with
+     * @param files Files to load
+     * @return List of loaded tracks
+     * @throws InterruptedException if interrupted while loading
+     * @throws ExecutionException if loading fails
+     */
+    private static List<AudioTrack> loadTracks(final AudioPlayerManager manager, final List<Path> files) throws InterruptedException, ExecutionException {
+        final List<AudioTrack> tracks = new ArrayList<>();
+        for (final Path file : files) {
+            manager.loadItem(file.toAbsolutePath().toString(), new AudioLoadResultHandler() {
+                @Override
+                public void trackLoaded(final AudioTrack track) {
+                    tracks.add(track);
+                }
+
+                @Override
+                public void playlistLoaded(final AudioPlaylist playlist) {
+                    tracks.addAll(playlist.getTracks());
+                }
+
+                @Override
+                public void noMatches() {
+                    System.out.printf("Skipping unsupported file: %s%n", file);
+                }
+
+                @Override
+                public void loadFailed(final FriendlyException exception) {
+                    System.out.printf("Skipping file %s: %s%n", file, exception.getMessage());
+                }
+            }).get();
+        }
+        return tracks;
+    }
+
+    /**
+     * Get bytes allocated by each live thread
+     *
+     * @return Map of thread id to allocated bytes
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long[] ids = threads.getAllThreadIds();
+        final long[] bytes = threads.getThreadAllocatedBytes(ids);
+        final Map<Long, Long> allocated = new HashMap<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                allocated.put(ids[i], bytes[i]);
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * Bytes allocated since snapshot, threads that exited in between are not
+     * counted
+     *
+     * @param before Snapshot to compare to
+     * @return allocated bytes
+     */
+    private static long allocatedSince(final Map<Long, Long> before) {
+        long total = 0;
+        for (final Map.Entry<Long, Long> entry : allocatedBytes().entrySet()) {
+            total += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long collectionTime() {
+        long time = 0;
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(gc.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+    /**
+     * Get percentile from sorted nanosecond values
+     *
+     * @param sorted Sorted values
+     * @param fraction Percentile as fraction
+     * @return value in milliseconds
+     */
+    private static double percentile(final long[] sorted, final double fraction) {
+        final int index = (int) Math.min(sorted.length - 1, Math.floor(fraction * sorted.length));
+        return sorted[index] / 1e6;
+    }
+
+    /**
+     * Player polled like a guild connected to voice, loops the tracks
+     */
+    private static class SimulatedGuild extends AudioEventAdapter {
+
+        private final AudioPlayer player;
+        private final AudioPlayerSendHandler sendHandler;
+        private final List<AudioTrack> tracks;
+        //Difference of time between sent frames to frame duration
+        private final long[] deviations;
+        private int deviationCount;
+        //Time spent in canProvide for each poll
+        private final long[] provideTimes;
+        private int provideCount;
+        private long currentStreak;
+        private long underrunStreaks;
+        private long longestStreak;
+        private int nextTrack;
+        private long lastFrame;
+        private long frames;
+        private long underruns;
+
+        /**
+         * Constructor
+         *
+         * @param player Player to poll
+         * @param tracks Tracks to play
+         * @param first Index of the first track to play
+         * @param pipeline Pipeline settings
+         * @param seconds Duration of the measurement
+         */
+        SimulatedGuild(final AudioPlayer player, final List<AudioTrack> tracks, final int first, final AudioPipeline pipeline, final int seconds) {
+            this.player = player;
+            this.sendHandler = new AudioPlayerSendHandler(player, null, pipeline.useDirectBuffers());
+            this.tracks = tracks;
+            this.deviations = new long[(int) (TimeUnit.SECONDS.toNanos(seconds) / FRAME_NANOS) + 1];
+            this.provideTimes = new long[this.deviations.length];
+            this.nextTrack = first;
+            this.player.addListener(this);
+            playNext();
+        }
+
+        /**
+         * Poll the player for a frame
+         */
+        void sendFrame() {
+            final long now = System.nanoTime();
+            final boolean provided = this.sendHandler.canProvide();
+            if (measuring && this.provideCount < this.provideTimes.length) {
+                this.provideTimes[this.provideCount++] = System.nanoTime() - now;
+            }
+            if (!provided) {
+                if (measuring) {
+                    this.underruns++;
+                    this.currentStreak++;
+                }
+                return;
+            }
+            endStreak();
+            this.sendHandler.provide20MsAudio();
+            if (measuring) {
+                this.frames++;
+                if (this.lastFrame != 0 && this.deviationCount < this.deviations.length) {
+                    this.deviations[this.deviationCount++] = Math.abs(now - this.lastFrame - FRAME_NANOS);
+                }
+            }
+            this.lastFrame = now;
+        }
+
+        @Override
+        public void onTrackEnd(final AudioPlayer player, final AudioTrack track, final AudioTrackEndReason endReason) {
+            if (endReason.mayStartNext) {
+                playNext();
+            }
+        }
+
+        private void playNext() {
+            this.player.playTrack(this.tracks.get(this.nextTrack % this.tracks.size()).makeClone());
+            this.nextTrack++;
+        }
+
+        /**
+         * Count the consecutive underruns before this frame as one streak
+         */
+        private void endStreak() {
+            if (this.currentStreak == 0) {
+                return;
+            }
+            this.underrunStreaks++;
+            this.longestStreak = Math.max(this.longestStreak, this.currentStreak);
+            this.currentStreak = 0;
+        }
+
+        void destroy() {
+            this.player.destroy();
+        }
+
+        long getFrames() {
+            return this.frames;
+        }
+
+        long getUnderruns() {
+            return this.underruns;
+        }
+
+        long[] getDeviations() {
+            return this.deviations;
+        }
+
+        int getDeviationCount() {
+            return this.deviationCount;
+        }
+
+        long[] getProvideTimes() {
+            return this.provideTimes;
+        }
+
+        int getProvideCount() {
+            return this.provideCount;
+        }
+
+        long getUnderrunStreaks() {
+            return this.underrunStreaks + ((this.currentStreak > 0) ? 1 : 0);
+        }
+
+        long getLongestUnderrunStreak() {
+            return Math.max(this.longestStreak, this.currentStreak);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Queue of upcoming tracks. Keeps an index from track identifier to the
+ * queued entries so tracks can be removed without scanning the queue and
+ * keeps track of total duration of the queue. Each queued track has a
+ * position that grows through the lifetime of the queue and is used to store
+ * the queue.
+ *
+ * @author Neutroni
+ */
+class Playlist {
+
+    //Duration lavaplayer uses for tracks with unknown length
+    private static final long UNKNOWN_DURATION = Long.MAX_VALUE;
+
+    private final Map<String, Set<Entry>> index = new HashMap<>();
+    private Entry head;
+    private Entry tail;
+    private int size;
+    private long duration;
+    private long nextPosition;
+
+    /**
+     * Add track to the end of the playlist
+     *
+     * @param track Track to add
+     * @return position of the track
+     */
+    synchronized long add(final AudioTrack track) {
+        final long position = this.nextPosition;
+        add(track, position);
+        return position;
+    }
+
+    /**
+     * Add track to the end of the playlist at a known position, used to
+     * restore stored queue
+     *
+     * @param track Track to add
+     * @param position Position of the track, must be after the positions of
+     * queued tracks
+     */
+    synchronized void add(final AudioTrack track, final long position) {
+        final Entry entry = new Entry(track, position);
+        this.nextPosition = Math.max(this.nextPosition, position + 1);
+        if (this.tail == null) {
+            this.head = entry;
+        } else {
+            this.tail.next = entry;
+            entry.previous = this.tail;
+        }
+        this.tail = entry;
+        this.index.computeIfAbsent(track.getIdentifier(), (String t) -> {
+            return new LinkedHashSet<>();
+        }).add(entry);
+        this.size++;
+        this.duration += trackDuration(track);
+    }
+
+    /**
+     * Reserve position for a track that is played without queueing it
+     *
+     * @return position
+     */
+    synchronized long reservePosition() {
+        return this.nextPosition++;
+    }
+
+    /**
+     * Remove the first track of the playlist
+     *
+     * @return Entry or null if playlist is empty
+     */
+    synchronized Entry poll() {
+        final Entry entry = this.head;
+        if (entry == null) {
+            return null;
+        }
+        remove(entry);
+        return entry;
+    }
+
+    /**
+     * Remove all tracks with given identifiers
+     *
+     * @param identifiers Identifiers of the tracks to remove
+     * @return positions of the removed tracks
+     */
+    synchronized List<Long> removeAll(final Collection<String> identifiers) {
+        final List<Long> removed = new ArrayList<>();
+        for (final String identifier : identifiers) {
+            final Set<Entry> entries = this.index.get(identifier);
+            if (entries == null) {
+                continue;
+            }
+            for (final Entry entry : new ArrayList<>(entries)) {
+                remove(entry);
+                removed.add(entry.position);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Get the tracks at the start of the playlist
+     *
+     * @param count Maximum number of tracks to get
+     * @return List of tracks
+     */
+    synchronized List<AudioTrack> peek(final int count) {
+        final List<AudioTrack> tracks = new ArrayList<>(Math.min(count, this.size));
+        for (Entry entry = this.head; entry != null && tracks.size() < count; entry = entry.next) {
+            tracks.add(entry.track);
+        }
+        return tracks;
+    }
+
+    /**
+     * Get the number of tracks in playlist
+     *
+     * @return size
+     */
+    synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Get the combined length of tracks in playlist, tracks with unknown
+     * length are not counted
+     *
+     * @return duration in milliseconds
+     */
+    synchronized long getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Remove all tracks from playlist
+     */
+    synchronized void clear() {
+        this.index.clear();
+        this.head = null;
+        this.tail = null;
+        this.size = 0;
+        this.duration = 0;
+    }
+
+    private void remove(final Entry entry) {
+        if (entry.previous == null) {
+            this.head = entry.next;
+        } else {
+            entry.previous.next = entry.next;
+        }
+        if (entry.next == null) {
+            this.tail = entry.previous;
+        } else {
+            entry.next.previous = entry.previous;
+        }
+        final String identifier = entry.track.getIdentifier();
+        final Set<Entry> entries = this.index.get(identifier);
+        entries.remove(entry);
+        if (entries.isEmpty()) {
+            this.index.remove(identifier);
+        }
+        this.size--;
+        this.duration -= trackDuration(entry.track);
+    }
+
+    private static long trackDuration(final AudioTrack track) {
+        final long trackDuration = track.getDuration();
+        if (trackDuration == UNKNOWN_DURATION) {
+            return 0;
+        }
+        return trackDuration;
+    }
+
+    /**
+     * Node in the playlist, compared by identity
+     */
+    static class Entry {
+
+        private final AudioTrack track;
+        private final long position;
+        private Entry previous;
+        private Entry next;
+
+        Entry(final AudioTrack track, final long position) {
+            this.track = track;
+            this.position = position;
+        }
+
+        /**
+         * Get the track
+         *
+         * @return AudioTrack
+         */
+        AudioTrack getTrack() {
+            return this.track;
+        }
+
+        /**
+         * Get the position of the track in queue
+         *
+         * @return position
+         */
+        long getPosition() {
+            return this.position;
+        }
+    }
+}
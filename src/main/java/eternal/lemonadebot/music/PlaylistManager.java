@@ -0,0 +1,263 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import eternal.lemonadebot.database.DatabaseManager;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Stores music queues so they survive restarts. Tracks are stored in
+ * lavaplayer's own encoding so restoring them does not need to load them
+ * again. First stored track of a guild is the one that was playing.
+ *
+ * @author Neutroni
+ */
+class PlaylistManager {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final DataSource dataSource;
+    private final AudioPlayerManager playerManager;
+
+    /**
+     * Constructor
+     *
+     * @param db Database to store playlists in
+     * @param playerManager AudioPlayerManager to encode tracks with
+     */
+    PlaylistManager(final DatabaseManager db, final AudioPlayerManager playerManager) {
+        this.dataSource = db.getDataSource();
+        this.playerManager = playerManager;
+    }
+
+    /**
+     * Add tracks to the stored queue
+     *
+     * @param guildID ID of the guild
+     * @param tracks Map of position in queue to track
+     * @throws SQLException if database connection fails
+     */
+    void addTracks(final long guildID, final Map<Long, AudioTrack> tracks) throws SQLException {
+        final String query = "INSERT OR REPLACE INTO MusicQueue(guild,position,track) VALUES(?,?,?);";
+        try (final Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (final PreparedStatement ps = connection.prepareStatement(query)) {
+                for (final Map.Entry<Long, AudioTrack> entry : tracks.entrySet()) {
+                    final byte[] encoded = encode(entry.getValue());
+                    if (encoded == null) {
+                        continue;
+                    }
+                    ps.setLong(1, guildID);
+                    ps.setLong(2, entry.getKey());
+                    ps.setBytes(3, encoded);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Remove tracks that are before the given position in queue
+     *
+     * @param guildID ID of the guild
+     * @param position Position of the first track to keep
+     * @throws SQLException if database connection fails
+     */
+    void removeBefore(final long guildID, final long position) throws SQLException {
+        final String query = "DELETE FROM MusicQueue WHERE guild = ? AND position < ?;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, guildID);
+            ps.setLong(2, position);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Remove tracks from stored queue
+     *
+     * @param guildID ID of the guild
+     * @param positions Positions of the tracks to remove
+     * @throws SQLException if database connection fails
+     */
+    void removeTracks(final long guildID, final Collection<Long> positions) throws SQLException {
+        final String query = "DELETE FROM MusicQueue WHERE guild = ? AND position = ?;";
+        try (final Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (final PreparedStatement ps = connection.prepareStatement(query)) {
+                for (final Long position : positions) {
+                    ps.setLong(1, guildID);
+                    ps.setLong(2, position);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Remove the stored queue of a guild
+     *
+     * @param guildID ID of the guild
+     * @throws SQLException if database connection fails
+     */
+    void clear(final long guildID) throws SQLException {
+        final String query = "DELETE FROM MusicQueue WHERE guild = ?;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, guildID);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Store how far the track has been played
+     *
+     * @param guildID ID of the guild
+     * @param position Position of the track in queue
+     * @param progress Playback position of the track in milliseconds
+     * @throws SQLException if database connection fails
+     */
+    void setProgress(final long guildID, final long position, final long progress) throws SQLException {
+        final String query = "UPDATE MusicQueue SET progress = ? WHERE guild = ? AND position = ?;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, progress);
+            ps.setLong(2, guildID);
+            ps.setLong(3, position);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Check if guild has a stored queue
+     *
+     * @param guildID ID of the guild
+     * @return true if guild has tracks stored
+     * @throws SQLException if database connection fails
+     */
+    boolean hasTracks(final long guildID) throws SQLException {
+        final String query = "SELECT 1 FROM MusicQueue WHERE guild = ? LIMIT 1;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, guildID);
+            try (final ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Load the stored queue of a guild, tracks are positioned where their
+     * playback was stopped
+     *
+     * @param guildID ID of the guild
+     * @return Map of position in queue to track, in queue order
+     * @throws SQLException if database connection fails
+     */
+    Map<Long, AudioTrack> getTracks(final long guildID) throws SQLException {
+        final String query = "SELECT position,track,progress FROM MusicQueue WHERE guild = ? ORDER BY position;";
+        final Map<Long, AudioTrack> tracks = new LinkedHashMap<>();
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, guildID);
+            try (final ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    final AudioTrack track = decode(rs.getBytes("track"));
+                    if (track == null) {
+                        continue;
+                    }
+                    final long progress = rs.getLong("progress");
+                    if (progress > 0) {
+                        track.setPosition(progress);
+                    }
+                    tracks.put(rs.getLong("position"), track);
+                }
+            }
+        }
+        return tracks;
+    }
+
+    /**
+     * Encode track to bytes
+     *
+     * @param track Track to encode
+     * @return encoded track, null if track could not be encoded
+     */
+    private byte[] encode(final AudioTrack track) {
+        try {
+            return TrackEncoding.encode(this.playerManager, List.of(track));
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to encode track: {}, error: {}", track.getIdentifier(), ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Decode track from bytes
+     *
+     * @param encoded Encoded track
+     * @return Track, null if track could not be decoded
+     */
+    private AudioTrack decode(final byte[] encoded) {
+        try {
+            final List<AudioTrack> tracks = TrackEncoding.decode(this.playerManager, encoded);
+            if (tracks.isEmpty()) {
+                return null;
+            }
+            return tracks.get(0);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to decode stored track: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import eternal.lemonadebot.config.ConfigManager;
+import eternal.lemonadebot.scheduling.TimerService;
+import java.time.Duration;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Activity;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps the bot presence up to date with the number of guilds playing music.
+ * Presence is shared by all guilds so changes are collected and sent at most
+ * once per update interval, and it is shown in the default locale.
+ *
+ * @author Neutroni
+ */
+class PresenceManager {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final ResourceBundle locale = ResourceBundle.getBundle("Translation", ConfigManager.DEFAULT_LOCALE);
+    private final TimerService timer;
+    private final long intervalMillis;
+    private final Set<Long> playingGuilds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean updatePending = new AtomicBoolean();
+    private volatile JDA jda;
+    private volatile long lastUpdate;
+    //Number of guilds in the last sent presence
+    private int shownCount;
+
+    /**
+     * Constructor
+     *
+     * @param timer TimerService to schedule updates with
+     * @param interval Minimum time between presence updates
+     */
+    PresenceManager(final TimerService timer, final Duration interval) {
+        this.timer = timer;
+        this.intervalMillis = interval.toMillis();
+        this.lastUpdate = System.currentTimeMillis() - this.intervalMillis;
+    }
+
+    /**
+     * Mark guild as playing music
+     *
+     * @param jda JDA to update the presence of
+     * @param guildID ID of the guild
+     */
+    void playbackStarted(final JDA jda, final long guildID) {
+        this.jda = jda;
+        if (this.playingGuilds.add(guildID)) {
+            requestUpdate();
+        }
+    }
+
+    /**
+     * Mark guild as no longer playing music
+     *
+     * @param jda JDA to update the presence of
+     * @param guildID ID of the guild
+     */
+    void playbackStopped(final JDA jda, final long guildID) {
+        this.jda = jda;
+        if (this.playingGuilds.remove(guildID)) {
+            requestUpdate();
+        }
+    }
+
+    /**
+     * Schedule presence update if one is not already waiting
+     */
+    private void requestUpdate() {
+        if (!this.updatePending.compareAndSet(false, true)) {
+            return;
+        }
+        final long wait = this.lastUpdate + this.intervalMillis - System.currentTimeMillis();
+        this.timer.schedule(this::update, Math.max(wait, 0), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send the presence if the number of guilds playing has changed
+     */
+    private synchronized void update() {
+        //Changes after this point schedule a new update
+        this.updatePending.set(false);
+        final int count = this.playingGuilds.size();
+        if (count == this.shownCount) {
+            return;
+        }
+        final Activity activity;
+        if (count == 0) {
+            activity = null;
+        } else if (count == 1) {
+            activity = Activity.listening(this.locale.getString("MUSIC_PRESENCE_ONE_SERVER"));
+        } else {
+            final String template = this.locale.getString("MUSIC_PRESENCE_SERVERS");
+            activity = Activity.listening(String.format(template, count));
+        }
+        try {
+            this.jda.getPresence().setActivity(activity);
+            this.shownCount = count;
+            this.lastUpdate = System.currentTimeMillis();
+        } catch (RuntimeException ex) {
+            LOGGER.error("Failed to update presence: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
+import eternal.lemonadebot.cache.ItemCache;
+import eternal.lemonadebot.database.DatabaseManager;
+import eternal.lemonadebot.database.StorageConfig;
+import eternal.lemonadebot.scheduling.TimerService;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Cache of resolved tracks and search results. Recently used results are kept
+ * in memory and all results are stored in database so they survive restarts,
+ * results expire after configured time. Cached results are stored encoded
+ * and decoded for each use so every request gets its own track instances.
+ * Loads with the same ordering key run one at a time in submission order
+ * whether they are answered from cache or loaded remotely.
+ *
+ * @author Neutroni
+ */
+class TrackCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String SEARCH_PREFIX = "ytsearch:";
+    //Same as the number of item loader threads lavaplayer uses
+    private static final int LOADER_THREADS = 10;
+    private static final long TRIM_INTERVAL_MINUTES = 10;
+
+    private final DataSource dataSource;
+    private final AudioPlayerManager playerManager;
+    private final Map<String, CachedItem> memory;
+    private final long ttlMillis;
+    private final int diskLimit;
+    private final ExecutorService loaders = Executors.newFixedThreadPool(LOADER_THREADS, (Runnable r) -> {
+        final Thread thread = new Thread(r, "TrackCache-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //Ordering key -> loads waiting for the running load of the key, guarded by itself
+    private final Map<Object, ArrayDeque<Runnable>> pendingLoads = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param db Database to use for the disk cache
+     * @param playerManager AudioPlayerManager to load tracks with
+     */
+    TrackCache(final DatabaseManager db, final AudioPlayerManager playerManager) {
+        final StorageConfig config = db.getConfig();
+        this.dataSource = db.getDataSource();
+        this.playerManager = playerManager;
+        this.memory = Collections.synchronizedMap(new ItemCache<>(config.getTrackCacheSize()));
+        this.ttlMillis = config.getTrackCacheTime().toMillis();
+        this.diskLimit = config.getTrackCacheDiskLimit();
+    }
+
+    /**
+     * Load item, uses cached result if one is available, otherwise loads the
+     * item using AudioPlayerManager and caches the result
+     *
+     * @param orderingKey Object to order loads with
+     * @param identifier Identifier of the item to load
+     * @param handler Handler to receive the result
+     */
+    void loadItemOrdered(final Object orderingKey, final String identifier, final AudioLoadResultHandler handler) {
+        final Runnable task = () -> {
+            load(identifier, handler);
+        };
+        synchronized (this.pendingLoads) {
+            final ArrayDeque<Runnable> waiting = this.pendingLoads.get(orderingKey);
+            if (waiting != null) {
+                waiting.add(task);
+                return;
+            }
+            this.pendingLoads.put(orderingKey, new ArrayDeque<>());
+        }
+        runOrdered(orderingKey, task);
+    }
+
+    /**
+     * Start periodically removing expired items and items over the limit from
+     * the database
+     *
+     * @param timer TimerService to schedule the removal with
+     */
+    void start(final TimerService timer) {
+        timer.schedule(() -> {
+            try {
+                trim();
+            } finally {
+                start(timer);
+            }
+        }, TRIM_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stop loading items, loads already running are completed
+     */
+    void close() {
+        this.loaders.shutdown();
+    }
+
+    /**
+     * Run load on the loader threads and start the next load of the same key
+     * once it completes
+     *
+     * @param orderingKey Key the load is ordered by
+     * @param task Load to run
+     */
+    private void runOrdered(final Object orderingKey, final Runnable task) {
+        try {
+            this.loaders.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    final Runnable next;
+                    synchronized (this.pendingLoads) {
+                        next = this.pendingLoads.get(orderingKey).poll();
+                        if (next == null) {
+                            this.pendingLoads.remove(orderingKey);
+                        }
+                    }
+                    //Resubmit so guilds with many loads take turns with others
+                    if (next != null) {
+                        runOrdered(orderingKey, next);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            LOGGER.warn("Track cache closed, dropped load");
+            synchronized (this.pendingLoads) {
+                this.pendingLoads.remove(orderingKey);
+            }
+        }
+    }
+
+    /**
+     * Load item and wait for the result to be delivered
+     *
+     * @param identifier Identifier of the item to load
+     * @param handler Handler to receive the result
+     */
+    private void load(final String identifier, final AudioLoadResultHandler handler) {
+        final String key = cacheKey(identifier);
+        final CachedItem cached = getCached(key);
+        if (cached != null) {
+            try {
+                final List<AudioTrack> tracks = TrackEncoding.decode(this.playerManager, cached.tracks);
+                if (!tracks.isEmpty()) {
+                    LOGGER.debug("Loaded {} tracks from cache for: {}", tracks.size(), identifier);
+                    cached.deliver(tracks, handler);
+                    return;
+                }
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to decode cached tracks for: {}, error: {}", identifier, ex.getMessage());
+                LOGGER.trace("Stack trace: ", ex);
+                this.memory.remove(key);
+            }
+        }
+        try {
+            //Wait so that later loads of the same key are delivered after this one
+            this.playerManager.loadItem(identifier, new CachingHandler(key, handler)).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            LOGGER.error("Failed to load item: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+    }
+
+    /**
+     * Get cached item from memory or database
+     *
+     * @param key Key of the item
+     * @return CachedItem or null if not cached
+     */
+    private CachedItem getCached(final String key) {
+        final long now = System.currentTimeMillis();
+        final CachedItem inMemory = this.memory.get(key);
+        if (inMemory != null) {
+            if (inMemory.expires > now) {
+                return inMemory;
+            }
+            this.memory.remove(key);
+        }
+        final String query = "SELECT name,selected,search,tracks,expires FROM TrackCache WHERE identifier = ? AND expires > ?;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setString(1, key);
+            ps.setLong(2, now);
+            try (final ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    final CachedItem item = new CachedItem(rs.getString("name"), rs.getInt("selected"),
+                            rs.getBoolean("search"), rs.getBytes("tracks"), rs.getLong("expires"));
+                    this.memory.put(key, item);
+                    return item;
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to load cached tracks: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Store loaded tracks to cache
+     *
+     * @param key Key of the item
+     * @param name Name of the playlist, null for single track
+     * @param selected Index of the selected track in playlist, -1 if none
+     * @param search true if tracks are search results
+     * @param tracks Tracks to cache
+     */
+    private void store(final String key, final String name, final int selected, final boolean search, final List<AudioTrack> tracks) {
+        final byte[] encoded;
+        try {
+            encoded = TrackEncoding.encode(this.playerManager, tracks);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to encode tracks for cache: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+            return;
+        }
+        final long expires = System.currentTimeMillis() + this.ttlMillis;
+        this.memory.put(key, new CachedItem(name, selected, search, encoded, expires));
+
+        final String query = "INSERT OR REPLACE INTO TrackCache(identifier,name,selected,search,tracks,expires) VALUES(?,?,?,?,?,?);";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setString(1, key);
+            ps.setString(2, name);
+            ps.setInt(3, selected);
+            ps.setBoolean(4, search);
+            ps.setBytes(5, encoded);
+            ps.setLong(6, expires);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to store tracks to cache: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+    }
+
+    /**
+     * Remove expired items and the items that expire soonest when over the
+     * disk limit
+     */
+    private void trim() {
+        final String cleanup = "DELETE FROM TrackCache WHERE expires <= ? OR identifier IN "
+                + "(SELECT identifier FROM TrackCache ORDER BY expires DESC LIMIT -1 OFFSET ?);";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(cleanup)) {
+            ps.setLong(1, System.currentTimeMillis());
+            ps.setInt(2, this.diskLimit);
+            final int removed = ps.executeUpdate();
+            LOGGER.debug("Removed {} items from track cache", removed);
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to trim track cache: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
+    }
+
+    /**
+     * Get the key to cache item with, search queries that differ only by case
+     * or spacing share the key
+     *
+     * @param identifier Identifier of the item
+     * @return key
+     */
+    private static String cacheKey(final String identifier) {
+        if (!identifier.startsWith(SEARCH_PREFIX)) {
+            return identifier;
+        }
+        final String query = identifier.substring(SEARCH_PREFIX.length());
+        return SEARCH_PREFIX + query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Handler that caches results before passing them on
+     */
+    private class CachingHandler implements AudioLoadResultHandler {
+
+        private final String key;
+        private final AudioLoadResultHandler handler;
+
+        CachingHandler(final String key, final AudioLoadResultHandler handler) {
+            this.key = key;
+            this.handler = handler;
+        }
+
+        @Override
+        public void trackLoaded(final AudioTrack track) {
+            store(this.key, null, -1, false, List.of(track));
+            this.handler.trackLoaded(track);
+        }
+
+        @Override
+        public void playlistLoaded(final AudioPlaylist playlist) {
+            final List<AudioTrack> tracks = playlist.getTracks();
+            if (!tracks.isEmpty()) {
+                final int selected = tracks.indexOf(playlist.getSelectedTrack());
+                //Playlists are told apart from single tracks by having a name
+                final String name = Objects.requireNonNullElse(playlist.getName(), "");
+                store(this.key, name, selected, playlist.isSearchResult(), tracks);
+            }
+            this.handler.playlistLoaded(playlist);
+        }
+
+        @Override
+        public void noMatches() {
+            this.handler.noMatches();
+        }
+
+        @Override
+        public void loadFailed(final FriendlyException exception) {
+            this.handler.loadFailed(exception);
+        }
+    }
+
+    /**
+     * Result stored in cache
+     */
+    private static class CachedItem {
+
+        private final String name;
+        private final int selected;
+        private final boolean search;
+        private final byte[] tracks;
+        private final long expires;
+
+        CachedItem(final String name, final int selected, final boolean search, final byte[] tracks, final long expires) {
+            this.name = name;
+            this.selected = selected;
+            this.search = search;
+            this.tracks = tracks;
+            this.expires = expires;
+        }
+
+        /**
+         * Pass the decoded tracks to handler the same way loading them would
+         *
+         * @param decoded Tracks decoded from this item
+         * @param handler Handler to pass tracks to
+         */
+        void deliver(final List<AudioTrack> decoded, final AudioLoadResultHandler handler) {
+            if (this.name == null) {
+                handler.trackLoaded(decoded.get(0));
+                return;
+            }
+            final AudioTrack selectedTrack;
+            if (this.selected >= 0 && this.selected < decoded.size()) {
+                selectedTrack = decoded.get(this.selected);
+            } else {
+                selectedTrack = null;
+            }
+            handler.playlistLoaded(new BasicAudioPlaylist(this.name, decoded, selectedTrack, this.search));
+        }
+    }
+}
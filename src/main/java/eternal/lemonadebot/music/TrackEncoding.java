@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageInput;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageOutput;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.DecodedTrackHolder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Converts tracks to lavaplayer's compact encoding and back, decoded tracks
+ * can be played without loading them again.
+ *
+ * @author Neutroni
+ */
+final class TrackEncoding {
+
+    private TrackEncoding() {
+        //Only static methods
+    }
+
+    /**
+     * Encode tracks to bytes
+     *
+     * @param playerManager AudioPlayerManager to encode with
+     * @param tracks Tracks to encode
+     * @return encoded tracks
+     * @throws IOException if track could not be encoded
+     */
+    static byte[] encode(final AudioPlayerManager playerManager, final Collection<AudioTrack> tracks) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final MessageOutput messages = new MessageOutput(output);
+        for (final AudioTrack track : tracks) {
+            playerManager.encodeTrack(messages, track);
+        }
+        messages.finish();
+        return output.toByteArray();
+    }
+
+    /**
+     * Decode tracks from bytes, each call returns new track instances
+     *
+     * @param playerManager AudioPlayerManager to decode with
+     * @param encoded Encoded tracks
+     * @return List of tracks
+     * @throws IOException if data could not be decoded
+     */
+    static List<AudioTrack> decode(final AudioPlayerManager playerManager, final byte[] encoded) throws IOException {
+        final MessageInput messages = new MessageInput(new ByteArrayInputStream(encoded));
+        final List<AudioTrack> tracks = new ArrayList<>();
+        DecodedTrackHolder holder = playerManager.decodeTrack(messages);
+        while (holder != null) {
+            if (holder.decodedTrack != null) {
+                tracks.add(holder.decodedTrack);
+            }
+            holder = playerManager.decodeTrack(messages);
+        }
+        return tracks;
+    }
+}
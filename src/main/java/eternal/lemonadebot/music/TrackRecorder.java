@@ -0,0 +1,312 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.music;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Records frames sent to voice into the audio cache. Recording is kept only if
+ * the whole track was played without gaps, skipped and seeked tracks are
+ * discarded. Frames are copied to a bounded buffer on the send thread and
+ * written to disk on the writer thread of the cache, recording is abandoned if
+ * the writer falls behind by more than the buffer holds.
+ *
+ * @author Neutroni
+ */
+class TrackRecorder extends AudioEventAdapter {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int FRAME_DURATION = 20;
+    //About four seconds of audio at the bitrate Discord uses
+    private static final int BUFFER_SIZE = 64 * 1024;
+    //Amount of buffered data that wakes up the writer
+    private static final int FLUSH_THRESHOLD = BUFFER_SIZE / 4;
+
+    private final AudioDiskCache cache;
+    //Ring buffer of frames stored as [short length][bytes], guarded by this
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long writePosition;
+    private long readPosition;
+    private boolean flushPending;
+    private Recording recording;
+    private long nextTimecode;
+    //Only used by the writer thread
+    private final byte[] writeBuffer = new byte[BUFFER_SIZE];
+
+    /**
+     * Constructor
+     *
+     * @param cache Cache to record to
+     */
+    TrackRecorder(final AudioDiskCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Called when a track playback starts
+     *
+     * @param player player that started
+     * @param track track that was started
+     */
+    @Override
+    public synchronized void onTrackStart(final AudioPlayer player, final AudioTrack track) {
+        discard();
+        if (!this.cache.shouldRecord(track)) {
+            return;
+        }
+        final Recording started = new Recording(track);
+        this.recording = started;
+        this.nextTimecode = -1;
+        this.cache.execute(started::open);
+    }
+
+    /**
+     * Called when track ends, stores the recording if track played to the end
+     *
+     * @param player player
+     * @param track track that ended
+     * @param endReason why end
+     */
+    @Override
+    public synchronized void onTrackEnd(final AudioPlayer player, final AudioTrack track, final AudioTrackEndReason endReason) {
+        final Recording finished = this.recording;
+        if (finished == null || finished.track != track || endReason != AudioTrackEndReason.FINISHED) {
+            discard();
+            return;
+        }
+        final byte[] remaining = new byte[(int) (this.writePosition - this.readPosition)];
+        takeBuffered(remaining);
+        this.recording = null;
+        this.flushPending = false;
+        this.cache.execute(() -> {
+            finished.write(remaining, remaining.length);
+            finished.commit();
+        });
+    }
+
+    /**
+     * Record frame sent to voice
+     *
+     * @param data View of the frame buffer, position and limit are overwritten
+     * @param length Length of the frame
+     * @param timecode Position of the frame in the track
+     */
+    synchronized void record(final ByteBuffer data, final int length, final long timecode) {
+        final Recording current = this.recording;
+        if (current == null) {
+            return;
+        }
+        //Seek or dropped frames, recording would not match the track
+        final boolean expected = (this.nextTimecode < 0) ? timecode <= FRAME_DURATION : timecode == this.nextTimecode;
+        if (!expected) {
+            discard();
+            return;
+        }
+        final long buffered = this.writePosition - this.readPosition;
+        if (buffered + 2 + length > BUFFER_SIZE) {
+            LOGGER.debug("Audio cache writer fell behind, stopped recording track: {}", current.track.getIdentifier());
+            discard();
+            return;
+        }
+        put((byte) (length >>> 8));
+        put((byte) length);
+        //View is owned by the send handler, moving its position does not affect the sent frame
+        data.clear();
+        final int index = (int) (this.writePosition % BUFFER_SIZE);
+        final int firstPart = Math.min(length, BUFFER_SIZE - index);
+        data.get(this.buffer, index, firstPart);
+        data.get(this.buffer, 0, length - firstPart);
+        this.writePosition += length;
+        this.nextTimecode = timecode + FRAME_DURATION;
+
+        if (!this.flushPending && buffered + 2 + length >= FLUSH_THRESHOLD) {
+            this.flushPending = true;
+            this.cache.execute(() -> flush(current));
+        }
+    }
+
+    /**
+     * Write buffered frames of recording to disk, runs on the writer thread
+     *
+     * @param target Recording the flush was requested for
+     */
+    private void flush(final Recording target) {
+        final int length;
+        synchronized (this) {
+            //Recording was discarded or finished since the flush was requested
+            if (this.recording != target) {
+                return;
+            }
+            this.flushPending = false;
+            length = (int) (this.writePosition - this.readPosition);
+            takeBuffered(this.writeBuffer);
+        }
+        if (!target.write(this.writeBuffer, length)) {
+            synchronized (this) {
+                if (this.recording == target) {
+                    discard();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy all buffered data out of the ring buffer
+     *
+     * @param destination Array to copy to, must fit the buffered data
+     */
+    private void takeBuffered(final byte[] destination) {
+        final int length = (int) (this.writePosition - this.readPosition);
+        final int index = (int) (this.readPosition % BUFFER_SIZE);
+        final int firstPart = Math.min(length, BUFFER_SIZE - index);
+        System.arraycopy(this.buffer, index, destination, 0, firstPart);
+        System.arraycopy(this.buffer, 0, destination, firstPart, length - firstPart);
+        this.readPosition = this.writePosition;
+    }
+
+    /**
+     * Add byte to the ring buffer
+     *
+     * @param value byte to add
+     */
+    private void put(final byte value) {
+        this.buffer[(int) (this.writePosition % BUFFER_SIZE)] = value;
+        this.writePosition++;
+    }
+
+    /**
+     * Stop recording and remove the recorded file
+     */
+    private void discard() {
+        final Recording discarded = this.recording;
+        this.recording = null;
+        this.readPosition = this.writePosition;
+        this.flushPending = false;
+        if (discarded != null) {
+            this.cache.execute(discarded::delete);
+        }
+    }
+
+    /**
+     * File a single track is recorded to, only used from the writer thread
+     */
+    private class Recording {
+
+        private final AudioTrack track;
+        private Path file;
+        private OutputStream output;
+
+        Recording(final AudioTrack track) {
+            this.track = track;
+        }
+
+        /**
+         * Create the file to record to
+         */
+        void open() {
+            try {
+                this.file = cache.createRecording();
+                this.output = new BufferedOutputStream(Files.newOutputStream(this.file));
+            } catch (IOException ex) {
+                LOGGER.error("Failed to start recording track: {}", ex.getMessage());
+                LOGGER.trace("Stack trace: ", ex);
+                delete();
+            }
+        }
+
+        /**
+         * Append frames to the file
+         *
+         * @param data Frames to write
+         * @param length Number of bytes to write
+         * @return true if write succeeded
+         */
+        boolean write(final byte[] data, final int length) {
+            if (this.output == null) {
+                return false;
+            }
+            try {
+                this.output.write(data, 0, length);
+                return true;
+            } catch (IOException ex) {
+                LOGGER.error("Failed to record track: {}", ex.getMessage());
+                LOGGER.trace("Stack trace: ", ex);
+                delete();
+                return false;
+            }
+        }
+
+        /**
+         * Store the finished recording in the cache
+         */
+        void commit() {
+            if (this.output == null) {
+                return;
+            }
+            try {
+                this.output.close();
+                this.output = null;
+                cache.commit(this.track.getIdentifier(), this.file);
+                this.file = null;
+            } catch (IOException ex) {
+                LOGGER.error("Failed to store recorded track: {}", ex.getMessage());
+                LOGGER.trace("Stack trace: ", ex);
+            }
+            delete();
+        }
+
+        /**
+         * Close and remove the file
+         */
+        void delete() {
+            if (this.output != null) {
+                try {
+                    this.output.close();
+                } catch (IOException ex) {
+                    LOGGER.warn("Failed to close recording: {}", ex.getMessage());
+                }
+                this.output = null;
+            }
+            if (this.file != null) {
+                try {
+                    Files.deleteIfExists(this.file);
+                } catch (IOException ex) {
+                    LOGGER.warn("Failed to delete recording: {}", ex.getMessage());
+                }
+                this.file = null;
+            }
+        }
+    }
+}
@@ -7,11 +7,15 @@ import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
-import java.util.ArrayList;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import net.dv8tion.jda.api.entities.Activity;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import net.dv8tion.jda.api.managers.AudioManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -23,18 +27,90 @@ import org.apache.logging.log4j.Logger;
 class TrackScheduler extends AudioEventAdapter {
     private static final Logger LOGGER = LogManager.getLogger();
 
+    /**
+     * Change to the stored queue
+     */
+    @FunctionalInterface
+    private interface QueueWrite {
+
+        /**
+         * Store the change
+         *
+         * @throws SQLException if database connection failed
+         */
+        void store() throws SQLException;
+    }
+
     private final AudioPlayer player;
     private final AudioManager manager;
-    private final BlockingQueue<AudioTrack> queue;
+    private final Playlist queue;
+    private final PlaylistManager playlists;
+    private final AudioDiskCache audioCache;
+    private final PresenceManager presence;
+    private final Executor writer;
+    private final long guildID;
+    //Position of the playing track in the stored queue, -1 if nothing is playing
+    private volatile long currentPosition = -1;
 
     /**
      * @param player The audio player this scheduler uses
      * @param manager Manager to stop at the end of playlist
+     * @param playlists PlaylistManager to store the queue with
+     * @param audioCache Cache to play the tracks from if cached
+     * @param presence PresenceManager to report playback to
+     * @param writer Executor to store queue changes with, must run tasks in
+     * the order they are submitted
      */
-    TrackScheduler(final AudioPlayer player, final AudioManager manager) {
+    TrackScheduler(final AudioPlayer player, final AudioManager manager, final PlaylistManager playlists, final AudioDiskCache audioCache, final PresenceManager presence, final Executor writer) {
         this.player = player;
         this.manager = manager;
-        this.queue = new LinkedBlockingQueue<>();
+        this.queue = new Playlist();
+        this.playlists = playlists;
+        this.audioCache = audioCache;
+        this.presence = presence;
+        this.writer = writer;
+        this.guildID = manager.getGuild().getIdLong();
+    }
+
+    /**
+     * Store change to the queue in the background so the database is not
+     * accessed while holding the lock, changes submitted while holding the
+     * lock are stored in the order they were made
+     *
+     * @param write Change to store
+     */
+    private void store(final QueueWrite write) {
+        try {
+            this.writer.execute(() -> {
+                try {
+                    write.store();
+                } catch (SQLException ex) {
+                    LOGGER.error("Failed to store music queue: {}", ex.getMessage());
+                    LOGGER.trace("Stack trace: ", ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            LOGGER.warn("Music queue change for guild: {} not stored, shutting down", this.guildID);
+        }
+    }
+
+    /**
+     * Load the queue stored before restart, playback is not started until
+     * next track is requested
+     */
+    void restore() {
+        try {
+            final Map<Long, AudioTrack> tracks = this.playlists.getTracks(this.guildID);
+            tracks.forEach((Long position, AudioTrack track) -> {
+                this.queue.add(track, position);
+            });
+            if (!tracks.isEmpty()) {
+                LOGGER.debug("Restored {} tracks to music queue of guild: {}", tracks.size(), this.guildID);
+            }
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to restore music queue: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
     }
 
     /**
@@ -43,16 +119,28 @@ class TrackScheduler extends AudioEventAdapter {
      *
      * @param track The track to play or add to queue.
      */
-    public boolean queue(final AudioTrack track) {
-        // Calling startTrack with the noInterrupt set to true will start the track only if nothing is currently playing. If
-        // something is playing, it returns false and does nothing. In that case the player was already playing so this
-        // track goes to the queue instead.
-        if (!this.player.startTrack(track, true)) {
-            //Return if track can be queued
-            return this.queue.offer(track);
+    public void queue(final AudioTrack track) {
+        queueAll(List.of(track));
+    }
+
+    /**
+     * Add tracks to queue, starts playback if nothing is playing
+     *
+     * @param tracks Tracks to add
+     */
+    synchronized void queueAll(final List<AudioTrack> tracks) {
+        final Map<Long, AudioTrack> added = new LinkedHashMap<>(tracks.size());
+        for (final AudioTrack track : tracks) {
+            added.put(this.queue.add(track), track);
+        }
+        store(() -> {
+            this.playlists.addTracks(this.guildID, added);
+        });
+
+        //Start playback if player is not playing, restored queue is played first
+        if (this.player.getPlayingTrack() == null) {
+            nextTrack();
         }
-        //Track playback started successfully
-        return true;
     }
 
     /**
@@ -61,13 +149,33 @@ class TrackScheduler extends AudioEventAdapter {
      *
      * @return true if there is next track to skip to, false if end of playlist.
      */
-    public boolean nextTrack() {
+    public synchronized boolean nextTrack() {
         // Start the next track, regardless of if something is already playing or not. In case queue was empty, we are
         // giving null to startTrack, which is a valid argument and will simply stop the player.
-        final AudioTrack track = this.queue.poll();
+        final Playlist.Entry next = this.queue.poll();
+        final AudioTrack track;
+        if (next == null) {
+            track = null;
+            this.currentPosition = -1;
+        } else {
+            track = this.audioCache.wrap(next.getTrack());
+            this.currentPosition = next.getPosition();
+        }
         this.player.startTrack(track, false);
+
+        //Played tracks are no longer needed in stored queue
+        if (next == null) {
+            store(() -> {
+                this.playlists.clear(this.guildID);
+            });
+        } else {
+            final long position = next.getPosition();
+            store(() -> {
+                this.playlists.removeBefore(this.guildID, position);
+            });
+        }
         if (track == null) {
-            this.manager.getJDA().getPresence().setActivity(null);
+            this.presence.playbackStopped(this.manager.getJDA(), this.guildID);
             this.manager.closeAudioConnection();
         }
         return (track != null);
@@ -81,10 +189,8 @@ class TrackScheduler extends AudioEventAdapter {
      */
     @Override
     public void onTrackStart(final AudioPlayer player, final AudioTrack track) {
-        final Activity status = Activity.listening(track.getInfo().title);
-        this.manager.getJDA().getPresence().setActivity(status);
+        this.presence.playbackStarted(this.manager.getJDA(), this.guildID);
         super.onTrackStart(player, track);
-
     }
 
     /**
@@ -105,9 +211,13 @@ class TrackScheduler extends AudioEventAdapter {
     /**
      * Clear the playlist and disconnect from voice
      */
-    void clearPlaylist() {
+    synchronized void clearPlaylist() {
         this.queue.clear();
-        this.manager.getJDA().getPresence().setActivity(null);
+        this.currentPosition = -1;
+        store(() -> {
+            this.playlists.clear(this.guildID);
+        });
+        this.presence.playbackStopped(this.manager.getJDA(), this.guildID);
         this.manager.closeAudioConnection();
     }
 
@@ -118,15 +228,75 @@ class TrackScheduler extends AudioEventAdapter {
      * @return true if removed
      */
     boolean skipTrack(final AudioTrack track) {
-        return this.queue.removeIf(t -> t.getIdentifier().equals(track.getIdentifier()));
+        return skipTracks(List.of(track)) > 0;
+    }
+
+    /**
+     * Remove tracks from song queue
+     *
+     * @param tracks Tracks to remove
+     * @return number of tracks removed
+     */
+    int skipTracks(final Collection<AudioTrack> tracks) {
+        final Set<String> identifiers = new HashSet<>(tracks.size());
+        for (final AudioTrack track : tracks) {
+            identifiers.add(track.getIdentifier());
+        }
+        final List<Long> removed = this.queue.removeAll(identifiers);
+        if (!removed.isEmpty()) {
+            try {
+                this.playlists.removeTracks(this.guildID, removed);
+            } catch (SQLException ex) {
+                LOGGER.error("Failed to store music queue: {}", ex.getMessage());
+                LOGGER.trace("Stack trace: ", ex);
+            }
+        }
+        return removed.size();
+    }
+
+    /**
+     * Get the upcoming tracks
+     *
+     * @param count Maximum number of tracks to get
+     * @return List of AudioTracks
+     */
+    List<AudioTrack> getUpcoming(final int count) {
+        return this.queue.peek(count);
+    }
+
+    /**
+     * Check if there are tracks waiting in queue
+     *
+     * @return true if queue has tracks
+     */
+    boolean hasQueuedTracks() {
+        return this.queue.size() > 0;
+    }
+
+    /**
+     * Store how far the playing track has played so playback can continue
+     * from there after restart
+     */
+    void saveProgress() {
+        final AudioTrack track = this.player.getPlayingTrack();
+        final long position = this.currentPosition;
+        if (track == null || position < 0) {
+            return;
+        }
+        try {
+            this.playlists.setProgress(this.guildID, position, track.getPosition());
+        } catch (SQLException ex) {
+            LOGGER.error("Failed to store music track progress: {}", ex.getMessage());
+            LOGGER.trace("Stack trace: ", ex);
+        }
     }
 
     /**
-     * Get the current playlist
+     * Get the length of the queue
      *
-     * @return Collection of AudioTracks
+     * @return duration in milliseconds
      */
-    List<AudioTrack> getPlaylist() {
-        return new ArrayList<>(this.queue);
+    long getPlaylistDuration() {
+        return this.queue.getDuration();
     }
 }
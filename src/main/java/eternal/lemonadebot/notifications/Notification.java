@@ -28,20 +28,19 @@ import eternal.lemonadebot.customcommands.CustomCommand;
 import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import eternal.lemonadebot.messageparsing.SimpleMessageMatcher;
+import eternal.lemonadebot.outbox.MessagePriority;
+import eternal.lemonadebot.scheduling.ScheduledTimer;
+import eternal.lemonadebot.scheduling.TimerService;
 import eternal.lemonadebot.translation.TranslationCache;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.TextChannel;
-import net.dv8tion.jda.api.entities.User;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -58,7 +57,7 @@ class Notification extends CustomCommand implements Runnable {
     private final long channelID;
     private final NotificationManager notificationManager;
     private final StorageManager storage;
-    private volatile ScheduledFuture<?> future;
+    private volatile ScheduledTimer timer;
     private final Instant activationTime;
 
     /**
@@ -81,7 +80,7 @@ class Notification extends CustomCommand implements Runnable {
         this.notificationManager = nm;
         this.channelID = channelID;
         this.activationTime = activationTime;
-        this.future = null;
+        this.timer = null;
     }
 
     /**
@@ -90,16 +89,26 @@ class Notification extends CustomCommand implements Runnable {
     @Override
     public void run() {
         LOGGER.debug("Notification started: {}", getName());
-        //Make sure JDA is loaded
-        try {
-            //This might delay activation if connecting takes extremely long
-            this.jda.awaitReady();
-        } catch (InterruptedException e) {
-            LOGGER.error("JDA loading interrupted while trying to run a notification: {}", e.getMessage());
-            LOGGER.trace("Stack trace: ", e);
+        if (!this.notificationManager.notificationActivated(this)) {
+            LOGGER.debug("Notification {} was removed before activating", getName());
             return;
         }
+        activate();
+    }
+
+    /**
+     * Send the notification message, used both by the timer and to replay
+     * notifications missed while offline
+     */
+    void activate() {
+        //Wait for gateway without blocking the timer thread
+        this.storage.getReadinessGate().submit(this::sendNotification);
+    }
 
+    /**
+     * Send the notification message, JDA must be connected
+     */
+    private void sendNotification() {
         //Check notification channel can be found
         final TextChannel channel = this.jda.getTextChannelById(this.channelID);
         if (channel == null) {
@@ -112,7 +121,7 @@ class Notification extends CustomCommand implements Runnable {
         channel.getGuild().retrieveMemberById(getAuthor()).queue((Member member) -> {
             //Success
             final CommandMatcher matcher = new SimpleMessageMatcher(member, channel);
-            final CommandContext context = new CommandContext(matcher, this.storage);
+            final CommandContext context = new CommandContext(matcher, this.storage, MessagePriority.SCHEDULED);
             run(context, true);
             LOGGER.debug("Notification: {} successfully activated on channel: {}", getName(), channel.getName());
         }, (Throwable t) -> {
@@ -154,8 +163,15 @@ class Notification extends CustomCommand implements Runnable {
         return this.activationTime;
     }
 
-    CompletableFuture<String> toListElement(final TranslationCache translation) {
-        final CompletableFuture<String> result = new CompletableFuture<>();
+    /**
+     * Get string representation of the notification for listing
+     * notifications
+     *
+     * @param translation Translation to return the list element in
+     * @param notificationOwner Owner of the notification, null if not found
+     * @return String
+     */
+    String toListElement(final TranslationCache translation, final Member notificationOwner) {
         final ResourceBundle locale = translation.getResourceBundle();
 
         //Get the channel for notifications
@@ -163,41 +179,37 @@ class Notification extends CustomCommand implements Runnable {
         if (channel == null) {
             deleteDueToMissingChannel();
             final String response = locale.getString("NOTIFICATION_CHANNEL_MISSING");
-            result.complete(String.format(response, getName()));
-            return result;
+            return String.format(response, getName());
+        }
+
+        //Notification owner missing
+        if (notificationOwner == null) {
+            deleteDueToMissingOwner();
+            final String response = locale.getString("NOTIFICATION_USER_MISSING");
+            return String.format(response, getName());
         }
 
         final DateTimeFormatter timeFormatter = translation.getTimeFormatter();
         final String timeString = timeFormatter.format(this.activationTime);
         final String channelName = channel.getAsMention();
         final String template = locale.getString("NOTIFICATION_LIST_ELEMENT_TEMPLATE");
-        this.jda.retrieveUserById(getAuthor()).queue((User notificationOwner) -> {
-            //Found notifications owner
-            final String ownerName = notificationOwner.getAsMention();
-            final String response = String.format(template, getName(), getTemplate(), timeString, channelName, ownerName);
-            result.complete(response);
-        }, (Throwable t) -> {
-            //Notification owner missing
-            deleteDueToMissingOwner();
-            final String response = locale.getString("NOTIFICATION_USER_MISSING");
-            result.complete(String.format(response, getName()));
-        });
-        return result;
+        final String ownerName = notificationOwner.getAsMention();
+        return String.format(template, getName(), getTemplate(), timeString, channelName, ownerName);
     }
 
     /**
-     * Schedule this notification with the provided ExecutorService
+     * Schedule this notification with the provided TimerService
      *
-     * @param notificationTimer ScheduledExecutorService
+     * @param notificationTimer TimerService
      */
-    boolean scheduleWith(final ScheduledExecutorService notificationTimer) {
+    boolean scheduleWith(final TimerService notificationTimer) {
         final Duration duration = Duration.between(Instant.now(), this.activationTime);
         //Check that the time is in the future
         if (duration.isNegative()) {
             return false;
         }
         final long millisecondsToActivation = duration.toMillis();
-        this.future = notificationTimer.schedule(this, millisecondsToActivation, TimeUnit.MILLISECONDS);
+        this.timer = notificationTimer.schedule(this, millisecondsToActivation, TimeUnit.MILLISECONDS);
         return true;
     }
 
@@ -205,8 +217,9 @@ class Notification extends CustomCommand implements Runnable {
      * Cancel the task, task will finnish if it is already running
      */
     void cancel() {
-        if (this.future != null) {
-            this.future.cancel(false);
+        final ScheduledTimer scheduledTimer = this.timer;
+        if (scheduledTimer != null) {
+            scheduledTimer.cancel();
         }
     }
 
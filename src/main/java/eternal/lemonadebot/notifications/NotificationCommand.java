@@ -25,25 +25,30 @@ package eternal.lemonadebot.notifications;
 
 import eternal.lemonadebot.commands.AdminCommand;
 import eternal.lemonadebot.commands.CommandContext;
+import eternal.lemonadebot.commands.ListPaginator;
 import eternal.lemonadebot.database.DatabaseManager;
 import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import eternal.lemonadebot.permissions.PermissionUtilities;
+import eternal.lemonadebot.scheduling.TimerService;
 import eternal.lemonadebot.translation.ActionKey;
 import eternal.lemonadebot.translation.TranslationCache;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import net.dv8tion.jda.api.EmbedBuilder;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
@@ -63,6 +68,9 @@ public class NotificationCommand extends AdminCommand {
     private final DatabaseManager dataBase;
     private final Map<Long, NotificationManager> managers;
 
+    //Window of notifications loaded for all guilds, guarded by this
+    private long loadedUntil;
+
     /**
      * Constructor
      *
@@ -74,10 +82,17 @@ public class NotificationCommand extends AdminCommand {
     }
 
     @Override
-    public void initialize(final List<Guild> guilds, final StorageManager rs) {
-        guilds.forEach(guild -> {
-            getNotificationManager(guild, rs);
-        });
+    public void initialize(final StorageManager storageManager) {
+        //Guilds load their notifications up to a window from now when initialized
+        synchronized (this) {
+            this.loadedUntil = System.currentTimeMillis();
+        }
+        scheduleWindow(storageManager.getDataSource(), storageManager.getTimerService());
+    }
+
+    @Override
+    public void initializeGuild(final Guild guild, final StorageManager rs) {
+        getNotificationManager(guild, rs);
     }
 
     @Override
@@ -87,6 +102,71 @@ public class NotificationCommand extends AdminCommand {
         });
     }
 
+    /**
+     * Slide the loaded window forward periodically before it runs out
+     *
+     * @param dataSource DataSource to load notifications from
+     * @param timer TimerService to schedule loading with
+     */
+    private void scheduleWindow(final DataSource dataSource, final TimerService timer) {
+        final long reloadDelay = this.dataBase.getConfig().getScheduleWindow().toMillis() / 2;
+        timer.schedule(() -> {
+            try {
+                loadWindow(dataSource);
+            } finally {
+                scheduleWindow(dataSource, timer);
+            }
+        }, reloadDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Load notifications of all guilds activating within the loading window
+     * with one query and pass them to the managers of the guilds
+     *
+     * @param dataSource DataSource to load notifications from
+     */
+    private synchronized void loadWindow(final DataSource dataSource) {
+        final long now = System.currentTimeMillis();
+        final long windowEnd = now + this.dataBase.getConfig().getScheduleWindow().toMillis();
+        final long windowStart = Math.max(this.loadedUntil, now);
+        LOGGER.debug("Loading notifications activating before: {}", windowEnd);
+
+        final String query = "SELECT guild,name,message,author,channel,time FROM Notifications "
+                + "WHERE time >= ? AND time < ? ORDER BY time;";
+        final Map<Long, List<Notification>> windows = new HashMap<>();
+        int loadedCount = 0;
+        try (final Connection connection = dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, windowStart);
+            ps.setLong(2, windowEnd);
+            try (final ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    //Guilds not yet initialized load their own notifications when they are
+                    final long guildID = rs.getLong("guild");
+                    final NotificationManager notificationManager = this.managers.get(guildID);
+                    if (notificationManager == null) {
+                        continue;
+                    }
+                    windows.computeIfAbsent(guildID, (Long t) -> {
+                        return new ArrayList<>();
+                    }).add(notificationManager.readNotification(rs));
+                    loadedCount++;
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Loading notifications from database failed: {}", e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+            return;
+        }
+
+        //Every manager gets the window so their loaded range moves forward
+        for (final Map.Entry<Long, NotificationManager> entry : this.managers.entrySet()) {
+            entry.getValue().windowLoaded(windows.getOrDefault(entry.getKey(), List.of()), windowEnd);
+        }
+        this.loadedUntil = windowEnd;
+        LOGGER.debug("Loaded {} notifications for {} guilds", loadedCount, windows.size());
+    }
+
     /**
      * Get notification manager for a guild
      *
@@ -96,8 +176,9 @@ public class NotificationCommand extends AdminCommand {
      */
     private NotificationManager getNotificationManager(final Guild guild, final StorageManager guildData) {
         return this.managers.computeIfAbsent(guild.getIdLong(), (Long t) -> {
-            final NotificationManager notificationManager = new NotificationManager(this.dataBase.getDataSource(), t);
-            notificationManager.loadNotifications(guild.getJDA(), guildData);
+            final Duration window = this.dataBase.getConfig().getScheduleWindow();
+            final NotificationManager notificationManager = new NotificationManager(guild.getJDA(), guildData, t, window);
+            notificationManager.loadNotifications();
             return notificationManager;
         });
     }
@@ -120,13 +201,12 @@ public class NotificationCommand extends AdminCommand {
     @Override
     public void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
 
         final String[] arguments = matcher.getArguments(2);
         if (arguments.length == 0) {
-            textChannel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -146,7 +226,7 @@ public class NotificationCommand extends AdminCommand {
                 break;
             }
             default: {
-                textChannel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + arguments[0]).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + arguments[0]);
             }
         }
     }
@@ -166,7 +246,7 @@ public class NotificationCommand extends AdminCommand {
 
         //Parse time amount to acticvation
         if (arguments.length < 2) {
-            channel.sendMessage(locale.getString("NOTIFY_MISSING_TIME")).queue();
+            context.replyError(locale.getString("NOTIFY_MISSING_TIME"));
             return;
         }
         final String notificationTime = arguments[1];
@@ -174,19 +254,19 @@ public class NotificationCommand extends AdminCommand {
         try {
             timeAmount = Long.parseUnsignedLong(notificationTime);
         } catch (NumberFormatException e) {
-            channel.sendMessageFormat(locale.getString("NOTIFY_UNKNOWN_TIME"), notificationTime).queue();
+            context.replyError(String.format(locale.getString("NOTIFY_UNKNOWN_TIME"), notificationTime));
             return;
         }
 
         //Parse time unit
         if (arguments.length < 3) {
-            channel.sendMessage(locale.getString("NOTIFY_MISSING_UNIT")).queue();
+            context.replyError(locale.getString("NOTIFY_MISSING_UNIT"));
             return;
         }
         final String notificationUnit = arguments[2];
         final Optional<ChronoUnit> optUnit = translationCache.getChronoUnit(notificationUnit);
         if (optUnit.isEmpty()) {
-            channel.sendMessageFormat(locale.getString("NOTIFY_UNKNOWN_UNIT")).queue();
+            context.replyError(String.format(locale.getString("NOTIFY_UNKNOWN_UNIT")));
             return;
         }
         final ChronoUnit timeUnit = optUnit.get();
@@ -196,7 +276,7 @@ public class NotificationCommand extends AdminCommand {
 
         //Get the notification message
         if (arguments.length < 4) {
-            channel.sendMessage(locale.getString("NOTIFY_MISSING_MESSAGE")).queue();
+            context.replyError(locale.getString("NOTIFY_MISSING_MESSAGE"));
             return;
         }
         final String messageInput = arguments[3];
@@ -213,12 +293,12 @@ public class NotificationCommand extends AdminCommand {
         //Add notification to database
         try {
             if (!notifications.addNotification(notification)) {
-                channel.sendMessage(locale.getString("NOTIFICATION_IN_PAST")).queue();
+                context.replyError(locale.getString("NOTIFICATION_IN_PAST"));
                 return;
             }
-            channel.sendMessageFormat(locale.getString("NOTIFICATION_CREATE_SUCCESS")).queue();
+            context.reply(String.format(locale.getString("NOTIFICATION_CREATE_SUCCESS")));
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("NOTIFICATION_SQL_ERROR_ON_CREATE")).queue();
+            context.replyError(locale.getString("NOTIFICATION_SQL_ERROR_ON_CREATE"));
             LOGGER.error("Failure to create notification: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -231,34 +311,46 @@ public class NotificationCommand extends AdminCommand {
         final ResourceBundle locale = context.getTranslation().getResourceBundle();
 
         if (arguments.length < 2) {
-            textChannel.sendMessage(locale.getString("NOTIFICATION_DELETE_MISSING_NAME")).queue();
+            context.replyError(locale.getString("NOTIFICATION_DELETE_MISSING_NAME"));
             return;
         }
         final StorageManager storage = context.getStorageManager();
         final NotificationManager notifications = getNotificationManager(guild, storage);
 
         final String notificationName = arguments[1];
-        final Optional<Notification> oldNotification = notifications.getNotification(notificationName);
+        final Optional<Notification> oldNotification;
+        try {
+            oldNotification = notifications.getNotification(notificationName);
+        } catch (SQLException e) {
+            context.replyError(locale.getString("NOTIFICATION_SQL_ERROR_ON_FINDING_NOTIFICATION"));
+            LOGGER.error("Failure to find notification: {}", e.getMessage());
+            LOGGER.trace("Stack trace", e);
+            return;
+        }
         if (oldNotification.isEmpty()) {
-            textChannel.sendMessageFormat(locale.getString("NOTIFICATION_NOT_FOUND_NAME"), notificationName).queue();
+            context.replyError(String.format(locale.getString("NOTIFICATION_NOT_FOUND_NAME"), notificationName));
             return;
         }
         final Notification reminder = oldNotification.get();
 
         //Check if user has permission to remove the event
         final Member sender = matcher.getMember();
-        textChannel.getGuild().retrieveMemberById(reminder.getAuthor()).submit().whenComplete((Member reminderOwner, Throwable e) -> {
+        context.getMemberResolver().resolveMember(textChannel.getGuild(), reminder.getAuthor()).whenComplete((Member reminderOwner, Throwable e) -> {
+            if (e != null) {
+                context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+                return;
+            }
             final boolean hasPermission = PermissionUtilities.hasPermission(sender, reminderOwner);
             if (!hasPermission) {
-                textChannel.sendMessage(locale.getString("NOTIFICATION_DELETE_MISSING_PERMISSION")).queue();
+                context.replyError(locale.getString("NOTIFICATION_DELETE_MISSING_PERMISSION"));
                 return;
             }
 
             try {
                 notifications.deleteNotification(reminder);
-                textChannel.sendMessage(locale.getString("NOTIFICATION_DELETE_SUCCESS")).queue();
+                context.reply(locale.getString("NOTIFICATION_DELETE_SUCCESS"));
             } catch (SQLException ex) {
-                textChannel.sendMessage(locale.getString("NOTIFICATION_SQL_ERROR_ON_DELETE")).queue();
+                context.replyError(locale.getString("NOTIFICATION_SQL_ERROR_ON_DELETE"));
                 LOGGER.error("Failure to delete reminder: {}", ex.getMessage());
                 LOGGER.trace("Stack trace", ex);
             }
@@ -270,36 +362,15 @@ public class NotificationCommand extends AdminCommand {
         final ResourceBundle locale = translation.getResourceBundle();
         //Only list notifications of the user
         final CommandMatcher matcher = context.getMatcher();
-        final Guild guild = matcher.getGuild();
-        final Member user = matcher.getMember();
-
-        //Construct the embed
-        final String header = locale.getString("HEADER_NOTIFICATIONS");
-        final EmbedBuilder eb = new EmbedBuilder();
-        eb.setTitle(header);
-
-        //Initialize all the futures
-        final StorageManager storage = context.getStorageManager();
-        final Collection<Notification> ev = getNotificationManager(guild, storage).getNotifications();
-        final List<CompletableFuture<String>> futures = new ArrayList<>(ev.size());
-        ev.forEach((Notification reminder) -> {
-            if (reminder.getAuthor() == user.getIdLong()) {
-                futures.add(reminder.toListElement(translation));
-            }
-        });
-
-        //After all the futures all initialized start waiting for results
-        final StringBuilder contentBuilder = new StringBuilder();
-        futures.forEach(desc -> {
-            contentBuilder.append(desc.join());
-        });
-        if (futures.isEmpty()) {
-            contentBuilder.append(locale.getString("NOTIFICATION_NO_NOTIFICATIONS"));
-        }
-        eb.setDescription(contentBuilder);
-
-        final TextChannel textChannel = matcher.getTextChannel();
-        textChannel.sendMessageEmbeds(eb.build()).queue();
+        final long userID = matcher.getMember().getIdLong();
+        final NotificationManager notifications = getNotificationManager(matcher.getGuild(), context.getStorageManager());
+        final ListPaginator<Notification> paginator = new ListPaginator<>(Notification::getName, Notification::getAuthor,
+                (Notification notification, Member owner) -> {
+                    return notification.toListElement(translation, owner);
+                });
+        paginator.sendPage(context, (String after, int limit) -> {
+            return notifications.getNotifications(userID, after, limit);
+        }, locale.getString("HEADER_NOTIFICATIONS"), "NOTIFICATION_NO_NOTIFICATIONS", "NOTIFICATION_SQL_ERROR_ON_LOADING_NOTIFICATIONS");
     }
 
 }
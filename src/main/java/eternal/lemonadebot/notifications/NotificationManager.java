@@ -24,25 +24,28 @@
 package eternal.lemonadebot.notifications;
 
 import eternal.lemonadebot.database.StorageManager;
+import eternal.lemonadebot.scheduling.CatchUpQueue;
+import eternal.lemonadebot.scheduling.TimerService;
 import java.io.Closeable;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import javax.sql.DataSource;
 import net.dv8tion.jda.api.JDA;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
+ * Stores notifications in the database and keeps the ones activating within
+ * the loading window scheduled in memory
  *
  * @author Neutroni
  */
@@ -51,27 +54,44 @@ public class NotificationManager implements Closeable {
     private static final Logger LOGGER = LogManager.getLogger();
 
     private final DataSource dataSource;
+    private final JDA jda;
+    private final StorageManager storage;
     private final long guildID;
+    private final TimerService notificationTimer;
+    private final CatchUpQueue catchUpQueue;
+    private final Duration loadWindow;
 
+    //Notifications activating before loadedUntil, guarded by this when modifying
     private final Map<String, Notification> notifications = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService notificastionTimer = Executors.newSingleThreadScheduledExecutor();
+
+    //Guarded by this
+    private long loadedUntil = Long.MIN_VALUE;
+    private boolean closed;
 
     /**
      * Constructor
      *
-     * @param ds DataSource to get connection from
+     * @param jda JDA to pass to notifications
+     * @param storage StorageManager to pass to notifications
      * @param guildID ID of the guild to store notifications for
+     * @param window How far ahead notifications are loaded to memory
      */
-    public NotificationManager(final DataSource ds, final long guildID) {
-        this.dataSource = ds;
+    public NotificationManager(final JDA jda, final StorageManager storage, final long guildID, final Duration window) {
+        this.dataSource = storage.getDataSource();
+        this.jda = jda;
+        this.storage = storage;
         this.guildID = guildID;
+        this.notificationTimer = storage.getTimerService();
+        this.catchUpQueue = storage.getCatchUpQueue();
+        this.loadWindow = window;
     }
 
     @Override
-    public void close() {
-        //Cancel all scheduled notifications
+    public synchronized void close() {
+        //Cancel all scheduled notifications, timer is shared so it is not shut down
+        this.closed = true;
         this.notifications.values().forEach(Notification::cancel);
-        this.notificastionTimer.shutdown();
+        this.notifications.clear();
     }
 
     /**
@@ -81,22 +101,12 @@ public class NotificationManager implements Closeable {
      * @return true if event was added
      * @throws SQLException If database connection failed
      */
-    boolean addNotification(final Notification notification) throws SQLException {
+    synchronized boolean addNotification(final Notification notification) throws SQLException {
         //Check that notification is not in the past
         if (notification.getTime().isBefore(Instant.now())) {
             return false;
         }
         LOGGER.debug("Storing notification: {}", notification.getName());
-        final Notification oldNotification = this.notifications.putIfAbsent(notification.getName(), notification);
-
-        //If timer was just added schedule the activation
-        if (oldNotification == null) {
-            boolean scheduled = notification.scheduleWith(this.notificastionTimer);
-            if (!scheduled) {
-                return false;
-            }
-            LOGGER.debug("Notification: {} scheduled with ScheduledExecutorService", notification.getName());
-        }
 
         //Add to database
         final String query = "INSERT OR IGNORE INTO Notifications(guild,name,message,author,channel,time) VALUES(?,?,?,?,?,?);";
@@ -106,6 +116,7 @@ public class NotificationManager implements Closeable {
         final long channelID = notification.getChannel();
         final long activationTime = notification.getTime().toEpochMilli();
 
+        final boolean added;
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, this.guildID);
@@ -114,8 +125,14 @@ public class NotificationManager implements Closeable {
             ps.setLong(4, authorID);
             ps.setLong(5, channelID);
             ps.setLong(6, activationTime);
-            return ps.executeUpdate() > 0;
+            added = ps.executeUpdate() > 0;
+        }
+
+        //Notifications activating after the window get loaded when the window reaches them
+        if (added && activationTime < this.loadedUntil) {
+            scheduleNotification(notification);
         }
+        return added;
     }
 
     /**
@@ -126,7 +143,10 @@ public class NotificationManager implements Closeable {
      */
     boolean deleteNotification(final Notification notification) throws SQLException {
         notification.cancel();
-        this.notifications.remove(notification.getName());
+        final Notification loaded = this.notifications.remove(notification.getName());
+        if (loaded != null) {
+            loaded.cancel();
+        }
 
         //Remove from database
         final String query = "DELETE FROM Notifications Where guild = ? AND name = ?;";
@@ -143,59 +163,197 @@ public class NotificationManager implements Closeable {
      *
      * @param name name of the notification
      * @return Optional containing the notification if found
+     * @throws SQLException if database connection failed
      */
-    Optional<Notification> getNotification(final String name) {
-        return Optional.ofNullable(this.notifications.get(name));
+    Optional<Notification> getNotification(final String name) throws SQLException {
+        final Notification loaded = this.notifications.get(name);
+        if (loaded != null) {
+            return Optional.of(loaded);
+        }
+        final String query = "SELECT name,message,author,channel,time FROM Notifications WHERE guild = ? AND name = ?;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, this.guildID);
+            ps.setString(2, name);
+            try (final ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(readNotification(rs));
+                }
+            }
+        }
+        return Optional.empty();
     }
 
     /**
-     * Get the list of notifications currently active
+     * Get page of the notifications of a member ordered by name
      *
+     * @param authorID ID of the member who created the notifications
+     * @param after name to get the notifications after, empty for first page
+     * @param limit maximum number of notifications to get
      * @return List of notifications
+     * @throws SQLException if database connection failed
+     */
+    List<Notification> getNotifications(final long authorID, final String after, final int limit) throws SQLException {
+        final List<Notification> result = new ArrayList<>(limit);
+        final String query = "SELECT name,message,author,channel,time FROM Notifications "
+                + "WHERE guild = ? AND author = ? AND name > ? ORDER BY name LIMIT ?;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, this.guildID);
+            ps.setLong(2, authorID);
+            ps.setString(3, after);
+            ps.setInt(4, limit);
+            try (final ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    //Prefer the scheduled instance if the notification is loaded
+                    final Notification notification = readNotification(rs);
+                    result.add(this.notifications.getOrDefault(notification.getName(), notification));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Load the notifications of the guild activating within the loading window
+     * from database, later windows are loaded for all guilds at once by
+     * NotificationCommand. On the first load notifications missed while
+     * offline are replayed through the catch-up queue.
+     */
+    public synchronized void loadNotifications() {
+        if (this.closed) {
+            return;
+        }
+        if (this.loadedUntil == Long.MIN_VALUE) {
+            replayMissedNotifications();
+        }
+        final long now = System.currentTimeMillis();
+        final long windowEnd = now + this.loadWindow.toMillis();
+        final long windowStart = Math.max(this.loadedUntil, now);
+        LOGGER.debug("Loading notifications for guild: {} activating before: {}", this.guildID, windowEnd);
+
+        final String query = "SELECT name,message,author,channel,time FROM Notifications "
+                + "WHERE guild = ? AND time >= ? AND time < ? ORDER BY time;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, this.guildID);
+            ps.setLong(2, windowStart);
+            ps.setLong(3, windowEnd);
+            try (final ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    scheduleNotification(readNotification(rs));
+                }
+            }
+            this.loadedUntil = windowEnd;
+            LOGGER.debug("Notifications for guild: {} loaded successfully, {} in memory", this.guildID, this.notifications.size());
+        } catch (SQLException e) {
+            LOGGER.error("Loading notifications from database failed: {}", e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+        }
+    }
+
+    /**
+     * Called by NotificationCommand with the notifications of this guild from
+     * the window loaded for all guilds
+     *
+     * @param loaded Notifications activating within the window
+     * @param windowEnd End of the loaded window
      */
-    Collection<Notification> getNotifications() {
-        return Collections.unmodifiableCollection(this.notifications.values());
+    synchronized void windowLoaded(final List<Notification> loaded, final long windowEnd) {
+        if (this.closed) {
+            return;
+        }
+        //Earlier load of the guild failed, window does not cover the notifications before it
+        if (this.loadedUntil == Long.MIN_VALUE) {
+            loadNotifications();
+            return;
+        }
+        for (final Notification notification : loaded) {
+            scheduleNotification(notification);
+        }
+        this.loadedUntil = Math.max(this.loadedUntil, windowEnd);
     }
 
     /**
-     * Load notifications from database
+     * Called by a notification when it activates, notifications only activate
+     * once so it is removed
      *
-     * @param jda JDA to pass to notifications
-     * @param guildData GuilData to pass to notifications
+     * @param notification Notification that activated
+     * @return false if the notification was already removed and should not
+     * activate
+     */
+    boolean notificationActivated(final Notification notification) {
+        try {
+            return deleteNotification(notification);
+        } catch (SQLException e) {
+            LOGGER.error("Removing activated notification: {} failed: {}", notification.getName(), e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+            return true;
+        }
+    }
+
+    /**
+     * Submit notifications that were due while offline to the catch-up queue,
+     * notifications missed by more than the cutoff are removed
      */
-    public void loadNotifications(final JDA jda, final StorageManager guildData) {
-        LOGGER.debug("Started loading notifications for guild: {} from database", this.guildID);
-        final String query = "SELECT name,message,author,channel,time FROM Notifications WHERE guild = ?;";
+    private void replayMissedNotifications() {
+        final List<Notification> expired = new ArrayList<>();
+        final String query = "SELECT name,message,author,channel,time FROM Notifications WHERE guild = ? AND time < ? ORDER BY time;";
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, this.guildID);
+            ps.setLong(2, System.currentTimeMillis());
             try (final ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    final String notificationName = rs.getString("name");
-                    final String notificationMessage = rs.getString("message");
-                    final long notificationAuthor = rs.getLong("author");
-                    final long notificationChannel = rs.getLong("channel");
-
-                    //Load time notification activates on
-                    final long notificationsTime = rs.getLong("time");
-                    final Instant notificationActivationTime = Instant.ofEpochMilli(notificationsTime);
-
-                    //Construct and add to list of notifications
-                    final Notification notification = new Notification(jda, guildData, this,
-                            notificationName, notificationMessage, notificationChannel, notificationAuthor, this.guildID, notificationActivationTime);
-                    this.notifications.put(notification.getName(), notification);
-                    LOGGER.debug("Notification successfully loaded: {}", notification.getName());
-
-                    notification.scheduleWith(this.notificastionTimer);
-                    LOGGER.debug("Notification: {} scheduled with ScheduledExecutorService", notification.getName());
+                    final Notification notification = readNotification(rs);
+                    if (!this.catchUpQueue.submit(this.guildID, notification.getTime(), notification)) {
+                        expired.add(notification);
+                    }
                 }
             }
-            LOGGER.debug("Notifications for guild: {} loaded successfully.", this.guildID);
         } catch (SQLException e) {
-            LOGGER.error("Loading notifications from database failed");
-            LOGGER.warn(e.getMessage());
-            LOGGER.trace(e);
+            LOGGER.error("Loading missed notifications from database failed: {}", e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+            return;
+        }
+        for (final Notification notification : expired) {
+            LOGGER.info("Removing notification: {} missed by more than catch-up cutoff", notification.getName());
+            notificationActivated(notification);
+        }
+    }
+
+    /**
+     * Schedule loaded notification, caller must hold the lock on this
+     *
+     * @param notification Notification to schedule
+     */
+    private void scheduleNotification(final Notification notification) {
+        if (this.notifications.putIfAbsent(notification.getName(), notification) != null) {
+            return;
+        }
+        if (!notification.scheduleWith(this.notificationTimer)) {
+            this.notifications.remove(notification.getName(), notification);
         }
     }
 
+    /**
+     * Construct notification from the current row of a result set
+     *
+     * @param rs ResultSet to read from
+     * @return Notification
+     * @throws SQLException if reading the row failed
+     */
+    Notification readNotification(final ResultSet rs) throws SQLException {
+        final String notificationName = rs.getString("name");
+        final String notificationMessage = rs.getString("message");
+        final long notificationAuthor = rs.getLong("author");
+        final long notificationChannel = rs.getLong("channel");
+
+        //Load time notification activates on
+        final long notificationsTime = rs.getLong("time");
+        final Instant notificationActivationTime = Instant.ofEpochMilli(notificationsTime);
+        return new Notification(this.jda, this.storage, this, notificationName, notificationMessage,
+                notificationChannel, notificationAuthor, this.guildID, notificationActivationTime);
+    }
+
 }
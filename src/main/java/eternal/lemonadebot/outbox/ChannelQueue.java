@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.outbox;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import net.dv8tion.jda.api.entities.Message;
+
+/**
+ * Messages waiting to be sent to a single channel, only one message is sent
+ * to a channel at a time and messages are sent in the order they were queued
+ *
+ * @author Neutroni
+ */
+class ChannelQueue {
+
+    private final Deque<OutgoingMessage> messages = new ArrayDeque<>();
+    //Number of queued messages for each priority
+    private final int[] priorityCounts = new int[MessagePriority.values().length];
+    private boolean sending;
+    private MessagePriority readyPriority;
+
+    /**
+     * Add message to queue
+     *
+     * @param message Message to add
+     */
+    void add(final OutgoingMessage message) {
+        this.messages.add(message);
+        this.priorityCounts[message.getPriority().ordinal()]++;
+    }
+
+    /**
+     * Get the priority of the most important message waiting in this queue,
+     * used to decide which channel sends next
+     *
+     * @return MessagePriority, null if queue is empty
+     */
+    MessagePriority getPriority() {
+        for (final MessagePriority priority : MessagePriority.values()) {
+            if (this.priorityCounts[priority.ordinal()] > 0) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove the next messages to send, consecutive plain text messages from
+     * the same sender are taken together if they fit in a single message
+     *
+     * @return List of messages to send together
+     */
+    List<OutgoingMessage> poll() {
+        final List<OutgoingMessage> batch = new ArrayList<>();
+        final OutgoingMessage first = this.messages.poll();
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        int length = (first.getContent() == null) ? 0 : first.getContent().length();
+        while (!this.messages.isEmpty() && first.canMergeWith(this.messages.peek())) {
+            final int nextLength = this.messages.peek().getContent().length();
+            if (length + 1 + nextLength > Message.MAX_CONTENT_LENGTH) {
+                break;
+            }
+            length += 1 + nextLength;
+            batch.add(this.messages.poll());
+        }
+        for (final OutgoingMessage message : batch) {
+            this.priorityCounts[message.getPriority().ordinal()]--;
+        }
+        return batch;
+    }
+
+    /**
+     * Check if there are no messages waiting
+     *
+     * @return true if queue is empty
+     */
+    boolean isEmpty() {
+        return this.messages.isEmpty();
+    }
+
+    /**
+     * Check if a message is currently being sent to this channel
+     *
+     * @return true if sending
+     */
+    boolean isSending() {
+        return this.sending;
+    }
+
+    /**
+     * Set whether a message is being sent to this channel
+     *
+     * @param sending true if sending
+     */
+    void setSending(final boolean sending) {
+        this.sending = sending;
+    }
+
+    /**
+     * Get the priority of the ready queue this channel is waiting in
+     *
+     * @return MessagePriority, null if not waiting to send
+     */
+    MessagePriority getReadyPriority() {
+        return this.readyPriority;
+    }
+
+    /**
+     * Set the priority of the ready queue this channel is waiting in
+     *
+     * @param readyPriority MessagePriority, null if not waiting to send
+     */
+    void setReadyPriority(final MessagePriority readyPriority) {
+        this.readyPriority = readyPriority;
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.outbox;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.requests.restaction.MessageAction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Central queue for outgoing messages. Messages are queued per channel and at
+ * most one message per channel is sent at a time, in the order they were
+ * queued. Channels with messages waiting are kept in a ready queue for the
+ * priority of their most important message, when the number of requests in
+ * flight is limited the most important ready queue is served first and
+ * channels within it in the order they became ready, so replies to commands
+ * do not wait behind log entries in other channels.
+ *
+ * @author Neutroni
+ */
+public class Outbox {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int PRIORITIES = MessagePriority.values().length;
+
+    private final int maxInFlight;
+
+    //Guarded by this
+    private final Map<Long, ChannelQueue> channels = new HashMap<>();
+    //Channels waiting to send, may contain stale entries that are skipped
+    private final Map<MessagePriority, Deque<ChannelQueue>> ready = new EnumMap<>(MessagePriority.class);
+    private int inFlight;
+
+    //Metrics
+    private final AtomicLong pendingMessages = new AtomicLong();
+    private final AtomicLong mergedMessages = new AtomicLong();
+    private final AtomicLongArray sentMessages = new AtomicLongArray(PRIORITIES);
+    private final AtomicLongArray totalLatencyNanos = new AtomicLongArray(PRIORITIES);
+    private final AtomicLongArray maxLatencyNanos = new AtomicLongArray(PRIORITIES);
+
+    /**
+     * Constructor
+     *
+     * @param maxInFlight Maximum number of messages being sent at the same time
+     */
+    public Outbox(final int maxInFlight) {
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        for (final MessagePriority priority : MessagePriority.values()) {
+            this.ready.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Queue text message, message is sent on its own
+     *
+     * @param channel Channel to send the message to
+     * @param content Content of the message
+     * @param priority Priority of the message
+     */
+    public void send(final MessageChannel channel, final CharSequence content, final MessagePriority priority) {
+        send(channel, content, priority, 0);
+    }
+
+    /**
+     * Queue text message, consecutive messages with the same source may be
+     * sent together as a single message
+     *
+     * @param channel Channel to send the message to
+     * @param content Content of the message
+     * @param priority Priority of the message
+     * @param source Identifier of the sender, 0 if message should not be
+     * merged
+     */
+    public void send(final MessageChannel channel, final CharSequence content, final MessagePriority priority, final long source) {
+        enqueue(new OutgoingMessage(channel, priority, content.toString(), null, null, source));
+    }
+
+    /**
+     * Queue prebuilt message, prebuilt messages are never merged
+     *
+     * @param channel Channel to send the message to
+     * @param message Message to send
+     * @param priority Priority of the message
+     */
+    public void send(final MessageChannel channel, final Message message, final MessagePriority priority) {
+        enqueue(new OutgoingMessage(channel, priority, null, message, null, 0));
+    }
+
+    /**
+     * Queue message containing embeds
+     *
+     * @param channel Channel to send the message to
+     * @param embeds Embeds to send, at most Message.MAX_EMBED_COUNT
+     * @param priority Priority of the message
+     */
+    public void sendEmbeds(final MessageChannel channel, final List<MessageEmbed> embeds, final MessagePriority priority) {
+        enqueue(new OutgoingMessage(channel, priority, null, null, List.copyOf(embeds), 0));
+    }
+
+    /**
+     * Queue message containing an embed
+     *
+     * @param channel Channel to send the message to
+     * @param embed Embed to send
+     * @param priority Priority of the message
+     */
+    public void sendEmbed(final MessageChannel channel, final MessageEmbed embed, final MessagePriority priority) {
+        enqueue(new OutgoingMessage(channel, priority, null, null, List.of(embed), 0));
+    }
+
+    /**
+     * Get the number of messages waiting to be sent
+     *
+     * @return number of messages
+     */
+    public long getPendingCount() {
+        return this.pendingMessages.get();
+    }
+
+    /**
+     * Get the number of messages that were merged into a preceding message
+     *
+     * @return number of merged messages
+     */
+    public long getMergedCount() {
+        return this.mergedMessages.get();
+    }
+
+    /**
+     * Get the number of messages sent with given priority
+     *
+     * @param priority MessagePriority
+     * @return number of messages
+     */
+    public long getSentCount(final MessagePriority priority) {
+        return this.sentMessages.get(priority.ordinal());
+    }
+
+    /**
+     * Get the average time messages with given priority spent waiting until
+     * sent
+     *
+     * @param priority MessagePriority
+     * @return Duration
+     */
+    public Duration getAverageLatency(final MessagePriority priority) {
+        final long sent = this.sentMessages.get(priority.ordinal());
+        if (sent == 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(this.totalLatencyNanos.get(priority.ordinal()) / sent);
+    }
+
+    /**
+     * Get the longest time a message with given priority spent waiting until
+     * sent
+     *
+     * @param priority MessagePriority
+     * @return Duration
+     */
+    public Duration getMaxLatency(final MessagePriority priority) {
+        return Duration.ofNanos(this.maxLatencyNanos.get(priority.ordinal()));
+    }
+
+    private void enqueue(final OutgoingMessage message) {
+        this.pendingMessages.incrementAndGet();
+        synchronized (this) {
+            final ChannelQueue queue = this.channels.computeIfAbsent(message.getChannel().getIdLong(), (Long t) -> {
+                return new ChannelQueue();
+            });
+            queue.add(message);
+            markReady(queue);
+        }
+        sendNext();
+    }
+
+    /**
+     * Add channel to the ready queue for the priority of its next message,
+     * must hold lock on this
+     *
+     * @param queue ChannelQueue
+     */
+    private void markReady(final ChannelQueue queue) {
+        if (queue.isSending()) {
+            return;
+        }
+        final MessagePriority priority = queue.getPriority();
+        if (priority == null) {
+            return;
+        }
+        final MessagePriority current = queue.getReadyPriority();
+        //Entry in the less important queue becomes stale
+        if (current == null || priority.compareTo(current) < 0) {
+            queue.setReadyPriority(priority);
+            this.ready.get(priority).add(queue);
+        }
+    }
+
+    /**
+     * Take the next channel to send from, must hold lock on this
+     *
+     * @return ChannelQueue or null if no channel is waiting
+     */
+    private ChannelQueue pollReady() {
+        for (final Map.Entry<MessagePriority, Deque<ChannelQueue>> entry : this.ready.entrySet()) {
+            final Deque<ChannelQueue> queues = entry.getValue();
+            ChannelQueue queue = queues.poll();
+            while (queue != null) {
+                if (queue.getReadyPriority() == entry.getKey() && !queue.isSending()) {
+                    queue.setReadyPriority(null);
+                    return queue;
+                }
+                queue = queues.poll();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Start sending messages until the in flight limit is reached
+     */
+    private void sendNext() {
+        final List<List<OutgoingMessage>> batches = new ArrayList<>();
+        synchronized (this) {
+            while (this.inFlight < this.maxInFlight) {
+                final ChannelQueue next = pollReady();
+                if (next == null) {
+                    break;
+                }
+                next.setSending(true);
+                this.inFlight++;
+                batches.add(next.poll());
+            }
+        }
+        batches.forEach(this::sendBatch);
+    }
+
+    /**
+     * Send messages taken from channel queue as a single message
+     *
+     * @param batch Messages to send
+     */
+    private void sendBatch(final List<OutgoingMessage> batch) {
+        final OutgoingMessage first = batch.get(0);
+        try {
+            final MessageAction action;
+            if (batch.size() == 1) {
+                action = first.toAction();
+            } else {
+                final StringBuilder content = new StringBuilder(first.getContent());
+                for (int i = 1; i < batch.size(); i++) {
+                    content.append('\n').append(batch.get(i).getContent());
+                }
+                this.mergedMessages.addAndGet(batch.size() - 1);
+                action = first.getChannel().sendMessage(content);
+            }
+            action.queue((Message m) -> {
+                batchSent(batch);
+            }, (Throwable t) -> {
+                LOGGER.warn("Sending message to channel: {} failed: {}", first.getChannel().getIdLong(), t.getMessage());
+                batchSent(batch);
+            });
+        } catch (RuntimeException e) {
+            LOGGER.error("Creating message for channel: {} failed: {}", first.getChannel().getIdLong(), e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+            batchSent(batch);
+        }
+    }
+
+    /**
+     * Record metrics for sent messages and release the channel
+     *
+     * @param batch Messages that were sent
+     */
+    private void batchSent(final List<OutgoingMessage> batch) {
+        final long now = System.nanoTime();
+        for (final OutgoingMessage message : batch) {
+            final int priority = message.getPriority().ordinal();
+            final long latency = now - message.getQueuedAt();
+            this.sentMessages.incrementAndGet(priority);
+            this.totalLatencyNanos.addAndGet(priority, latency);
+            this.maxLatencyNanos.accumulateAndGet(priority, latency, Math::max);
+        }
+        this.pendingMessages.addAndGet(-batch.size());
+        final long channelID = batch.get(0).getChannel().getIdLong();
+        synchronized (this) {
+            this.inFlight--;
+            final ChannelQueue queue = this.channels.get(channelID);
+            queue.setSending(false);
+            if (queue.isEmpty()) {
+                this.channels.remove(channelID);
+            } else {
+                markReady(queue);
+            }
+        }
+        LOGGER.trace("Sent {} messages to channel: {} in {} ms", batch.size(), channelID,
+                TimeUnit.NANOSECONDS.toMillis(now - batch.get(0).getQueuedAt()));
+        sendNext();
+    }
+
+}
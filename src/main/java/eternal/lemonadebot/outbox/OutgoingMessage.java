@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.outbox;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.requests.restaction.MessageAction;
+
+/**
+ * Message waiting in the outbox, either plain text, prebuilt message or embeds
+ *
+ * @author Neutroni
+ */
+class OutgoingMessage {
+
+    //Mentions that notify someone, merging would apply them to the other parts
+    private static final Pattern MENTION_PATTERN = Pattern.compile("<@[!&]?\\d+>|@everyone|@here");
+    private static final String CODE_FENCE = "```";
+    private static final String BLOCK_QUOTE = ">>>";
+
+    private final MessageChannel channel;
+    private final MessagePriority priority;
+    private final String content;
+    private final Message message;
+    private final List<MessageEmbed> embeds;
+    private final long source;
+    private final boolean mergeable;
+    private final long queuedAt;
+
+    /**
+     * Constructor
+     *
+     * @param channel Channel to send the message to
+     * @param priority Priority of the message
+     * @param content Plain text content, null if not a text message
+     * @param message Prebuilt message, null if not used
+     * @param embeds Embeds to send, null if not used
+     * @param source Identifier of the sender, 0 if message should not be
+     * merged
+     */
+    OutgoingMessage(final MessageChannel channel, final MessagePriority priority, final String content,
+            final Message message, final List<MessageEmbed> embeds, final long source) {
+        this.channel = channel;
+        this.priority = priority;
+        this.content = content;
+        this.message = message;
+        this.embeds = embeds;
+        this.source = source;
+        this.mergeable = source != 0 && content != null && isSelfContained(content);
+        this.queuedAt = System.nanoTime();
+    }
+
+    /**
+     * Check that text formatting does not continue past the end of the text
+     * and that it does not mention anyone
+     *
+     * @param text Text to check
+     * @return true if text can be joined with other text
+     */
+    private static boolean isSelfContained(final String text) {
+        if (text.contains(BLOCK_QUOTE) || MENTION_PATTERN.matcher(text).find()) {
+            return false;
+        }
+        int fences = 0;
+        int index = text.indexOf(CODE_FENCE);
+        while (index != -1) {
+            fences++;
+            index = text.indexOf(CODE_FENCE, index + CODE_FENCE.length());
+        }
+        return fences % 2 == 0;
+    }
+
+    /**
+     * Get the channel this message is sent to
+     *
+     * @return MessageChannel
+     */
+    MessageChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Get the priority of this message
+     *
+     * @return MessagePriority
+     */
+    MessagePriority getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Get the time this message was queued at
+     *
+     * @return System.nanoTime when queued
+     */
+    long getQueuedAt() {
+        return this.queuedAt;
+    }
+
+    /**
+     * Get the text content of the message
+     *
+     * @return content, null if message is not plain text
+     */
+    String getContent() {
+        return this.content;
+    }
+
+    /**
+     * Check if this message can be sent together with the given message that
+     * follows it, only plain text from the same sender with no open
+     * formatting or mentions is merged
+     *
+     * @param next Message queued after this message
+     * @return true if messages can be merged
+     */
+    boolean canMergeWith(final OutgoingMessage next) {
+        return this.mergeable && next.mergeable && this.source == next.source;
+    }
+
+    /**
+     * Create the action to send this message
+     *
+     * @return MessageAction
+     */
+    MessageAction toAction() {
+        if (this.content != null) {
+            return this.channel.sendMessage(this.content);
+        }
+        if (this.message != null) {
+            return this.channel.sendMessage(this.message);
+        }
+        return this.channel.sendMessageEmbeds(this.embeds);
+    }
+}
@@ -72,12 +72,11 @@ public class PermissionCommand extends AdminCommand {
     @Override
     public void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
         final String[] arguments = matcher.getArguments(1);
         if (arguments.length == 0) {
-            channel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -97,7 +96,7 @@ public class PermissionCommand extends AdminCommand {
                 break;
             }
             default: {
-                channel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + actionString).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + actionString);
             }
         }
     }
@@ -109,7 +108,7 @@ public class PermissionCommand extends AdminCommand {
         final ResourceBundle locale = context.getResource();
 
         if (arguments.length < 2) {
-            channel.sendMessage(locale.getString("PERMISSION_GET_MISSING_NAME")).queue();
+            context.replyError(locale.getString("PERMISSION_GET_MISSING_NAME"));
             return;
         }
         final String permissionName = arguments[1];
@@ -122,7 +121,7 @@ public class PermissionCommand extends AdminCommand {
             final Optional<ChatCommand> optCommand = commands.getCommand(permissionName, config);
             if (optCommand.isEmpty()) {
                 //No command for the action
-                channel.sendMessage(locale.getString("PERMISSION_NO_COMMAND")).queue();
+                context.replyError(locale.getString("PERMISSION_NO_COMMAND"));
                 return;
             }
             command = optCommand.get();
@@ -131,7 +130,7 @@ public class PermissionCommand extends AdminCommand {
             final Optional<ChatCommand> optCommand = commands.getCommand(commandName, config);
             if (optCommand.isEmpty()) {
                 //No command for the action
-                channel.sendMessage(locale.getString("PERMISSION_NO_COMMAND")).queue();
+                context.replyError(locale.getString("PERMISSION_NO_COMMAND"));
                 return;
             }
             command = optCommand.get();
@@ -142,7 +141,7 @@ public class PermissionCommand extends AdminCommand {
         try {
             perm = permissions.getPermission(command, permissionName, context.getGuild().getIdLong());
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("PERMISSION_SQL_ERROR_ON_FIND")).queue();
+            context.replyError(locale.getString("PERMISSION_SQL_ERROR_ON_FIND"));
             LOGGER.error("Failure to get permission from database: {}", ex.getMessage());
             LOGGER.trace("Stack trace:", ex);
             return;
@@ -153,7 +152,7 @@ public class PermissionCommand extends AdminCommand {
             final String template = locale.getString("PERMISSION_RANK_MISSING_ROLE");
             final String rankName = locale.getString(perm.getRequiredRank().getNameKey());
             final String actionName = perm.getAction();
-            channel.sendMessageFormat(template, actionName, rankName).queue();
+            context.replyError(String.format(template, actionName, rankName));
             return;
         }
         //Construct embed for response
@@ -171,7 +170,7 @@ public class PermissionCommand extends AdminCommand {
         final String rankName = locale.getString(perm.getRequiredRank().getNameKey());
         final String fieldValue = String.format(template, rankName, r.getAsMention());
         eb.addField(fieldName, fieldValue, false);
-        channel.sendMessageEmbeds(eb.build()).queue();
+        context.reply(eb.build());
     }
 
     private static void setPermission(final CommandContext context) {
@@ -182,15 +181,15 @@ public class PermissionCommand extends AdminCommand {
 
         final List<String> args = matcher.parseArguments(4);
         if (args.size() < 2) {
-            channel.sendMessage(locale.getString("PERMISSION_SET_MISSING_RANK")).queue();
+            context.replyError(locale.getString("PERMISSION_SET_MISSING_RANK"));
             return;
         }
         if (args.size() < 3) {
-            channel.sendMessage(locale.getString("PERMISSION_SET_MISSING_ROLE")).queue();
+            context.replyError(locale.getString("PERMISSION_SET_MISSING_ROLE"));
             return;
         }
         if (args.size() < 4) {
-            channel.sendMessage(locale.getString("PERMISSION_SET_MISSING_ACTION")).queue();
+            context.replyError(locale.getString("PERMISSION_SET_MISSING_ACTION"));
             return;
         }
         final String rankName = args.get(1);
@@ -201,7 +200,7 @@ public class PermissionCommand extends AdminCommand {
             final MessageBuilder mb = new MessageBuilder();
             final String template = locale.getString("PERMISSION_UNKNOWN_RANK");
             mb.appendFormat(template, rankName, MemberRank.getLevelDescriptions(locale));
-            channel.sendMessage(mb.build()).queue();
+            context.reply(mb.build());
             return;
         }
         final String roleName = args.get(2);
@@ -213,7 +212,7 @@ public class PermissionCommand extends AdminCommand {
             final List<Role> roles = channel.getGuild().getRolesByName(roleName, true);
 
             if (roles.isEmpty()) {
-                channel.sendMessage(locale.getString("PERMISSION_ROLE_NOT_FOUND_NAME") + roleName).queue();
+                context.replyError(locale.getString("PERMISSION_ROLE_NOT_FOUND_NAME") + roleName);
                 return;
             }
             role = roles.get(0);
@@ -223,9 +222,9 @@ public class PermissionCommand extends AdminCommand {
             final PermissionManager permissions = context.getPermissionManager();
             final long guildID = context.getGuild().getIdLong();
             permissions.setPermission(new CommandPermission(actionString, rank, role.getIdLong(), guildID));
-            channel.sendMessage(locale.getString("PERMISSION_UPDATE_SUCCESS")).queue();
+            context.reply(locale.getString("PERMISSION_UPDATE_SUCCESS"));
         } catch (SQLException e) {
-            channel.sendMessage(locale.getString("PERMISSION_SQL_ERROR_ON_SET")).queue();
+            context.replyError(locale.getString("PERMISSION_SQL_ERROR_ON_SET"));
             LOGGER.error("Failure to update permission in database: {}", e.getMessage());
             LOGGER.trace("Stack trace:", e);
         }
@@ -233,7 +232,6 @@ public class PermissionCommand extends AdminCommand {
 
     private static void listPermissions(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final Guild guild = matcher.getGuild();
 
         final ResourceBundle locale = context.getResource();
@@ -243,7 +241,7 @@ public class PermissionCommand extends AdminCommand {
             final PermissionManager permissionManager = context.getPermissionManager();
             permissions = permissionManager.getPermissions(guild.getIdLong());
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("PERMISSION_SQL_ERROR_ON_LOAD")).queue();
+            context.replyError(locale.getString("PERMISSION_SQL_ERROR_ON_LOAD"));
             LOGGER.error("Failure to load permissions from database: {}", ex.getMessage());
             LOGGER.trace("Stack trace:", ex);
             return;
@@ -271,6 +269,6 @@ public class PermissionCommand extends AdminCommand {
             description.append(locale.getString("PERMISSION_NO_PERMISSIONS"));
         }
         eb.setDescription(description);
-        channel.sendMessageEmbeds(eb.build()).queue();
+        context.reply(eb.build());
     }
 }
@@ -28,20 +28,20 @@ import eternal.lemonadebot.customcommands.CustomCommand;
 import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import eternal.lemonadebot.messageparsing.SimpleMessageMatcher;
+import eternal.lemonadebot.outbox.MessagePriority;
+import eternal.lemonadebot.scheduling.ScheduledTimer;
+import eternal.lemonadebot.scheduling.TimerService;
 import eternal.lemonadebot.translation.TranslationCache;
 import java.sql.SQLException;
 import java.time.Duration;
-import java.time.ZoneId;
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.TextChannel;
-import net.dv8tion.jda.api.entities.User;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -58,9 +58,13 @@ class Reminder extends CustomCommand implements Runnable {
     private final long channelID;
     private final StorageManager storage;
     private final ReminderManager remiderManager;
-    private volatile ScheduledFuture<?> future;
     private final ReminderActivationTime activationTime;
 
+    //Guarded by this
+    private ScheduledTimer timer;
+    private ZonedDateTime nextActivation;
+    private boolean cancelled;
+
     /**
      * Constructor
      *
@@ -81,7 +85,8 @@ class Reminder extends CustomCommand implements Runnable {
         this.remiderManager = rm;
         this.channelID = channelID;
         this.activationTime = activationTime;
-        this.future = null;
+        this.timer = null;
+        this.cancelled = false;
     }
 
     /**
@@ -89,24 +94,32 @@ class Reminder extends CustomCommand implements Runnable {
      */
     @Override
     public void run() {
-        LOGGER.debug("Reminder check started: {}", getName());
-        //Make sure JDA is loaded
-        try {
-            //This might delay activation if connecting takes extremely long
-            this.jda.awaitReady();
-        } catch (InterruptedException e) {
-            LOGGER.error("JDA loading interrupted while trying to run a reminder: {}", e.getMessage());
-            LOGGER.trace("Stack trace: ", e);
-            return;
+        LOGGER.debug("Reminder activation started: {}", getName());
+        final ZonedDateTime activation;
+        synchronized (this) {
+            //Timer was cancelled or replaced while starting
+            if (this.cancelled || this.timer == null || !this.timer.isDone()) {
+                return;
+            }
+            activation = this.nextActivation;
         }
+        this.remiderManager.reminderActivated(this, activation);
+        activate();
+    }
 
-        //Check that reminder should activate today
-        final ZoneId timeZone = this.storage.getConfigCache().getConfigManager(getGuildID()).getZoneId();
-        if (!this.activationTime.shouldActivate(timeZone)) {
-            LOGGER.debug("Reminder {}, did not activate not the correct day", getName());
-            return;
-        }
+    /**
+     * Send the reminder message, used both by the timer and to replay
+     * activations missed while offline
+     */
+    void activate() {
+        //Wait for gateway without blocking the timer thread
+        this.storage.getReadinessGate().submit(this::sendReminder);
+    }
 
+    /**
+     * Send the reminder message, JDA must be connected
+     */
+    private void sendReminder() {
         //Check reminder channel can be found
         final TextChannel channel = this.jda.getTextChannelById(this.channelID);
         if (channel == null) {
@@ -119,7 +132,7 @@ class Reminder extends CustomCommand implements Runnable {
         channel.getGuild().retrieveMemberById(getAuthor()).queue((Member member) -> {
             //Success
             final CommandMatcher matcher = new SimpleMessageMatcher(member, channel);
-            final CommandContext context = new CommandContext(matcher, this.storage);
+            final CommandContext context = new CommandContext(matcher, this.storage, MessagePriority.SCHEDULED);
             run(context, true);
             LOGGER.debug("Reminder: {} successfully activated on channel: {}", getName(), channel.getName());
         }, (Throwable t) -> {
@@ -161,8 +174,14 @@ class Reminder extends CustomCommand implements Runnable {
         return this.activationTime;
     }
 
-    CompletableFuture<String> toListElement(final TranslationCache translationCache) {
-        final CompletableFuture<String> result = new CompletableFuture<>();
+    /**
+     * Get string representation of the reminder for listing reminders
+     *
+     * @param translationCache Translation to return the list element in
+     * @param reminderOwner Owner of the reminder, null if not found
+     * @return String
+     */
+    String toListElement(final TranslationCache translationCache, final Member reminderOwner) {
         final ResourceBundle locale = translationCache.getResourceBundle();
 
         //Get the channel for reminder
@@ -170,47 +189,47 @@ class Reminder extends CustomCommand implements Runnable {
         if (channel == null) {
             deleteDueToMissingChannel();
             final String response = locale.getString("REMINDER_CHANNEL_MISSING");
-            result.complete(String.format(response, getName()));
-            return result;
+            return String.format(response, getName());
+        }
+
+        //Reminder owner missing
+        if (reminderOwner == null) {
+            deleteDueToMissingOwner();
+            final String response = locale.getString("REMINDER_USER_MISSING");
+            return String.format(response, getName());
         }
 
         final DateTimeFormatter timeFormatter = translationCache.getTimeFormatter();
         final String cronString = this.activationTime.getCronString(locale.getLocale(), timeFormatter);
         final String channelName = channel.getAsMention();
         final String template = locale.getString("REMINDER_LIST_ELEMENT_TEMPLATE");
-        this.jda.retrieveUserById(getAuthor()).queue((User reminderOwner) -> {
-            //Found reminder owner
-            final String ownerName = reminderOwner.getAsMention();
-            final String response = String.format(template, getName(), getTemplate(), cronString, channelName, ownerName);
-            result.complete(response);
-        }, (Throwable t) -> {
-            //Reminder owner missing
-            deleteDueToMissingOwner();
-            final String response = locale.getString("REMINDER_USER_MISSING");
-            result.complete(String.format(response, getName()));
-        });
-        return result;
+        final String ownerName = reminderOwner.getAsMention();
+        return String.format(template, getName(), getTemplate(), cronString, channelName, ownerName);
     }
 
     /**
-     * Schedule this reminder with the provided ExecutorService
+     * Schedule this reminder to activate at given time
      *
-     * @param reminderTimer ScheduledExecutorService
+     * @param reminderTimer TimerService to schedule with
+     * @param activation Time the reminder activates at
      */
-    void scheduleWith(final ScheduledExecutorService reminderTimer) {
-        final ZoneId timeZone = this.storage.getConfigCache().getConfigManager(getGuildID()).getZoneId();
-        final Duration duration = this.activationTime.getTimeToActivation(timeZone);
-        final long millisecondsToActivation = duration.toMillis();
-        final long reminderInterval = TimeUnit.MILLISECONDS.convert(1, TimeUnit.DAYS);
-        this.future = reminderTimer.scheduleAtFixedRate(this, millisecondsToActivation, reminderInterval, TimeUnit.MILLISECONDS);
+    synchronized void schedule(final TimerService reminderTimer, final ZonedDateTime activation) {
+        if (this.cancelled) {
+            return;
+        }
+        this.nextActivation = activation;
+        final Duration delay = Duration.between(Instant.now(), activation.toInstant());
+        this.timer = reminderTimer.schedule(this, delay.toMillis(), TimeUnit.MILLISECONDS);
+        LOGGER.debug("Reminder: {} next activation at {}", getName(), activation);
     }
 
     /**
      * Cancel the task, task will finnish if it is already running
      */
-    void cancel() {
-        if (this.future != null) {
-            this.future.cancel(false);
+    synchronized void cancel() {
+        this.cancelled = true;
+        if (this.timer != null) {
+            this.timer.cancel();
         }
     }
 
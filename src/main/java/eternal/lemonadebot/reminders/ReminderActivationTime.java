@@ -24,15 +24,16 @@
 package eternal.lemonadebot.reminders;
 
 import java.time.DayOfWeek;
-import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.Month;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
-import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.Locale;
+import java.util.Optional;
 import javax.annotation.Nullable;
 
 /**
@@ -42,6 +43,9 @@ import javax.annotation.Nullable;
  */
 class ReminderActivationTime {
 
+    //Upper bound for date search, valid activation times are found in far fewer steps
+    private static final int MAX_SEARCH_STEPS = 10000;
+
     private final LocalTime time;
     private final DayOfWeek dayOfWeek;
     private final int dayOfMonth;
@@ -63,42 +67,50 @@ class ReminderActivationTime {
     }
 
     /**
-     * Get the time until the next daily check for activation
+     * Get the next time the reminder activates after the given time, uses the
+     * time zone of the given time. Skips directly to matching months and days
+     * instead of checking every day.
      *
-     * @param timeZone TimeZone the activation check happens in
-     * @return Duration to next check
+     * @param after Time after which the activation should happen
+     * @return Optional containing the activation time, empty if the date can
+     * never occur
      */
-    Duration getTimeToActivation(final ZoneId timeZone) {
-        final ZonedDateTime now = ZonedDateTime.now(timeZone);
-        ZonedDateTime activationTime = now.with(this.time);
-        if (activationTime.isBefore(now)) {
-            activationTime = activationTime.plus(1, ChronoUnit.DAYS);
-        }
-        return Duration.between(now, activationTime);
-    }
-
-    /**
-     * Check if reminder date portion matches current date
-     *
-     * @param timeZone ZoneId the activation happens at
-     * @return true if reminder should activate today
-     */
-    boolean shouldActivate(final ZoneId timeZone) {
-        final ZonedDateTime now = ZonedDateTime.now(timeZone);
-        if (this.dayOfWeek != null) {
-            if (now.getDayOfWeek() != this.dayOfWeek) {
-                return false;
+    Optional<ZonedDateTime> getNextActivation(final ZonedDateTime after) {
+        final ZoneId timeZone = after.getZone();
+        LocalDate date = after.toLocalDate();
+        for (int i = 0; i < MAX_SEARCH_STEPS; i++) {
+            //Skip to the start of the next matching month
+            if (this.monthOfYear != null && date.getMonth() != this.monthOfYear) {
+                final LocalDate monthStart = date.withDayOfMonth(1).with(this.monthOfYear);
+                if (monthStart.isAfter(date)) {
+                    date = monthStart;
+                } else {
+                    date = monthStart.plusYears(1);
+                }
+                continue;
             }
-        }
-        if (this.dayOfMonth != 0) {
-            if (now.getDayOfMonth() != this.dayOfMonth) {
-                return false;
+            //Skip to the matching day of month, or the next month if it is too short
+            if (this.dayOfMonth != 0 && date.getDayOfMonth() != this.dayOfMonth) {
+                if (date.getDayOfMonth() < this.dayOfMonth && this.dayOfMonth <= date.lengthOfMonth()) {
+                    date = date.withDayOfMonth(this.dayOfMonth);
+                } else {
+                    date = date.withDayOfMonth(1).plusMonths(1);
+                }
+                continue;
             }
+            //Skip to the next matching day of week
+            if (this.dayOfWeek != null && date.getDayOfWeek() != this.dayOfWeek) {
+                date = date.with(TemporalAdjusters.next(this.dayOfWeek));
+                continue;
+            }
+            //Date matches, ZonedDateTime.of shifts times in DST gaps forward
+            final ZonedDateTime activation = ZonedDateTime.of(date, this.time, timeZone);
+            if (activation.isAfter(after)) {
+                return Optional.of(activation);
+            }
+            date = date.plusDays(1);
         }
-        if (this.monthOfYear != null) {
-            return now.getMonth() == this.monthOfYear;
-        }
-        return true;
+        return Optional.empty();
     }
 
     @Nullable
@@ -25,30 +25,37 @@ package eternal.lemonadebot.reminders;
 
 import eternal.lemonadebot.commands.AdminCommand;
 import eternal.lemonadebot.commands.CommandContext;
+import eternal.lemonadebot.commands.ListPaginator;
 import eternal.lemonadebot.database.DatabaseManager;
 import eternal.lemonadebot.database.StorageManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import eternal.lemonadebot.permissions.PermissionUtilities;
+import eternal.lemonadebot.scheduling.TimerService;
 import eternal.lemonadebot.translation.ActionKey;
 import eternal.lemonadebot.translation.TranslationCache;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.Collator;
 import java.time.DateTimeException;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalTime;
 import java.time.Month;
 import java.time.MonthDay;
+import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
 import java.time.format.TextStyle;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import net.dv8tion.jda.api.EmbedBuilder;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
@@ -67,6 +74,9 @@ public class ReminderCommand extends AdminCommand {
     private final DatabaseManager dataBase;
     private final Map<Long, ReminderManager> managers;
 
+    //Window of reminders loaded for all guilds, guarded by this
+    private long loadedUntil;
+
     /**
      * Constrocutor
      *
@@ -78,10 +88,25 @@ public class ReminderCommand extends AdminCommand {
     }
 
     @Override
-    public void initialize(final List<Guild> guilds, final StorageManager storageManager) {
-        guilds.forEach((Guild guild) -> {
-            getReminderManager(guild, storageManager);
+    public void initialize(final StorageManager storageManager) {
+        //Reminders activate at local time so changing time zone needs rescheduling
+        storageManager.getConfigCache().addTimeZoneListener((Long guildID, ZoneId zone) -> {
+            final ReminderManager reminderManager = this.managers.get(guildID);
+            if (reminderManager != null) {
+                reminderManager.rescheduleReminders(zone);
+            }
         });
+
+        //Guilds load their reminders up to a window from now when initialized
+        synchronized (this) {
+            this.loadedUntil = System.currentTimeMillis();
+        }
+        scheduleWindow(storageManager.getDataSource(), storageManager.getTimerService());
+    }
+
+    @Override
+    public void initializeGuild(final Guild guild, final StorageManager storageManager) {
+        getReminderManager(guild, storageManager);
     }
 
     @Override
@@ -91,10 +116,82 @@ public class ReminderCommand extends AdminCommand {
         });
     }
 
+    /**
+     * Slide the loaded window forward periodically before it runs out
+     *
+     * @param dataSource DataSource to load reminders from
+     * @param timer TimerService to schedule loading with
+     */
+    private void scheduleWindow(final DataSource dataSource, final TimerService timer) {
+        final long reloadDelay = this.dataBase.getConfig().getScheduleWindow().toMillis() / 2;
+        timer.schedule(() -> {
+            try {
+                loadWindow(dataSource);
+            } finally {
+                scheduleWindow(dataSource, timer);
+            }
+        }, reloadDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Load reminders of all guilds activating within the loading window with
+     * one query and pass them to the managers of the guilds
+     *
+     * @param dataSource DataSource to load reminders from
+     */
+    private synchronized void loadWindow(final DataSource dataSource) {
+        final long now = System.currentTimeMillis();
+        final long windowEnd = now + this.dataBase.getConfig().getScheduleWindow().toMillis();
+        LOGGER.debug("Loading reminders activating before: {}", windowEnd);
+
+        final String query = "SELECT guild,name,message,author,channel,time,dayOfWeek,dayOfMonth,monthOfYear,nextActivation FROM Reminders "
+                + "WHERE nextActivation >= ? AND nextActivation < ? ORDER BY nextActivation;";
+        final Map<Long, GuildWindow> windows = new HashMap<>();
+        int loadedCount = 0;
+        try (final Connection connection = dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, this.loadedUntil);
+            ps.setLong(2, windowEnd);
+            try (final ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    //Guilds not yet initialized load their own reminders when they are
+                    final long guildID = rs.getLong("guild");
+                    final ReminderManager reminderManager = this.managers.get(guildID);
+                    if (reminderManager == null) {
+                        continue;
+                    }
+                    final Optional<Reminder> reminder = reminderManager.readReminder(rs);
+                    if (reminder.isPresent()) {
+                        final GuildWindow window = windows.computeIfAbsent(guildID, (Long t) -> {
+                            return new GuildWindow();
+                        });
+                        window.reminders.add(reminder.get());
+                        window.activations.add(rs.getLong("nextActivation"));
+                        loadedCount++;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Loading reminders from database failed: {}", e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+            return;
+        }
+
+        //Every manager gets the window so their loaded range moves forward
+        final GuildWindow empty = new GuildWindow();
+        for (final Map.Entry<Long, ReminderManager> entry : this.managers.entrySet()) {
+            final GuildWindow window = windows.getOrDefault(entry.getKey(), empty);
+            entry.getValue().windowLoaded(window.reminders, window.activations, now, windowEnd);
+        }
+        this.loadedUntil = windowEnd;
+        LOGGER.debug("Loaded {} reminders for {} guilds", loadedCount, windows.size());
+    }
+
     private ReminderManager getReminderManager(final Guild guild, final StorageManager storage) {
         return this.managers.computeIfAbsent(guild.getIdLong(), (Long t) -> {
-            final ReminderManager reminderManager = new ReminderManager(this.dataBase.getDataSource(), t);
-            reminderManager.loadReminders(guild.getJDA(), storage);
+            final Duration window = this.dataBase.getConfig().getScheduleWindow();
+            final ReminderManager reminderManager = new ReminderManager(guild.getJDA(), storage, t, window);
+            reminderManager.loadReminders();
             return reminderManager;
         });
     }
@@ -117,13 +214,12 @@ public class ReminderCommand extends AdminCommand {
     @Override
     public void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel textChannel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
 
         final String[] arguments = matcher.getArguments(2);
         if (arguments.length == 0) {
-            textChannel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -143,7 +239,7 @@ public class ReminderCommand extends AdminCommand {
                 break;
             }
             default: {
-                textChannel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + arguments[0]).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + arguments[0]);
             }
         }
     }
@@ -160,14 +256,14 @@ public class ReminderCommand extends AdminCommand {
 
         final String[] arguments = matcher.getArguments(6);
         if (arguments.length < 2) {
-            channel.sendMessage(locale.getString("REMINDER_MISSING_NAME")).queue();
+            context.replyError(locale.getString("REMINDER_MISSING_NAME"));
             return;
         }
         final String reminderName = arguments[1];
 
         //Parse time of day
         if (arguments.length < 3) {
-            channel.sendMessage(locale.getString("REMINDER_MISSING_TIME")).queue();
+            context.replyError(locale.getString("REMINDER_MISSING_TIME"));
             return;
         }
         final String reminderTime = arguments[2];
@@ -175,13 +271,13 @@ public class ReminderCommand extends AdminCommand {
         try {
             timeOfDay = LocalTime.parse(reminderTime, translationCache.getTimeFormatter());
         } catch (DateTimeParseException e) {
-            channel.sendMessageFormat(locale.getString("REMINDER_UNKNOWN_TIME"), reminderTime).queue();
+            context.replyError(String.format(locale.getString("REMINDER_UNKNOWN_TIME"), reminderTime));
             return;
         }
 
         //Parse day of month
         if (arguments.length < 4) {
-            channel.sendMessage(locale.getString("REMINDER_MISSING_DAY")).queue();
+            context.replyError(locale.getString("REMINDER_MISSING_DAY"));
             return;
         }
         final String reminderDate = arguments[3];
@@ -190,18 +286,18 @@ public class ReminderCommand extends AdminCommand {
             try {
                 dayOfMonth = Integer.parseUnsignedInt(reminderDate);
                 if (dayOfMonth < 1 || dayOfMonth > 31) {
-                    channel.sendMessageFormat(locale.getString("REMINDER_DAY_OF_MONTH_OUT_OF_RANGE")).queue();
+                    context.replyError(String.format(locale.getString("REMINDER_DAY_OF_MONTH_OUT_OF_RANGE")));
                     return;
                 }
             } catch (NumberFormatException e) {
-                channel.sendMessageFormat(locale.getString("REMINDER_DAY_OF_MONTH_NOT_NUMBER")).queue();
+                context.replyError(String.format(locale.getString("REMINDER_DAY_OF_MONTH_NOT_NUMBER")));
                 return;
             }
         }
 
         //Parse month of year
         if (arguments.length < 5) {
-            channel.sendMessage(locale.getString("REMINDER_MISSING_MONTH")).queue();
+            context.replyError(locale.getString("REMINDER_MISSING_MONTH"));
             return;
         }
         final String reminderMonth = arguments[4];
@@ -211,10 +307,10 @@ public class ReminderCommand extends AdminCommand {
                 final int monthNumber = Integer.parseUnsignedInt(reminderMonth);
                 monthOfYear = Month.of(monthNumber);
             } catch (NumberFormatException e) {
-                channel.sendMessage(locale.getString("REMINDER_MONTH_NOT_NUMBER")).queue();
+                context.replyError(locale.getString("REMINDER_MONTH_NOT_NUMBER"));
                 return;
             } catch (DateTimeParseException e) {
-                channel.sendMessage(locale.getString("REMINDER_MONTH_OUT_OF_RANGE")).queue();
+                context.replyError(locale.getString("REMINDER_MONTH_OUT_OF_RANGE"));
                 return;
             }
         }
@@ -225,14 +321,14 @@ public class ReminderCommand extends AdminCommand {
                 final MonthDay monthDay = MonthDay.of(monthOfYear, dayOfMonth);
                 LOGGER.debug("Found monthDay: {} in reminder creation.", monthDay.toString());
             } catch (DateTimeException e) {
-                channel.sendMessage(locale.getString("REMINDER_INVALID_DATE")).queue();
+                context.replyError(locale.getString("REMINDER_INVALID_DATE"));
                 return;
             }
         }
 
         //Parse day of week
         if (arguments.length < 6) {
-            channel.sendMessage(locale.getString("REMINDER_MISSING_DAY_OF_WEEK")).queue();
+            context.replyError(locale.getString("REMINDER_MISSING_DAY_OF_WEEK"));
             return;
         }
         final String reminderDay = arguments[5];
@@ -248,7 +344,7 @@ public class ReminderCommand extends AdminCommand {
             }
             //Check if we found the day with given name
             if (dayOfWeek == null) {
-                channel.sendMessage(locale.getString("REMINDER_ERROR_UNKNOWN_DAY")).queue();
+                context.replyError(locale.getString("REMINDER_ERROR_UNKNOWN_DAY"));
                 return;
             }
         }
@@ -258,7 +354,7 @@ public class ReminderCommand extends AdminCommand {
 
         //Get the reminder message
         if (arguments.length < 7) {
-            channel.sendMessage(locale.getString("REMINDER_MISSING_MESSAGE")).queue();
+            context.replyError(locale.getString("REMINDER_MISSING_MESSAGE"));
             return;
         }
         final String messageInput = arguments[6];
@@ -273,12 +369,12 @@ public class ReminderCommand extends AdminCommand {
         //Add reminder to database
         try {
             if (!reminders.addReminder(reminder)) {
-                channel.sendMessage(locale.getString("REMINDER_ALREADY_EXISTS")).queue();
+                context.replyError(locale.getString("REMINDER_ALREADY_EXISTS"));
                 return;
             }
-            channel.sendMessageFormat(locale.getString("REMINDER_CREATE_SUCCESS")).queue();
+            context.reply(String.format(locale.getString("REMINDER_CREATE_SUCCESS")));
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("REMINDER_SQL_ERROR_ON_CREATE")).queue();
+            context.replyError(locale.getString("REMINDER_SQL_ERROR_ON_CREATE"));
             LOGGER.error("Failure to create reminder: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -290,34 +386,46 @@ public class ReminderCommand extends AdminCommand {
         final ResourceBundle locale = context.getResource();
 
         if (arguments.length < 2) {
-            textChannel.sendMessage(locale.getString("REMINDER_DELETE_MISSING_NAME")).queue();
+            context.replyError(locale.getString("REMINDER_DELETE_MISSING_NAME"));
             return;
         }
         final Guild guild = matcher.getGuild();
         final ReminderManager reminders = getReminderManager(guild, context.getStorageManager());
 
         final String reminderName = arguments[1];
-        final Optional<Reminder> oldReminder = reminders.getReminder(reminderName);
+        final Optional<Reminder> oldReminder;
+        try {
+            oldReminder = reminders.getReminder(reminderName);
+        } catch (SQLException e) {
+            context.replyError(locale.getString("REMINDER_SQL_ERROR_ON_FINDING_REMINDER"));
+            LOGGER.error("Failure to find reminder: {}", e.getMessage());
+            LOGGER.trace("Stack trace", e);
+            return;
+        }
         if (oldReminder.isEmpty()) {
-            textChannel.sendMessageFormat(locale.getString("REMINDER_NOT_FOUND_NAME"), reminderName).queue();
+            context.replyError(String.format(locale.getString("REMINDER_NOT_FOUND_NAME"), reminderName));
             return;
         }
         final Reminder reminder = oldReminder.get();
 
         //Check if user has permission to remove the event
         final Member sender = matcher.getMember();
-        textChannel.getGuild().retrieveMemberById(reminder.getAuthor()).submit().whenComplete((Member reminderOwner, Throwable e) -> {
+        context.getMemberResolver().resolveMember(textChannel.getGuild(), reminder.getAuthor()).whenComplete((Member reminderOwner, Throwable e) -> {
+            if (e != null) {
+                context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+                return;
+            }
             final boolean hasPermission = PermissionUtilities.hasPermission(sender, reminderOwner);
             if (!hasPermission) {
-                textChannel.sendMessage(locale.getString("REMINDER_DELETE_MISSING_PERMISSION")).queue();
+                context.replyError(locale.getString("REMINDER_DELETE_MISSING_PERMISSION"));
                 return;
             }
 
             try {
                 reminders.deleteReminder(reminder);
-                textChannel.sendMessage(locale.getString("REMINDER_DELETE_SUCCESS")).queue();
+                context.reply(locale.getString("REMINDER_DELETE_SUCCESS"));
             } catch (SQLException ex) {
-                textChannel.sendMessage(locale.getString("REMINDER_SQL_ERROR_ON_DELETE")).queue();
+                context.replyError(locale.getString("REMINDER_SQL_ERROR_ON_DELETE"));
                 LOGGER.error("Failure to delete reminder: {}", ex.getMessage());
                 LOGGER.trace("Stack trace", ex);
             }
@@ -327,33 +435,21 @@ public class ReminderCommand extends AdminCommand {
     private void listReminders(final CommandContext context) {
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
+        final ReminderManager reminders = getReminderManager(context.getGuild(), context.getStorageManager());
+        final ListPaginator<Reminder> paginator = new ListPaginator<>(Reminder::getName, Reminder::getAuthor,
+                (Reminder reminder, Member owner) -> {
+                    return reminder.toListElement(translationCache, owner);
+                });
+        paginator.sendPage(context, reminders::getReminders, locale.getString("HEADER_REMINDERS"),
+                "REMINDER_NO_REMINDERS", "REMINDER_SQL_ERROR_ON_LOADING_REMINDERS");
+    }
 
-        //Construct the embed
-        final String header = locale.getString("HEADER_REMINDERS");
-        final EmbedBuilder eb = new EmbedBuilder();
-        eb.setTitle(header);
-
-        //Initialize all the futures
-        final Guild guild = context.getMatcher().getGuild();
-        final StorageManager storage = context.getStorageManager();
-        final Collection<Reminder> ev = getReminderManager(guild, storage).getReminders();
-        final List<CompletableFuture<String>> futures = new ArrayList<>(ev.size());
-        ev.forEach((Reminder reminder) -> {
-            futures.add(reminder.toListElement(translationCache));
-        });
-
-        //After all the futures all initialized start waiting for results
-        final StringBuilder contentBuilder = new StringBuilder();
-        futures.forEach(desc -> {
-            contentBuilder.append(desc.join());
-        });
-        if (ev.isEmpty()) {
-            contentBuilder.append(locale.getString("REMINDER_NO_REMINDERS"));
-        }
-        eb.setDescription(contentBuilder);
+    /**
+     * Reminders of a guild in the loaded window
+     */
+    private static class GuildWindow {
 
-        final TextChannel textChannel = context.getChannel();
-        textChannel.sendMessageEmbeds(eb.build()).queue();
+        private final List<Reminder> reminders = new ArrayList<>();
+        private final List<Long> activations = new ArrayList<>();
     }
-
 }
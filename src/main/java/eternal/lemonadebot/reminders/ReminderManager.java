@@ -24,6 +24,8 @@
 package eternal.lemonadebot.reminders;
 
 import eternal.lemonadebot.database.StorageManager;
+import eternal.lemonadebot.scheduling.CatchUpQueue;
+import eternal.lemonadebot.scheduling.TimerService;
 import java.io.Closeable;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -31,22 +33,25 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.DateTimeException;
 import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalTime;
 import java.time.Month;
-import java.time.format.DateTimeParseException;
-import java.util.Collection;
-import java.util.Collections;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import javax.sql.DataSource;
 import net.dv8tion.jda.api.JDA;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
+ * Stores reminders in the database and keeps the ones activating within the
+ * loading window scheduled in memory
  *
  * @author Neutroni
  */
@@ -54,28 +59,82 @@ public class ReminderManager implements Closeable {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    //Stored for reminders that can never activate again so they are never loaded
+    private static final long NEVER = Long.MAX_VALUE;
+
     private final DataSource dataSource;
+    private final JDA jda;
+    private final StorageManager storage;
     private final long guildID;
+    private final TimerService reminderTimer;
+    private final CatchUpQueue catchUpQueue;
+    private final Duration loadWindow;
 
+    //Reminders activating before loadedUntil, guarded by this when modifying
     private final Map<String, Reminder> reminders = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService reminderTimer = Executors.newSingleThreadScheduledExecutor();
+
+    //Guarded by this
+    private long loadedUntil = Long.MIN_VALUE;
+    private boolean closed;
+    private boolean rescheduled;
 
     /**
      * Constructor
      *
-     * @param ds DataSource to get connection from
-     * @param guildID GuildData to pass to reminders
+     * @param jda JDA to pass to reminders
+     * @param storage StorageManager to pass to reminders
+     * @param guildID ID of the guild to store reminders for
+     * @param window How far ahead reminders are loaded to memory
      */
-    public ReminderManager(final DataSource ds, final long guildID) {
-        this.dataSource = ds;
+    public ReminderManager(final JDA jda, final StorageManager storage, final long guildID, final Duration window) {
+        this.dataSource = storage.getDataSource();
+        this.jda = jda;
+        this.storage = storage;
         this.guildID = guildID;
+        this.reminderTimer = storage.getTimerService();
+        this.catchUpQueue = storage.getCatchUpQueue();
+        this.loadWindow = window;
     }
 
     @Override
-    public void close() {
-        //Cancel all scheduled reminders
+    public synchronized void close() {
+        //Cancel all scheduled reminders, timer is shared so it is not shut down
+        this.closed = true;
+        this.reminders.values().forEach(Reminder::cancel);
+        this.reminders.clear();
+    }
+
+    /**
+     * Reschedule all reminders, used when the guild time zone changes
+     *
+     * @param timeZone Time zone reminders should activate in
+     */
+    synchronized void rescheduleReminders(final ZoneId timeZone) {
+        LOGGER.debug("Rescheduling reminders for guild: {} to time zone: {}", this.guildID, timeZone);
         this.reminders.values().forEach(Reminder::cancel);
-        this.reminderTimer.shutdown();
+        this.reminders.clear();
+
+        //Store new activation times for every reminder and load the window again
+        final ZonedDateTime now = ZonedDateTime.now(timeZone);
+        final List<Reminder> stored = new ArrayList<>();
+        final String query = "SELECT name,message,author,channel,time,dayOfWeek,dayOfMonth,monthOfYear,nextActivation FROM Reminders WHERE guild = ?;";
+        try (final Connection connection = this.dataSource.getConnection()) {
+            try (final PreparedStatement ps = connection.prepareStatement(query)) {
+                ps.setLong(1, this.guildID);
+                try (final ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        readReminder(rs).ifPresent(stored::add);
+                    }
+                }
+            }
+            storeNextActivations(connection, stored, now);
+        } catch (SQLException e) {
+            LOGGER.error("Updating reminder activations failed: {}", e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+        }
+        this.loadedUntil = Long.MIN_VALUE;
+        this.rescheduled = true;
+        loadReminders();
     }
 
     /**
@@ -85,18 +144,13 @@ public class ReminderManager implements Closeable {
      * @return true if event was added
      * @throws SQLException If database connection failed
      */
-    boolean addReminder(final Reminder reminder) throws SQLException {
+    synchronized boolean addReminder(final Reminder reminder) throws SQLException {
         LOGGER.debug("Storing reminder: {}", reminder.getName());
-        final Reminder oldReminder = this.reminders.putIfAbsent(reminder.getName(), reminder);
-
-        //If timer was just added schedule the activation
-        if (oldReminder == null) {
-            reminder.scheduleWith(this.reminderTimer);
-            LOGGER.debug("Reminder: {} scheduled with ScheduledExecutorService", reminder.getName());
-        }
+        final Optional<ZonedDateTime> nextActivation = reminder.getTime().getNextActivation(ZonedDateTime.now(getZoneId()));
+        final long activationMillis = nextActivation.map(this::toEpochMilli).orElse(NEVER);
 
         //Add to database
-        final String query = "INSERT OR IGNORE INTO Reminders(guild,name,message,author,channel,time,dayOfWeek,dayOfMonth,monthOfYear) VALUES(?,?,?,?,?,?,?,?,?);";
+        final String query = "INSERT OR IGNORE INTO Reminders(guild,name,message,author,channel,time,dayOfWeek,dayOfMonth,monthOfYear,nextActivation) VALUES(?,?,?,?,?,?,?,?,?,?);";
         final ReminderActivationTime activationTime = reminder.getTime();
         final String reminderName = reminder.getName();
         final String reminderMessage = reminder.getTemplate();
@@ -118,6 +172,7 @@ public class ReminderManager implements Closeable {
         } else {
             monthOfYear = month.getValue();
         }
+        final boolean added;
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, this.guildID);
@@ -129,8 +184,15 @@ public class ReminderManager implements Closeable {
             ps.setLong(7, dayOfWeek);
             ps.setLong(8, dayOfMonth);
             ps.setLong(9, monthOfYear);
-            return ps.executeUpdate() > 0;
+            ps.setLong(10, activationMillis);
+            added = ps.executeUpdate() > 0;
+        }
+
+        //Reminders activating after the window get loaded when the window reaches them
+        if (added && activationMillis < this.loadedUntil) {
+            scheduleReminder(reminder, nextActivation.get());
         }
+        return added;
     }
 
     /**
@@ -141,7 +203,10 @@ public class ReminderManager implements Closeable {
      */
     boolean deleteReminder(final Reminder reminder) throws SQLException {
         reminder.cancel();
-        this.reminders.remove(reminder.getName());
+        final Reminder loaded = this.reminders.remove(reminder.getName());
+        if (loaded != null) {
+            loaded.cancel();
+        }
 
         //Remove from database
         final String query = "DELETE FROM Reminders Where guild = ? AND name = ?;";
@@ -158,102 +223,333 @@ public class ReminderManager implements Closeable {
      *
      * @param name name of the reminder
      * @return Optional containing the reminder if found
+     * @throws SQLException if database connection failed
      */
-    Optional<Reminder> getReminder(final String name) {
-        return Optional.ofNullable(this.reminders.get(name));
+    Optional<Reminder> getReminder(final String name) throws SQLException {
+        final Reminder loaded = this.reminders.get(name);
+        if (loaded != null) {
+            return Optional.of(loaded);
+        }
+        final String query = "SELECT name,message,author,channel,time,dayOfWeek,dayOfMonth,monthOfYear,nextActivation FROM Reminders WHERE guild = ? AND name = ?;";
+        try (final Connection connection = this.dataSource.getConnection();
+                final PreparedStatement ps = connection.prepareStatement(query)) {
+            ps.setLong(1, this.guildID);
+            ps.setString(2, name);
+            try (final ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return readReminder(rs);
+                }
+            }
+        }
+        return Optional.empty();
     }
 
     /**
-     * Get the list of reminders currently active
+     * Get page of the reminders stored for the guild ordered by name
      *
+     * @param after name to get the reminders after, empty for first page
+     * @param limit maximum number of reminders to get
      * @return List of reminders
+     * @throws SQLException if database connection failed
      */
-    Collection<Reminder> getReminders() {
-        return Collections.unmodifiableCollection(this.reminders.values());
-    }
-
-    /**
-     * Load reminders from database
-     *
-     * @param jda JDA to pass to reminders
-     * @param storage StorageManager to pass to reminders
-     */
-    public void loadReminders(final JDA jda, StorageManager storage) {
-        LOGGER.debug("Started loading reminders for guild: {} from database", this.guildID);
-        final String query = "SELECT name,message,author,channel,time,dayOfWeek,dayOfMonth,monthOfYear FROM Reminders WHERE guild = ?;";
+    List<Reminder> getReminders(final String after, final int limit) throws SQLException {
+        final List<Reminder> result = new ArrayList<>(limit);
+        final String query = "SELECT name,message,author,channel,time,dayOfWeek,dayOfMonth,monthOfYear,nextActivation FROM Reminders "
+                + "WHERE guild = ? AND name > ? ORDER BY name LIMIT ?;";
         try (final Connection connection = this.dataSource.getConnection();
                 final PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setLong(1, this.guildID);
+            ps.setString(2, after);
+            ps.setInt(3, limit);
             try (final ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    final String reminderName = rs.getString("name");
-                    final String reminderMessage = rs.getString("message");
-                    final long reminderAuthor = rs.getLong("author");
-                    final long reminderChannel = rs.getLong("channel");
-
-                    //Load time reminder activates on
-                    final long reminderTime = rs.getLong("time");
-                    final LocalTime activationTime;
-                    try {
-                        activationTime = LocalTime.ofSecondOfDay(reminderTime);
-                    } catch (DateTimeException e) {
-                        LOGGER.error("Malformed time for reminder: {} in database: {}", reminderName, reminderTime);
-                        return;
-                    }
-
-                    //Load dayOfWeek if present
-                    final int dayOfWeek = rs.getInt("dayOfWeek");
-                    final DayOfWeek activationDay;
-                    if (dayOfWeek == 0) {
-                        activationDay = null;
-                    } else {
-                        try {
-                            activationDay = DayOfWeek.of(dayOfWeek);
-                        } catch (DateTimeException e) {
-                            LOGGER.error("Malformed dayOfWeek for reminder: {} in database: {}", reminderName, dayOfWeek);
-                            continue;
-                        }
-                    }
+                    readReminder(rs).ifPresent((Reminder reminder) -> {
+                        //Prefer the scheduled instance if the reminder is loaded
+                        result.add(this.reminders.getOrDefault(reminder.getName(), reminder));
+                    });
+                }
+            }
+        }
+        return result;
+    }
 
-                    //Load dayOfMonth
-                    final int dayOfMonth = rs.getInt("dayOfMonth");
-                    if (dayOfMonth > 31) {
-                        LOGGER.error("Malformed dayOfMonth in database: {}", dayOfMonth);
-                        continue;
-                    }
+    /**
+     * Load the reminders of the guild activating within the loading window
+     * from database, used for the first load and after rescheduling. Later
+     * windows are loaded for all guilds at once by ReminderCommand. On the
+     * first load activations missed while offline are replayed through the
+     * catch-up queue.
+     */
+    public synchronized void loadReminders() {
+        if (this.closed) {
+            return;
+        }
+        final boolean startup = this.loadedUntil == Long.MIN_VALUE && !this.rescheduled;
+        final long now = System.currentTimeMillis();
+        final long windowEnd = now + this.loadWindow.toMillis();
+        LOGGER.debug("Loading reminders for guild: {} activating before: {}", this.guildID, windowEnd);
 
-                    //Load monthOfYear if present
-                    final int monthOfYear = rs.getInt("monthOfYear");
-                    final Month reminderMonth;
-                    if (monthOfYear == 0) {
-                        reminderMonth = null;
-                    } else {
-                        try {
-                            reminderMonth = Month.of(monthOfYear);
-                        } catch (DateTimeParseException e) {
-                            LOGGER.error("Malformed monthDay in database: {}", monthOfYear);
-                            continue;
+        final String query = "SELECT name,message,author,channel,time,dayOfWeek,dayOfMonth,monthOfYear,nextActivation FROM Reminders "
+                + "WHERE guild = ? AND nextActivation >= ? AND nextActivation < ? ORDER BY nextActivation;";
+        final List<Reminder> loaded = new ArrayList<>();
+        final List<Long> activations = new ArrayList<>();
+        try {
+            try (final Connection connection = this.dataSource.getConnection();
+                    final PreparedStatement ps = connection.prepareStatement(query)) {
+                ps.setLong(1, this.guildID);
+                ps.setLong(2, this.loadedUntil);
+                ps.setLong(3, windowEnd);
+                try (final ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        final Optional<Reminder> optReminder = readReminder(rs);
+                        if (optReminder.isPresent()) {
+                            loaded.add(optReminder.get());
+                            activations.add(rs.getLong("nextActivation"));
                         }
                     }
+                }
+            }
+            scheduleLoaded(loaded, activations, now, windowEnd, startup);
+        } catch (SQLException e) {
+            LOGGER.error("Loading reminders from database failed: {}", e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+        }
+    }
 
-                    final ReminderActivationTime reminderActivationTime = new ReminderActivationTime(activationTime, activationDay, dayOfMonth, reminderMonth);
+    /**
+     * Called by ReminderCommand with the reminders of this guild from the
+     * window loaded for all guilds
+     *
+     * @param loaded Reminders activating within the window
+     * @param activations Stored activations of the reminders in same order
+     * @param now Time the window was loaded at
+     * @param windowEnd End of the loaded window
+     */
+    synchronized void windowLoaded(final List<Reminder> loaded, final List<Long> activations, final long now, final long windowEnd) {
+        if (this.closed) {
+            return;
+        }
+        //Earlier load of the guild failed, window does not cover the reminders before it
+        if (this.loadedUntil == Long.MIN_VALUE) {
+            loadReminders();
+            return;
+        }
+        try {
+            scheduleLoaded(loaded, activations, now, windowEnd, false);
+        } catch (SQLException e) {
+            LOGGER.error("Updating loaded reminders failed: {}", e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+        }
+    }
 
-                    //Construct and add to list of reminders
-                    final Reminder reminder = new Reminder(jda, storage, this.guildID, this,
-                            reminderName, reminderMessage, reminderChannel, reminderAuthor, reminderActivationTime);
-                    this.reminders.put(reminder.getName(), reminder);
-                    LOGGER.debug("Reminder successfully loaded: {}", reminder.getName());
+    /**
+     * Schedule loaded reminders, caller must hold the lock on this
+     *
+     * @param loaded Reminders activating within the window
+     * @param activations Stored activations of the reminders in same order
+     * @param now Time the window was loaded at
+     * @param windowEnd End of the loaded window
+     * @param startup true to replay activations missed while offline
+     * @throws SQLException if storing activations for stale reminders failed
+     */
+    private void scheduleLoaded(final List<Reminder> loaded, final List<Long> activations, final long now,
+            final long windowEnd, final boolean startup) throws SQLException {
+        final List<Reminder> stale = new ArrayList<>();
+        final List<Long> missedActivations = new ArrayList<>();
+        for (int i = 0; i < loaded.size(); i++) {
+            final Reminder reminder = loaded.get(i);
+            final long nextActivation = activations.get(i);
+            if (nextActivation <= now) {
+                //Activation passed while offline or was never computed
+                stale.add(reminder);
+                missedActivations.add(nextActivation);
+                continue;
+            }
+            final ZonedDateTime activation = Instant.ofEpochMilli(nextActivation).atZone(getZoneId());
+            scheduleReminder(reminder, activation);
+        }
 
-                    reminder.scheduleWith(this.reminderTimer);
-                    LOGGER.debug("Reminder: {} scheduled with ScheduledExecutorService", reminder.getName());
+        //Compute activations for stale reminders and schedule the ones in window
+        if (!stale.isEmpty()) {
+            final ZonedDateTime zonedNow = ZonedDateTime.now(getZoneId());
+            final List<ZonedDateTime> nextActivations;
+            try (final Connection connection = this.dataSource.getConnection()) {
+                nextActivations = storeNextActivations(connection, stale, zonedNow);
+            }
+            for (int i = 0; i < stale.size(); i++) {
+                //Replay the missed activation once, zero means the activation was never computed
+                final long missed = missedActivations.get(i);
+                if (startup && missed > 0) {
+                    this.catchUpQueue.submit(this.guildID, Instant.ofEpochMilli(missed), stale.get(i)::activate);
+                }
+                final ZonedDateTime activation = nextActivations.get(i);
+                if (activation != null && toEpochMilli(activation) < windowEnd) {
+                    scheduleReminder(stale.get(i), activation);
                 }
             }
-            LOGGER.debug("Reminders for guild: {} loaded successfully.", this.guildID);
+        }
+        this.loadedUntil = Math.max(this.loadedUntil, windowEnd);
+        LOGGER.debug("Reminders for guild: {} loaded successfully, {} in memory", this.guildID, this.reminders.size());
+    }
+
+    /**
+     * Called by a reminder after it activated, stores and schedules the next
+     * activation
+     *
+     * @param reminder Reminder that activated
+     * @param activation Activation that happened
+     */
+    synchronized void reminderActivated(final Reminder reminder, final ZonedDateTime activation) {
+        if (this.closed || this.reminders.get(reminder.getName()) != reminder) {
+            return;
+        }
+        //Never compute from before the activation that happened so it does not repeat
+        final ZoneId timeZone = getZoneId();
+        final ZonedDateTime now = ZonedDateTime.now(timeZone);
+        final ZonedDateTime activated = activation.withZoneSameInstant(timeZone);
+        final ZonedDateTime after;
+        if (activated.isAfter(now)) {
+            after = activated;
+        } else {
+            after = now;
+        }
+
+        final List<ZonedDateTime> next;
+        try (final Connection connection = this.dataSource.getConnection()) {
+            next = storeNextActivations(connection, List.of(reminder), after);
         } catch (SQLException e) {
-            LOGGER.error("Loading reminders from database failed");
-            LOGGER.warn(e.getMessage());
-            LOGGER.trace(e);
+            LOGGER.error("Storing next activation for reminder: {} failed: {}", reminder.getName(), e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+            this.reminders.remove(reminder.getName());
+            return;
         }
+
+        //Keep in memory only if the next activation is within the loaded window
+        final ZonedDateTime nextActivation = next.get(0);
+        if (nextActivation != null && toEpochMilli(nextActivation) < this.loadedUntil) {
+            reminder.schedule(this.reminderTimer, nextActivation);
+        } else {
+            this.reminders.remove(reminder.getName());
+        }
+    }
+
+    /**
+     * Schedule loaded reminder, caller must hold the lock on this
+     *
+     * @param reminder Reminder to schedule
+     * @param activation Time the reminder activates at
+     */
+    private void scheduleReminder(final Reminder reminder, final ZonedDateTime activation) {
+        if (this.reminders.putIfAbsent(reminder.getName(), reminder) == null) {
+            reminder.schedule(this.reminderTimer, activation);
+        }
+    }
+
+    /**
+     * Compute and store the next activation for reminders
+     *
+     * @param connection Connection to use
+     * @param stored Reminders to update
+     * @param after Time after which the activations happen
+     * @return List of activations in the same order as reminders, null if the
+     * reminder can not activate again
+     * @throws SQLException if database connection failed
+     */
+    private List<ZonedDateTime> storeNextActivations(final Connection connection, final List<Reminder> stored,
+            final ZonedDateTime after) throws SQLException {
+        final List<ZonedDateTime> activations = new ArrayList<>(stored.size());
+        if (stored.isEmpty()) {
+            return activations;
+        }
+        final String query = "UPDATE Reminders SET nextActivation = ? WHERE guild = ? AND name = ?;";
+        try (final PreparedStatement ps = connection.prepareStatement(query)) {
+            for (final Reminder reminder : stored) {
+                final ZonedDateTime activation = reminder.getTime().getNextActivation(after).orElse(null);
+                activations.add(activation);
+                if (activation == null) {
+                    LOGGER.warn("Reminder: {} has no future activation", reminder.getName());
+                    ps.setLong(1, NEVER);
+                } else {
+                    ps.setLong(1, toEpochMilli(activation));
+                }
+                ps.setLong(2, this.guildID);
+                ps.setString(3, reminder.getName());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        return activations;
+    }
+
+    /**
+     * Construct reminder from the current row of a result set
+     *
+     * @param rs ResultSet to read from
+     * @return Optional containing the reminder, empty if the row is malformed
+     * @throws SQLException if reading the row failed
+     */
+    Optional<Reminder> readReminder(final ResultSet rs) throws SQLException {
+        final String reminderName = rs.getString("name");
+        final String reminderMessage = rs.getString("message");
+        final long reminderAuthor = rs.getLong("author");
+        final long reminderChannel = rs.getLong("channel");
+
+        //Load time reminder activates on
+        final long reminderTime = rs.getLong("time");
+        final LocalTime activationTime;
+        try {
+            activationTime = LocalTime.ofSecondOfDay(reminderTime);
+        } catch (DateTimeException e) {
+            LOGGER.error("Malformed time for reminder: {} in database: {}", reminderName, reminderTime);
+            return Optional.empty();
+        }
+
+        //Load dayOfWeek if present
+        final int dayOfWeek = rs.getInt("dayOfWeek");
+        final DayOfWeek activationDay;
+        if (dayOfWeek == 0) {
+            activationDay = null;
+        } else {
+            try {
+                activationDay = DayOfWeek.of(dayOfWeek);
+            } catch (DateTimeException e) {
+                LOGGER.error("Malformed dayOfWeek for reminder: {} in database: {}", reminderName, dayOfWeek);
+                return Optional.empty();
+            }
+        }
+
+        //Load dayOfMonth
+        final int dayOfMonth = rs.getInt("dayOfMonth");
+        if (dayOfMonth > 31) {
+            LOGGER.error("Malformed dayOfMonth in database: {}", dayOfMonth);
+            return Optional.empty();
+        }
+
+        //Load monthOfYear if present
+        final int monthOfYear = rs.getInt("monthOfYear");
+        final Month reminderMonth;
+        if (monthOfYear == 0) {
+            reminderMonth = null;
+        } else {
+            try {
+                reminderMonth = Month.of(monthOfYear);
+            } catch (DateTimeException e) {
+                LOGGER.error("Malformed monthDay in database: {}", monthOfYear);
+                return Optional.empty();
+            }
+        }
+
+        final ReminderActivationTime reminderActivationTime = new ReminderActivationTime(activationTime, activationDay, dayOfMonth, reminderMonth);
+        return Optional.of(new Reminder(this.jda, this.storage, this.guildID, this,
+                reminderName, reminderMessage, reminderChannel, reminderAuthor, reminderActivationTime));
+    }
+
+    private ZoneId getZoneId() {
+        return this.storage.getConfigCache().getConfigManager(this.guildID).getZoneId();
+    }
+
+    private long toEpochMilli(final ZonedDateTime time) {
+        return time.toInstant().toEpochMilli();
     }
 
 }
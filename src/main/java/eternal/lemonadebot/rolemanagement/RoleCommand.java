@@ -25,7 +25,6 @@ package eternal.lemonadebot.rolemanagement;
 
 import eternal.lemonadebot.commands.ChatCommand;
 import eternal.lemonadebot.commands.CommandContext;
-import eternal.lemonadebot.database.StorageConfig;
 import eternal.lemonadebot.database.DatabaseManager;
 import eternal.lemonadebot.messageparsing.CommandMatcher;
 import eternal.lemonadebot.permissions.CommandPermission;
@@ -38,19 +37,19 @@ import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 import java.util.ResourceBundle;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.MessageBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
-import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -106,20 +105,19 @@ public class RoleCommand extends ChatCommand {
     @Override
     protected void respond(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final TranslationCache translationCache = context.getTranslation();
         final ResourceBundle locale = translationCache.getResourceBundle();
 
         //Check that we can assign roles here
         final Guild guild = matcher.getGuild();
         if (!guild.getSelfMember().hasPermission(Permission.MANAGE_ROLES)) {
-            channel.sendMessage(locale.getString("ROLE_BOT_NO_PERMISSION")).queue();
+            context.replyError(locale.getString("ROLE_BOT_NO_PERMISSION"));
             return;
         }
 
         final String[] opts = matcher.getArguments(2);
         if (opts.length == 0) {
-            channel.sendMessage(locale.getString("ERROR_MISSING_OPERATION")).queue();
+            context.replyError(locale.getString("ERROR_MISSING_OPERATION"));
             return;
         }
 
@@ -155,7 +153,7 @@ public class RoleCommand extends ChatCommand {
                 break;
             }
             default: {
-                channel.sendMessage(locale.getString("ERROR_UNKNOWN_OPERATION") + action).queue();
+                context.replyError(locale.getString("ERROR_UNKNOWN_OPERATION") + action);
             }
         }
 
@@ -163,7 +161,6 @@ public class RoleCommand extends ChatCommand {
 
     private static void getRoleFromGuild(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final Guild guild = matcher.getGuild();
         final TranslationCache translation = context.getTranslation();
         final ResourceBundle locale = translation.getResourceBundle();
@@ -172,189 +169,270 @@ public class RoleCommand extends ChatCommand {
         final Member sender = matcher.getMember();
         final List<Role> currentRoles = sender.getRoles();
         if (currentRoles.size() > 0) {
-            channel.sendMessage(locale.getString("ROLE_ALREADY_HAS_ROLE")).queue();
+            context.replyError(locale.getString("ROLE_ALREADY_HAS_ROLE"));
             return;
         }
         //Get the name of the guild user wants role for
         if (opts.length < 2) {
-            autoAssignRole(channel, sender, locale);
+            autoAssignRole(context, sender, locale);
             return;
         }
         //Ignore current server
         final String requestedRoleName = opts[1];
         final Collator collator = translation.getCollator();
         if (collator.equals(guild.getName(), requestedRoleName)) {
-            channel.sendMessage(locale.getString("ROLE_CURRENT_GUILD_NOT_ALLOWED")).queue();
+            context.replyError(locale.getString("ROLE_CURRENT_GUILD_NOT_ALLOWED"));
             return;
         }
         //Try to assign the role user wants
-        assignRole(channel, sender, requestedRoleName, translation);
+        assignRole(context, sender, requestedRoleName, translation);
     }
 
     /**
      * Try to assign role to user
      *
-     * @param channel Channel to use to respond
+     * @param context Context to respond to
      * @param sender Command user
      * @param requestedRoleName Name of the role user wants
      * @param guildData GuildData to get locale from
      */
-    private static void assignRole(final TextChannel channel, final Member sender, final String requestedRoleName, final TranslationCache translation) {
-        final Guild currentGuild = channel.getGuild();
+    private static void assignRole(final CommandContext context, final Member sender, final String requestedRoleName, final TranslationCache translation) {
+        final Guild currentGuild = context.getGuild();
         final ResourceBundle locale = translation.getResourceBundle();
         final Collator collator = translation.getCollator();
-        //Guilds we share with the user
-        final List<Guild> mutualGuilds = sender.getUser().getMutualGuilds();
 
-        //Get names of the mutual guilds
-        final List<String> possibleRoleNames = new ArrayList<>(mutualGuilds.size());
-        final List<String> missingRoleNames = new ArrayList<>(mutualGuilds.size());
-
-        //Find and assign role
-        for (final Guild otherGuild : mutualGuilds) {
-            //Ignore current guild
-            if (otherGuild.equals(currentGuild)) {
+        //Guilds that have a role here and guilds with the requested name
+        final List<Guild> candidates = getRoleGuilds(currentGuild);
+        boolean requestedGuildExists = false;
+        for (final Guild otherGuild : currentGuild.getJDA().getGuilds()) {
+            if (otherGuild.equals(currentGuild) || !collator.equals(otherGuild.getName(), requestedRoleName)) {
                 continue;
             }
+            requestedGuildExists = true;
+            if (!candidates.contains(otherGuild)) {
+                candidates.add(otherGuild);
+            }
+        }
+        final boolean requestedFound = requestedGuildExists;
 
-            //Check if guild name is equal to one user requested
-            final String otherGuildName = otherGuild.getName();
-            if (!collator.equals(otherGuildName, requestedRoleName)) {
-                if (currentGuild.getRolesByName(otherGuildName, true).isEmpty()) {
-                    //Found guild that current guild does not have a role for
-                    missingRoleNames.add(otherGuildName);
-                } else {
+        findMemberships(sender.getUser(), candidates).thenAccept((List<Member> memberships) -> {
+            //Get names of the mutual guilds
+            final List<String> possibleRoleNames = new ArrayList<>(memberships.size());
+
+            //Find and assign role
+            for (final Member otherMember : memberships) {
+                //Check if guild name is equal to one user requested
+                final String otherGuildName = otherMember.getGuild().getName();
+                if (!collator.equals(otherGuildName, requestedRoleName)) {
                     possibleRoleNames.add(otherGuildName);
+                    continue;
                 }
-                continue;
-            }
 
-            //Make sure they are a member on the other server
-            final Member otherMember = otherGuild.getMember(sender.getUser());
-            if (otherMember == null) {
-                channel.sendMessage(locale.getString("ROLE_OTHER_SERVER_MEMBER_NOT_FOUND")).queue();
-                return;
-            }
-            if (otherMember.getRoles().isEmpty()) {
-                channel.sendMessage(locale.getString("ROLE_OTHER_SEVER_NO_ROLES")).queue();
+                if (otherMember.getRoles().isEmpty()) {
+                    context.replyError(locale.getString("ROLE_OTHER_SEVER_NO_ROLES"));
+                    return;
+                }
+
+                //Find the matching role for given guild
+                final List<Role> roles = currentGuild.getRolesByName(requestedRoleName, true);
+                if (roles.isEmpty()) {
+                    context.replyError(locale.getString("ROLE_NO_ROLE_FOR_SERVER"));
+                    return;
+                }
+
+                //Assign found role to the sender, this could assign multiple roles if there is multiple roles with same name
+                currentGuild.modifyMemberRoles(sender, roles, null).queue((Void t) -> {
+                    //Success
+                    context.reply(locale.getString("ROLE_ASSING_SUCCESS"));
+                }, (Throwable t) -> {
+                    //Failure
+                    LOGGER.warn("Assigning role failed: {}", t.getMessage());
+                    context.replyError(locale.getString("ROLE_ASSIGN_FAILED"));
+                });
                 return;
             }
 
-            //Find the matching role for given guild
-            final List<Role> roles = currentGuild.getRolesByName(requestedRoleName, true);
-            if (roles.isEmpty()) {
-                channel.sendMessage(locale.getString("ROLE_NO_ROLE_FOR_SERVER")).queue();
+            //Make sure they are a member on the other server
+            if (requestedFound) {
+                context.replyError(locale.getString("ROLE_OTHER_SERVER_MEMBER_NOT_FOUND"));
                 return;
             }
 
-            //Assign found role to the sender, this could assign multiple roles if there is multiple roles with same name
-            currentGuild.modifyMemberRoles(sender, roles, null).queue((Void t) -> {
-                //Success
-                channel.sendMessage(locale.getString("ROLE_ASSING_SUCCESS")).queue();
-            }, (Throwable t) -> {
-                //Failure
-                LOGGER.warn("Assigning role failed: {}", t.getMessage());
-                channel.sendMessage(locale.getString("ROLE_ASSIGN_FAILED")).queue();
-            });
-            return;
-        }
+            //Guilds known to be shared with the user that have no role here, only cached members are checked
+            final List<String> missingRoleNames = new ArrayList<>();
+            for (final Guild otherGuild : sender.getUser().getMutualGuilds()) {
+                if (!otherGuild.equals(currentGuild) && currentGuild.getRolesByName(otherGuild.getName(), true).isEmpty()) {
+                    missingRoleNames.add(otherGuild.getName());
+                }
+            }
 
-        //Did not find guild with the requested name, show list of found guilds
-        final MessageBuilder mb = new MessageBuilder();
-        final String template = locale.getString("ROLE_DID_NOT_FIND_GUILD");
-        mb.appendFormat(template, requestedRoleName);
-        if (possibleRoleNames.isEmpty()) {
-            mb.append(locale.getString("ROLE_NO_AVAILABLE_ROLES"));
-        } else {
-            mb.appendFormat(locale.getString("ROLE_VALID_ROLE_NAMES"), String.join(",", possibleRoleNames));
-        }
-        if (!missingRoleNames.isEmpty()) {
-            mb.appendFormat(locale.getString("ROLE_GUILD_MISSING_ROLES"), String.join(",", missingRoleNames));
-        }
-        channel.sendMessage(mb.build()).queue();
+            //Did not find guild with the requested name, show list of found guilds
+            final MessageBuilder mb = new MessageBuilder();
+            final String template = locale.getString("ROLE_DID_NOT_FIND_GUILD");
+            mb.appendFormat(template, requestedRoleName);
+            if (possibleRoleNames.isEmpty()) {
+                mb.append(locale.getString("ROLE_NO_AVAILABLE_ROLES"));
+            } else {
+                mb.appendFormat(locale.getString("ROLE_VALID_ROLE_NAMES"), String.join(",", possibleRoleNames));
+            }
+            if (!missingRoleNames.isEmpty()) {
+                mb.appendFormat(locale.getString("ROLE_GUILD_MISSING_ROLES"), String.join(",", missingRoleNames));
+            }
+            context.reply(mb.build());
+        }).exceptionally((Throwable t) -> {
+            return memberRetrievalFailed(context, locale, t);
+        });
     }
 
     /**
      * Try to automatically assign role to sender
      *
-     * @param channel Channel to use to respond
+     * @param context Context to respond to
      * @param member Command user
      * @param locale Locale for current guild
      */
-    private static void autoAssignRole(final TextChannel channel, final Member member, final ResourceBundle locale) {
-        final Guild currentGuild = channel.getGuild();
-        final List<Guild> mutualGuilds = member.getUser().getMutualGuilds();
-        //Construct the list of valid guilds
-        final List<Guild> validGuilds = mutualGuilds.stream().filter((Guild otherGuild) -> {
-            //Ignore current guild
-            if (otherGuild.equals(currentGuild)) {
-                return false;
-            }
-            //Get the person on the other server
-            final Member otherGuildMember = otherGuild.getMember(member.getUser());
-            if (otherGuildMember == null) {
-                return false;
+    private static void autoAssignRole(final CommandContext context, final Member member, final ResourceBundle locale) {
+        final Guild currentGuild = context.getGuild();
+        findMemberships(member.getUser(), getRoleGuilds(currentGuild)).thenAccept((List<Member> memberships) -> {
+            //Construct the list of valid guilds, guilds where the person has any roles
+            final List<Guild> validGuilds = new ArrayList<>(memberships.size());
+            for (final Member otherGuildMember : memberships) {
+                if (!otherGuildMember.getRoles().isEmpty()) {
+                    validGuilds.add(otherGuildMember.getGuild());
+                }
             }
-            //Check if the person has any roles on the server.
-            final List<Role> otherGuildRoles = otherGuildMember.getRoles();
-            return !otherGuildRoles.isEmpty();
-        }).collect(Collectors.toList());
-
-        //Check if we found any valid guilds
-        if (validGuilds.isEmpty()) {
-            //Get the other guilds user is also on
-            final List<Guild> mutableGuilds = new ArrayList<>(mutualGuilds);
-            mutableGuilds.removeIf(currentGuild::equals);
-            if (mutableGuilds.isEmpty()) {
-                //Only this guild
-                channel.sendMessage(locale.getString("ROLE_NO_MUTUAL_GUILDS")).queue();
-            } else {
-                //Not a member on other server
-                channel.sendMessage(locale.getString("ROLE_NO_ROLES_ON_MUTUAL_SERVER")).queue();
+
+            //Check if we found any valid guilds
+            if (validGuilds.isEmpty()) {
+                //Get the other guilds user is also on
+                final List<Guild> mutableGuilds = new ArrayList<>(member.getUser().getMutualGuilds());
+                mutableGuilds.removeIf(currentGuild::equals);
+                if (memberships.isEmpty() && mutableGuilds.isEmpty()) {
+                    //Only this guild
+                    context.replyError(locale.getString("ROLE_NO_MUTUAL_GUILDS"));
+                } else {
+                    //Not a member on other server
+                    context.replyError(locale.getString("ROLE_NO_ROLES_ON_MUTUAL_SERVER"));
+                }
+                return;
             }
-            return;
-        }
 
-        //Found exactly one valid guild, assign role
-        if (validGuilds.size() == 1) {
-            final Guild otherGuild = validGuilds.get(0);
+            //Found exactly one valid guild, assign role
+            if (validGuilds.size() == 1) {
+                final Guild otherGuild = validGuilds.get(0);
+
+                final String roleName = otherGuild.getName();
+                final List<Role> roles = currentGuild.getRolesByName(roleName, true);
+                if (roles.isEmpty()) {
+                    context.replyError(locale.getString("ROLE_NO_ROLE_FOUND"));
+                    return;
+                }
 
-            final String roleName = otherGuild.getName();
-            final List<Role> roles = currentGuild.getRolesByName(roleName, true);
-            if (roles.isEmpty()) {
-                channel.sendMessage(locale.getString("ROLE_NO_ROLE_FOUND")).queue();
+                currentGuild.modifyMemberRoles(member, roles, null).queue((t) -> {
+                    //Success
+                    final String template = locale.getString("ROLE_AUTOMATIC_ASSIGN_SUCCESS");
+                    context.reply(String.format(template, roles.get(0).getName()));
+                }, (t) -> {
+                    //Failure
+                    LOGGER.warn(t);
+                    context.replyError(locale.getString("ROLE_ASSIGN_FAILED"));
+                });
                 return;
             }
 
-            currentGuild.modifyMemberRoles(member, roles, null).queue((t) -> {
-                //Success
-                final String template = locale.getString("ROLE_AUTOMATIC_ASSIGN_SUCCESS");
-                channel.sendMessageFormat(template, roles.get(0).getName()).queue();
-            }, (t) -> {
-                //Failure
-                LOGGER.warn(t);
-                channel.sendMessage(locale.getString("ROLE_ASSIGN_FAILED")).queue();
-            });
-            return;
-        }
+            //More guilds, ask them to use role command
+            context.replyError(locale.getString("ROLE_AUTOMATIC_MULTIPLE_GUILDS"));
+        }).exceptionally((Throwable t) -> {
+            return memberRetrievalFailed(context, locale, t);
+        });
+    }
+
+    /**
+     * Report failure to find the memberships of the user
+     *
+     * @param context Context to respond to
+     * @param locale Locale to respond in
+     * @param error Error that caused the failure
+     * @return null
+     */
+    private static Void memberRetrievalFailed(final CommandContext context, final ResourceBundle locale, final Throwable error) {
+        LOGGER.error("Failed to find memberships for role assignment: {}", error.getMessage());
+        LOGGER.trace("Stack trace: ", error);
+        context.replyError(locale.getString("ERROR_MEMBER_RETRIEVAL"));
+        return null;
+    }
 
-        //More guilds, ask them to use role command
-        channel.sendMessage(locale.getString("ROLE_AUTOMATIC_MULTIPLE_GUILDS")).queue();
+    /**
+     * Get the other guilds that have a role with their name in current guild
+     *
+     * @param currentGuild Guild to check roles in
+     * @return List of guilds
+     */
+    private static List<Guild> getRoleGuilds(final Guild currentGuild) {
+        final List<Guild> roleGuilds = new ArrayList<>();
+        for (final Guild otherGuild : currentGuild.getJDA().getGuilds()) {
+            if (otherGuild.equals(currentGuild)) {
+                continue;
+            }
+            if (!currentGuild.getRolesByName(otherGuild.getName(), true).isEmpty()) {
+                roleGuilds.add(otherGuild);
+            }
+        }
+        return roleGuilds;
+    }
 
+    /**
+     * Find the user in guilds, uses cached members when available and
+     * retrieves the rest
+     *
+     * @param user User to find
+     * @param guilds Guilds to look for the user in
+     * @return Future containing the members of the user in guilds user is in
+     */
+    private static CompletableFuture<List<Member>> findMemberships(final User user, final Collection<Guild> guilds) {
+        final List<CompletableFuture<Member>> futures = new ArrayList<>(guilds.size());
+        for (final Guild guild : guilds) {
+            final Member cached = guild.getMember(user);
+            if (cached != null) {
+                futures.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            futures.add(guild.retrieveMember(user).submit().handle((Member found, Throwable error) -> {
+                if (error == null) {
+                    return found;
+                }
+                //Unknown member means user is not on the guild, anything else is a real failure
+                final Throwable cause = (error instanceof CompletionException) ? error.getCause() : error;
+                if (cause instanceof ErrorResponseException
+                        && ((ErrorResponseException) cause).getErrorResponse() == ErrorResponse.UNKNOWN_MEMBER) {
+                    return null;
+                }
+                throw new CompletionException(cause);
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply((Void t) -> {
+            final List<Member> members = new ArrayList<>(futures.size());
+            for (final CompletableFuture<Member> future : futures) {
+                final Member member = future.join();
+                if (member != null) {
+                    members.add(member);
+                }
+            }
+            return members;
+        });
     }
 
     private void allowRole(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         final List<String> opts = matcher.parseArguments(3);
         final Member requester = matcher.getMember();
         if (!requester.hasPermission(Permission.MANAGE_ROLES)) {
-            channel.sendMessage(locale.getString("ROLE_USER_NO_PERMISSION")).queue();
+            context.replyError(locale.getString("ROLE_USER_NO_PERMISSION"));
             return;
         }
         if (opts.size() < 2) {
-            channel.sendMessage(locale.getString("ROLE_ALLOW_MISSING_ROLE_NAME")).queue();
+            context.replyError(locale.getString("ROLE_ALLOW_MISSING_ROLE_NAME"));
             return;
         }
         final String roleName = opts.get(1);
@@ -362,12 +440,12 @@ public class RoleCommand extends ChatCommand {
         final List<Role> roles = guild.getRolesByName(roleName, false);
         if (roles.isEmpty()) {
             final String template = locale.getString("ROLE_NO_ROLE_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         if (roles.size() > 1) {
             final String template = locale.getString("ROLE_MULTIPLE_ROLES_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         final Role role = roles.get(0);
@@ -384,12 +462,12 @@ public class RoleCommand extends ChatCommand {
         final AllowedRole allowedRole = new AllowedRole(role, roleDescription);
         try {
             if (this.manager.allowRole(allowedRole)) {
-                channel.sendMessage(locale.getString("ROLE_ALLOW_SUCCESS")).queue();
+                context.reply(locale.getString("ROLE_ALLOW_SUCCESS"));
                 return;
             }
-            channel.sendMessage(locale.getString("ROLE_ALLOW_ALREADY_ALLOWED")).queue();
+            context.replyError(locale.getString("ROLE_ALLOW_ALREADY_ALLOWED"));
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("ROLE_SQL_ERROR_ON_ALLOW")).queue();
+            context.replyError(locale.getString("ROLE_SQL_ERROR_ON_ALLOW"));
             LOGGER.error("Failure to allow role: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -398,15 +476,14 @@ public class RoleCommand extends ChatCommand {
 
     private void disallowRole(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         final Member requester = matcher.getMember();
         if (!requester.hasPermission(Permission.MANAGE_ROLES)) {
-            channel.sendMessage(locale.getString("ROLE_USER_NO_PERMISSION")).queue();
+            context.replyError(locale.getString("ROLE_USER_NO_PERMISSION"));
             return;
         }
         if (opts.length < 2) {
-            channel.sendMessage(locale.getString("ROLE_DISALLOW_MISSING_ROLE_NAME")).queue();
+            context.replyError(locale.getString("ROLE_DISALLOW_MISSING_ROLE_NAME"));
             return;
         }
         final String roleName = opts[1];
@@ -414,23 +491,23 @@ public class RoleCommand extends ChatCommand {
         final List<Role> roles = guild.getRolesByName(roleName, false);
         if (roles.isEmpty()) {
             final String template = locale.getString("ROLE_NO_ROLE_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         if (roles.size() > 1) {
             final String template = locale.getString("ROLE_MULTIPLE_ROLES_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         final Role role = roles.get(0);
         try {
             if (this.manager.disallowRole(role)) {
-                channel.sendMessage(locale.getString("ROLE_DISALLOW_SUCCESS")).queue();
+                context.reply(locale.getString("ROLE_DISALLOW_SUCCESS"));
                 return;
             }
-            channel.sendMessage(locale.getString("ROLE_DISALLOW_ALREADY_DISALLOWED")).queue();
+            context.replyError(locale.getString("ROLE_DISALLOW_ALREADY_DISALLOWED"));
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("ROLE_SQL_ERROR_ON_DISALLOW")).queue();
+            context.replyError(locale.getString("ROLE_SQL_ERROR_ON_DISALLOW"));
             LOGGER.error("Failure to disallow role: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
         }
@@ -438,10 +515,9 @@ public class RoleCommand extends ChatCommand {
 
     private void getRole(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         if (opts.length < 2) {
-            channel.sendMessage(locale.getString("ROLE_GET_MISSING_ROLE_NAME")).queue();
+            context.replyError(locale.getString("ROLE_GET_MISSING_ROLE_NAME"));
             return;
         }
         final String roleName = opts[1];
@@ -451,12 +527,12 @@ public class RoleCommand extends ChatCommand {
         final List<Role> roles = guild.getRolesByName(roleName, false);
         if (roles.isEmpty()) {
             final String template = locale.getString("ROLE_NO_ROLE_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         if (roles.size() > 1) {
             final String template = locale.getString("ROLE_MULTIPLE_ROLES_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         final Role role = roles.get(0);
@@ -466,7 +542,7 @@ public class RoleCommand extends ChatCommand {
         try {
             roleAllowed = this.manager.isAllowed(role);
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("ROLE_SQL_ERROR_ON_CHECK")).queue();
+            context.replyError(locale.getString("ROLE_SQL_ERROR_ON_CHECK"));
             LOGGER.error("Failure to check if we can remove role from user: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
             return;
@@ -478,25 +554,24 @@ public class RoleCommand extends ChatCommand {
             guild.addRoleToMember(requester, role).queue((Void t) -> {
                 //Assigned role successfully
                 final String template = locale.getString("ROLE_ASSIGNED_SUCCESFULLY");
-                channel.sendMessageFormat(template, roleName).queue();
+                context.reply(String.format(template, roleName));
             }, (Throwable e) -> {
                 //Failed to assign role
-                channel.sendMessage(locale.getString("ROLE_BOT_NO_PERMISSION")).queue();
+                context.replyError(locale.getString("ROLE_BOT_NO_PERMISSION"));
             });
             return;
         }
 
         //Role not allowed
         final String template = locale.getString("ROLE_ROLE_NOT_ALLOWED");
-        channel.sendMessageFormat(template, roleName).queue();
+        context.replyError(String.format(template, roleName));
     }
 
     private void removeRole(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         if (opts.length < 2) {
-            channel.sendMessage(locale.getString("ROLE_REMOVE_MISSING_ROLE_NAME")).queue();
+            context.replyError(locale.getString("ROLE_REMOVE_MISSING_ROLE_NAME"));
             return;
         }
         final String roleName = opts[1];
@@ -504,12 +579,12 @@ public class RoleCommand extends ChatCommand {
         final List<Role> roles = guild.getRolesByName(roleName, false);
         if (roles.isEmpty()) {
             final String template = locale.getString("ROLE_NO_ROLE_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         if (roles.size() > 1) {
             final String template = locale.getString("ROLE_MULTIPLE_ROLES_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         final Role role = roles.get(0);
@@ -519,7 +594,7 @@ public class RoleCommand extends ChatCommand {
         try {
             roleAllowed = this.manager.isAllowed(role);
         } catch (SQLException ex) {
-            channel.sendMessage(locale.getString("ROLE_SQL_ERROR_ON_CHECK")).queue();
+            context.replyError(locale.getString("ROLE_SQL_ERROR_ON_CHECK"));
             LOGGER.error("Failure to check if we can remove role from user: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
             return;
@@ -530,23 +605,22 @@ public class RoleCommand extends ChatCommand {
             final Member requester = matcher.getMember();
             guild.removeRoleFromMember(requester, role).queue((Void t) -> {
                 //Assigned role successfully
-                channel.sendMessage(locale.getString("ROLE_REMOVED_SUCCESFULLY")).queue();
+                context.reply(locale.getString("ROLE_REMOVED_SUCCESFULLY"));
             }, (Throwable e) -> {
                 //Failed to assign role
-                channel.sendMessage(locale.getString("ROLE_BOT_NO_PERMISSION")).queue();
+                context.replyError(locale.getString("ROLE_BOT_NO_PERMISSION"));
             });
             return;
         }
 
         //Role not allowed
         final String template = locale.getString("ROLE_ROLE_NOT_ALLOWED");
-        channel.sendMessageFormat(template, roleName).queue();
+        context.replyError(String.format(template, roleName));
 
     }
 
     private void listAllowedRoles(final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         final Guild guild = matcher.getGuild();
 
@@ -557,7 +631,7 @@ public class RoleCommand extends ChatCommand {
         } catch (SQLException ex) {
             LOGGER.error("Failure to get list of roles from database: {}", ex.getMessage());
             LOGGER.trace("Stack trace", ex);
-            channel.sendMessage(locale.getString("ROLE_SQL_ERROR_ON_LIST")).queue();
+            context.replyError(locale.getString("ROLE_SQL_ERROR_ON_LIST"));
             return;
         }
 
@@ -570,15 +644,14 @@ public class RoleCommand extends ChatCommand {
         eb.setTitle(locale.getString("HEADER_ALLOWED_ROLES"));
         eb.setDescription(sb);
 
-        channel.sendMessageEmbeds(eb.build()).queue();
+        context.reply(eb.build());
     }
 
     private void getRandomMemberWithRole(final String[] opts, final CommandContext context) {
         final CommandMatcher matcher = context.getMatcher();
-        final TextChannel channel = matcher.getTextChannel();
         final ResourceBundle locale = context.getResource();
         if (opts.length < 2) {
-            channel.sendMessage(locale.getString("ROLE_RANDOM_MISSING_ROLE_NAME")).queue();
+            context.replyError(locale.getString("ROLE_RANDOM_MISSING_ROLE_NAME"));
             return;
         }
         final String roleName = opts[1];
@@ -586,12 +659,12 @@ public class RoleCommand extends ChatCommand {
         final List<Role> roles = guild.getRolesByName(roleName, false);
         if (roles.isEmpty()) {
             final String template = locale.getString("ROLE_NO_ROLE_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         if (roles.size() > 1) {
             final String template = locale.getString("ROLE_MULTIPLE_ROLES_WITH_NAME");
-            channel.sendMessageFormat(template, roleName).queue();
+            context.replyError(String.format(template, roleName));
             return;
         }
         final Role role = roles.get(0);
@@ -600,15 +673,15 @@ public class RoleCommand extends ChatCommand {
         }).onSuccess((List<Member> members) -> {
             if (members.isEmpty()) {
                 final String template = locale.getString("ROLE_NO_MEMBERS");
-                channel.sendMessageFormat(template, roleName).queue();
+                context.reply(String.format(template, roleName));
                 return;
             }
             final int index = this.RNG.nextInt(members.size());
             final Member member = members.get(index);
             final String template = locale.getString("ROLE_SELECTED_USER");
-            channel.sendMessageFormat(template, member.getEffectiveName()).queue();
+            context.reply(String.format(template, member.getEffectiveName()));
         }).onError((t) -> {
-            channel.sendMessage(locale.getString("ROLE_BOT_PRIVILIGE_MISSING")).queue();
+            context.replyError(locale.getString("ROLE_BOT_PRIVILIGE_MISSING"));
             LOGGER.warn("Failed to get members with role: {}, error: {}", role.getId(), t.getMessage());
             LOGGER.trace("Stack trace", t);
         });
@@ -0,0 +1,246 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.scheduling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Replays reminders and notifications that were due while the bot was offline.
+ * Jobs are run one at a time at a fixed rate so a restart after long downtime
+ * does not send a burst of messages. Within a guild jobs run in due-time
+ * order, guilds take turns so one guild with many missed jobs does not delay
+ * the others.
+ *
+ * @author Neutroni
+ */
+public class CatchUpQueue {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int PROGRESS_LOG_INTERVAL = 50;
+
+    private final TimerService timerService;
+    private final long dispatchIntervalMillis;
+    private final Duration cutoff;
+
+    //Guarded by this
+    private final Map<Long, GuildQueue> guildQueues = new HashMap<>();
+    private final PriorityQueue<GuildQueue> readyGuilds = new PriorityQueue<>(
+            Comparator.comparingLong((GuildQueue q) -> q.round).thenComparing((GuildQueue q) -> q.jobs.peek().due));
+    private long currentRound;
+    private boolean dispatching;
+
+    //Metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    //Jobs that were queued but passed the cutoff before their turn
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong totalLatenessMillis = new AtomicLong();
+    private final AtomicLong maxLatenessMillis = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param timer TimerService to run the jobs with
+     * @param dispatchInterval Time to wait between jobs
+     * @param cutoff Jobs due longer than this ago are skipped
+     */
+    public CatchUpQueue(final TimerService timer, final Duration dispatchInterval, final Duration cutoff) {
+        this.timerService = timer;
+        this.dispatchIntervalMillis = Math.max(dispatchInterval.toMillis(), 1);
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * Submit missed job to be run
+     *
+     * @param guildID ID of the guild the job belongs to
+     * @param due Time the job should have run at
+     * @param job Job to run
+     * @return true if job was queued, false if it was missed by more than the
+     * cutoff and will not be run
+     */
+    public boolean submit(final long guildID, final Instant due, final Runnable job) {
+        if (due.isBefore(Instant.now().minus(this.cutoff))) {
+            this.skipped.incrementAndGet();
+            return false;
+        }
+        this.submitted.incrementAndGet();
+        synchronized (this) {
+            final GuildQueue guildQueue = this.guildQueues.computeIfAbsent(guildID, GuildQueue::new);
+            final boolean wasIdle = guildQueue.jobs.isEmpty();
+            if (!wasIdle) {
+                //Reinsert so the queue ordering sees the possibly new head
+                this.readyGuilds.remove(guildQueue);
+            } else {
+                //Guilds joining late take part in the current round
+                guildQueue.round = Math.max(guildQueue.round, this.currentRound);
+            }
+            guildQueue.jobs.add(new CatchUpJob(due, job));
+            this.readyGuilds.add(guildQueue);
+            if (!this.dispatching) {
+                this.dispatching = true;
+                this.timerService.schedule(this::dispatch, this.dispatchIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of jobs waiting to be run
+     *
+     * @return number of pending jobs
+     */
+    public long getPendingCount() {
+        return this.submitted.get() - this.completed.get() - this.expired.get();
+    }
+
+    /**
+     * Get the number of jobs that have been run
+     *
+     * @return number of completed jobs
+     */
+    public long getCompletedCount() {
+        return this.completed.get();
+    }
+
+    /**
+     * Get the number of jobs skipped for being older than the cutoff
+     *
+     * @return number of skipped jobs
+     */
+    public long getSkippedCount() {
+        return this.skipped.get();
+    }
+
+    /**
+     * Get the largest delay between the due time and running of a job
+     *
+     * @return Duration
+     */
+    public Duration getMaxLateness() {
+        return Duration.ofMillis(this.maxLatenessMillis.get());
+    }
+
+    /**
+     * Run the next job and schedule the one after it
+     */
+    private void dispatch() {
+        //Jobs can pass the cutoff while waiting in a long queue
+        final Instant oldest = Instant.now().minus(this.cutoff);
+        CatchUpJob next = pollNext();
+        while (next != null && next.due.isBefore(oldest)) {
+            this.expired.incrementAndGet();
+            this.skipped.incrementAndGet();
+            next = pollNext();
+        }
+        if (next == null) {
+            return;
+        }
+
+        final long lateness = System.currentTimeMillis() - next.due.toEpochMilli();
+        this.totalLatenessMillis.addAndGet(lateness);
+        this.maxLatenessMillis.accumulateAndGet(lateness, Math::max);
+        try {
+            next.job.run();
+        } catch (RuntimeException e) {
+            LOGGER.error("Catch-up job failed: {}", e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+        }
+        final long done = this.completed.incrementAndGet();
+        final long pending = getPendingCount();
+        if (pending == 0 || done % PROGRESS_LOG_INTERVAL == 0) {
+            LOGGER.info("Catch-up progress: {} run, {} pending, {} skipped, average lateness {} ms, max lateness {} ms",
+                    done, pending, this.skipped.get(), this.totalLatenessMillis.get() / done, this.maxLatenessMillis.get());
+        }
+
+        synchronized (this) {
+            if (this.readyGuilds.isEmpty()) {
+                this.dispatching = false;
+                return;
+            }
+        }
+        this.timerService.schedule(this::dispatch, this.dispatchIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Take the next job from the guild whose turn it is
+     *
+     * @return next job or null if there are no jobs left
+     */
+    private synchronized CatchUpJob pollNext() {
+        final GuildQueue guildQueue = this.readyGuilds.poll();
+        if (guildQueue == null) {
+            this.dispatching = false;
+            return null;
+        }
+        final CatchUpJob next = guildQueue.jobs.poll();
+        this.currentRound = guildQueue.round;
+        guildQueue.round++;
+        if (guildQueue.jobs.isEmpty()) {
+            this.guildQueues.remove(guildQueue.guildID);
+        } else {
+            this.readyGuilds.add(guildQueue);
+        }
+        return next;
+    }
+
+    /**
+     * Missed jobs of a single guild
+     */
+    private static class GuildQueue {
+
+        private final long guildID;
+        private final PriorityQueue<CatchUpJob> jobs = new PriorityQueue<>(Comparator.comparing((CatchUpJob j) -> j.due));
+        private long round;
+
+        GuildQueue(final long guildID) {
+            this.guildID = guildID;
+        }
+    }
+
+    /**
+     * Job with the time it was due at
+     */
+    private static class CatchUpJob {
+
+        private final Instant due;
+        private final Runnable job;
+
+        CatchUpJob(final Instant due, final Runnable job) {
+            this.due = due;
+            this.job = job;
+        }
+    }
+
+}
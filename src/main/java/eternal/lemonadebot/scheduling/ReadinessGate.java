@@ -0,0 +1,169 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.ReadyEvent;
+import net.dv8tion.jda.api.events.StatusChangeEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Holds jobs that need the gateway connection until JDA is connected, so
+ * timer threads never block waiting for a reconnect
+ *
+ * @author Neutroni
+ */
+public class ReadinessGate extends ListenerAdapter {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final TimerService timerService;
+
+    //Guarded by this
+    private final Queue<HeldJob> heldJobs = new ArrayDeque<>();
+    private boolean ready;
+
+    //Metrics
+    private final AtomicLong releasedJobs = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param timer TimerService to run released jobs with
+     */
+    public ReadinessGate(final TimerService timer) {
+        this.timerService = timer;
+    }
+
+    /**
+     * Run job now if JDA is connected, otherwise hold it until the connection
+     * is ready
+     *
+     * @param job Job to run
+     */
+    public void submit(final Runnable job) {
+        synchronized (this) {
+            if (!this.ready) {
+                this.heldJobs.add(new HeldJob(job, System.nanoTime()));
+                return;
+            }
+        }
+        job.run();
+    }
+
+    /**
+     * Update the gate with the current status of JDA
+     *
+     * @param status Status of JDA
+     */
+    public void updateStatus(final JDA.Status status) {
+        final boolean connected = (status == JDA.Status.CONNECTED);
+        final Queue<HeldJob> released;
+        synchronized (this) {
+            if (this.ready == connected) {
+                return;
+            }
+            this.ready = connected;
+            if (!connected || this.heldJobs.isEmpty()) {
+                LOGGER.debug("Readiness gate {}", connected ? "opened" : "closed");
+                return;
+            }
+            released = new ArrayDeque<>(this.heldJobs);
+            this.heldJobs.clear();
+        }
+
+        //Run released jobs on the timer threads instead of the event thread
+        final long now = System.nanoTime();
+        for (final HeldJob held : released) {
+            final long waited = TimeUnit.NANOSECONDS.toMillis(now - held.heldSince);
+            this.totalWaitMillis.addAndGet(waited);
+            this.maxWaitMillis.accumulateAndGet(waited, Math::max);
+            this.timerService.schedule(held.job, 0, TimeUnit.MILLISECONDS);
+        }
+        final long total = this.releasedJobs.addAndGet(released.size());
+        LOGGER.info("Readiness gate opened, released {} held jobs, total released {}, average wait {} ms, max wait {} ms",
+                released.size(), total, this.totalWaitMillis.get() / total, this.maxWaitMillis.get());
+    }
+
+    /**
+     * Get the number of jobs currently held
+     *
+     * @return number of held jobs
+     */
+    public synchronized int getHeldCount() {
+        return this.heldJobs.size();
+    }
+
+    /**
+     * Get the number of jobs that have been held and then released
+     *
+     * @return number of released jobs
+     */
+    public long getReleasedCount() {
+        return this.releasedJobs.get();
+    }
+
+    /**
+     * Get the longest time a job has been held
+     *
+     * @return wait time in milliseconds
+     */
+    public long getMaxWaitMillis() {
+        return this.maxWaitMillis.get();
+    }
+
+    @Override
+    public void onReady(final @Nonnull ReadyEvent event) {
+        updateStatus(event.getJDA().getStatus());
+    }
+
+    @Override
+    public void onStatusChange(final @Nonnull StatusChangeEvent event) {
+        updateStatus(event.getNewStatus());
+    }
+
+    /**
+     * Job waiting for JDA to become ready
+     */
+    private static class HeldJob {
+
+        private final Runnable job;
+        private final long heldSince;
+
+        HeldJob(final Runnable job, final long heldSince) {
+            this.job = job;
+            this.heldSince = heldSince;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.scheduling;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Handle for a task scheduled with the TimerService, also works as the entry
+ * stored in the buckets of the timing wheel
+ *
+ * @author Neutroni
+ */
+public class ScheduledTimer implements Runnable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Runnable task;
+    private final long expirationMs;
+    private final TimerService timerService;
+    private final AtomicBoolean completed = new AtomicBoolean(false);
+
+    //Linked list of the bucket this timer is stored in, guarded by the bucket
+    volatile TimerBucket bucket;
+    ScheduledTimer next;
+    ScheduledTimer previous;
+
+    /**
+     * Constructor
+     *
+     * @param task Task to run once the timer expires
+     * @param expirationMs Time the timer expires at, in timer clock millis
+     * @param timerService TimerService the timer belongs to
+     */
+    ScheduledTimer(final Runnable task, final long expirationMs, final TimerService timerService) {
+        this.task = task;
+        this.expirationMs = expirationMs;
+        this.timerService = timerService;
+    }
+
+    /**
+     * Run the task, does nothing if timer has been cancelled
+     */
+    @Override
+    public void run() {
+        if (!this.completed.compareAndSet(false, true)) {
+            return;
+        }
+        this.timerService.timerCompleted();
+        try {
+            this.task.run();
+        } catch (RuntimeException e) {
+            LOGGER.error("Scheduled task failed: {}", e.getMessage());
+            LOGGER.trace("Stack trace: ", e);
+        }
+    }
+
+    /**
+     * Cancel the timer, task will finish if it is already running
+     *
+     * @return true if the timer was cancelled before it ran
+     */
+    public boolean cancel() {
+        if (!this.completed.compareAndSet(false, true)) {
+            return false;
+        }
+        this.timerService.timerCompleted();
+
+        //Unlink from the bucket, timer might move between buckets while cascading
+        TimerBucket currentBucket = this.bucket;
+        while (currentBucket != null) {
+            currentBucket.remove(this);
+            currentBucket = this.bucket;
+        }
+        return true;
+    }
+
+    /**
+     * Check if the timer was cancelled or has already run
+     *
+     * @return true if timer will not run anymore
+     */
+    public boolean isDone() {
+        return this.completed.get();
+    }
+
+    /**
+     * Get the time this timer expires at
+     *
+     * @return expiration time in timer clock millis
+     */
+    long getExpirationMs() {
+        return this.expirationMs;
+    }
+
+}
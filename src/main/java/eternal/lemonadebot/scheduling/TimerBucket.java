@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.scheduling;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Slot of a timing wheel, doubly linked list of timers with O(1) add and
+ * remove
+ *
+ * @author Neutroni
+ */
+class TimerBucket implements Delayed {
+
+    private final ScheduledTimer root;
+    private final AtomicLong expiration = new AtomicLong(-1);
+
+    /**
+     * Constructor
+     */
+    TimerBucket() {
+        this.root = new ScheduledTimer(null, -1, null);
+        this.root.next = this.root;
+        this.root.previous = this.root;
+    }
+
+    /**
+     * Add timer to the bucket
+     *
+     * @param timer Timer to add
+     */
+    void add(final ScheduledTimer timer) {
+        //Timer can be in only one bucket at a time
+        TimerBucket oldBucket = timer.bucket;
+        while (oldBucket != null) {
+            oldBucket.remove(timer);
+            oldBucket = timer.bucket;
+        }
+        synchronized (this) {
+            final ScheduledTimer tail = this.root.previous;
+            timer.next = this.root;
+            timer.previous = tail;
+            tail.next = timer;
+            this.root.previous = timer;
+            timer.bucket = this;
+        }
+    }
+
+    /**
+     * Remove timer from the bucket
+     *
+     * @param timer Timer to remove
+     */
+    synchronized void remove(final ScheduledTimer timer) {
+        if (timer.bucket != this) {
+            return;
+        }
+        timer.next.previous = timer.previous;
+        timer.previous.next = timer.next;
+        timer.next = null;
+        timer.previous = null;
+        timer.bucket = null;
+    }
+
+    /**
+     * Remove all timers from the bucket and pass them to the consumer
+     *
+     * @param consumer Consumer to pass the timers to
+     */
+    synchronized void flush(final Consumer<ScheduledTimer> consumer) {
+        ScheduledTimer head = this.root.next;
+        while (head != this.root) {
+            remove(head);
+            consumer.accept(head);
+            head = this.root.next;
+        }
+        this.expiration.set(-1);
+    }
+
+    /**
+     * Set the expiration time of the bucket
+     *
+     * @param expirationMs new expiration time
+     * @return true if the expiration time changed
+     */
+    boolean setExpiration(final long expirationMs) {
+        return this.expiration.getAndSet(expirationMs) != expirationMs;
+    }
+
+    /**
+     * Get the expiration time of the bucket
+     *
+     * @return expiration time in timer clock millis
+     */
+    long getExpiration() {
+        return this.expiration.get();
+    }
+
+    @Override
+    public long getDelay(final TimeUnit unit) {
+        final long delay = Math.max(getExpiration() - TimerService.currentTimeMillis(), 0);
+        return unit.convert(delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(final Delayed other) {
+        final TimerBucket otherBucket = (TimerBucket) other;
+        return Long.compare(getExpiration(), otherBucket.getExpiration());
+    }
+
+}
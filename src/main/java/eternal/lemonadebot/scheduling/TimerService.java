@@ -0,0 +1,172 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.scheduling;
+
+import java.io.Closeable;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Process wide timer shared by all the guilds, stores pending timers in a
+ * hierarchical timing wheel so scheduling and cancelling is O(1) and the
+ * number of threads does not depend on the number of timers
+ *
+ * @author Neutroni
+ */
+public class TimerService implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long TICK_MS = 100;
+    private static final int WHEEL_SIZE = 512;
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final DelayQueue<TimerBucket> delayQueue = new DelayQueue<>();
+    private final TimingWheel timingWheel;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong pendingTimers = new AtomicLong();
+    private final ExecutorService workerPool;
+    private final Thread clockThread;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor
+     *
+     * @param workerThreads Number of threads used to run expired tasks
+     */
+    public TimerService(final int workerThreads) {
+        this.timingWheel = new TimingWheel(TICK_MS, WHEEL_SIZE, currentTimeMillis(), this.delayQueue);
+        this.workerPool = Executors.newFixedThreadPool(Math.max(workerThreads, 1));
+        this.clockThread = new Thread(this::advanceClock, "TimerService-clock");
+        this.clockThread.setDaemon(true);
+        this.clockThread.start();
+    }
+
+    /**
+     * Schedule a task to run after a delay
+     *
+     * @param task Task to run
+     * @param delay Delay to wait before running the task
+     * @param unit Unit of the delay
+     * @return ScheduledTimer that can be used to cancel the task
+     */
+    public ScheduledTimer schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        //Round up to the next tick so that timers never expire early
+        final long expiration = currentTimeMillis() + Math.max(unit.toMillis(delay), 0) + TICK_MS - 1;
+        final ScheduledTimer timer = new ScheduledTimer(task, expiration, this);
+        this.pendingTimers.incrementAndGet();
+        this.lock.readLock().lock();
+        try {
+            addTimer(timer);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return timer;
+    }
+
+    /**
+     * Get the number of timers waiting to expire
+     *
+     * @return number of pending timers
+     */
+    public long getPendingCount() {
+        return this.pendingTimers.get();
+    }
+
+    @Override
+    public void close() {
+        this.running = false;
+        this.clockThread.interrupt();
+        this.workerPool.shutdown();
+    }
+
+    /**
+     * Called by ScheduledTimer once it has run or has been cancelled
+     */
+    void timerCompleted() {
+        this.pendingTimers.decrementAndGet();
+    }
+
+    /**
+     * Get the current time of the timer clock, monotonic and not affected by
+     * changes to the system time
+     *
+     * @return current time in millis
+     */
+    static long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Add timer to the wheel or run it if it has already expired
+     *
+     * @param timer Timer to add
+     */
+    private void addTimer(final ScheduledTimer timer) {
+        if (this.timingWheel.add(timer)) {
+            return;
+        }
+        if (!timer.isDone()) {
+            this.workerPool.execute(timer);
+        }
+    }
+
+    /**
+     * Loop run by the clock thread, waits for the next bucket to expire and
+     * cascades the timers in it down the wheels
+     */
+    private void advanceClock() {
+        while (this.running) {
+            try {
+                TimerBucket bucket = this.delayQueue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (bucket == null) {
+                    continue;
+                }
+                this.lock.writeLock().lock();
+                try {
+                    while (bucket != null) {
+                        this.timingWheel.advanceClock(bucket.getExpiration());
+                        bucket.flush(this::addTimer);
+                        bucket = this.delayQueue.poll();
+                    }
+                } finally {
+                    this.lock.writeLock().unlock();
+                }
+            } catch (InterruptedException e) {
+                LOGGER.debug("Timer clock thread interrupted, stopping");
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("Error advancing timer clock: {}", e.getMessage());
+                LOGGER.trace("Stack trace: ", e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 Neutroni.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package eternal.lemonadebot.scheduling;
+
+import java.util.concurrent.DelayQueue;
+
+/**
+ * Single level of a hierarchical timing wheel, timers too far in the future
+ * for this wheel are passed on to a coarser overflow wheel
+ *
+ * @author Neutroni
+ */
+class TimingWheel {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final TimerBucket[] buckets;
+    private final DelayQueue<TimerBucket> queue;
+    private volatile long currentTime;
+    private volatile TimingWheel overflowWheel;
+
+    /**
+     * Constructor
+     *
+     * @param tickMs Duration of a single bucket in millis
+     * @param wheelSize Number of buckets in the wheel
+     * @param startMs Time the wheel starts at
+     * @param queue Queue to add buckets to once they contain timers
+     */
+    TimingWheel(final long tickMs, final int wheelSize, final long startMs, final DelayQueue<TimerBucket> queue) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.queue = queue;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new TimerBucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            this.buckets[i] = new TimerBucket();
+        }
+    }
+
+    /**
+     * Add timer to the wheel
+     *
+     * @param timer Timer to add
+     * @return false if timer has already expired or has been cancelled
+     */
+    boolean add(final ScheduledTimer timer) {
+        if (timer.isDone()) {
+            return false;
+        }
+        final long expiration = timer.getExpirationMs();
+        if (expiration < this.currentTime + this.tickMs) {
+            return false;
+        }
+        if (expiration < this.currentTime + this.interval) {
+            final long virtualID = expiration / this.tickMs;
+            final TimerBucket bucket = this.buckets[(int) (virtualID % this.wheelSize)];
+            bucket.add(timer);
+
+            //Only queue the bucket when it gets a new expiration time
+            if (bucket.setExpiration(virtualID * this.tickMs)) {
+                this.queue.offer(bucket);
+            }
+            return true;
+        }
+        return getOverflowWheel().add(timer);
+    }
+
+    /**
+     * Advance the clock of this wheel and all the overflow wheels
+     *
+     * @param timeMs Time to advance to
+     */
+    void advanceClock(final long timeMs) {
+        if (timeMs < this.currentTime + this.tickMs) {
+            return;
+        }
+        this.currentTime = timeMs - (timeMs % this.tickMs);
+        final TimingWheel overflow = this.overflowWheel;
+        if (overflow != null) {
+            overflow.advanceClock(this.currentTime);
+        }
+    }
+
+    private TimingWheel getOverflowWheel() {
+        if (this.overflowWheel == null) {
+            synchronized (this) {
+                if (this.overflowWheel == null) {
+                    this.overflowWheel = new TimingWheel(this.interval, this.wheelSize, this.currentTime, this.queue);
+                }
+            }
+        }
+        return this.overflowWheel;
+    }
+
+}
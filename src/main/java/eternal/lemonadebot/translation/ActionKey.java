@@ -61,6 +61,7 @@ public enum ActionKey {
     DISALLOW("ACTION_DISALLOW"),
     GUILD("ACTION_GUILD"),
     PAY("ACTION_PAY"),
+    AUTHOR("ACTION_AUTHOR"),
     UNKNOWN(null);
 
     private final String translationKey;